@@ -0,0 +1,90 @@
+package eu.innowise.benchmark;
+
+import ch.qos.logback.classic.Logger;
+import eu.innowise.benchmark.jdbc.StubJdbc;
+import eu.innowise.benchmark.jdbc.StubMigrationStrategy;
+import eu.innowise.db.MigrationTarget;
+import eu.innowise.metrics.Metrics;
+import eu.innowise.metrics.MetricsRegistry;
+import eu.innowise.metrics.MigrationMetrics;
+import eu.innowise.migration.MigrationExecutor;
+import eu.innowise.migration.MigrationFileReader;
+import eu.innowise.migration.MigrationManager;
+import eu.innowise.model.Migration;
+import eu.innowise.parser.SqlDialect;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead of {@link MigrationExecutor} itself: schema lock, pending check, transactions,
+ * statement execution, schema history inserts and the report, against {@link StubJdbc} connections
+ * that do no work. With {@code metrics=true} the same run records metrics, which shows their cost.
+ * <p>
+ * Logging of the library is reduced to warnings so that console output does not dominate the result.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExecutorOverheadBenchmark {
+
+    @Param({"100"})
+    private int migrationCount;
+
+    @Param({"1", "100"})
+    private int statementsPerMigration;
+
+    @Param({"false", "true"})
+    private boolean metrics;
+
+    private MigrationExecutor executor;
+    private List<Migration> migrations;
+
+    @Setup
+    public void createExecutor() {
+        ((Logger) LoggerFactory.getLogger("eu.innowise")).setLevel(ch.qos.logback.classic.Level.WARN);
+        Metrics.set(metrics ? new MetricsRegistry() : MigrationMetrics.NOOP);
+
+        migrations = new ArrayList<>(migrationCount);
+        for (int i = 1; i <= migrationCount; i++) {
+            List<String> statements = new ArrayList<>(statementsPerMigration);
+            for (int j = 0; j < statementsPerMigration; j++) {
+                statements.add("INSERT INTO users (id, name) VALUES (" + (i * statementsPerMigration + j) + ", 'user')");
+            }
+            migrations.add(new Migration(String.valueOf(i), "Migration " + i, i, statements));
+        }
+
+        MigrationTarget target = new MigrationTarget("benchmark", "benchmark", StubJdbc.dataSource(List.of()), null);
+        MigrationFileReader fileReader = new MigrationFileReader(SqlDialect.POSTGRESQL);
+        executor = new MigrationExecutor(new MigrationManager(fileReader, target), fileReader,
+                new StubMigrationStrategy(), target);
+    }
+
+    @TearDown
+    public void resetMetrics() {
+        Metrics.set(null);
+    }
+
+    @Benchmark
+    public List<Migration> executeMigrations() {
+        return executor.executeMigrations(migrations);
+    }
+}
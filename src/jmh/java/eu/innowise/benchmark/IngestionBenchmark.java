@@ -0,0 +1,90 @@
+package eu.innowise.benchmark;
+
+import eu.innowise.checksum.ChecksumAlgorithm;
+import eu.innowise.metrics.MigrationMetrics;
+import eu.innowise.parser.IndexedSqlScript;
+import eu.innowise.parser.SqlDialect;
+import eu.innowise.parser.SqlFileIndexer;
+import eu.innowise.utils.MigrationUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the legacy two-pass ingestion of a migration file (MD5 over an InputStream, then
+ * {@code Files.readString} + {@code split(";")}) with the single-pass {@link SqlFileIndexer}.
+ * Both use the MD5 checksum; the checksum algorithms are compared by {@link MigrationUtilsBenchmark}.
+ * The mapped variant runs the same indexer with a mapping threshold of 0.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IngestionBenchmark {
+
+    @Param({"64", "4096", "65536"})
+    private int sizeKb;
+
+    private Path file;
+    private SqlFileIndexer heapIndexer;
+    private SqlFileIndexer mappedIndexer;
+
+    @Setup(Level.Trial)
+    public void createFile() throws IOException {
+        file = Files.createTempFile("ingestion-benchmark", ".sql");
+        long target = sizeKb * 1024L;
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            long written = 0;
+            for (int i = 0; written < target; i++) {
+                String line = "INSERT INTO users (id, name, note) VALUES (" + i + ", 'user" + i + "', 'a;b -- c');\n";
+                writer.write(line);
+                written += line.length();
+            }
+        }
+        heapIndexer = new SqlFileIndexer(SqlDialect.POSTGRESQL, Long.MAX_VALUE, MigrationMetrics.NOOP, ChecksumAlgorithm.MD5);
+        mappedIndexer = new SqlFileIndexer(SqlDialect.POSTGRESQL, 0, MigrationMetrics.NOOP, ChecksumAlgorithm.MD5);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long legacyTwoPass() throws IOException {
+        long checksum = MigrationUtils.calculateChecksum(file, ChecksumAlgorithm.MD5);
+        String[] statements = Files.readString(file, StandardCharsets.UTF_8).split(";");
+        return checksum + statements.length;
+    }
+
+    @Benchmark
+    public long singlePassHeap() throws IOException {
+        IndexedSqlScript script = heapIndexer.index(file);
+        return script.getChecksum() + script.getStatementCount();
+    }
+
+    @Benchmark
+    public long singlePassMapped() throws IOException {
+        IndexedSqlScript script = mappedIndexer.index(file);
+        return script.getChecksum() + script.getStatementCount();
+    }
+}
@@ -0,0 +1,82 @@
+package eu.innowise.benchmark;
+
+import eu.innowise.checksum.ChecksumAlgorithm;
+import eu.innowise.utils.Constants;
+import eu.innowise.utils.MigrationUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Measures {@link MigrationUtils#extractVersionFromFilename(String)} against the previous implementation that compiled
+ * the file name pattern on every call, and {@link MigrationUtils#calculateChecksum(Path, ChecksumAlgorithm)}
+ * with every algorithm on files of several sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MigrationUtilsBenchmark {
+
+    private static final String FILENAME = "V1_42__Add_index_on_users_email.sql";
+
+    @Param({"1", "64", "1024"})
+    private int checksumSizeKb;
+
+    @Param({"MD5", "CRC32C", "XXH64"})
+    private ChecksumAlgorithm algorithm;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void createFile() throws IOException {
+        byte[] content = new byte[checksumSizeKb * 1024];
+        new Random(42).nextBytes(content);
+        file = Files.createTempFile("checksum-benchmark", ".sql");
+        Files.write(file, content);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public String extractVersion() {
+        return MigrationUtils.extractVersionFromFilename(FILENAME);
+    }
+
+    @Benchmark
+    public String extractVersionCompilingPattern() {
+        Matcher matcher = Pattern.compile(Constants.MIGRATION_FILE_PATTERN).matcher(FILENAME);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException(FILENAME);
+        }
+        return matcher.group(1).replace("_", ".");
+    }
+
+    @Benchmark
+    public long calculateChecksum() {
+        return MigrationUtils.calculateChecksum(file, algorithm);
+    }
+}
@@ -0,0 +1,78 @@
+package eu.innowise.benchmark;
+
+import eu.innowise.benchmark.jdbc.StubJdbc;
+import eu.innowise.checksum.ChecksumAlgorithm;
+import eu.innowise.db.MigrationTarget;
+import eu.innowise.migration.MigrationFileReader;
+import eu.innowise.migration.MigrationManager;
+import eu.innowise.model.AppliedMigration;
+import eu.innowise.model.Migration;
+import eu.innowise.parser.SqlDialect;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures finding the pending migrations against schema histories of growing size.
+ * <p>
+ * The history is served by {@link StubJdbc}, so the result covers reading the rows, matching them with
+ * the migration files and sorting, without a database round-trip. File discovery is left out
+ * ({@link MigrationManager#filterPending(List)} is called with migrations prepared in memory);
+ * it is measured by {@link IngestionBenchmark}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PendingMigrationsBenchmark {
+
+    private static final int PENDING = 10;
+
+    @Param({"1000", "10000", "100000"})
+    private int historySize;
+
+    private MigrationManager manager;
+    private List<Migration> migrations;
+
+    @Setup
+    public void createHistory() {
+        List<AppliedMigration> history = new ArrayList<>(historySize);
+        migrations = new ArrayList<>(historySize + PENDING);
+        LocalDateTime installedOn = LocalDateTime.now();
+        ChecksumAlgorithm algorithm = ChecksumAlgorithm.configured();
+        for (int i = 1; i <= historySize + PENDING; i++) {
+            String version = (i / 100) + "." + (i % 100);
+            migrations.add(new Migration(version, "Migration " + i, i, List.of()));
+            if (i <= historySize) {
+                history.add(new AppliedMigration(version, "Migration " + i, i, algorithm, installedOn));
+            }
+        }
+        Collections.shuffle(migrations, new Random(42));
+
+        MigrationTarget target = new MigrationTarget("benchmark", "benchmark", StubJdbc.dataSource(history), null);
+        manager = new MigrationManager(new MigrationFileReader(SqlDialect.POSTGRESQL), target);
+    }
+
+    @Benchmark
+    public List<Migration> filterPending() {
+        return manager.filterPending(migrations);
+    }
+}
@@ -0,0 +1,110 @@
+package eu.innowise.benchmark;
+
+import eu.innowise.migration.MigrationVersionComparator;
+import eu.innowise.model.Migration;
+import eu.innowise.model.Version;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares sorting migrations with the previous string-based version comparison
+ * ({@code split} and {@code parseInt} on every call) against the pre-parsed {@link Version},
+ * and measures {@link MigrationVersionComparator#compareVersions(String, String)}, which parses both strings.
+ * <p>
+ * Run with {@code -prof gc} to compare allocation rates.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VersionComparisonBenchmark {
+
+    @Param({"100000"})
+    private int count;
+
+    private String[] versions;
+    private Migration[] migrations;
+    private final MigrationVersionComparator comparator = new MigrationVersionComparator();
+
+    @Setup
+    public void createVersions() {
+        Random random = new Random(42);
+        versions = new String[count];
+        for (int i = 0; i < count; i++) {
+            versions[i] = random.nextInt(3) == 0
+                    ? String.valueOf(random.nextInt(5000))
+                    : random.nextInt(5000) + "." + random.nextInt(100);
+        }
+        migrations = Arrays.stream(versions)
+                .map(version -> new Migration(version, "Benchmark", 0, List.of()))
+                .toArray(Migration[]::new);
+    }
+
+    @Benchmark
+    public String[] legacySort() {
+        String[] copy = versions.clone();
+        Arrays.sort(copy, VersionComparisonBenchmark::legacyCompareVersions);
+        return copy;
+    }
+
+    @Benchmark
+    public Migration[] parsedVersionSort() {
+        Migration[] copy = migrations.clone();
+        Arrays.sort(copy, comparator);
+        return copy;
+    }
+
+    @Benchmark
+    public int compareVersions() {
+        int result = 0;
+        for (int i = 1; i < versions.length; i++) {
+            result += MigrationVersionComparator.compareVersions(versions[i - 1], versions[i]);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public Version[] parseAndSort() {
+        Version[] parsed = new Version[versions.length];
+        for (int i = 0; i < versions.length; i++) {
+            parsed[i] = Version.parse(versions[i]);
+        }
+        Arrays.sort(parsed);
+        return parsed;
+    }
+
+    /**
+     * The comparison used before versions were parsed at ingestion.
+     */
+    private static int legacyCompareVersions(String version1, String version2) {
+        String[] parts1 = version1.split("\\.");
+        String[] parts2 = version2.split("\\.");
+
+        int length = Math.min(parts1.length, parts2.length);
+        for (int i = 0; i < length; i++) {
+            int part1 = Integer.parseInt(parts1[i]);
+            int part2 = Integer.parseInt(parts2[i]);
+            if (part1 != part2) {
+                return part1 - part2;
+            }
+        }
+        return parts1.length - parts2.length;
+    }
+}
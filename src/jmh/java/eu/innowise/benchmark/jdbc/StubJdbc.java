@@ -0,0 +1,166 @@
+package eu.innowise.benchmark.jdbc;
+
+import eu.innowise.model.AppliedMigration;
+import eu.innowise.model.Version;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * In-memory JDBC objects that accept every statement without doing any work, so benchmarks measure
+ * the overhead of the library rather than of a database.
+ * <p>
+ * Every statement succeeds and reports one affected row. A query of the schema history returns the given rows,
+ * which must be in ascending version order, or none for the rows without a version key; inserts and deletes do not
+ * change them, so a benchmark can apply the same migrations on every invocation.
+ * </p>
+ */
+public final class StubJdbc {
+
+    private static final Timestamp INSTALLED_ON = Timestamp.valueOf("2024-01-01 00:00:00");
+
+    private StubJdbc() {
+    }
+
+    /**
+     * Creates a data source whose connections see the given schema history.
+     *
+     * @param history the rows returned by queries
+     * @return the data source
+     */
+    public static DataSource dataSource(List<AppliedMigration> history) {
+        return proxy(DataSource.class, (proxy, method, args) -> switch (method.getName()) {
+            case "getConnection" -> connection(history);
+            default -> defaultValue(method.getReturnType());
+        });
+    }
+
+    private static Connection connection(List<AppliedMigration> history) {
+        boolean[] autoCommit = {true};
+        return proxy(Connection.class, (proxy, method, args) -> switch (method.getName()) {
+            case "createStatement" -> statement(Statement.class, null, history);
+            case "prepareStatement" -> statement(PreparedStatement.class, (String) args[0], history);
+            case "getMetaData" -> metaData();
+            case "setSavepoint" -> proxy(Savepoint.class, (p, m, a) -> defaultValue(m.getReturnType()));
+            case "getAutoCommit" -> autoCommit[0];
+            case "setAutoCommit" -> {
+                autoCommit[0] = (boolean) args[0];
+                yield null;
+            }
+            default -> defaultValue(method.getReturnType());
+        });
+    }
+
+    private static <T extends Statement> T statement(Class<T> type, String preparedSql, List<AppliedMigration> history) {
+        int[] batched = {0};
+        return proxy(type, (proxy, method, args) -> switch (method.getName()) {
+            case "executeQuery" -> {
+                String sql = args != null ? (String) args[0] : preparedSql;
+                yield resultSet(sql.contains("IS NULL") ? List.of() : history);
+            }
+            case "executeUpdate", "getUpdateCount" -> 1;
+            case "addBatch" -> {
+                batched[0]++;
+                yield null;
+            }
+            case "executeBatch" -> {
+                int[] counts = new int[batched[0]];
+                Arrays.fill(counts, 1);
+                batched[0] = 0;
+                yield counts;
+            }
+            case "clearBatch" -> {
+                batched[0] = 0;
+                yield null;
+            }
+            default -> defaultValue(method.getReturnType());
+        });
+    }
+
+    private static ResultSet resultSet(List<AppliedMigration> history) {
+        int[] row = {-1};
+        return proxy(ResultSet.class, (proxy, method, args) -> switch (method.getName()) {
+            case "next" -> ++row[0] < history.size();
+            case "getString" -> {
+                AppliedMigration migration = history.get(row[0]);
+                if ("version".equals(args[0]) || Integer.valueOf(1).equals(args[0])) {
+                    yield migration.getVersion();
+                }
+                if ("migration_type".equals(args[0]) || Integer.valueOf(5).equals(args[0])) {
+                    yield migration.isBaseline() ? "BASELINE" : "SQL";
+                }
+                yield "checksum_algorithm".equals(args[0]) || Integer.valueOf(4).equals(args[0])
+                        ? migration.getChecksumAlgorithm().name()
+                        : migration.getDescription();
+            }
+            case "getInt" -> (int) history.get(row[0]).getChecksum();
+            case "getLong" -> "checksum64".equals(args[0]) || Integer.valueOf(3).equals(args[0])
+                    ? history.get(row[0]).getChecksum()
+                    : Version.parse(history.get(row[0]).getVersion()).key();
+            case "getMetaData" -> resultSetMetaData();
+            case "getTimestamp" -> INSTALLED_ON;
+            default -> defaultValue(method.getReturnType());
+        });
+    }
+
+    private static ResultSetMetaData resultSetMetaData() {
+        String[] columns = {"version", "description", "checksum", "installed_on", "version_key", "checksum64",
+                "checksum_algorithm", "migration_type"};
+        return proxy(ResultSetMetaData.class, (proxy, method, args) -> switch (method.getName()) {
+            case "getColumnCount" -> columns.length;
+            case "getColumnLabel", "getColumnName" -> columns[(int) args[0] - 1];
+            default -> defaultValue(method.getReturnType());
+        });
+    }
+
+    private static DatabaseMetaData metaData() {
+        return proxy(DatabaseMetaData.class, (proxy, method, args) -> switch (method.getName()) {
+            case "supportsSavepoints", "supportsTransactions" -> true;
+            case "getDatabaseProductName" -> "Stub";
+            default -> defaultValue(method.getReturnType());
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(StubJdbc.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) {
+            return null;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == char.class) {
+            return '\0';
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == float.class) {
+            return 0f;
+        }
+        if (type == double.class) {
+            return 0d;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        return 0;
+    }
+}
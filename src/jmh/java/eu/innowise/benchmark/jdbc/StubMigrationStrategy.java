@@ -0,0 +1,41 @@
+package eu.innowise.benchmark.jdbc;
+
+import eu.innowise.db.MigrationStrategy;
+import eu.innowise.parser.SqlDialect;
+
+import java.sql.Connection;
+import java.util.Map;
+
+/**
+ * Strategy for {@link StubJdbc} connections: the lock is always free and the history table always exists.
+ */
+public class StubMigrationStrategy implements MigrationStrategy {
+
+    @Override
+    public void ensureMetadataTableExists(Connection connection) {
+    }
+
+    @Override
+    public SqlDialect getSqlDialect() {
+        return SqlDialect.POSTGRESQL;
+    }
+
+    @Override
+    public Map<String, String> getBatchDriverProperties() {
+        return Map.of();
+    }
+
+    @Override
+    public boolean supportsTransactionalDdl() {
+        return true;
+    }
+
+    @Override
+    public boolean tryLock(Connection connection) {
+        return true;
+    }
+
+    @Override
+    public void unlock(Connection connection) {
+    }
+}
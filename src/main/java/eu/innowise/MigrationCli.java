@@ -1,42 +1,122 @@
 package eu.innowise;
 
+import eu.innowise.db.ConnectionManager;
+import eu.innowise.jfr.FlightRecording;
+import eu.innowise.metrics.Metrics;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
 /**
  * Command Line Interface (CLI) for interacting with the migration tool.
  * This class allows users to execute migration-related commands directly from the command line.
+ * <p>
+ * With {@code --jfr} or {@code --jfr=<file>} the command runs under a Java Flight Recorder recording
+ * that is written to the file ({@code migration.jfr} by default) when the command exits.
+ * </p>
  */
 @Slf4j
 public class MigrationCli {
 
+    private static final String JFR_FLAG = "--jfr";
+    private static final String DEFAULT_JFR_FILE = "migration.jfr";
+
     public static void main(String[] args) {
-        if (args.length == 0) {
-            log.info("To use CLI write: java -jar migration-library.jar <command>");
-            log.info("Available commands: migrate, rollback, status");
+        List<String> arguments = new ArrayList<>(List.of(args));
+        Path recordingFile = extractRecordingFile(arguments);
+
+        if (arguments.isEmpty()) {
+            log.info("To use CLI write: java -jar migration-library.jar [--jfr[=<file>]] <command>");
+            log.info("Available commands: migrate, rollback, status, plan, squash, baseline");
             return;
         }
 
-        String command = args[0].toLowerCase();
+        FlightRecording recording = null;
+        if (recordingFile != null) {
+            try {
+                recording = FlightRecording.start(recordingFile);
+            } catch (IOException | IllegalStateException e) {
+                log.error("Failed to start flight recording, running without it.", e);
+            }
+        }
+
+        try {
+            run(arguments);
+        } finally {
+            Metrics.export();
+            ConnectionManager.closeDataSource();
+            if (recording != null) {
+                recording.close();
+            }
+        }
+    }
+
+    private static void run(List<String> arguments) {
+        String command = arguments.get(0).toLowerCase();
         switch (command) {
             case "migrate":
                 MigrationTool.migrate();
                 break;
             case "rollback":
-                if (args.length < 2) {
+                if (arguments.size() < 2) {
                     log.error("The 'rollback' command requires a version argument.");
                     System.out.println("Error: Please provide a version for rollback. Usage: rollback <version>");
                     return;
                 }
-                String version = args[1];
+                String version = arguments.get(1);
                 MigrationTool.rollback(version);
                 break;
             case "status":
                 MigrationTool.showStatus();
                 break;
+            case "plan":
+            case "rehearse":
+                MigrationTool.plan();
+                break;
+            case "squash":
+                if (arguments.size() < 2) {
+                    log.error("The 'squash' command requires a version argument.");
+                    System.out.println("Error: Please provide a version to squash up to. Usage: squash <version>");
+                    return;
+                }
+                MigrationTool.squash(arguments.get(1));
+                break;
+            case "baseline":
+                if (arguments.size() < 2) {
+                    log.error("The 'baseline' command requires a version argument.");
+                    System.out.println("Error: Please provide a version for baseline. Usage: baseline <version>");
+                    return;
+                }
+                MigrationTool.baseline(arguments.get(1));
+                break;
             default:
                 log.info("Unknown command: {}", command);
-                log.info("Available commands: migrate, rollback, status");
+                log.info("Available commands: migrate, rollback, status, plan, squash, baseline");
         }
     }
-}
 
+    /**
+     * Removes the {@code --jfr} flag from the arguments.
+     *
+     * @return the file to write the recording to, or {@code null} if the flag is absent
+     */
+    private static Path extractRecordingFile(List<String> arguments) {
+        Path file = null;
+        for (Iterator<String> iterator = arguments.iterator(); iterator.hasNext(); ) {
+            String argument = iterator.next();
+            if (argument.equals(JFR_FLAG)) {
+                file = Path.of(DEFAULT_JFR_FILE);
+                iterator.remove();
+            } else if (argument.startsWith(JFR_FLAG + "=")) {
+                String value = argument.substring(JFR_FLAG.length() + 1);
+                file = Path.of(value.isBlank() ? DEFAULT_JFR_FILE : value);
+                iterator.remove();
+            }
+        }
+        return file;
+    }
+}
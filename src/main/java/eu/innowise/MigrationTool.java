@@ -1,18 +1,30 @@
 package eu.innowise;
 
-import eu.innowise.db.ConnectionManager;
 import eu.innowise.db.MigrationStrategy;
 import eu.innowise.db.MigrationStrategyFactory;
+import eu.innowise.db.MigrationTarget;
 import eu.innowise.exceptions.MigrationException;
+import eu.innowise.migration.FanOutMigrator;
 import eu.innowise.migration.MigrationExecutor;
 import eu.innowise.migration.MigrationFileReader;
 import eu.innowise.migration.MigrationManager;
+import eu.innowise.migration.MigrationRehearsal;
+import eu.innowise.migration.MigrationSquasher;
+import eu.innowise.migration.RolloutPlan;
 import eu.innowise.model.AppliedMigration;
 import eu.innowise.model.Migration;
+import eu.innowise.report.FanOutReport;
+import eu.innowise.report.MigrationCost;
+import eu.innowise.report.MigrationReportGenerator;
+import eu.innowise.report.RehearsalReport;
+import eu.innowise.report.StatementCost;
 import eu.innowise.utils.DatabaseUtils;
 import lombok.extern.slf4j.Slf4j;
 
+import java.nio.file.Path;
+import java.sql.Connection;
 import java.util.List;
+import java.util.stream.LongStream;
 
 /**
  * A tool for managing database migrations, including applying, rolling back, and checking migration status.
@@ -21,8 +33,9 @@ import java.util.List;
 public class MigrationTool {
 
     /**
-     * Starts the migration process. It ensures the schema_history table exists, retrieves pending migrations,
-     * and applies them in the correct order.
+     * Starts the migration process. It ensures the schema_history table exists, upgrades checksums written with
+     * another algorithm, retrieves pending migrations, and applies them in the correct order.
+     * A database with an empty schema history starts from the newest baseline, see {@link #squash(String)}.
      */
     public static void migrate() {
         log.info("Starting migrations...");
@@ -31,16 +44,21 @@ public class MigrationTool {
         MigrationStrategy strategy = MigrationStrategyFactory.getMigrationStrategy(dbType);
 
 
-        MigrationFileReader fileReader = new MigrationFileReader();
-        MigrationManager migrationManager = new MigrationManager(fileReader);
-        MigrationExecutor migrationExecutor = new MigrationExecutor(migrationManager, fileReader);
+        MigrationTarget target = MigrationTarget.defaultTarget();
+        MigrationFileReader fileReader = new MigrationFileReader(strategy.getSqlDialect());
+        MigrationManager migrationManager = new MigrationManager(fileReader, target);
+        MigrationExecutor migrationExecutor = new MigrationExecutor(migrationManager, fileReader, strategy, target);
 
         try {
             log.debug("Ensuring metadata table exists...");
-            strategy.ensureMetadataTableExists();
+            try (Connection connection = target.getConnection()) {
+                strategy.ensureMetadataTableExists(connection);
+            }
             log.info("Metadata table check/creation completed successfully.");
 
-            List<Migration> migrations = migrationManager.getPendingMigrations();
+            List<Migration> allMigrations = migrationManager.getAllMigrations();
+            migrationManager.upgradeChecksums(allMigrations);
+            List<Migration> migrations = migrationManager.filterPending(migrationManager.withBaseline(allMigrations));
             log.info("Found {} pending migrations: {}", migrations.size(), migrations);
 
             if (!migrations.isEmpty()) {
@@ -58,17 +76,39 @@ public class MigrationTool {
         }
     }
 
+    /**
+     * Applies the pending migrations to many targets concurrently, for example to every tenant schema of several
+     * database instances. The rollout is configured by the {@code migration.fanout.*} properties,
+     * see {@link RolloutPlan}. All targets must be databases of the type configured by {@code db.url}.
+     *
+     * @param targets the targets, in rollout order
+     * @return the aggregated result, also written as a report
+     * @throws MigrationException if the migration files cannot be read
+     */
+    public static FanOutReport migrate(List<MigrationTarget> targets) {
+        log.info("Starting fan-out migration of {} targets...", targets.size());
+
+        MigrationStrategy strategy = MigrationStrategyFactory.getMigrationStrategy(DatabaseUtils.getDatabaseType());
+        MigrationFileReader fileReader = new MigrationFileReader(strategy.getSqlDialect());
+        return new FanOutMigrator(fileReader, strategy, RolloutPlan.fromProperties()).migrate(targets);
+    }
+
     /**
      * Rolls back the database to the specified version. If an error occurs, a MigrationException is thrown.
      *
      * @param version The version to roll back to.
      */
     public static void rollback(String version) {
-        MigrationFileReader fileReader = new MigrationFileReader();
-        MigrationManager migrationManager = new MigrationManager(fileReader);
-        MigrationExecutor migrationExecutor = new MigrationExecutor(migrationManager, fileReader);
+        MigrationStrategy strategy = MigrationStrategyFactory.getMigrationStrategy(DatabaseUtils.getDatabaseType());
+        MigrationFileReader fileReader = new MigrationFileReader(strategy.getSqlDialect());
+        MigrationTarget target = MigrationTarget.defaultTarget();
+        MigrationManager migrationManager = new MigrationManager(fileReader, target);
+        MigrationExecutor migrationExecutor = new MigrationExecutor(migrationManager, fileReader, strategy, target);
 
         try {
+            try (Connection connection = target.getConnection()) {
+                strategy.ensureMetadataTableExists(connection);
+            }
             migrationExecutor.rollbackMigrationToVersion(version);
         } catch (Exception e) {
             log.error("Error during rollback.", e);
@@ -77,12 +117,106 @@ public class MigrationTool {
         }
     }
 
+    /**
+     * Rehearses the pending migrations: runs each of them, measures its statements and the locks it takes,
+     * and rolls everything back, see {@link MigrationRehearsal}. Run it against a staging copy of the database;
+     * apart from creating or upgrading the schema_history table, the database is left unchanged.
+     * The cost of every migration is printed and written as a {@code plan} report.
+     *
+     * @return the cost of the pending migrations
+     * @throws MigrationException if the pending migrations cannot be determined or the rehearsal fails
+     */
+    public static RehearsalReport plan() {
+        MigrationStrategy strategy = MigrationStrategyFactory.getMigrationStrategy(DatabaseUtils.getDatabaseType());
+        MigrationFileReader fileReader = new MigrationFileReader(strategy.getSqlDialect());
+        MigrationTarget target = MigrationTarget.defaultTarget();
+        MigrationManager migrationManager = new MigrationManager(fileReader, target);
+
+        RehearsalReport report;
+        try {
+            try (Connection connection = target.getConnection()) {
+                strategy.ensureMetadataTableExists(connection);
+            }
+            List<Migration> migrations = migrationManager.filterPending(
+                    migrationManager.withBaseline(migrationManager.getAllMigrations()));
+            report = new MigrationRehearsal(strategy, target).rehearse(migrations);
+        } catch (Exception e) {
+            log.error("Error during rehearsal.", e);
+            throw new MigrationException("Rehearsal failed.", e);
+        }
+        MigrationReportGenerator.generateJsonReport(report, report.successful(), "plan");
+
+        if (report.migrations().isEmpty()) {
+            System.out.println("No pending migrations.");
+            return report;
+        }
+        System.out.println("\nMIGRATION PLAN");
+        System.out.println("==============");
+        System.out.printf("%-10s %-30s %-10s %12s %12s %12s  %s%n", "Version", "Description", "Status", "Duration ms",
+                "Rows", "Est. rows", "Locks");
+        System.out.println("------------------------------------------------------------------------------------------");
+        for (MigrationCost cost : report.migrations()) {
+            long[] estimates = cost.statements().stream().mapToLong(StatementCost::estimatedRows).filter(rows -> rows >= 0).toArray();
+            System.out.printf("%-10s %-30s %-10s %12.1f %12d %12s  %s%n",
+                    cost.version(),
+                    cost.description(),
+                    cost.status(),
+                    cost.durationMillis(),
+                    cost.rowsAffected(),
+                    estimates.length > 0 ? Long.toString(LongStream.of(estimates).sum()) : "-",
+                    cost.reason() != null ? cost.reason() : String.join(", ", cost.locks()));
+        }
+        System.out.printf("%nRehearsed in %.1f ms; nothing was committed.%n", report.durationMillis());
+        return report;
+    }
+
+    /**
+     * Squashes the migrations up to a version into a baseline script {@code B<version>__Baseline.sql}
+     * in the migration folder. New databases apply the baseline instead of the migrations it squashed;
+     * the migration files can then be removed. The database is not accessed.
+     *
+     * @param version the highest version to squash
+     * @return the baseline file
+     * @throws MigrationException if there is nothing to squash or the baseline cannot be written
+     */
+    public static Path squash(String version) {
+        MigrationStrategy strategy = MigrationStrategyFactory.getMigrationStrategy(DatabaseUtils.getDatabaseType());
+        MigrationFileReader fileReader = new MigrationFileReader(strategy.getSqlDialect());
+        return new MigrationSquasher(fileReader, strategy.getSqlDialect()).squash(version);
+    }
+
+    /**
+     * Marks a database with an empty schema history as being at a version without running any migration,
+     * for example a database created before the library was introduced or restored from a dump.
+     *
+     * @param version the version the database is at
+     */
+    public static void baseline(String version) {
+        MigrationStrategy strategy = MigrationStrategyFactory.getMigrationStrategy(DatabaseUtils.getDatabaseType());
+        MigrationFileReader fileReader = new MigrationFileReader(strategy.getSqlDialect());
+        MigrationTarget target = MigrationTarget.defaultTarget();
+        MigrationManager migrationManager = new MigrationManager(fileReader, target);
+        MigrationExecutor migrationExecutor = new MigrationExecutor(migrationManager, fileReader, strategy, target);
+
+        try {
+            try (Connection connection = target.getConnection()) {
+                strategy.ensureMetadataTableExists(connection);
+            }
+            migrationExecutor.baseline(version);
+        } catch (Exception e) {
+            log.error("Error during baseline.", e);
+            throw new MigrationException("Baseline failed.", e);
+        }
+    }
+
     /**
      * Shows the current migration status, including a list of applied migrations and the current version.
      */
     public static void showStatus() {
         try {
-            MigrationManager migrationManager = new MigrationManager(new MigrationFileReader());
+            MigrationStrategy strategy = MigrationStrategyFactory.getMigrationStrategy(DatabaseUtils.getDatabaseType());
+            MigrationManager migrationManager = new MigrationManager(new MigrationFileReader(strategy.getSqlDialect()),
+                    MigrationTarget.readOnlyDefaultTarget());
             List<AppliedMigration> appliedMigrations = migrationManager.getAppliedMigrations();
 
             if (appliedMigrations.isEmpty()) {
@@ -92,11 +226,11 @@ public class MigrationTool {
 
             System.out.println("\nDATABASE MIGRATION STATUS");
             System.out.println("==========================");
-            System.out.printf("%-10s %-30s %-10s %-20s%n", "Version", "Description", "Checksum", "Installed On");
-            System.out.println("--------------------------------------------------------------------------------");
+            System.out.printf("%-10s %-30s %-20s %-20s%n", "Version", "Description", "Checksum", "Installed On");
+            System.out.println("------------------------------------------------------------------------------------------");
 
             for (AppliedMigration migration : appliedMigrations) {
-                System.out.printf("%-10s %-30s %-10d %-20s%n",
+                System.out.printf("%-10s %-30s %-20d %-20s%n",
                         migration.getVersion(),
                         migration.getDescription(),
                         migration.getChecksum(),
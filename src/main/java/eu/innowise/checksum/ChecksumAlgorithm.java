@@ -0,0 +1,104 @@
+package eu.innowise.checksum;
+
+import eu.innowise.exceptions.PropertiesLoadingException;
+import eu.innowise.utils.PropertiesUtils;
+
+import java.util.Locale;
+import java.util.zip.CRC32C;
+import java.util.zip.Checksum;
+
+/**
+ * Algorithms used to calculate the checksum of a migration file.
+ * <p>
+ * The algorithm of new schema history rows is set by {@code migration.checksum.algorithm} and stored next to the
+ * checksum, so rows written with another algorithm can still be validated by recalculating the file checksum
+ * with the algorithm of the row.
+ * </p>
+ */
+public enum ChecksumAlgorithm {
+
+    /**
+     * The checksum of earlier versions of the library: the hash code of the hex-encoded MD5 digest, a 32-bit value.
+     * Schema history rows without an algorithm were written with it.
+     */
+    MD5 {
+        @Override
+        public Checksum newChecksum() {
+            return new Md5HashCodeChecksum();
+        }
+    },
+
+    /**
+     * CRC-32C, computed with the CPU's CRC32 instructions where the JIT supports them. A 32-bit value.
+     */
+    CRC32C {
+        @Override
+        public Checksum newChecksum() {
+            return new CRC32C();
+        }
+    },
+
+    /**
+     * 64-bit xxHash with seed 0.
+     */
+    XXH64 {
+        @Override
+        public Checksum newChecksum() {
+            return new XxHash64();
+        }
+    };
+
+    /**
+     * Creates a checksum that is fed the content of one file.
+     *
+     * @return a new checksum
+     */
+    public abstract Checksum newChecksum();
+
+    /**
+     * Returns the algorithm configured by {@code migration.checksum.algorithm}, {@link #XXH64} by default.
+     *
+     * @return the algorithm of new checksums
+     * @throws PropertiesLoadingException if the property is not a known algorithm
+     */
+    public static ChecksumAlgorithm configured() {
+        return fromProperty(PropertiesUtils.getProperty("migration.checksum.algorithm"), XXH64);
+    }
+
+    /**
+     * Parses the algorithm from a property value, case-insensitively.
+     *
+     * @param value        the property value
+     * @param defaultValue the algorithm used when the value is missing
+     * @return the algorithm
+     * @throws PropertiesLoadingException if the value is not a known algorithm
+     */
+    public static ChecksumAlgorithm fromProperty(String value, ChecksumAlgorithm defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new PropertiesLoadingException("Unknown checksum algorithm: " + value, e);
+        }
+    }
+
+    /**
+     * Returns the algorithm stored in the {@code checksum_algorithm} column of a schema history row.
+     *
+     * @param name the column value, {@code null} for rows written before the column existed
+     * @return the algorithm, {@link #MD5} for {@code null}
+     * @throws IllegalStateException if the value is not a known algorithm
+     */
+    public static ChecksumAlgorithm fromColumn(String name) {
+        if (name == null) {
+            return MD5;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Unknown checksum algorithm in the schema history: " + name, e);
+        }
+    }
+}
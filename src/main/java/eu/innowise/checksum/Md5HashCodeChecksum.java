@@ -0,0 +1,49 @@
+package eu.innowise.checksum;
+
+import eu.innowise.exceptions.ChecksumCalculationException;
+import eu.innowise.utils.MigrationUtils;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.Checksum;
+
+/**
+ * The legacy checksum as a {@link Checksum}: the MD5 digest of the input converted by
+ * {@link MigrationUtils#toChecksum(byte[])}, sign-extended to a long.
+ */
+final class Md5HashCodeChecksum implements Checksum {
+
+    private final MessageDigest digest;
+
+    Md5HashCodeChecksum() {
+        try {
+            digest = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new ChecksumCalculationException("MD5 algorithm is not available", e);
+        }
+    }
+
+    @Override
+    public void update(int b) {
+        digest.update((byte) b);
+    }
+
+    @Override
+    public void update(byte[] b, int off, int len) {
+        digest.update(b, off, len);
+    }
+
+    @Override
+    public long getValue() {
+        try {
+            return MigrationUtils.toChecksum(((MessageDigest) digest.clone()).digest());
+        } catch (CloneNotSupportedException e) {
+            throw new ChecksumCalculationException("MD5 digest cannot be cloned", e);
+        }
+    }
+
+    @Override
+    public void reset() {
+        digest.reset();
+    }
+}
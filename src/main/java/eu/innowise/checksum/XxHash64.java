@@ -0,0 +1,144 @@
+package eu.innowise.checksum;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Objects;
+import java.util.zip.Checksum;
+
+/**
+ * Streaming 64-bit xxHash (XXH64) with seed 0.
+ * <p>
+ * Input is consumed in 32-byte stripes read as little-endian longs; a stripe split between two
+ * {@link #update(byte[], int, int)} calls is completed in a small buffer. {@link #getValue()} does not change the state,
+ * so more input can follow it.
+ * </p>
+ */
+final class XxHash64 implements Checksum {
+
+    private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME_3 = 0x165667B19E3779F9L;
+    private static final long PRIME_4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME_5 = 0x27D4EB2F165667C5L;
+    private static final int STRIPE = 32;
+
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final byte[] buffer = new byte[STRIPE];
+    private int buffered;
+    private long length;
+    private long v1;
+    private long v2;
+    private long v3;
+    private long v4;
+
+    XxHash64() {
+        reset();
+    }
+
+    @Override
+    public void update(int b) {
+        update(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void update(byte[] b, int off, int len) {
+        Objects.checkFromIndexSize(off, len, b.length);
+        length += len;
+        if (buffered > 0) {
+            int n = Math.min(STRIPE - buffered, len);
+            System.arraycopy(b, off, buffer, buffered, n);
+            buffered += n;
+            off += n;
+            len -= n;
+            if (buffered < STRIPE) {
+                return;
+            }
+            stripes(buffer, 0, STRIPE);
+            buffered = 0;
+        }
+        int end = off + len;
+        int tail = end - (len % STRIPE);
+        if (off < tail) {
+            stripes(b, off, tail);
+        }
+        if (tail < end) {
+            System.arraycopy(b, tail, buffer, 0, end - tail);
+            buffered = end - tail;
+        }
+    }
+
+    private void stripes(byte[] b, int off, int end) {
+        long a1 = v1;
+        long a2 = v2;
+        long a3 = v3;
+        long a4 = v4;
+        for (int i = off; i < end; i += STRIPE) {
+            a1 = round(a1, (long) LONG.get(b, i));
+            a2 = round(a2, (long) LONG.get(b, i + 8));
+            a3 = round(a3, (long) LONG.get(b, i + 16));
+            a4 = round(a4, (long) LONG.get(b, i + 24));
+        }
+        v1 = a1;
+        v2 = a2;
+        v3 = a3;
+        v4 = a4;
+    }
+
+    @Override
+    public long getValue() {
+        long hash;
+        if (length >= STRIPE) {
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            hash = merge(hash, v1);
+            hash = merge(hash, v2);
+            hash = merge(hash, v3);
+            hash = merge(hash, v4);
+        } else {
+            hash = PRIME_5;
+        }
+        hash += length;
+
+        int i = 0;
+        for (; i + 8 <= buffered; i += 8) {
+            hash ^= round(0, (long) LONG.get(buffer, i));
+            hash = Long.rotateLeft(hash, 27) * PRIME_1 + PRIME_4;
+        }
+        if (i + 4 <= buffered) {
+            hash ^= ((int) INT.get(buffer, i) & 0xFFFFFFFFL) * PRIME_1;
+            hash = Long.rotateLeft(hash, 23) * PRIME_2 + PRIME_3;
+            i += 4;
+        }
+        for (; i < buffered; i++) {
+            hash ^= (buffer[i] & 0xFFL) * PRIME_5;
+            hash = Long.rotateLeft(hash, 11) * PRIME_1;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= PRIME_2;
+        hash ^= hash >>> 29;
+        hash *= PRIME_3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+    @Override
+    public void reset() {
+        v1 = PRIME_1 + PRIME_2;
+        v2 = PRIME_2;
+        v3 = 0;
+        v4 = -PRIME_1;
+        buffered = 0;
+        length = 0;
+    }
+
+    private static long round(long acc, long input) {
+        return Long.rotateLeft(acc + input * PRIME_2, 31) * PRIME_1;
+    }
+
+    private static long merge(long hash, long acc) {
+        return (hash ^ round(0, acc)) * PRIME_1 + PRIME_4;
+    }
+}
@@ -3,32 +3,34 @@ package eu.innowise.db;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import eu.innowise.exceptions.DbConnectionException;
+import eu.innowise.metrics.HikariMetricsTrackerFactory;
+import eu.innowise.metrics.Metrics;
+import eu.innowise.metrics.MetricsRegistry;
+import eu.innowise.utils.Constants;
+import eu.innowise.utils.DatabaseUtils;
 import eu.innowise.utils.PropertiesUtils;
 import lombok.extern.slf4j.Slf4j;
 
+import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Map;
 
 /**
  * Manages database connections using HikariCP connection pooling.
- * It provides methods to get a connection and close the data source.
+ * <p>
+ * The pool is created on first use from the {@code db.*} properties: {@code db.pool.*} sizes and times it, and
+ * every {@code db.property.<name>} is passed to the JDBC driver. Embedders can supply their own data source with
+ * {@link #setDataSource(DataSource)} instead; it is used as is and never closed by this class.
+ * </p>
  */
 @Slf4j
 public final class ConnectionManager {
 
-    private static final HikariDataSource dataSource;
+    private static final Object LOCK = new Object();
 
-    static {
-        HikariConfig config = new HikariConfig();
-        config.setJdbcUrl(PropertiesUtils.getProperty("db.url"));
-        config.setUsername(PropertiesUtils.getProperty("db.username"));
-        config.setPassword(PropertiesUtils.getProperty("db.password"));
-        config.setDriverClassName(PropertiesUtils.getProperty("db.driver-class-name"));
-        config.setMinimumIdle(2);
-        config.setIdleTimeout(30000);
-
-        dataSource = new HikariDataSource(config);
-    }
+    private static volatile DataSource dataSource;
+    private static HikariDataSource pool;
 
     private ConnectionManager() {
     }
@@ -41,7 +43,7 @@ public final class ConnectionManager {
      */
     public static Connection getConnection() {
         try {
-            return dataSource.getConnection();
+            return getDataSource().getConnection();
         } catch (SQLException e) {
             log.error("Error getting connection from the pool", e);
             throw new DbConnectionException("Error getting connection from the pool", e);
@@ -49,13 +51,112 @@ public final class ConnectionManager {
     }
 
     /**
-     * Closes the data source and releases all resources.
+     * Returns the data source, creating the pool on the first call unless a data source was injected.
+     *
+     * @return the injected data source or the pool configured by the {@code db.*} properties
+     */
+    public static DataSource getDataSource() {
+        DataSource current = dataSource;
+        if (current != null) {
+            return current;
+        }
+        synchronized (LOCK) {
+            if (dataSource == null) {
+                pool = new HikariDataSource(createPoolConfig());
+                dataSource = pool;
+                log.info("Connection pool created.");
+            }
+            return dataSource;
+        }
+    }
+
+    /**
+     * Returns a data source for short read-only work that needs a single connection. Unless a data source was
+     * injected or the pool already exists, it opens an unpooled connection, so no pool is started.
+     *
+     * @return a data source for a single short-lived connection
+     */
+    public static DataSource getUnpooledDataSource() {
+        DataSource current = dataSource;
+        if (current != null) {
+            return current;
+        }
+        return new DriverManagerDataSource(PropertiesUtils.getProperty("db.driver-class-name"),
+                PropertiesUtils.getProperty("db.url"), PropertiesUtils.getProperty("db.username"),
+                PropertiesUtils.getProperty("db.password"), driverProperties());
+    }
+
+    /**
+     * Uses an externally managed data source instead of the configured pool. A pool created earlier is closed.
+     * The injected data source is not closed by {@link #closeDataSource()}.
+     *
+     * @param externalDataSource the data source to use, or {@code null} to go back to the configured pool
+     */
+    public static void setDataSource(DataSource externalDataSource) {
+        synchronized (LOCK) {
+            closePool();
+            dataSource = externalDataSource;
+            if (externalDataSource != null) {
+                log.info("Using an external data source.");
+            }
+        }
+    }
+
+    /**
+     * Closes the pool and releases all resources, if the pool was created. The next use creates a new pool.
      * Should be called when the application is shutting down.
      */
     public static void closeDataSource() {
-        if (dataSource != null && !dataSource.isClosed()) {
-            dataSource.close();
+        synchronized (LOCK) {
+            if (pool != null) {
+                closePool();
+                dataSource = null;
+            }
+        }
+    }
+
+    private static void closePool() {
+        if (pool != null && !pool.isClosed()) {
+            pool.close();
             log.info("DataSource closed successfully");
         }
+        pool = null;
+    }
+
+    private static HikariConfig createPoolConfig() {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("migration-pool");
+        config.setJdbcUrl(PropertiesUtils.getProperty("db.url"));
+        config.setUsername(PropertiesUtils.getProperty("db.username"));
+        config.setPassword(PropertiesUtils.getProperty("db.password"));
+        config.setDriverClassName(PropertiesUtils.getProperty("db.driver-class-name"));
+        config.setMaximumPoolSize(PropertiesUtils.getIntProperty("db.pool.maximum-size", defaultPoolSize()));
+        config.setMinimumIdle(PropertiesUtils.getIntProperty("db.pool.minimum-idle", Constants.DEFAULT_POOL_MINIMUM_IDLE));
+        config.setIdleTimeout(PropertiesUtils.getIntProperty("db.pool.idle-timeout-ms", Constants.DEFAULT_POOL_IDLE_TIMEOUT_MS));
+        config.setConnectionTimeout(PropertiesUtils.getIntProperty("db.pool.connection-timeout-ms",
+                Constants.DEFAULT_POOL_CONNECTION_TIMEOUT_MS));
+        config.setMaxLifetime(PropertiesUtils.getIntProperty("db.pool.max-lifetime-ms", Constants.DEFAULT_POOL_MAX_LIFETIME_MS));
+        driverProperties().forEach(config::addDataSourceProperty);
+        if (Metrics.current() instanceof MetricsRegistry registry) {
+            config.setMetricsTrackerFactory(new HikariMetricsTrackerFactory(registry));
+        }
+        return config;
+    }
+
+    private static Map<String, String> driverProperties() {
+        Map<String, String> properties = PropertiesUtils.getPropertiesWithPrefix("db.property.");
+        if (PropertiesUtils.getBooleanProperty("migration.batch.enabled", false)) {
+            MigrationStrategyFactory.getMigrationStrategy(DatabaseUtils.getDatabaseType())
+                    .getBatchDriverProperties()
+                    .forEach(properties::putIfAbsent);
+        }
+        return properties;
+    }
+
+    /**
+     * A parallel run needs a connection per worker plus one for the schema lock and one for the schema history.
+     */
+    private static int defaultPoolSize() {
+        return Math.max(Constants.DEFAULT_POOL_MAXIMUM_SIZE, PropertiesUtils.getIntProperty("migration.parallel.threads", 1) + 2);
     }
 }
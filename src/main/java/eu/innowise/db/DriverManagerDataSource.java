@@ -0,0 +1,103 @@
+package eu.innowise.db;
+
+import eu.innowise.exceptions.DbConnectionException;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * Data source that opens a new physical connection for every request, without a pool.
+ * Used for short read-only commands, where starting a pool costs more than the single connection they need.
+ */
+final class DriverManagerDataSource implements DataSource {
+
+    private final String url;
+    private final Properties connectionProperties;
+
+    /**
+     * @param driverClassName  the JDBC driver to load, or {@code null} to rely on driver auto-loading
+     * @param url              the JDBC URL
+     * @param username         the user name, or {@code null}
+     * @param password         the password, or {@code null}
+     * @param driverProperties additional driver properties
+     * @throws DbConnectionException if the driver class cannot be loaded
+     */
+    DriverManagerDataSource(String driverClassName, String url, String username, String password,
+                            Map<String, String> driverProperties) {
+        if (driverClassName != null && !driverClassName.isBlank()) {
+            try {
+                Class.forName(driverClassName.trim());
+            } catch (ClassNotFoundException e) {
+                throw new DbConnectionException("JDBC driver not found: " + driverClassName, e);
+            }
+        }
+        this.url = url;
+        this.connectionProperties = new Properties();
+        connectionProperties.putAll(driverProperties);
+        if (username != null) {
+            connectionProperties.setProperty("user", username);
+        }
+        if (password != null) {
+            connectionProperties.setProperty("password", password);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return DriverManager.getConnection(url, connectionProperties);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Properties properties = new Properties();
+        properties.putAll(connectionProperties);
+        properties.setProperty("user", username);
+        properties.setProperty("password", password);
+        return DriverManager.getConnection(url, properties);
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return DriverManager.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        DriverManager.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        DriverManager.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return DriverManager.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException("getParentLogger");
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> type) throws SQLException {
+        if (type.isInstance(this)) {
+            return type.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + type.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> type) {
+        return type.isInstance(this);
+    }
+}
@@ -1,9 +1,95 @@
 package eu.innowise.db;
 
+import eu.innowise.parser.SqlDialect;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Strategy interface for database migration.
  */
 public interface MigrationStrategy {
 
-    void ensureMetadataTableExists();
+    /**
+     * Creates the schema history table if it does not exist.
+     *
+     * @param connection a connection to the schema the table belongs to
+     */
+    void ensureMetadataTableExists(Connection connection);
+
+    /**
+     * @return the dialect used to split migration scripts into statements
+     */
+    SqlDialect getSqlDialect();
+
+    /**
+     * Returns driver properties that let the JDBC driver rewrite batched statements into fewer round-trips.
+     *
+     * @return the driver properties, empty if the driver has no such option
+     */
+    Map<String, String> getBatchDriverProperties();
+
+    /**
+     * Tells whether DDL statements take part in the surrounding transaction.
+     * When they do not, DDL commits implicitly and savepoints cannot undo a partially applied migration.
+     *
+     * @return {@code true} if DDL can be rolled back
+     */
+    boolean supportsTransactionalDdl();
+
+    /**
+     * Tries to take the exclusive migration lock without waiting. May be called repeatedly on the same connection
+     * until it succeeds; {@link SchemaLock} handles the timeout and backoff.
+     *
+     * @param connection the dedicated lock connection
+     * @return {@code true} if the lock was acquired, {@code false} if another session holds it
+     * @throws SQLException if the attempt fails
+     */
+    boolean tryLock(Connection connection) throws SQLException;
+
+    /**
+     * Releases the migration lock taken by {@link #tryLock(Connection)} on the same connection.
+     *
+     * @param connection the dedicated lock connection
+     * @throws SQLException if the lock cannot be released
+     */
+    void unlock(Connection connection) throws SQLException;
+
+    /**
+     * Prepares a statement of a non-transactional migration before each attempt to run it,
+     * for example by removing what an interrupted earlier attempt left behind. Does nothing by default.
+     *
+     * @param connection the autocommit connection the statement runs on
+     * @param sql        the statement about to run
+     * @throws SQLException if the preparation fails
+     */
+    default void prepareNonTransactionalStatement(Connection connection, String sql) throws SQLException {
+    }
+
+    /**
+     * Estimates the number of rows a DML statement touches from its query plan, without running it.
+     * Used by rehearsals; returns {@code -1} by default.
+     *
+     * @param connection the connection the statement would run on
+     * @param sql        the statement
+     * @return the estimated row count, or {@code -1} if the database gives no estimate
+     * @throws SQLException if the statement cannot be explained
+     */
+    default long estimateRows(Connection connection, String sql) throws SQLException {
+        return -1;
+    }
+
+    /**
+     * Lists the table locks held by the session of a connection, used by rehearsals to report the locks a migration takes.
+     * Returns an empty list by default.
+     *
+     * @param connection the connection
+     * @return the held locks as {@code <table> <mode>}
+     * @throws SQLException if the locks cannot be read
+     */
+    default List<String> heldLocks(Connection connection) throws SQLException {
+        return List.of();
+    }
 }
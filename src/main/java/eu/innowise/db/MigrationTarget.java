@@ -0,0 +1,134 @@
+package eu.innowise.db;
+
+import eu.innowise.exceptions.DbConnectionException;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A database schema that migrations are applied to: a data source and, optionally, the schema
+ * that every connection is switched to. Several targets may share one data source, for example
+ * one target per tenant schema of a database instance.
+ */
+@Slf4j
+@Getter
+public final class MigrationTarget {
+
+    private static final String DEFAULT_NAME = "default";
+
+    private final String name;
+    private final String instance;
+    private final DataSource dataSource;
+    private final String schema;
+
+    /**
+     * @param name       the name used in logs and reports, unique among the targets of a run
+     * @param instance   the database instance the target lives on; targets with the same instance share its parallelism limit
+     * @param dataSource the data source connections are taken from
+     * @param schema     the schema to switch every connection to, or {@code null} to keep the data source default
+     */
+    public MigrationTarget(String name, String instance, DataSource dataSource, String schema) {
+        this.name = Objects.requireNonNull(name, "name");
+        this.instance = Objects.requireNonNull(instance, "instance");
+        this.dataSource = Objects.requireNonNull(dataSource, "dataSource");
+        this.schema = schema;
+    }
+
+    /**
+     * Creates a target for one schema of a database instance, named {@code <instance>/<schema>}.
+     *
+     * @param instance   the database instance name
+     * @param dataSource the data source of the instance
+     * @param schema     the schema to migrate
+     * @return the target
+     */
+    public static MigrationTarget ofSchema(String instance, DataSource dataSource, String schema) {
+        return new MigrationTarget(instance + "/" + schema, instance, dataSource, Objects.requireNonNull(schema, "schema"));
+    }
+
+    /**
+     * Creates a target that opens a new unpooled connection to the JDBC URL for every request.
+     * The driver is found by JDBC driver auto-loading.
+     *
+     * @param name     the target name
+     * @param url      the JDBC URL
+     * @param username the user name, or {@code null}
+     * @param password the password, or {@code null}
+     * @return the target
+     */
+    public static MigrationTarget ofUrl(String name, String url, String username, String password) {
+        return new MigrationTarget(name, name, new DriverManagerDataSource(null, url, username, password, Map.of()), null);
+    }
+
+    /**
+     * Returns the target configured by the {@code db.*} properties, backed by {@link ConnectionManager}.
+     *
+     * @return the default target
+     */
+    public static MigrationTarget defaultTarget() {
+        return new MigrationTarget(DEFAULT_NAME, DEFAULT_NAME, ConnectionManager.getDataSource(), null);
+    }
+
+    /**
+     * Returns the target configured by the {@code db.*} properties for short read-only work.
+     * Unless the connection pool is already running or a data source was injected, connections are opened
+     * without a pool, see {@link ConnectionManager#getUnpooledDataSource()}.
+     *
+     * @return the default target for read-only work
+     */
+    public static MigrationTarget readOnlyDefaultTarget() {
+        return new MigrationTarget(DEFAULT_NAME, DEFAULT_NAME, ConnectionManager.getUnpooledDataSource(), null);
+    }
+
+    /**
+     * @return {@code true} if this is the target returned by {@link #defaultTarget()}
+     */
+    public boolean isDefault() {
+        return DEFAULT_NAME.equals(name) && schema == null;
+    }
+
+    /**
+     * Gets a connection to the target, switched to its schema.
+     *
+     * @return a connection to the target
+     * @throws DbConnectionException if the connection cannot be obtained or the schema cannot be set
+     */
+    public Connection getConnection() {
+        Connection connection;
+        try {
+            connection = dataSource.getConnection();
+        } catch (SQLException e) {
+            log.error("Error getting connection for target {}", name, e);
+            throw new DbConnectionException("Error getting connection for target " + name, e);
+        }
+
+        if (schema != null) {
+            try {
+                connection.setSchema(schema);
+            } catch (SQLException e) {
+                closeQuietly(connection);
+                log.error("Error switching connection of target {} to schema {}", name, schema, e);
+                throw new DbConnectionException("Error switching connection of target " + name + " to schema " + schema, e);
+            }
+        }
+        return connection;
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.warn("Failed to close connection.", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,140 @@
+package eu.innowise.db;
+
+import eu.innowise.checksum.ChecksumAlgorithm;
+import eu.innowise.exceptions.MigrationException;
+import eu.innowise.model.Version;
+import eu.innowise.utils.Constants;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+
+/**
+ * Upgrades a schema history table created by an earlier version of the library.
+ * <p>
+ * The {@code version_key} column holds {@link Version#key()} of every row, so pending detection and rollback
+ * can query the history by version range through the unique {@code schema_history_version_key_uk} index.
+ * Tables without the column get it, existing rows are filled in from their versions, and the unique constraint
+ * is added. The {@code checksum64} and {@code checksum_algorithm} columns hold 64-bit checksums and the algorithm
+ * they were calculated with; rows of an earlier table keep their {@code checksum} and get the algorithm {@code NULL},
+ * which is read as the legacy MD5 checksum (see {@link ChecksumAlgorithm#MD5}). The {@code migration_type} column
+ * tells baseline rows ({@code BASELINE}) from migrations ({@code SQL}, or {@code NULL} in rows of an earlier table).
+ * Every step checks the table metadata first, so an up-to-date table costs five metadata lookups.
+ * If another process upgrades the same table at the same time, a failed step is ignored once the metadata shows it done.
+ * </p>
+ */
+@Slf4j
+public final class SchemaHistoryTable {
+
+    private SchemaHistoryTable() {
+    }
+
+    /**
+     * Adds and fills the {@code version_key} column and its unique constraint, and adds the checksum and
+     * migration type columns, if they are missing.
+     * Called by {@link MigrationStrategy#ensureMetadataTableExists(Connection)} after the table was created.
+     *
+     * @param connection a connection to the schema of the table, in autocommit mode
+     * @throws MigrationException if the table cannot be upgraded
+     */
+    public static void upgrade(Connection connection) {
+        try {
+            addColumn(connection, Constants.VERSION_KEY_COLUMN, Constants.ADD_VERSION_KEY_COLUMN);
+            if (!hasVersionKeyIndex(connection)) {
+                int filled = fillVersionKeys(connection);
+                log.info("Filled version_key of {} schema history rows, adding the unique constraint.", filled);
+                execute(connection, Constants.ADD_VERSION_KEY_CONSTRAINT, () -> hasVersionKeyIndex(connection));
+            }
+            addColumn(connection, Constants.CHECKSUM64_COLUMN, Constants.ADD_CHECKSUM64_COLUMN);
+            addColumn(connection, Constants.CHECKSUM_ALGORITHM_COLUMN, Constants.ADD_CHECKSUM_ALGORITHM_COLUMN);
+            addColumn(connection, Constants.MIGRATION_TYPE_COLUMN, Constants.ADD_MIGRATION_TYPE_COLUMN);
+        } catch (SQLException e) {
+            log.error("Failed to upgrade the schema history table.", e);
+            throw new MigrationException("Failed to upgrade the schema history table.", e);
+        }
+    }
+
+    private static void addColumn(Connection connection, String column, String sql) throws SQLException {
+        if (!hasColumn(connection, column)) {
+            log.info("Adding the {} column to {}.", column, Constants.SCHEMA_HISTORY_TABLE);
+            execute(connection, sql, () -> hasColumn(connection, column));
+        }
+    }
+
+    private static int fillVersionKeys(Connection connection) throws SQLException {
+        int filled = 0;
+        try (Statement select = connection.createStatement();
+             ResultSet rs = select.executeQuery(Constants.SELECT_VERSIONS_WITHOUT_KEY);
+             PreparedStatement update = connection.prepareStatement(Constants.UPDATE_VERSION_KEY)) {
+            while (rs.next()) {
+                long key = versionKey(rs.getString("version"));
+                if (key == Version.NO_KEY) {
+                    continue;
+                }
+                update.setLong(1, key);
+                update.setInt(2, rs.getInt("installed_rank"));
+                update.addBatch();
+                filled++;
+            }
+            if (filled > 0) {
+                update.executeBatch();
+            }
+        }
+        return filled;
+    }
+
+    private static long versionKey(String version) {
+        try {
+            return Version.parse(version).key();
+        } catch (IllegalArgumentException e) {
+            log.warn("Schema history row with version {} is left without a version key: {}", version, e.getMessage());
+            return Version.NO_KEY;
+        }
+    }
+
+    private static boolean hasColumn(Connection connection, String column) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet columns = metaData.getColumns(connection.getCatalog(), connection.getSchema(),
+                identifier(metaData, Constants.SCHEMA_HISTORY_TABLE), identifier(metaData, column))) {
+            return columns.next();
+        }
+    }
+
+    private static boolean hasVersionKeyIndex(Connection connection) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet indexes = metaData.getIndexInfo(connection.getCatalog(), connection.getSchema(),
+                identifier(metaData, Constants.SCHEMA_HISTORY_TABLE), true, false)) {
+            while (indexes.next()) {
+                if (Constants.VERSION_KEY_COLUMN.equalsIgnoreCase(indexes.getString("COLUMN_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String identifier(DatabaseMetaData metaData, String name) throws SQLException {
+        return metaData.storesUpperCaseIdentifiers() ? name.toUpperCase(Locale.ROOT) : name;
+    }
+
+    private static void execute(Connection connection, String sql, UpgradeCheck done) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        } catch (SQLException e) {
+            if (!done.test()) {
+                throw e;
+            }
+            log.info("Schema history table was upgraded concurrently: {}", e.getMessage());
+        }
+    }
+
+    @FunctionalInterface
+    private interface UpgradeCheck {
+        boolean test() throws SQLException;
+    }
+}
@@ -0,0 +1,119 @@
+package eu.innowise.db;
+
+import eu.innowise.exceptions.SchemaLockException;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exclusive lock that serializes migration and rollback runs against one database.
+ * <p>
+ * The lock is taken through the {@link MigrationStrategy} lock primitive on a dedicated connection that is not
+ * used for migration work, so commits on the work connection do not release it and its cost does not depend
+ * on the size of the schema history. Acquisition is retried with exponential backoff until the timeout expires,
+ * and the time spent waiting is recorded.
+ * </p>
+ */
+@Slf4j
+@Getter
+public final class SchemaLock implements AutoCloseable {
+
+    private final MigrationStrategy strategy;
+    private final Connection connection;
+    private final Duration waitTime;
+    private final int attempts;
+
+    private SchemaLock(MigrationStrategy strategy, Connection connection, Duration waitTime, int attempts) {
+        this.strategy = strategy;
+        this.connection = connection;
+        this.waitTime = waitTime;
+        this.attempts = attempts;
+    }
+
+    /**
+     * Acquires the lock, waiting up to {@code timeout}.
+     * The lock takes ownership of the connection and closes it when the lock is released or cannot be acquired.
+     *
+     * @param strategy       the strategy providing the lock primitive
+     * @param connection     the dedicated lock connection
+     * @param timeout        the maximum time to wait for the lock
+     * @param initialBackoff the delay after the first failed attempt; doubled after every further attempt
+     * @param maxBackoff     the upper bound of the delay between attempts
+     * @return the acquired lock
+     * @throws SchemaLockException if the lock is not acquired within the timeout or the attempt fails
+     */
+    public static SchemaLock acquire(MigrationStrategy strategy, Connection connection, Duration timeout,
+                                     Duration initialBackoff, Duration maxBackoff) {
+        long start = System.nanoTime();
+        long deadline = start + timeout.toNanos();
+        long backoff = Math.max(1, initialBackoff.toMillis());
+        int attempts = 0;
+
+        try {
+            while (true) {
+                attempts++;
+                if (strategy.tryLock(connection)) {
+                    Duration waitTime = Duration.ofNanos(System.nanoTime() - start);
+                    log.info("Schema lock acquired after {} ms ({} attempts).", waitTime.toMillis(), attempts);
+                    return new SchemaLock(strategy, connection, waitTime, attempts);
+                }
+
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    log.error("Timed out after {} ms waiting for the schema lock ({} attempts).", timeout.toMillis(), attempts);
+                    throw new SchemaLockException("Timed out after " + timeout.toMillis()
+                            + " ms waiting for the schema lock, another migration may be running");
+                }
+
+                long delay = Math.min(backoff, TimeUnit.NANOSECONDS.toMillis(remaining) + 1);
+                log.debug("Schema lock is held by another process, retrying in {} ms.", delay);
+                Thread.sleep(delay);
+                backoff = Math.min(backoff * 2, Math.max(1, maxBackoff.toMillis()));
+            }
+        } catch (SQLException e) {
+            closeQuietly(connection);
+            log.error("Error acquiring schema lock", e);
+            throw new SchemaLockException("Error acquiring schema lock", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            closeQuietly(connection);
+            throw new SchemaLockException("Interrupted while waiting for the schema lock", e);
+        } catch (RuntimeException e) {
+            closeQuietly(connection);
+            throw e;
+        }
+    }
+
+    /**
+     * Releases the lock and closes the lock connection.
+     * If the lock cannot be released, the connection is aborted so that its session, and with it the lock, ends.
+     */
+    @Override
+    public void close() {
+        try {
+            strategy.unlock(connection);
+            log.info("Schema lock released.");
+        } catch (SQLException e) {
+            log.error("Failed to release schema lock, aborting the lock connection.", e);
+            try {
+                connection.abort(Runnable::run);
+            } catch (SQLException abortException) {
+                log.warn("Failed to abort the lock connection.", abortException);
+            }
+        } finally {
+            closeQuietly(connection);
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.warn("Failed to close the lock connection.", e);
+        }
+    }
+}
@@ -1,14 +1,20 @@
 package eu.innowise.db.impl;
 
-import eu.innowise.db.ConnectionManager;
 import eu.innowise.db.MigrationStrategy;
+import eu.innowise.db.SchemaHistoryTable;
 import eu.innowise.exceptions.MigrationException;
+import eu.innowise.parser.SqlDialect;
 import eu.innowise.utils.Constants;
 import lombok.extern.slf4j.Slf4j;
 
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Implementation of the MigrationStrategy for H2 database.
@@ -17,20 +23,134 @@ import java.sql.Statement;
 @Slf4j
 public class H2MigrationStrategy implements MigrationStrategy {
 
+    private static final int LOCK_TIMEOUT_ERROR_CODE = 50200;
+    private static final int DUPLICATE_KEY_ERROR_CODE = 23505;
+
+    private final Map<Connection, Integer> previousLockTimeouts = new ConcurrentHashMap<>();
+
     /**
      * Ensures that the schema metadata table exists in the H2 database.
-     * If the table doesn't exist, it will be created.
+     * If the table doesn't exist, it will be created; a table created by an earlier version is upgraded,
+     * see {@link SchemaHistoryTable}.
      *
+     * @param connection a connection to the schema the table belongs to
      * @throws MigrationException if there is an error while creating the table
      */
     @Override
-    public void ensureMetadataTableExists() {
-        try (Connection connection = ConnectionManager.getConnection();
-             Statement stmt = connection.createStatement()) {
+    public void ensureMetadataTableExists(Connection connection) {
+        try (Statement stmt = connection.createStatement()) {
             stmt.execute(Constants.CREATE_SCHEMA_TABLE_H2);
+            SchemaHistoryTable.upgrade(connection);
         } catch (SQLException e) {
             log.error("Failed to ensure schema metadata table.", e);
             throw new MigrationException("Failed to ensure schema metadata table.", e);
         }
     }
+
+    @Override
+    public SqlDialect getSqlDialect() {
+        return SqlDialect.H2;
+    }
+
+    @Override
+    public Map<String, String> getBatchDriverProperties() {
+        return Map.of();
+    }
+
+    @Override
+    public boolean supportsTransactionalDdl() {
+        return false;
+    }
+
+    /**
+     * H2 has no advisory locks, so the lock is a row lock on the single row of {@code schema_history_lock},
+     * held by an open transaction on the lock connection. A short session lock timeout, set before any statement
+     * that may wait on the row, turns a held lock into a failed attempt instead of a long wait; the row is only
+     * inserted when missing, so creating it never locks the row of another session. The previous timeout of the
+     * session is restored after a failed attempt and by {@link #unlock(Connection)}, so a pooled lock connection
+     * is returned with its own timeout.
+     */
+    @Override
+    public boolean tryLock(Connection connection) throws SQLException {
+        connection.setAutoCommit(true);
+        int previousTimeout = lockTimeout(connection);
+        boolean locked = false;
+        try {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(Constants.SET_LOCK_TIMEOUT_H2);
+                statement.execute(Constants.CREATE_SCHEMA_LOCK_TABLE_H2);
+                insertLockRow(statement);
+            }
+
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.executeQuery(Constants.SELECT_SCHEMA_LOCK_ROW_H2).close();
+            }
+            locked = true;
+            previousLockTimeouts.put(connection, previousTimeout);
+            return true;
+        } catch (SQLException e) {
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+            }
+            if (e.getErrorCode() == LOCK_TIMEOUT_ERROR_CODE) {
+                return false;
+            }
+            throw e;
+        } finally {
+            if (!locked) {
+                connection.setAutoCommit(true);
+                setLockTimeout(connection, previousTimeout);
+            }
+        }
+    }
+
+    /**
+     * Inserts the lock row unless it exists; a session that inserted it concurrently wins.
+     */
+    private static void insertLockRow(Statement statement) throws SQLException {
+        try {
+            statement.execute(Constants.INSERT_SCHEMA_LOCK_ROW_H2);
+        } catch (SQLException e) {
+            if (e.getErrorCode() != DUPLICATE_KEY_ERROR_CODE) {
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void unlock(Connection connection) throws SQLException {
+        Integer previousTimeout = previousLockTimeouts.remove(connection);
+        try {
+            connection.rollback();
+            connection.setAutoCommit(true);
+        } finally {
+            setLockTimeout(connection, previousTimeout != null ? previousTimeout : Constants.DEFAULT_LOCK_TIMEOUT_H2);
+        }
+    }
+
+    private static int lockTimeout(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(Constants.SELECT_LOCK_TIMEOUT_H2)) {
+            return rs.next() ? rs.getInt(1) : Constants.DEFAULT_LOCK_TIMEOUT_H2;
+        }
+    }
+
+    private static void setLockTimeout(Connection connection, int timeout) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET LOCK_TIMEOUT " + timeout);
+        }
+    }
+
+    @Override
+    public List<String> heldLocks(Connection connection) throws SQLException {
+        List<String> locks = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(Constants.SELECT_HELD_LOCKS_H2)) {
+            while (rs.next()) {
+                locks.add(rs.getString(1));
+            }
+        }
+        return locks;
+    }
 }
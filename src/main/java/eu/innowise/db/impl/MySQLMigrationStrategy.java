@@ -1,14 +1,20 @@
 package eu.innowise.db.impl;
 
-import eu.innowise.db.ConnectionManager;
 import eu.innowise.db.MigrationStrategy;
+import eu.innowise.db.SchemaHistoryTable;
 import eu.innowise.exceptions.MigrationException;
+import eu.innowise.parser.SqlDialect;
 import eu.innowise.utils.Constants;
 import lombok.extern.slf4j.Slf4j;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Implementation of the MigrationStrategy for MySQL database.
@@ -19,18 +25,93 @@ public class MySQLMigrationStrategy implements MigrationStrategy {
 
     /**
      * Ensures that the schema metadata table exists in the MySQL database.
-     * If the table doesn't exist, it will be created.
+     * If the table doesn't exist, it will be created; a table created by an earlier version is upgraded,
+     * see {@link SchemaHistoryTable}.
      *
+     * @param connection a connection to the schema the table belongs to
      * @throws MigrationException if there is an error while creating the table
      */
     @Override
-    public void ensureMetadataTableExists() {
-        try (Connection connection = ConnectionManager.getConnection();
-             Statement stmt = connection.createStatement()) {
+    public void ensureMetadataTableExists(Connection connection) {
+        try (Statement stmt = connection.createStatement()) {
             stmt.execute(Constants.CREATE_SCHEMA_TABLE_MYSQL);
+            SchemaHistoryTable.upgrade(connection);
         } catch (SQLException e) {
             log.error("Failed to ensure schema metadata table.", e);
             throw new MigrationException("Failed to ensure schema metadata table.", e);
         }
     }
+
+    @Override
+    public SqlDialect getSqlDialect() {
+        return SqlDialect.MYSQL;
+    }
+
+    @Override
+    public Map<String, String> getBatchDriverProperties() {
+        return Map.of("rewriteBatchedStatements", "true");
+    }
+
+    @Override
+    public boolean supportsTransactionalDdl() {
+        return false;
+    }
+
+    /**
+     * Takes a named lock with {@code GET_LOCK}, scoped to the current database and released if the session ends.
+     */
+    @Override
+    public boolean tryLock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(Constants.GET_LOCK_MYSQL)) {
+            statement.setString(1, Constants.SCHEMA_HISTORY_TABLE);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+    }
+
+    @Override
+    public void unlock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(Constants.RELEASE_LOCK_MYSQL)) {
+            statement.setString(1, Constants.SCHEMA_HISTORY_TABLE);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("Named lock for " + Constants.SCHEMA_HISTORY_TABLE + " was not held by this session");
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the largest {@code rows} estimate of the {@code EXPLAIN} output, which lists one row per table.
+     */
+    @Override
+    public long estimateRows(Connection connection, String sql) throws SQLException {
+        long rows = -1;
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(Constants.EXPLAIN_MYSQL + sql)) {
+            while (rs.next()) {
+                long estimate = rs.getLong("rows");
+                if (!rs.wasNull()) {
+                    rows = Math.max(rows, estimate);
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Reads the InnoDB locks of the session from {@code performance_schema.data_locks}, which needs MySQL 8.0.16 or later.
+     */
+    @Override
+    public List<String> heldLocks(Connection connection) throws SQLException {
+        List<String> locks = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(Constants.SELECT_HELD_LOCKS_MYSQL)) {
+            while (rs.next()) {
+                locks.add(rs.getString(1));
+            }
+        }
+        return locks;
+    }
 }
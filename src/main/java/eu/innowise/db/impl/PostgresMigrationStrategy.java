@@ -1,14 +1,26 @@
 package eu.innowise.db.impl;
 
-import eu.innowise.db.ConnectionManager;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import eu.innowise.db.MigrationStrategy;
+import eu.innowise.db.SchemaHistoryTable;
 import eu.innowise.exceptions.MigrationException;
+import eu.innowise.parser.SqlDialect;
+import eu.innowise.parser.SqlStatementType;
 import eu.innowise.utils.Constants;
 import lombok.extern.slf4j.Slf4j;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Implementation of the MigrationStrategy for PostgreSQL database.
@@ -17,21 +29,139 @@ import java.sql.Statement;
 @Slf4j
 public class PostgresMigrationStrategy implements MigrationStrategy {
 
+    private static final String IDENTIFIER = "(?:\"(?:[^\"]|\"\")+\"|[\\p{L}_][\\p{L}\\p{N}_$]*)";
+    private static final Pattern CREATE_INDEX_CONCURRENTLY = Pattern.compile(
+            "^CREATE\\s+(?:UNIQUE\\s+)?INDEX\\s+CONCURRENTLY\\s+(?:IF\\s+NOT\\s+EXISTS\\s+)?("
+                    + IDENTIFIER + "(?:\\." + IDENTIFIER + ")?)\\s+ON\\s", Pattern.CASE_INSENSITIVE);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
     /**
      * Ensures that the schema metadata table exists in the PostgreSQL database.
-     * If the table doesn't exist, it will be created.
+     * If the table doesn't exist, it will be created; a table created by an earlier version is upgraded,
+     * see {@link SchemaHistoryTable}.
      *
+     * @param connection a connection to the schema the table belongs to
      * @throws MigrationException if there is an error while creating the table
      */
     @Override
-    public void ensureMetadataTableExists() {
-        try (Connection connection = ConnectionManager.getConnection();
-             Statement stmt = connection.createStatement()) {
+    public void ensureMetadataTableExists(Connection connection) {
+        try (Statement stmt = connection.createStatement()) {
             stmt.execute(Constants.CREATE_SCHEMA_TABLE_PG);
+            SchemaHistoryTable.upgrade(connection);
         } catch (SQLException e) {
             log.error("Failed to ensure schema metadata table.", e);
             throw new MigrationException("Failed to ensure schema metadata table.", e);
         }
     }
-}
 
+    @Override
+    public SqlDialect getSqlDialect() {
+        return SqlDialect.POSTGRESQL;
+    }
+
+    /**
+     * None: {@code reWriteBatchedInserts} only rewrites {@code PreparedStatement} batches, while migration batches
+     * are {@code Statement} batches, which the driver already sends without waiting for each result.
+     */
+    @Override
+    public Map<String, String> getBatchDriverProperties() {
+        return Map.of();
+    }
+
+    @Override
+    public boolean supportsTransactionalDdl() {
+        return true;
+    }
+
+    /**
+     * Drops the index a {@code CREATE INDEX CONCURRENTLY} statement is about to build if a failed earlier attempt
+     * left it behind as INVALID. Without this, a retry either fails because the index exists or,
+     * with {@code IF NOT EXISTS}, silently keeps the unusable index.
+     */
+    @Override
+    public void prepareNonTransactionalStatement(Connection connection, String sql) throws SQLException {
+        Matcher matcher = CREATE_INDEX_CONCURRENTLY.matcher(SqlStatementType.stripLeadingComments(sql));
+        if (!matcher.find()) {
+            return;
+        }
+
+        String index = matcher.group(1);
+        try (PreparedStatement statement = connection.prepareStatement(Constants.SELECT_INDEX_VALIDITY_PG)) {
+            statement.setString(1, index);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (!rs.next() || rs.getBoolean(1)) {
+                    return;
+                }
+            }
+        }
+
+        log.warn("Dropping invalid index {} left by an interrupted concurrent build.", index);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(Constants.DROP_INDEX_CONCURRENTLY_PG + index);
+        }
+    }
+
+    /**
+     * Takes a session-level advisory lock, which does not touch any table and is released if the session ends.
+     * The lock is keyed by the current schema, so schemas of one database are migrated independently.
+     */
+    @Override
+    public boolean tryLock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(Constants.TRY_ADVISORY_LOCK_PG)) {
+            statement.setInt(1, Constants.SCHEMA_LOCK_KEY);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    @Override
+    public void unlock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(Constants.ADVISORY_UNLOCK_PG)) {
+            statement.setInt(1, Constants.SCHEMA_LOCK_KEY);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (!rs.next() || !rs.getBoolean(1)) {
+                    throw new SQLException("Schema advisory lock was not held by this session");
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the {@code Plan Rows} estimate of {@code EXPLAIN (FORMAT JSON)}. For INSERT, UPDATE and DELETE the top node
+     * is a {@code ModifyTable} node estimating the returned rows, so the estimate of the scan below it is used.
+     */
+    @Override
+    public long estimateRows(Connection connection, String sql) throws SQLException {
+        String plan;
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(Constants.EXPLAIN_JSON_PG + sql)) {
+            if (!rs.next()) {
+                return -1;
+            }
+            plan = rs.getString(1);
+        }
+        try {
+            JsonNode node = MAPPER.readTree(plan).path(0).path("Plan");
+            while ("ModifyTable".equals(node.path("Node Type").asText()) && node.path("Plans").has(0)) {
+                node = node.path("Plans").path(0);
+            }
+            return node.path("Plan Rows").asLong(-1);
+        } catch (IOException e) {
+            log.debug("Failed to read the plan of statement: {}", sql, e);
+            return -1;
+        }
+    }
+
+    @Override
+    public List<String> heldLocks(Connection connection) throws SQLException {
+        List<String> locks = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(Constants.SELECT_HELD_LOCKS_PG)) {
+            while (rs.next()) {
+                locks.add(rs.getString(1));
+            }
+        }
+        return locks;
+    }
+}
@@ -1,7 +1,7 @@
 package eu.innowise.exceptions;
 
 /**
- * Custom exception that is thrown when there is an error acquiring or releasing a lock on schema_history table.
+ * Custom exception that is thrown when there is an error acquiring or releasing the schema lock.
  * This exception is a subclass of {@link RuntimeException}.
  */
 public class SchemaLockException extends RuntimeException {
@@ -0,0 +1,19 @@
+package eu.innowise.exceptions;
+
+import lombok.Getter;
+
+/**
+ * Custom exception that is thrown when a single SQL statement of a migration fails.
+ * It carries the 1-based index of the failing statement within its script.
+ * This exception is a subclass of {@link RuntimeException}.
+ */
+@Getter
+public class StatementExecutionException extends RuntimeException {
+
+    private final int statementIndex;
+
+    public StatementExecutionException(String message, int statementIndex, Throwable cause) {
+        super(message, cause);
+        this.statementIndex = statementIndex;
+    }
+}
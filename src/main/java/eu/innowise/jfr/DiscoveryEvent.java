@@ -0,0 +1,26 @@
+package eu.innowise.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Listing and reading the migration or rollback files of the migration folder.
+ */
+@Name("eu.innowise.migration.Discovery")
+@Label("Migration Discovery")
+@Category("Database Migration")
+@Description("Listing and reading the migration or rollback files")
+public class DiscoveryEvent extends Event {
+
+    @Label("Prefix")
+    public String prefix;
+
+    @Label("Folder")
+    public String folder;
+
+    @Label("Files")
+    public int files;
+}
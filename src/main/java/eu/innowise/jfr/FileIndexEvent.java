@@ -0,0 +1,40 @@
+package eu.innowise.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Reading one SQL file. Hashing and statement splitting run interleaved over the same chunks,
+ * so they are one event with the time spent in each phase as separate fields.
+ */
+@Name("eu.innowise.migration.FileIndex")
+@Label("Migration File Hash and Parse")
+@Category("Database Migration")
+@Description("Reading one SQL file, calculating its checksum and finding its statements")
+@StackTrace(false)
+public class FileIndexEvent extends Event {
+
+    @Label("File")
+    public String file;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("Statements")
+    public int statements;
+
+    @Label("Hash Time")
+    @Timespan
+    public long hashTime;
+
+    @Label("Parse Time")
+    @Timespan
+    public long parseTime;
+}
@@ -0,0 +1,68 @@
+package eu.innowise.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.List;
+
+/**
+ * A Java Flight Recorder recording of a command, started with the JDK {@code default} settings plus
+ * all migration events, and dumped to a file when closed.
+ */
+@Slf4j
+public final class FlightRecording implements AutoCloseable {
+
+    private static final List<Class<? extends Event>> EVENTS = List.of(DiscoveryEvent.class, FileIndexEvent.class,
+            SchemaLockEvent.class, MigrationEvent.class, StatementEvent.class, HistoryInsertEvent.class,
+            RollbackEvent.class, ReportEvent.class);
+
+    private final Recording recording;
+    private final Path destination;
+
+    private FlightRecording(Recording recording, Path destination) {
+        this.recording = recording;
+        this.destination = destination;
+    }
+
+    /**
+     * Starts a recording.
+     *
+     * @param destination the file the recording is dumped to when closed
+     * @return the running recording
+     * @throws IOException if the default settings cannot be read
+     */
+    public static FlightRecording start(Path destination) throws IOException {
+        Recording recording;
+        try {
+            recording = new Recording(Configuration.getConfiguration("default"));
+        } catch (ParseException e) {
+            throw new IOException("Failed to read the default JFR configuration", e);
+        }
+        recording.setName("migration");
+        EVENTS.forEach(recording::enable);
+        recording.start();
+        log.info("Flight recording started, it will be written to: {}", destination);
+        return new FlightRecording(recording, destination);
+    }
+
+    /**
+     * Stops the recording and writes it to the destination. Failures are logged and do not fail the command.
+     */
+    @Override
+    public void close() {
+        try {
+            recording.stop();
+            recording.dump(destination);
+            log.info("Flight recording written to: {}", destination);
+        } catch (IOException e) {
+            log.error("Failed to write flight recording to {}", destination, e);
+        } finally {
+            recording.close();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package eu.innowise.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Writing the schema history row of an applied migration.
+ */
+@Name("eu.innowise.migration.HistoryInsert")
+@Label("Schema History Insert")
+@Category("Database Migration")
+@Description("Writing the schema history row of an applied migration")
+@StackTrace(false)
+public class HistoryInsertEvent extends Event {
+
+    @Label("Version")
+    public String version;
+}
@@ -0,0 +1,34 @@
+package eu.innowise.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Executing the statements of one migration, without the schema history insert.
+ */
+@Name("eu.innowise.migration.Migration")
+@Label("Migration")
+@Category("Database Migration")
+@Description("Executing the statements of one migration")
+@StackTrace(false)
+public class MigrationEvent extends Event {
+
+    @Label("Target")
+    public String target;
+
+    @Label("Version")
+    public String version;
+
+    @Label("Description")
+    public String description;
+
+    @Label("Transactional")
+    public boolean transactional;
+
+    @Label("Success")
+    public boolean success;
+}
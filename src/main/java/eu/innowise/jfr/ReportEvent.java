@@ -0,0 +1,29 @@
+package eu.innowise.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Writing a JSON migration report.
+ */
+@Name("eu.innowise.migration.Report")
+@Label("Migration Report")
+@Category("Database Migration")
+@Description("Writing a JSON migration report")
+public class ReportEvent extends Event {
+
+    @Label("Path")
+    public String path;
+
+    @Label("Success")
+    @Description("The status of the reported migration run")
+    public boolean success;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+}
@@ -0,0 +1,26 @@
+package eu.innowise.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Rolling back one applied migration, including the removal of its schema history row.
+ */
+@Name("eu.innowise.migration.Rollback")
+@Label("Migration Rollback")
+@Category("Database Migration")
+@Description("Rolling back one applied migration")
+public class RollbackEvent extends Event {
+
+    @Label("Version")
+    public String version;
+
+    @Label("Statements")
+    public int statements;
+
+    @Label("Success")
+    public boolean success;
+}
@@ -0,0 +1,26 @@
+package eu.innowise.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Waiting for the schema lock of a target.
+ */
+@Name("eu.innowise.migration.SchemaLock")
+@Label("Schema Lock Wait")
+@Category("Database Migration")
+@Description("Waiting for the schema lock before migrating or rolling back")
+public class SchemaLockEvent extends Event {
+
+    @Label("Target")
+    public String target;
+
+    @Label("Attempts")
+    public int attempts;
+
+    @Label("Acquired")
+    public boolean acquired;
+}
@@ -0,0 +1,36 @@
+package eu.innowise.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Executing one statement of a migration or rollback on its own. Statements sent in a JDBC batch are not reported.
+ */
+@Name("eu.innowise.migration.Statement")
+@Label("Migration Statement")
+@Category("Database Migration")
+@Description("Executing one statement of a migration or rollback")
+@StackTrace(false)
+public class StatementEvent extends Event {
+
+    @Label("Version")
+    public String version;
+
+    @Label("Index")
+    @Description("The 1-based index of the statement in its file")
+    public int index;
+
+    @Label("Size")
+    @Description("The size of the statement text in UTF-8 bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Rows")
+    @Description("The number of rows affected, 0 if unknown")
+    public long rows;
+}
@@ -0,0 +1,55 @@
+package eu.innowise.metrics;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import lombok.RequiredArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Feeds HikariCP connection pool usage into a {@link MetricsRegistry}: connection acquisition, usage and
+ * creation times, acquisition timeouts and the pool size gauges.
+ */
+@RequiredArgsConstructor
+public class HikariMetricsTrackerFactory implements MetricsTrackerFactory {
+
+    private final MetricsRegistry registry;
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        registry.registerPoolGauges(() -> gauges(poolStats));
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                registry.recordPoolAcquire(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                registry.recordPoolUsage(elapsedBorrowedMillis);
+            }
+
+            @Override
+            public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+                registry.recordPoolCreation(connectionCreatedMillis);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                registry.recordPoolTimeout();
+            }
+        };
+    }
+
+    private static Map<String, Integer> gauges(PoolStats poolStats) {
+        Map<String, Integer> gauges = new LinkedHashMap<>();
+        gauges.put("total_connections", poolStats.getTotalConnections());
+        gauges.put("active_connections", poolStats.getActiveConnections());
+        gauges.put("idle_connections", poolStats.getIdleConnections());
+        gauges.put("pending_threads", poolStats.getPendingThreads());
+        gauges.put("max_connections", poolStats.getMaxConnections());
+        return gauges;
+    }
+}
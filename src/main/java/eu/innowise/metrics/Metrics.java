@@ -0,0 +1,88 @@
+package eu.innowise.metrics;
+
+import eu.innowise.utils.PropertiesUtils;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Holds the {@link MigrationMetrics} used by the library.
+ * <p>
+ * With {@code metrics.enabled=true} a {@link MetricsRegistry} is created on first use, otherwise
+ * {@link MigrationMetrics#NOOP} is used. Embedders can install their own implementation with {@link #set(MigrationMetrics)}.
+ * {@link #export()} writes the registry to {@code metrics.prometheus.path} and {@code metrics.json.path}.
+ * </p>
+ */
+@Slf4j
+public final class Metrics {
+
+    private static final Object LOCK = new Object();
+
+    private static volatile MigrationMetrics current;
+
+    private Metrics() {
+    }
+
+    /**
+     * Returns the metrics in use, creating them from the {@code metrics.enabled} property on the first call.
+     *
+     * @return the metrics in use
+     */
+    public static MigrationMetrics current() {
+        MigrationMetrics metrics = current;
+        if (metrics != null) {
+            return metrics;
+        }
+        synchronized (LOCK) {
+            if (current == null) {
+                current = PropertiesUtils.getBooleanProperty("metrics.enabled", false)
+                        ? new MetricsRegistry()
+                        : MigrationMetrics.NOOP;
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Replaces the metrics in use. Components created earlier keep the metrics they were created with.
+     *
+     * @param metrics the metrics to use, or {@code null} to configure them from the properties again
+     */
+    public static void set(MigrationMetrics metrics) {
+        synchronized (LOCK) {
+            current = metrics;
+        }
+    }
+
+    /**
+     * Writes the recorded metrics to the configured files. Does nothing unless the metrics in use are a
+     * {@link MetricsRegistry}. Export failures are logged and do not fail the caller.
+     */
+    public static void export() {
+        if (!(current instanceof MetricsRegistry registry)) {
+            return;
+        }
+        MetricsSnapshot snapshot = registry.snapshot();
+
+        String prometheusPath = PropertiesUtils.getProperty("metrics.prometheus.path");
+        if (prometheusPath != null && !prometheusPath.isBlank()) {
+            try {
+                MetricsExporter.writePrometheus(snapshot, Path.of(prometheusPath));
+                log.info("Prometheus metrics written to: {}", prometheusPath);
+            } catch (IOException e) {
+                log.error("Failed to write Prometheus metrics to {}", prometheusPath, e);
+            }
+        }
+
+        String jsonPath = PropertiesUtils.getProperty("metrics.json.path");
+        if (jsonPath != null && !jsonPath.isBlank()) {
+            try {
+                MetricsExporter.writeJson(snapshot, Path.of(jsonPath));
+                log.info("JSON metrics written to: {}", jsonPath);
+            } catch (IOException e) {
+                log.error("Failed to write JSON metrics to {}", jsonPath, e);
+            }
+        }
+    }
+}
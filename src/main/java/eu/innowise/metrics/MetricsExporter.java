@@ -0,0 +1,106 @@
+package eu.innowise.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes a {@link MetricsSnapshot} as a Prometheus text exposition file or as JSON.
+ * <p>
+ * Files are written to a temporary file first and then moved into place, so a collector reading them
+ * (for example the node exporter textfile collector) never sees a partial file.
+ * </p>
+ */
+public final class MetricsExporter {
+
+    private static final String PREFIX = "migration_";
+
+    private MetricsExporter() {
+    }
+
+    /**
+     * Writes the snapshot in the Prometheus text exposition format.
+     *
+     * @param snapshot the metrics to write
+     * @param path     the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void writePrometheus(MetricsSnapshot snapshot, Path path) throws IOException {
+        writeAtomically(path, toPrometheusText(snapshot).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes the snapshot as JSON.
+     *
+     * @param snapshot the metrics to write
+     * @param path     the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeJson(MetricsSnapshot snapshot, Path path) throws IOException {
+        writeAtomically(path, new ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsBytes(snapshot));
+    }
+
+    /**
+     * Formats the snapshot in the Prometheus text exposition format. Timers become summaries without quantiles,
+     * durations are in seconds.
+     *
+     * @param snapshot the metrics to format
+     * @return the exposition text
+     */
+    public static String toPrometheusText(MetricsSnapshot snapshot) {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, TimerSnapshot> timer : snapshot.timers().entrySet()) {
+            String name = PREFIX + timer.getKey() + "_seconds";
+            TimerSnapshot value = timer.getValue();
+            text.append("# TYPE ").append(name).append(" summary\n");
+            text.append(name).append("_count ").append(value.count()).append('\n');
+            text.append(name).append("_sum ").append(format(value.totalSeconds())).append('\n');
+            text.append("# TYPE ").append(name).append("_max gauge\n");
+            text.append(name).append("_max ").append(format(value.maxSeconds())).append('\n');
+        }
+        for (Map.Entry<String, Long> counter : snapshot.counters().entrySet()) {
+            String name = PREFIX + counter.getKey() + "_total";
+            text.append("# TYPE ").append(name).append(" counter\n");
+            text.append(name).append(' ').append(counter.getValue()).append('\n');
+        }
+        if (!snapshot.migrations().isEmpty()) {
+            String name = PREFIX + "version_duration_seconds";
+            text.append("# TYPE ").append(name).append(" gauge\n");
+            snapshot.migrations().forEach((version, seconds) -> text.append(name)
+                    .append("{version=\"").append(escape(version)).append("\"} ")
+                    .append(format(seconds)).append('\n'));
+        }
+        for (Map.Entry<String, Integer> gauge : snapshot.pool().entrySet()) {
+            String name = PREFIX + "pool_" + gauge.getKey();
+            text.append("# TYPE ").append(name).append(" gauge\n");
+            text.append(name).append(' ').append(gauge.getValue()).append('\n');
+        }
+        return text.toString();
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.9f", value);
+    }
+
+    private static String escape(String label) {
+        return label.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static void writeAtomically(Path path, byte[] content) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, content);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package eu.innowise.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * In-memory {@link MigrationMetrics} that keeps timers and counters for the lifetime of the process.
+ * <p>
+ * Recording uses {@link LongAdder}s, so concurrent migrations do not contend on shared counters.
+ * </p>
+ */
+public final class MetricsRegistry implements MigrationMetrics {
+
+    private final Timer discovery = new Timer();
+    private final Timer hashing = new Timer();
+    private final Timer parsing = new Timer();
+    private final Timer lockWait = new Timer();
+    private final Timer migration = new Timer();
+    private final Timer statement = new Timer();
+    private final Timer batch = new Timer();
+    private final Timer poolAcquire = new Timer();
+    private final Timer poolUsage = new Timer();
+    private final Timer poolCreation = new Timer();
+
+    private final LongAdder filesDiscovered = new LongAdder();
+    private final LongAdder bytesHashed = new LongAdder();
+    private final LongAdder statementsParsed = new LongAdder();
+    private final LongAdder lockAttempts = new LongAdder();
+    private final LongAdder migrationFailures = new LongAdder();
+    private final LongAdder batchedStatements = new LongAdder();
+    private final LongAdder rowsAffected = new LongAdder();
+    private final LongAdder poolTimeouts = new LongAdder();
+
+    private final Map<String, Long> migrationNanos = new ConcurrentHashMap<>();
+
+    private volatile Supplier<Map<String, Integer>> poolGauges = Map::of;
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void recordDiscovery(long nanos, int files) {
+        discovery.record(nanos);
+        filesDiscovered.add(files);
+    }
+
+    @Override
+    public void recordHashing(long nanos, long bytes) {
+        hashing.record(nanos);
+        bytesHashed.add(bytes);
+    }
+
+    @Override
+    public void recordParsing(long nanos, int statements) {
+        parsing.record(nanos);
+        statementsParsed.add(statements);
+    }
+
+    @Override
+    public void recordLockWait(long nanos, int attempts) {
+        lockWait.record(nanos);
+        lockAttempts.add(attempts);
+    }
+
+    @Override
+    public void recordMigration(String version, long nanos, boolean success) {
+        migration.record(nanos);
+        migrationNanos.merge(version, nanos, Long::sum);
+        if (!success) {
+            migrationFailures.increment();
+        }
+    }
+
+    @Override
+    public void recordStatement(long nanos, long rows) {
+        statement.record(nanos);
+        rowsAffected.add(rows);
+    }
+
+    @Override
+    public void recordBatch(long nanos, int statements, long rows) {
+        batch.record(nanos);
+        batchedStatements.add(statements);
+        rowsAffected.add(rows);
+    }
+
+    void recordPoolAcquire(long nanos) {
+        poolAcquire.record(nanos);
+    }
+
+    void recordPoolUsage(long millis) {
+        poolUsage.record(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    void recordPoolCreation(long millis) {
+        poolCreation.record(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    void recordPoolTimeout() {
+        poolTimeouts.increment();
+    }
+
+    /**
+     * Sets the source of the connection pool gauges read on every {@link #snapshot()}.
+     *
+     * @param gauges the current pool gauges by name
+     */
+    public void registerPoolGauges(Supplier<Map<String, Integer>> gauges) {
+        this.poolGauges = gauges;
+    }
+
+    /**
+     * Takes a consistent-enough copy of all metrics; values recorded concurrently may or may not be included.
+     *
+     * @return the snapshot
+     */
+    public MetricsSnapshot snapshot() {
+        Map<String, TimerSnapshot> timers = new LinkedHashMap<>();
+        timers.put("discovery", discovery.snapshot());
+        timers.put("hashing", hashing.snapshot());
+        timers.put("parsing", parsing.snapshot());
+        timers.put("lock_wait", lockWait.snapshot());
+        timers.put("migration", migration.snapshot());
+        timers.put("statement", statement.snapshot());
+        timers.put("batch", batch.snapshot());
+        timers.put("pool_acquire", poolAcquire.snapshot());
+        timers.put("pool_usage", poolUsage.snapshot());
+        timers.put("pool_connection_creation", poolCreation.snapshot());
+
+        Map<String, Long> counters = new LinkedHashMap<>();
+        counters.put("files_discovered", filesDiscovered.sum());
+        counters.put("bytes_hashed", bytesHashed.sum());
+        counters.put("statements_parsed", statementsParsed.sum());
+        counters.put("lock_attempts", lockAttempts.sum());
+        counters.put("migration_failures", migrationFailures.sum());
+        counters.put("batched_statements", batchedStatements.sum());
+        counters.put("rows_affected", rowsAffected.sum());
+        counters.put("pool_timeouts", poolTimeouts.sum());
+
+        Map<String, Double> migrations = new TreeMap<>();
+        migrationNanos.forEach((version, nanos) ->
+                migrations.put(version, (double) nanos / TimeUnit.SECONDS.toNanos(1)));
+
+        return new MetricsSnapshot(timers, counters, migrations, new LinkedHashMap<>(poolGauges.get()));
+    }
+}
@@ -0,0 +1,15 @@
+package eu.innowise.metrics;
+
+import java.util.Map;
+
+/**
+ * Point-in-time copy of all recorded metrics, the input of the exporters.
+ *
+ * @param timers     the timers by name, for example {@code statement}
+ * @param counters   the counters by name, for example {@code rows_affected}
+ * @param migrations the execution time in seconds of each migration by version
+ * @param pool       the connection pool gauges by name, empty if the pool is not instrumented
+ */
+public record MetricsSnapshot(Map<String, TimerSnapshot> timers, Map<String, Long> counters,
+                              Map<String, Double> migrations, Map<String, Integer> pool) {
+}
@@ -0,0 +1,91 @@
+package eu.innowise.metrics;
+
+/**
+ * Receives measurements taken while migrations are discovered and applied.
+ * <p>
+ * Every method does nothing by default, and {@link #NOOP} is used unless metrics are enabled.
+ * Callers check {@link #isEnabled()} before reading the clock, and all arguments are primitives or existing strings,
+ * so recording costs nothing and allocates nothing on the statement path when metrics are off.
+ * Implementations must be thread-safe.
+ * </p>
+ */
+public interface MigrationMetrics {
+
+    /**
+     * Metrics that record nothing.
+     */
+    MigrationMetrics NOOP = new MigrationMetrics() {
+    };
+
+    /**
+     * @return {@code true} if measurements are recorded; callers skip timing otherwise
+     */
+    default boolean isEnabled() {
+        return false;
+    }
+
+    /**
+     * Records the discovery of migration or rollback files, including reading and indexing them.
+     *
+     * @param nanos the elapsed time
+     * @param files the number of files found
+     */
+    default void recordDiscovery(long nanos, int files) {
+    }
+
+    /**
+     * Records the checksum calculation of one file.
+     *
+     * @param nanos the time spent hashing
+     * @param bytes the size of the file
+     */
+    default void recordHashing(long nanos, long bytes) {
+    }
+
+    /**
+     * Records the statement splitting of one file.
+     *
+     * @param nanos      the time spent scanning
+     * @param statements the number of statements found
+     */
+    default void recordParsing(long nanos, int statements) {
+    }
+
+    /**
+     * Records the wait for the schema lock.
+     *
+     * @param nanos    the time until the lock was acquired
+     * @param attempts the number of attempts
+     */
+    default void recordLockWait(long nanos, int attempts) {
+    }
+
+    /**
+     * Records the execution of one migration, without the schema history insert.
+     *
+     * @param version the migration version
+     * @param nanos   the elapsed time
+     * @param success whether the migration succeeded
+     */
+    default void recordMigration(String version, long nanos, boolean success) {
+    }
+
+    /**
+     * Records one statement executed on its own.
+     *
+     * @param nanos the elapsed time
+     * @param rows  the number of rows affected, {@code 0} if unknown
+     */
+    default void recordStatement(long nanos, long rows) {
+    }
+
+    /**
+     * Records one JDBC batch.
+     *
+     * @param nanos      the elapsed time
+     * @param statements the number of statements in the batch
+     * @param rows       the number of rows affected, {@code 0} if unknown
+     */
+    default void recordBatch(long nanos, int statements, long rows) {
+    }
+}
@@ -0,0 +1,11 @@
+package eu.innowise.metrics;
+
+/**
+ * Values of a timer at the time of a snapshot.
+ *
+ * @param count        the number of recorded durations
+ * @param totalSeconds the sum of the recorded durations
+ * @param maxSeconds   the longest recorded duration
+ */
+public record TimerSnapshot(long count, double totalSeconds, double maxSeconds) {
+}
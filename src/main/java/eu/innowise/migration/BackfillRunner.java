@@ -0,0 +1,367 @@
+package eu.innowise.migration;
+
+import eu.innowise.db.MigrationTarget;
+import eu.innowise.exceptions.MigrationException;
+import eu.innowise.metrics.MigrationMetrics;
+import eu.innowise.model.Migration;
+import eu.innowise.model.MigrationDirectives;
+import eu.innowise.report.ExecutionProfiler;
+import eu.innowise.utils.Constants;
+import eu.innowise.utils.PropertiesUtils;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Runs a backfill migration, declared with {@code -- migration:backfill=<table>.<key column>}, in chunks of the key range.
+ * <p>
+ * The range is the minimum to the maximum key when the backfill starts; rows inserted later are expected to be written
+ * by the application in their final form. Every statement of the migration runs once per chunk, with {@code :from} and
+ * {@code :to} bound to the first and last key of the chunk, and each chunk is committed on its own together with
+ * the checkpoint of the backfill in {@value Constants#BACKFILL_PROGRESS_TABLE}. A failed or killed backfill therefore
+ * resumes after the last committed chunk when the migration runs again; if the migration file changed in between,
+ * it starts over. The checkpoint is deleted with the last chunk, so the statements should be re-runnable in case the run
+ * stops before the schema history row is written.
+ * </p>
+ * <p>
+ * The chunk size, a width of the key range, adapts to the time the chunks take: after each chunk it is scaled by
+ * {@code migration.backfill.target-chunk-ms} over the time of the chunk, by at most a factor of two either way,
+ * up to {@code migration.backfill.max-chunk-size}. It is kept in the checkpoint, so a resumed backfill continues
+ * with it. {@code migration.backfill.pause-ms} adds a pause after every chunk to leave room for other traffic.
+ * </p>
+ */
+@Slf4j
+class BackfillRunner {
+
+    static final String FROM = "from";
+    static final String TO = "to";
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("(?<![:\\w]):(" + FROM + "|" + TO + ")\\b");
+    private static final double MAX_CHUNK_GROWTH = 2.0;
+    private static final int PROGRESS_LOG_STEP_PERCENT = 10;
+
+    private final MigrationTarget target;
+    private final Settings settings;
+    private final MigrationMetrics metrics;
+    private final ExecutionProfiler profiler;
+
+    BackfillRunner(MigrationTarget target, Settings settings) {
+        this(target, settings, MigrationMetrics.NOOP, ExecutionProfiler.DISABLED);
+    }
+
+    BackfillRunner(MigrationTarget target, Settings settings, MigrationMetrics metrics, ExecutionProfiler profiler) {
+        this.target = target;
+        this.settings = settings;
+        this.metrics = metrics;
+        this.profiler = profiler;
+    }
+
+    /**
+     * The chunking and throttling of backfills.
+     *
+     * @param chunkSize         the width of the first chunk
+     * @param maxChunkSize      the upper bound of the chunk width
+     * @param targetChunkMillis the time a chunk should take, {@code 0} keeps the chunk size fixed
+     * @param pauseMillis       the pause after every chunk
+     */
+    record Settings(long chunkSize, long maxChunkSize, long targetChunkMillis, long pauseMillis) {
+
+        /**
+         * @return the settings from the {@code migration.backfill.*} properties
+         */
+        static Settings configured() {
+            int maxChunkSize = PropertiesUtils.getIntProperty("migration.backfill.max-chunk-size",
+                    Constants.DEFAULT_BACKFILL_MAX_CHUNK_SIZE);
+            int chunkSize = PropertiesUtils.getIntProperty("migration.backfill.chunk-size",
+                    Math.min(Constants.DEFAULT_BACKFILL_CHUNK_SIZE, maxChunkSize));
+            return new Settings(Math.max(1, Math.min(chunkSize, maxChunkSize)), Math.max(1, maxChunkSize),
+                    Math.max(0, PropertiesUtils.getIntProperty("migration.backfill.target-chunk-ms",
+                            Constants.DEFAULT_BACKFILL_TARGET_CHUNK_MS)),
+                    Math.max(0, PropertiesUtils.getIntProperty("migration.backfill.pause-ms", 0)));
+        }
+    }
+
+    /**
+     * The outcome of a backfill run.
+     *
+     * @param chunks the chunks committed by this run
+     * @param rows   the rows updated by the whole backfill, including earlier runs it resumed
+     */
+    record Result(long chunks, long rows) {
+    }
+
+    /**
+     * A statement of the backfill with its placeholders replaced by JDBC parameters.
+     *
+     * @param sql        the statement to prepare
+     * @param parameters {@link #FROM} or {@link #TO} for every parameter, in order
+     */
+    record ChunkStatement(String sql, List<String> parameters) {
+
+        static ChunkStatement parse(String sql) {
+            Matcher matcher = PLACEHOLDER.matcher(sql);
+            List<String> parameters = new ArrayList<>();
+            StringBuilder jdbcSql = new StringBuilder();
+            while (matcher.find()) {
+                parameters.add(matcher.group(1));
+                matcher.appendReplacement(jdbcSql, "?");
+            }
+            matcher.appendTail(jdbcSql);
+            return new ChunkStatement(jdbcSql.toString(), List.copyOf(parameters));
+        }
+
+        void bind(PreparedStatement statement, long from, long to) throws SQLException {
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setLong(i + 1, FROM.equals(parameters.get(i)) ? from : to);
+            }
+        }
+    }
+
+    /**
+     * Runs or resumes the backfill.
+     *
+     * @param migration the backfill migration
+     * @return the chunks and rows of the backfill
+     * @throws MigrationException if a statement is not limited to the chunk, a chunk fails or the checkpoint
+     *                            cannot be read or written
+     */
+    Result run(Migration migration) throws MigrationException {
+        MigrationDirectives.BackfillKey key = migration.getDirectives().getBackfillKey();
+        List<ChunkStatement> statements = parseStatements(migration);
+        String version = migration.getVersion();
+
+        try (Connection connection = target.getConnection()) {
+            connection.setAutoCommit(true);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(Constants.CREATE_BACKFILL_PROGRESS_TABLE);
+            }
+            connection.setAutoCommit(false);
+
+            Checkpoint checkpoint = loadCheckpoint(connection, migration, key);
+            if (checkpoint == null) {
+                log.info("Backfill {} has no rows in {}.", version, key.table());
+                return new Result(0, 0);
+            }
+            return runChunks(connection, migration, statements, checkpoint);
+        } catch (SQLException e) {
+            log.error("Backfill {} failed.", version, e);
+            throw new MigrationException("Backfill " + version + " failed; it resumes from its last committed chunk"
+                    + " when the migration runs again.", e);
+        }
+    }
+
+    private static List<ChunkStatement> parseStatements(Migration migration) {
+        try (Stream<String> sql = migration.getScript().statements()) {
+            List<ChunkStatement> statements = sql.map(ChunkStatement::parse).toList();
+            for (int i = 0; i < statements.size(); i++) {
+                List<String> parameters = statements.get(i).parameters();
+                if (!parameters.contains(FROM) || !parameters.contains(TO)) {
+                    throw new MigrationException("Statement #" + (i + 1) + " of backfill " + migration.getVersion()
+                            + " must be limited to the chunk with :" + FROM + " and :" + TO);
+                }
+            }
+            return statements;
+        }
+    }
+
+    private Result runChunks(Connection connection, Migration migration, List<ChunkStatement> chunkStatements,
+                             Checkpoint checkpoint) throws SQLException {
+        String version = migration.getVersion();
+        List<PreparedStatement> prepared = new ArrayList<>();
+        try {
+            for (ChunkStatement chunkStatement : chunkStatements) {
+                prepared.add(connection.prepareStatement(chunkStatement.sql()));
+            }
+
+            long from = checkpoint.nextKey;
+            long chunkSize = Math.max(1, Math.min(checkpoint.chunkSize, settings.maxChunkSize()));
+            long rows = checkpoint.rows;
+            long chunks = 0;
+            long loggedPercent = -1;
+            while (from <= checkpoint.maxKey) {
+                long to = chunkSize > checkpoint.maxKey - from ? checkpoint.maxKey : from + chunkSize - 1;
+                long start = System.nanoTime();
+                try {
+                    for (int i = 0; i < prepared.size(); i++) {
+                        rows += executeChunk(prepared.get(i), chunkStatements.get(i), version, i + 1, from, to);
+                    }
+                    boolean last = to == checkpoint.maxKey;
+                    saveCheckpoint(connection, version, last, to, chunkSize, rows);
+                    connection.commit();
+                } catch (SQLException e) {
+                    connection.rollback();
+                    log.error("Backfill {} failed in chunk {}..{}; {} chunks were committed by this run.",
+                            version, from, to, chunks);
+                    throw e;
+                }
+                chunks++;
+                long elapsed = System.nanoTime() - start;
+                log.debug("Backfill {} committed chunk {}..{} in {} ms, {} rows so far.", version, from, to,
+                        elapsed / 1_000_000, rows);
+                loggedPercent = logProgress(version, checkpoint, from, to, rows, loggedPercent);
+
+                if (to == checkpoint.maxKey) {
+                    break;
+                }
+                from = to + 1;
+                chunkSize = nextChunkSize(chunkSize, elapsed, settings);
+                pause(version);
+            }
+            log.info("Backfill {} completed: {} chunks in this run, {} rows in total.", version, chunks, rows);
+            return new Result(chunks, rows);
+        } finally {
+            for (PreparedStatement statement : prepared) {
+                statement.close();
+            }
+        }
+    }
+
+    private long executeChunk(PreparedStatement statement, ChunkStatement chunkStatement, String version, int index,
+                              long from, long to) throws SQLException {
+        chunkStatement.bind(statement, from, to);
+        long start = System.nanoTime();
+        long rows = Math.max(0, statement.executeUpdate());
+        long elapsed = System.nanoTime() - start;
+        metrics.recordStatement(elapsed, rows);
+        profiler.recordStatement(version, index, chunkStatement.sql(), elapsed, rows);
+        return rows;
+    }
+
+    /**
+     * Logs every {@value #PROGRESS_LOG_STEP_PERCENT}% of the keys this run walks.
+     */
+    private static long logProgress(String version, Checkpoint checkpoint, long from, long to, long rows, long loggedPercent) {
+        double range = (double) checkpoint.maxKey - checkpoint.nextKey + 1;
+        long percent = (long) (((double) to - checkpoint.nextKey + 1) / range * 100);
+        long step = percent / PROGRESS_LOG_STEP_PERCENT * PROGRESS_LOG_STEP_PERCENT;
+        if (step > loggedPercent) {
+            log.info("Backfill {}: chunk {}..{} of keys up to {} committed, {} rows updated.", version, from, to,
+                    checkpoint.maxKey, rows);
+            return step;
+        }
+        return loggedPercent;
+    }
+
+    /**
+     * Scales the chunk size by the target chunk time over the time the last chunk took,
+     * by at most {@value #MAX_CHUNK_GROWTH} times either way.
+     *
+     * @param chunkSize    the size of the last chunk
+     * @param elapsedNanos the time the last chunk took
+     * @param settings     the backfill settings
+     * @return the size of the next chunk, between 1 and the maximum chunk size
+     */
+    static long nextChunkSize(long chunkSize, long elapsedNanos, Settings settings) {
+        if (settings.targetChunkMillis() <= 0) {
+            return chunkSize;
+        }
+        double factor = elapsedNanos <= 0 ? MAX_CHUNK_GROWTH
+                : settings.targetChunkMillis() * 1_000_000.0 / elapsedNanos;
+        factor = Math.max(1 / MAX_CHUNK_GROWTH, Math.min(MAX_CHUNK_GROWTH, factor));
+        long next = (long) Math.min(chunkSize * factor, settings.maxChunkSize());
+        return Math.max(1, next);
+    }
+
+    private void pause(String version) {
+        if (settings.pauseMillis() <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(settings.pauseMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MigrationException("Interrupted while pausing backfill " + version
+                    + "; it resumes from its last committed chunk when the migration runs again.", e);
+        }
+    }
+
+    /**
+     * The progress of a backfill: the next key to process, the last key of the range and the chunk size.
+     */
+    private record Checkpoint(long nextKey, long maxKey, long chunkSize, long rows) {
+    }
+
+    /**
+     * Returns the checkpoint left by an earlier run of the same migration file, or starts the backfill
+     * by recording the key range in a new checkpoint.
+     *
+     * @return the checkpoint, {@code null} if the table has no rows
+     */
+    private Checkpoint loadCheckpoint(Connection connection, Migration migration, MigrationDirectives.BackfillKey key)
+            throws SQLException {
+        String version = migration.getVersion();
+        try (PreparedStatement statement = connection.prepareStatement(Constants.SELECT_BACKFILL_PROGRESS)) {
+            statement.setString(1, version);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    if (resultSet.getLong(1) == migration.getChecksum()) {
+                        Checkpoint checkpoint = new Checkpoint(resultSet.getLong(2), resultSet.getLong(3),
+                                resultSet.getLong(4), resultSet.getLong(5));
+                        log.info("Resuming backfill {} at key {} of {} with chunk size {}, {} rows updated so far.",
+                                version, checkpoint.nextKey, checkpoint.maxKey, checkpoint.chunkSize, checkpoint.rows);
+                        return checkpoint;
+                    }
+                    log.warn("Backfill {} changed since it was interrupted, it starts over.", version);
+                }
+            }
+        }
+        deleteCheckpoint(connection, version);
+
+        long minKey;
+        long maxKey;
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT MIN(" + key.column() + "), MAX(" + key.column()
+                     + ") FROM " + key.table())) {
+            resultSet.next();
+            minKey = resultSet.getLong(1);
+            if (resultSet.wasNull()) {
+                connection.commit();
+                return null;
+            }
+            maxKey = resultSet.getLong(2);
+        }
+        try (PreparedStatement statement = connection.prepareStatement(Constants.INSERT_BACKFILL_PROGRESS)) {
+            statement.setString(1, version);
+            statement.setLong(2, migration.getChecksum());
+            statement.setLong(3, minKey);
+            statement.setLong(4, maxKey);
+            statement.setLong(5, settings.chunkSize());
+            statement.executeUpdate();
+        }
+        connection.commit();
+        log.info("Starting backfill {} of {} keys {}..{} with chunk size {}.", version, key.table(), minKey, maxKey,
+                settings.chunkSize());
+        return new Checkpoint(minKey, maxKey, settings.chunkSize(), 0);
+    }
+
+    private static void saveCheckpoint(Connection connection, String version, boolean last, long to, long chunkSize,
+                                       long rows) throws SQLException {
+        if (last) {
+            deleteCheckpoint(connection, version);
+            return;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(Constants.UPDATE_BACKFILL_PROGRESS)) {
+            statement.setLong(1, to + 1);
+            statement.setLong(2, chunkSize);
+            statement.setLong(3, rows);
+            statement.setString(4, version);
+            statement.executeUpdate();
+        }
+    }
+
+    private static void deleteCheckpoint(Connection connection, String version) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(Constants.DELETE_BACKFILL_PROGRESS)) {
+            statement.setString(1, version);
+            statement.executeUpdate();
+        }
+    }
+}
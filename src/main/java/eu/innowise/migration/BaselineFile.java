@@ -0,0 +1,226 @@
+package eu.innowise.migration;
+
+import eu.innowise.checksum.ChecksumAlgorithm;
+import eu.innowise.exceptions.MigrationException;
+import eu.innowise.exceptions.MigrationFileReadException;
+import eu.innowise.model.Baseline;
+import eu.innowise.model.Migration;
+import eu.innowise.model.MigrationDirectives;
+import eu.innowise.parser.IndexedSqlScript;
+import eu.innowise.parser.SqlDialect;
+import eu.innowise.parser.SqlFileIndexer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Reads and writes baseline scripts.
+ * <p>
+ * A baseline script starts with a header that lists the checksum of every migration it squashed:
+ * <pre>
+ * -- Baseline of 120 migrations up to version 120, created by the squash command
+ * -- squashed: 1 XXH64 -4267319047125829651
+ * -- squashed: 1.1 XXH64 802214306513451204
+ * </pre>
+ * followed by the statements of the squashed migrations in version order, each migration introduced by a comment
+ * with its version and description. The header declares {@code -- migration:transactional=false} if any squashed
+ * migration did. Backfill migrations only change existing rows, so only their checksums are kept. On MySQL, statements containing {@code ;} are wrapped in {@code DELIMITER} directives.
+ * </p>
+ */
+@Slf4j
+final class BaselineFile {
+
+    static final String SQUASHED_PREFIX = "-- squashed:";
+    private static final String HEADER_PREFIX = "-- Baseline of ";
+    private static final String DIRECTIVE_PREFIX = "-- migration:";
+
+    private BaselineFile() {
+    }
+
+    /**
+     * Reads the list of squashed migrations from the header of a baseline script.
+     *
+     * @param migration the migration read from a {@code B} file
+     * @return the baseline
+     * @throws MigrationFileReadException if the file cannot be read or a squashed migration line is malformed
+     */
+    static Baseline read(Migration migration) {
+        if (!(migration.getScript() instanceof IndexedSqlScript script)) {
+            return new Baseline(migration, Map.of());
+        }
+        Map<String, Baseline.SquashedMigration> squashed = new LinkedHashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(script.getFile(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String trimmed = line.strip();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                if (!trimmed.startsWith("--")) {
+                    break;
+                }
+                if (trimmed.startsWith(SQUASHED_PREFIX)) {
+                    Baseline.SquashedMigration entry = parseSquashed(trimmed, script.getFile());
+                    squashed.put(entry.version(), entry);
+                }
+            }
+        } catch (IOException e) {
+            log.error("Error reading baseline file: {}", script.getFile().getFileName(), e);
+            throw new MigrationFileReadException("Error reading baseline file: " + script.getFile().getFileName(), e);
+        }
+        return new Baseline(migration, squashed);
+    }
+
+    private static Baseline.SquashedMigration parseSquashed(String line, Path file) {
+        String[] parts = line.substring(SQUASHED_PREFIX.length()).trim().split("\\s+");
+        try {
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("expected <version> <algorithm> <checksum>");
+            }
+            return new Baseline.SquashedMigration(parts[0], Long.parseLong(parts[2]), ChecksumAlgorithm.fromColumn(parts[1]));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw new MigrationFileReadException("Invalid squashed migration in baseline " + file.getFileName() + ": "
+                    + line, e);
+        }
+    }
+
+    /**
+     * Writes a baseline script squashing the given migrations. The script is written next to the target file,
+     * checked by indexing it again, and then moved into place.
+     *
+     * @param file       the baseline file to create
+     * @param migrations the migrations to squash in version order; the first may be an earlier baseline
+     * @param dialect    the dialect used to split the script into statements
+     * @param algorithm  the algorithm the checksums of the migrations were calculated with
+     * @return the number of statements written
+     * @throws MigrationException if the script cannot be written or does not split into the statements written
+     */
+    static int write(Path file, List<Migration> migrations, SqlDialect dialect, ChecksumAlgorithm algorithm) {
+        List<Baseline.SquashedMigration> squashed = new ArrayList<>();
+        boolean transactional = true;
+        for (Migration migration : migrations) {
+            if (migration instanceof Baseline baseline) {
+                squashed.addAll(baseline.getSquashed().values());
+            } else {
+                squashed.add(new Baseline.SquashedMigration(migration.getVersion(), migration.getChecksum(), algorithm));
+            }
+            // a backfill is not squashed, so it does not make the baseline non-transactional
+            transactional &= migration.getDirectives().isTransactional() || migration.getDirectives().isBackfill();
+        }
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            int statements;
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                if (!transactional) {
+                    writer.write(DIRECTIVE_PREFIX + MigrationDirectives.TRANSACTIONAL + "=false\n");
+                }
+                writer.write(HEADER_PREFIX + squashed.size() + " migrations up to version "
+                        + migrations.get(migrations.size() - 1).getVersion() + ", created by the squash command\n");
+                for (Baseline.SquashedMigration entry : squashed) {
+                    writer.write(SQUASHED_PREFIX + " " + entry.version() + " " + entry.algorithm() + " " + entry.checksum() + "\n");
+                }
+                statements = writeStatements(writer, migrations, dialect);
+            }
+
+            IndexedSqlScript script = new SqlFileIndexer(dialect, Long.MAX_VALUE).index(temp);
+            long written;
+            try (Stream<String> sql = script.statements()) {
+                written = sql.count();
+            }
+            if (written != statements) {
+                throw new MigrationException("Baseline script splits into " + written + " statements instead of "
+                        + statements + ", it was not created");
+            }
+            move(temp, file);
+            return statements;
+        } catch (IOException e) {
+            log.error("Failed to write baseline file: {}", file, e);
+            throw new MigrationException("Failed to write baseline file: " + file, e);
+        } finally {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                log.warn("Failed to delete temporary baseline file: {}", temp, e);
+            }
+        }
+    }
+
+    private static int writeStatements(Writer writer, List<Migration> migrations, SqlDialect dialect) throws IOException {
+        int count = 0;
+        for (Migration migration : migrations) {
+            boolean baseline = migration instanceof Baseline;
+            if (!baseline) {
+                writer.write("\n-- " + migration.getVersion() + " " + migration.getDescription() + "\n");
+            }
+            if (migration.getDirectives().isBackfill()) {
+                // a new database has no rows to backfill
+                writer.write("-- backfill, not squashed\n");
+                continue;
+            }
+            try (Stream<String> statements = migration.getScript().statements()) {
+                for (Iterator<String> iterator = statements.iterator(); iterator.hasNext(); ) {
+                    String sql = iterator.next();
+                    if (baseline) {
+                        // the header of an earlier baseline is replaced by the header written above
+                        sql = stripHeader(sql);
+                        baseline = false;
+                    }
+                    sql = sql.strip();
+                    if (!sql.isEmpty()) {
+                        writeStatement(writer, sql, dialect);
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private static String stripHeader(String sql) {
+        StringBuilder rest = new StringBuilder();
+        boolean header = true;
+        for (String line : sql.split("\n", -1)) {
+            String trimmed = line.strip();
+            header &= trimmed.isEmpty() || trimmed.startsWith(SQUASHED_PREFIX) || trimmed.startsWith(HEADER_PREFIX)
+                    || trimmed.startsWith(DIRECTIVE_PREFIX);
+            if (!header) {
+                rest.append(line).append('\n');
+            }
+        }
+        return rest.toString();
+    }
+
+    private static void writeStatement(Writer writer, String sql, SqlDialect dialect) throws IOException {
+        if (dialect.supportsDelimiterDirective() && sql.indexOf(';') >= 0) {
+            String delimiter = sql.contains("$$") ? "//" : "$$";
+            writer.write("DELIMITER " + delimiter + "\n" + sql + "\n" + delimiter + "\nDELIMITER ;\n");
+            return;
+        }
+        // a delimiter after a trailing line comment would be part of the comment
+        String lastLine = sql.substring(sql.lastIndexOf('\n') + 1);
+        boolean comment = lastLine.contains("--") || (dialect.supportsHashComments() && lastLine.indexOf('#') >= 0);
+        writer.write(sql + (comment ? "\n;\n" : ";\n"));
+    }
+
+    private static void move(Path temp, Path file) throws IOException {
+        try {
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file);
+        }
+    }
+}
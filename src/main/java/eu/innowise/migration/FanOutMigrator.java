@@ -0,0 +1,191 @@
+package eu.innowise.migration;
+
+import eu.innowise.db.MigrationStrategy;
+import eu.innowise.db.MigrationTarget;
+import eu.innowise.exceptions.MigrationException;
+import eu.innowise.model.Migration;
+import eu.innowise.report.FanOutReport;
+import eu.innowise.report.MigrationReportGenerator;
+import eu.innowise.report.TargetResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Applies one set of migrations to many targets, such as the tenant schemas of several database instances.
+ * <p>
+ * The migration files are read and indexed once and shared by all targets. Targets are migrated concurrently,
+ * with at most {@link RolloutPlan#getInstanceParallelism()} targets of the same instance at a time; each target
+ * is migrated exactly as by {@link MigrationExecutor}, under its own schema lock and with its own report.
+ * The rollout follows the {@link RolloutPlan}: a canary wave first, then the remaining targets in waves.
+ * A failed target does not affect the others of its wave; it only counts towards stopping the rollout.
+ * </p>
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class FanOutMigrator {
+
+    private static final String MDC_TARGET = "migration.target";
+
+    private final MigrationFileReader fileReader;
+    private final MigrationStrategy strategy;
+    private final RolloutPlan plan;
+
+    /**
+     * Migrates the targets and writes the aggregated report.
+     *
+     * @param targets the targets, in rollout order; names must be unique
+     * @return the aggregated result
+     * @throws MigrationException if the migration files cannot be read or the rollout is interrupted
+     * @throws IllegalArgumentException if two targets have the same name
+     */
+    public FanOutReport migrate(List<MigrationTarget> targets) throws MigrationException {
+        checkUniqueNames(targets);
+        List<Migration> migrations = loadMigrations();
+        log.info("Migrating {} targets with {} migrations, rollout plan: {}", targets.size(), migrations.size(), plan);
+
+        Map<String, ExecutorService> instancePools = new HashMap<>();
+        List<TargetResult> results = new ArrayList<>(targets.size());
+        boolean stopped = false;
+        int failures = 0;
+        try {
+            List<List<MigrationTarget>> waves = plan.waves(targets);
+            for (int i = 0; i < waves.size(); i++) {
+                List<MigrationTarget> wave = waves.get(i);
+                if (stopped) {
+                    wave.forEach(target -> results.add(TargetResult.skipped(target.getName(), target.getInstance())));
+                    continue;
+                }
+
+                log.info("Starting wave {} of {} with {} targets.", i + 1, waves.size(), wave.size());
+                List<TargetResult> waveResults = runWave(wave, migrations, instancePools);
+                results.addAll(waveResults);
+
+                int waveFailures = (int) waveResults.stream()
+                        .filter(result -> result.getStatus() == TargetResult.Status.FAILED)
+                        .count();
+                failures += waveFailures;
+                log.info("Wave {} finished: {} of {} targets failed.", i + 1, waveFailures, wave.size());
+                if (plan.shouldStop(i, waveFailures, failures)) {
+                    log.error("Stopping the rollout after wave {}: {} targets failed.", i + 1, failures);
+                    stopped = true;
+                }
+            }
+        } finally {
+            instancePools.values().forEach(ExecutorService::shutdownNow);
+        }
+
+        FanOutReport report = new FanOutReport(results, stopped);
+        log.info("Fan-out migration finished: {} succeeded, {} failed, {} skipped.",
+                report.getSucceeded(), report.getFailed(), report.getSkipped());
+        MigrationReportGenerator.generateJsonReport(report, report.isSuccessful(), "fanout");
+        return report;
+    }
+
+    private List<TargetResult> runWave(List<MigrationTarget> wave, List<Migration> migrations,
+                                       Map<String, ExecutorService> instancePools) {
+        List<Future<TargetResult>> futures = new ArrayList<>(wave.size());
+        for (MigrationTarget target : wave) {
+            ExecutorService pool = instancePools.computeIfAbsent(target.getInstance(), this::createInstancePool);
+            futures.add(pool.submit(() -> migrateTarget(target, migrations)));
+        }
+
+        List<TargetResult> results = new ArrayList<>(wave.size());
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                results.add(await(futures.get(i), wave.get(i)));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new MigrationException("Interrupted while migrating targets", e);
+        }
+        return results;
+    }
+
+    private static TargetResult await(Future<TargetResult> future, MigrationTarget target) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            log.error("Unexpected error migrating target {}", target, e.getCause());
+            return new TargetResult(target.getName(), target.getInstance(), TargetResult.Status.FAILED, List.of(),
+                    String.valueOf(e.getCause()), 0);
+        }
+    }
+
+    private TargetResult migrateTarget(MigrationTarget target, List<Migration> migrations) {
+        long start = System.nanoTime();
+        MDC.put(MDC_TARGET, target.getName());
+        try {
+            try (Connection connection = target.getConnection()) {
+                strategy.ensureMetadataTableExists(connection);
+            }
+
+            MigrationManager manager = new MigrationManager(fileReader, target);
+            manager.upgradeChecksums(migrations);
+            List<Migration> pending = manager.filterPending(manager.withBaseline(migrations));
+            List<Migration> applied = pending.isEmpty() ? List.of()
+                    : new MigrationExecutor(manager, fileReader, strategy, target).executeMigrations(pending);
+
+            log.info("Target {} is up to date, {} migrations applied.", target, applied.size());
+            return new TargetResult(target.getName(), target.getInstance(), TargetResult.Status.SUCCEEDED,
+                    applied.stream().map(Migration::getVersion).toList(), null, elapsedMillis(start));
+        } catch (SQLException | RuntimeException e) {
+            log.error("Migration of target {} failed.", target, e);
+            return new TargetResult(target.getName(), target.getInstance(), TargetResult.Status.FAILED, List.of(),
+                    e.getMessage(), elapsedMillis(start));
+        } finally {
+            MDC.remove(MDC_TARGET);
+        }
+    }
+
+    private List<Migration> loadMigrations() {
+        try {
+            return fileReader.findMigrationFilesInResources();
+        } catch (IOException | URISyntaxException e) {
+            log.error("Error discovering migration files.", e);
+            throw new MigrationException("Error discovering migration files.", e);
+        }
+    }
+
+    private ExecutorService createInstancePool(String instance) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "migration-" + instance + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newFixedThreadPool(plan.getInstanceParallelism(), threadFactory);
+    }
+
+    private static void checkUniqueNames(List<MigrationTarget> targets) {
+        Set<String> names = new HashSet<>();
+        for (MigrationTarget target : targets) {
+            if (!names.add(target.getName())) {
+                throw new IllegalArgumentException("Duplicate migration target: " + target.getName());
+            }
+        }
+    }
+
+    private static long elapsedMillis(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
@@ -1,59 +1,259 @@
 package eu.innowise.migration;
 
-import eu.innowise.db.ConnectionManager;
+import eu.innowise.checksum.ChecksumAlgorithm;
+import eu.innowise.db.MigrationStrategy;
+import eu.innowise.db.MigrationTarget;
+import eu.innowise.db.SchemaLock;
 import eu.innowise.exceptions.MigrationException;
 import eu.innowise.exceptions.SchemaLockException;
+import eu.innowise.exceptions.StatementExecutionException;
+import eu.innowise.jfr.HistoryInsertEvent;
+import eu.innowise.jfr.MigrationEvent;
+import eu.innowise.jfr.RollbackEvent;
+import eu.innowise.jfr.SchemaLockEvent;
+import eu.innowise.jfr.StatementEvent;
+import eu.innowise.metrics.Metrics;
+import eu.innowise.metrics.MigrationMetrics;
 import eu.innowise.model.AppliedMigration;
+import eu.innowise.model.Baseline;
 import eu.innowise.model.Migration;
+import eu.innowise.model.Version;
+import eu.innowise.parser.SqlStatementType;
+import eu.innowise.report.CompletedRunReport;
+import eu.innowise.report.ExecutionProfiler;
+import eu.innowise.report.MigrationRecord;
 import eu.innowise.report.MigrationReportGenerator;
+import eu.innowise.report.MigrationReportStream;
+import eu.innowise.report.MigrationRunReport;
+import eu.innowise.report.ParallelRunReport;
 import eu.innowise.utils.Constants;
-import lombok.RequiredArgsConstructor;
+import eu.innowise.utils.PropertiesUtils;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Savepoint;
 import java.sql.Statement;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Class is responsible for executing and rolling back database migrations.
 */
 @Slf4j
-@RequiredArgsConstructor
 public class MigrationExecutor {
 
     private final MigrationManager migrationManager;
     private final MigrationFileReader fileReader;
+    private final MigrationStrategy strategy;
+    private final MigrationTarget target;
+
+    private final boolean batchEnabled = PropertiesUtils.getBooleanProperty("migration.batch.enabled", false);
+    private final int batchSize = PropertiesUtils.getIntProperty("migration.batch.size", Constants.DEFAULT_BATCH_SIZE);
+    private final TransactionPolicy transactionPolicy;
+    private final int commitInterval;
+    private final int nonTransactionalRetries;
+    private final int nonTransactionalRetryDelay;
+    private final int lockTimeout = PropertiesUtils.getIntProperty("migration.lock.timeout-ms", Constants.DEFAULT_LOCK_TIMEOUT_MS);
+    private final int lockBackoffInitial = PropertiesUtils.getIntProperty("migration.lock.backoff-initial-ms",
+            Constants.DEFAULT_LOCK_BACKOFF_INITIAL_MS);
+    private final int lockBackoffMax = PropertiesUtils.getIntProperty("migration.lock.backoff-max-ms",
+            Constants.DEFAULT_LOCK_BACKOFF_MAX_MS);
+    private final int parallelThreads = PropertiesUtils.getIntProperty("migration.parallel.threads", 1);
+    private final BackfillRunner.Settings backfillSettings = BackfillRunner.Settings.configured();
+    private final ChecksumAlgorithm checksumAlgorithm = ChecksumAlgorithm.configured();
+    private final MigrationMetrics metrics = Metrics.current();
+
+    // streaming report and profiler of the running command and the durations of migrations not yet reported, see withReport
+    private volatile MigrationReportStream reportStream = MigrationReportStream.NOOP;
+    private volatile ExecutionProfiler profiler = ExecutionProfiler.DISABLED;
+    private final Map<String, Long> durations = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an executor for the database configured by the {@code db.*} properties.
+     *
+     * @param migrationManager the manager reading the schema history
+     * @param fileReader       the reader of migration files
+     * @param strategy         the strategy of the database
+     */
+    public MigrationExecutor(MigrationManager migrationManager, MigrationFileReader fileReader, MigrationStrategy strategy) {
+        this(migrationManager, fileReader, strategy, MigrationTarget.defaultTarget());
+    }
+
+    /**
+     * Creates an executor for a target, with the transaction settings from the properties.
+     *
+     * @param migrationManager the manager reading the schema history of the target
+     * @param fileReader       the reader of migration files
+     * @param strategy         the strategy of the database
+     * @param target           the target migrations are applied to
+     */
+    public MigrationExecutor(MigrationManager migrationManager, MigrationFileReader fileReader, MigrationStrategy strategy,
+                             MigrationTarget target) {
+        this(migrationManager, fileReader, strategy, target, TransactionSettings.configured());
+    }
+
+    MigrationExecutor(MigrationManager migrationManager, MigrationFileReader fileReader, MigrationStrategy strategy,
+                      MigrationTarget target, TransactionSettings transactionSettings) {
+        this.migrationManager = migrationManager;
+        this.fileReader = fileReader;
+        this.strategy = strategy;
+        this.target = target;
+        this.transactionPolicy = transactionSettings.policy();
+        this.commitInterval = transactionSettings.commitInterval();
+        this.nonTransactionalRetries = transactionSettings.nonTransactionalRetries();
+        this.nonTransactionalRetryDelay = transactionSettings.nonTransactionalRetryDelayMillis();
+    }
+
+    /**
+     * How migrations are grouped into transactions and how non-transactional statements are retried.
+     *
+     * @param policy                           the grouping of migrations into transactions
+     * @param commitInterval                   the number of migrations per transaction under {@link TransactionPolicy#EVERY_N}
+     * @param nonTransactionalRetries          the retries of a failed statement of a non-transactional migration
+     * @param nonTransactionalRetryDelayMillis the pause before such a retry
+     */
+    record TransactionSettings(TransactionPolicy policy, int commitInterval, int nonTransactionalRetries,
+                               int nonTransactionalRetryDelayMillis) {
+
+        /**
+         * @return the settings from the {@code migration.transaction.*} and {@code migration.non-transactional.*} properties
+         */
+        static TransactionSettings configured() {
+            return new TransactionSettings(
+                    TransactionPolicy.fromProperty(PropertiesUtils.getProperty("migration.transaction.policy"),
+                            TransactionPolicy.ALL),
+                    PropertiesUtils.getIntProperty("migration.transaction.commit-interval", Constants.DEFAULT_COMMIT_INTERVAL),
+                    PropertiesUtils.getIntProperty("migration.non-transactional.retries", 0),
+                    PropertiesUtils.getIntProperty("migration.non-transactional.retry-delay-ms",
+                            Constants.DEFAULT_NON_TRANSACTIONAL_RETRY_DELAY_MS));
+        }
+    }
 
     /**
      * Executes migrations on the database.
+     * Migrations are grouped into transactions according to {@code migration.transaction.policy}
+     * (see {@link TransactionPolicy}). Schema history rows and the report cover only the migrations that were committed.
+     * Migrations declaring {@code -- migration:transactional=false} run separately in autocommit mode,
+     * see {@link #executeNonTransactional(Migration)}.
+     * With {@code migration.parallel.threads} above one, independent migrations run concurrently instead,
+     * see {@link #applyMigrationsInParallel(List)}.
+     * Every migration is also appended to the streaming report as soon as its outcome is final, see {@link MigrationReportStream}.
+     * The report at the end of the run includes the execution profile, see {@link ExecutionProfiler}.
      *
      * @param migrations The list of migrations to be executed.
+     * @return the migrations that were applied, in the order they were applied
      * @throws MigrationException if an error occurs during migration execution.
      */
-    public void executeMigrations(List<Migration> migrations) throws MigrationException {
-        log.info("Starting batch migration for {} files.", migrations.size());
+    public List<Migration> executeMigrations(List<Migration> migrations) throws MigrationException {
+        ExecutionProfiler runProfiler = ExecutionProfiler.create();
+        try (SchemaLock lock = acquireSchemaLock()) {
+            runProfiler.recordLockWait(lock.getWaitTime(), lock.getAttempts());
+            List<Migration> pending = migrationManager.filterPending(migrations);
+            if (pending.size() < migrations.size()) {
+                log.info("{} of {} migrations were applied by another process while waiting for the schema lock.",
+                        migrations.size() - pending.size(), migrations.size());
+            }
+            if (pending.isEmpty()) {
+                log.info("No pending migrations left to apply.");
+                return List.of();
+            }
+            return withReport("migrate", runProfiler,
+                    () -> parallelThreads > 1 ? applyMigrationsInParallel(pending) : applyMigrations(pending));
+        }
+    }
+
+    /**
+     * Runs a command with its streaming report open and its profiler installed; the report is flushed and closed
+     * when the command ends.
+     */
+    private <T> T withReport(String command, ExecutionProfiler runProfiler, ReportedCommand<T> body) throws MigrationException {
+        try (MigrationReportStream report = MigrationReportStream.open(command, target.getName())) {
+            reportStream = report;
+            profiler = runProfiler;
+            return body.run();
+        } finally {
+            reportStream = MigrationReportStream.NOOP;
+            profiler = ExecutionProfiler.DISABLED;
+            durations.clear();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ReportedCommand<T> {
+        T run() throws MigrationException;
+    }
 
-        try (Connection connection = ConnectionManager.getConnection()) {
+    private void report(Migration migration, MigrationRecord.Status status, String error) {
+        Long nanos = durations.remove(migration.getVersion());
+        reportStream.record(migration, status, nanos != null ? nanos : 0, error);
+    }
+
+    private List<Migration> applyMigrations(List<Migration> migrations) throws MigrationException {
+        log.info("Starting migration of {} files with transaction policy {}.", migrations.size(), transactionPolicy);
+
+        List<Migration> committed = new ArrayList<>();
+        List<Migration> uncommitted = new ArrayList<>();
+        Migration current = null;
+
+        try (Connection connection = target.getConnection()) {
             connection.setAutoCommit(false);
+            boolean useSavepoints = useSavepoints(connection);
 
             try {
-                lockSchemaHistoryTable(connection);
-
                 for (Migration migration : migrations) {
-                    executeSingleMigration(connection, migration);
+                    current = migration;
+                    if (!current.getDirectives().isTransactional()) {
+                        commit(connection, committed, uncommitted);
+                        executeNonTransactional(current);
+                        insertSchemaHistory(connection, current);
+                        uncommitted.add(current);
+                        current = null;
+                        commit(connection, committed, uncommitted);
+                        continue;
+                    }
+
+                    executeInSavepoint(connection, current, useSavepoints, committed, uncommitted);
+                    uncommitted.add(current);
+                    current = null;
+
+                    if (transactionPolicy.shouldCommit(uncommitted.size(), commitInterval)) {
+                        commit(connection, committed, uncommitted);
+                    }
                 }
 
-                connection.commit();
+                commit(connection, committed, uncommitted);
                 log.info("All migrations completed successfully.");
-                MigrationReportGenerator.generateJsonReport(migrations, true);
+                MigrationReportGenerator.generateJsonReport(new CompletedRunReport(committed, profiler.toProfile()), true,
+                        reportName());
+                return committed;
             } catch (Exception e) {
-                log.error("Batch migration failed. Rolling back all changes.", e);
+                log.error("Migration failed. Rolling back {} uncommitted migrations; {} migrations were committed.",
+                        uncommitted.size() + (current != null ? 1 : 0), committed.size(), e);
                 rollbackTransaction(connection);
-                throw new MigrationException("Batch migration process failed.", e);
+                uncommitted.forEach(migration -> report(migration, MigrationRecord.Status.ABORTED, null));
+                if (current != null) {
+                    report(current, MigrationRecord.Status.FAILED, e.getMessage());
+                }
+                MigrationReportGenerator.generateJsonReport(
+                        new MigrationRunReport(transactionPolicy, committed, uncommitted, current, e.getMessage(),
+                                profiler.toProfile()), false, reportName());
+                throw new MigrationException(failureMessage(committed, current), e);
             }
         } catch (SQLException e) {
             log.error("Database connection error during migration.", e);
@@ -61,6 +261,215 @@ public class MigrationExecutor {
         }
     }
 
+    /**
+     * Runs independent migrations concurrently, each on its own pooled connection and committed on its own;
+     * the transaction policy does not apply.
+     * <p>
+     * Dependencies come from {@code -- migration:depends-on=...} directives and from the tables and indexes
+     * the migrations touch, see {@link MigrationGraph}. Schema history rows are written in version order once all
+     * earlier migrations have finished, so a migration is committed shortly before its history row, as with
+     * non-transactional migrations. A failed migration stops the migrations that depend on it; the others still run.
+     * </p>
+     */
+    private List<Migration> applyMigrationsInParallel(List<Migration> migrations) throws MigrationException {
+        List<AppliedMigration> history = migrationManager.getAppliedMigrations();
+        Set<Version> applied = history.stream()
+                .map(AppliedMigration::getParsedVersion)
+                .collect(Collectors.toCollection(HashSet::new));
+        // dependencies squashed into an applied baseline are satisfied by it
+        history.stream()
+                .filter(AppliedMigration::isBaseline)
+                .map(AppliedMigration::getParsedVersion)
+                .max(Comparator.naturalOrder())
+                .ifPresent(baseline -> migrations.stream()
+                        .flatMap(migration -> migration.getDirectives().getDependsOn().stream())
+                        .filter(dependency -> dependency.compareTo(baseline) <= 0)
+                        .forEach(applied::add));
+        MigrationGraph graph = MigrationGraph.build(migrations, applied);
+        log.info("Starting parallel migration of {} files on {} threads.", migrations.size(), parallelThreads);
+
+        try (Connection connection = target.getConnection()) {
+            connection.setAutoCommit(true);
+            MigrationScheduler.Result result = new MigrationScheduler(graph, parallelThreads)
+                    .run(this::runAndCommit, migration -> {
+                        insertSchemaHistory(connection, migration);
+                        report(migration, MigrationRecord.Status.APPLIED, null);
+                    });
+
+            if (result.isSuccessful()) {
+                log.info("All migrations completed successfully.");
+                MigrationReportGenerator.generateJsonReport(new CompletedRunReport(result.committed(), profiler.toProfile()),
+                        true, reportName());
+                return result.committed();
+            }
+
+            log.error("Parallel migration failed: {} migrations failed, {} were skipped, {} were committed.",
+                    result.failed().size(), result.skipped().size(), result.committed().size());
+            Map<String, Migration> byVersion = migrations.stream()
+                    .collect(Collectors.toMap(Migration::getVersion, Function.identity()));
+            result.failed().forEach((version, error) ->
+                    report(byVersion.get(version), MigrationRecord.Status.FAILED, error));
+            result.skipped().forEach(version -> report(byVersion.get(version), MigrationRecord.Status.SKIPPED, null));
+            MigrationReportGenerator.generateJsonReport(
+                    new ParallelRunReport(result.committed(), result.failed(), result.skipped(), profiler.toProfile()), false,
+                    reportName());
+            throw new MigrationException(failureMessage(result), result.firstError());
+        } catch (SQLException e) {
+            log.error("Database connection error during migration.", e);
+            throw new MigrationException("Error during parallel migration process.", e);
+        }
+    }
+
+    private void runAndCommit(Migration migration) throws SQLException {
+        if (!migration.getDirectives().isTransactional()) {
+            executeNonTransactional(migration);
+            return;
+        }
+
+        try (Connection connection = target.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                executeStatements(connection, migration);
+                connection.commit();
+            } catch (RuntimeException | SQLException e) {
+                rollbackTransaction(connection);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Runs a migration that cannot run inside a transaction, such as {@code CREATE INDEX CONCURRENTLY}.
+     * <p>
+     * The caller commits its open transaction first, so no snapshot it holds blocks the online DDL.
+     * The schema lock is held on its own connection and stays in place.
+     * The statements run one by one on a dedicated connection in autocommit mode; the caller writes the schema
+     * history row only after all of them succeeded. Before each attempt the strategy may clean up what a failed earlier
+     * attempt left behind, and a failed statement is retried {@code migration.non-transactional.retries} times.
+     * Statements that completed before a failure are not undone, so such migrations should be written to be re-runnable
+     * (for example with {@code IF NOT EXISTS}).
+     * Backfill migrations commit chunk by chunk instead and resume where they stopped, see {@link BackfillRunner}.
+     * </p>
+     */
+    private void executeNonTransactional(Migration migration) throws MigrationException {
+        log.info("Running migration {} outside a transaction.", migration.getVersion());
+        if (transactionPolicy == TransactionPolicy.ALL && parallelThreads <= 1) {
+            log.warn("Migration {} is non-transactional, migrations before it were committed separately.", migration.getVersion());
+        }
+
+        if (migration.getDirectives().isBackfill()) {
+            timed(migration, () -> new BackfillRunner(target, backfillSettings, metrics, profiler).run(migration));
+            return;
+        }
+        timed(migration, () -> executeNonTransactionalStatements(migration));
+    }
+
+    private void executeNonTransactionalStatements(Migration migration) throws MigrationException {
+        try (Connection connection = target.getConnection();
+             Stream<String> sqlStatements = migration.getScript().statements()) {
+            connection.setAutoCommit(true);
+            Iterator<String> iterator = sqlStatements.iterator();
+            for (int index = 1; iterator.hasNext(); index++) {
+                executeWithRetries(connection, migration.getVersion(), index, iterator.next());
+            }
+        } catch (StatementExecutionException e) {
+            log.error("Non-transactional migration {} failed at statement #{}, earlier statements remain applied.",
+                    migration.getVersion(), e.getStatementIndex());
+            throw new MigrationException("Found error in migration file at statement #" + e.getStatementIndex(), e);
+        } catch (SQLException e) {
+            log.error("Failed to prepare connection for non-transactional migration {}", migration.getVersion(), e);
+            throw new MigrationException("Failed to prepare connection for migration " + migration.getVersion(), e);
+        }
+    }
+
+    private void executeWithRetries(Connection connection, String version, int index, String sql) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                strategy.prepareNonTransactionalStatement(connection, sql);
+                executeStatement(connection, version, index, sql);
+                return;
+            } catch (SQLException | StatementExecutionException e) {
+                if (attempt > nonTransactionalRetries) {
+                    throw e instanceof StatementExecutionException see ? see
+                            : new StatementExecutionException("Statement #" + index + " failed", index, e);
+                }
+                log.warn("Statement #{} failed (attempt {} of {}), retrying in {} ms.",
+                        index, attempt, nonTransactionalRetries + 1, nonTransactionalRetryDelay, e);
+                pause(index);
+            }
+        }
+    }
+
+    private void pause(int index) {
+        try {
+            Thread.sleep(nonTransactionalRetryDelay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StatementExecutionException("Interrupted while waiting to retry statement #" + index, index, e);
+        }
+    }
+
+    private boolean useSavepoints(Connection connection) throws SQLException {
+        if (transactionPolicy != TransactionPolicy.EVERY_N) {
+            return false;
+        }
+        if (!strategy.supportsTransactionalDdl() || !connection.getMetaData().supportsSavepoints()) {
+            log.info("Database does not support transactional DDL, a failure rolls back the whole open group of migrations.");
+            return false;
+        }
+        return true;
+    }
+
+    private void executeInSavepoint(Connection connection, Migration migration, boolean useSavepoints,
+                                    List<Migration> committed, List<Migration> uncommitted) throws SQLException {
+        if (!useSavepoints) {
+            executeSingleMigration(connection, migration);
+            return;
+        }
+
+        Savepoint savepoint = connection.setSavepoint();
+        try {
+            executeSingleMigration(connection, migration);
+        } catch (RuntimeException e) {
+            log.info("Rolling back migration {} to its savepoint and committing {} earlier migrations.",
+                    migration.getVersion(), uncommitted.size());
+            connection.rollback(savepoint);
+            commit(connection, committed, uncommitted);
+            throw e;
+        }
+        connection.releaseSavepoint(savepoint);
+    }
+
+    private void commit(Connection connection, List<Migration> committed, List<Migration> uncommitted) throws SQLException {
+        if (uncommitted.isEmpty()) {
+            return;
+        }
+        connection.commit();
+        committed.addAll(uncommitted);
+        uncommitted.forEach(migration -> report(migration, MigrationRecord.Status.APPLIED, null));
+        log.info("Committed {} migrations, last version: {}", uncommitted.size(), uncommitted.get(uncommitted.size() - 1).getVersion());
+        uncommitted.clear();
+    }
+
+    private String reportName() {
+        return target.isDefault() ? null : target.getName();
+    }
+
+    private static String failureMessage(List<Migration> committed, Migration failed) {
+        String failedVersion = failed != null ? failed.getVersion() : "none";
+        return "Migration process failed at version " + failedVersion + ". Committed versions: " + joinVersions(committed);
+    }
+
+    private static String failureMessage(MigrationScheduler.Result result) {
+        String skippedVersions = result.skipped().isEmpty() ? "none" : String.join(", ", result.skipped());
+        return "Migration process failed at versions " + String.join(", ", result.failed().keySet())
+                + ". Skipped versions: " + skippedVersions + ". Committed versions: " + joinVersions(result.committed());
+    }
+
+    private static String joinVersions(List<Migration> migrations) {
+        return migrations.isEmpty() ? "none" : migrations.stream().map(Migration::getVersion).collect(Collectors.joining(", "));
+    }
+
     /**
      * Executes the rollback of migrations to the specified version.
      * This method goes through the list of applied migrations and rolls them back
@@ -75,34 +484,64 @@ public class MigrationExecutor {
     public void rollbackMigrationToVersion(String targetVersion) throws MigrationException {
         log.info("Starting rollback to version: {}", targetVersion);
 
-        List<AppliedMigration> appliedMigrations = migrationManager.getAppliedMigrations();
+        try (SchemaLock ignored = acquireSchemaLock()) {
+            withReport("rollback", ExecutionProfiler.DISABLED, () -> {
+                rollbackLocked(targetVersion);
+                return null;
+            });
+        }
+    }
 
-        List<AppliedMigration> migrationsToRollback = appliedMigrations.stream()
-                .filter(m -> MigrationVersionComparator
-                        .compareVersions(m.getVersion(), targetVersion) > 0)
-                .sorted(new MigrationVersionComparator().reversed())
-                .toList();
+    private void rollbackLocked(String targetVersion) throws MigrationException {
+        List<AppliedMigration> migrationsToRollback = migrationManager.getAppliedMigrationsAbove(Version.parse(targetVersion));
 
         if (migrationsToRollback.isEmpty()) {
             log.info("No migrations to rollback.");
             return;
         }
+        for (AppliedMigration migration : migrationsToRollback) {
+            if (migration.isBaseline()) {
+                throw new MigrationException("Cannot roll back below baseline " + migration.getVersion());
+            }
+        }
+
+        List<Migration> rollbackMigrations = loadRollbackMigrations(migrationsToRollback);
+        for (Migration rollbackMigration : rollbackMigrations) {
+            requireStatements(rollbackMigration);
+        }
 
-        try (Connection connection = ConnectionManager.getConnection()) {
+        try (Connection connection = target.getConnection()) {
             connection.setAutoCommit(false);
+            List<Migration> uncommitted = new ArrayList<>();
+            Migration current = null;
 
             try {
-                lockSchemaHistoryTable(connection);
-
-                for (AppliedMigration migration : migrationsToRollback) {
-                    rollbackSingleMigration(connection, migration);
+                for (int i = 0; i < migrationsToRollback.size(); i++) {
+                    current = rollbackMigrations.get(i);
+                    if (current.getDirectives().isTransactional()) {
+                        rollbackSingleMigration(connection, migrationsToRollback.get(i), current);
+                        uncommitted.add(current);
+                        current = null;
+                        continue;
+                    }
+
+                    commitRollback(connection, uncommitted);
+                    executeNonTransactional(current);
+                    removeMigrationFromSchemaHistory(connection, migrationsToRollback.get(i));
+                    uncommitted.add(current);
+                    current = null;
+                    commitRollback(connection, uncommitted);
                 }
 
-                connection.commit();
+                commitRollback(connection, uncommitted);
                 log.info("Rollback completed successfully.");
             } catch (Exception e) {
                 log.error("Rollback failed. Rolling back all changes.", e);
                 rollbackTransaction(connection);
+                uncommitted.forEach(migration -> report(migration, MigrationRecord.Status.ABORTED, null));
+                if (current != null) {
+                    report(current, MigrationRecord.Status.FAILED, e.getMessage());
+                }
                 throw new MigrationException("Rolling back process failed.", e);
             }
         } catch (Exception e) {
@@ -111,65 +550,218 @@ public class MigrationExecutor {
         }
     }
 
+    /**
+     * Marks a database as being at the given version without running any migration, by inserting a {@code BASELINE}
+     * row into its empty schema history. Migrations up to the version are then treated as applied.
+     * If the migration folder has a baseline script for the version, the row takes its checksum, so the migration
+     * files below it are validated against the checksums the script recorded.
+     *
+     * @param version the version the database is at
+     * @throws MigrationException if the schema history is not empty or the row cannot be inserted
+     */
+    public void baseline(String version) throws MigrationException {
+        Version parsed = Version.parse(version);
+        try (SchemaLock ignored = acquireSchemaLock()) {
+            if (!migrationManager.isHistoryEmpty()) {
+                throw new MigrationException("Cannot baseline a database with a non-empty schema history.");
+            }
+            Baseline baseline = migrationManager.getBaselines().stream()
+                    .filter(candidate -> candidate.getParsedVersion().compareTo(parsed) == 0)
+                    .findFirst()
+                    .orElseGet(() -> new Baseline(new Migration(version, "<< Baseline >>", 0, List.of()), Map.of()));
+            try (Connection connection = target.getConnection()) {
+                connection.setAutoCommit(true);
+                insertSchemaHistory(connection, baseline);
+            } catch (SQLException e) {
+                log.error("Database connection error during baseline.", e);
+                throw new MigrationException("Error during baseline.", e);
+            }
+            log.info("Database marked as at version {}.", version);
+        }
+    }
+
+    private void commitRollback(Connection connection, List<Migration> uncommitted) throws SQLException {
+        connection.commit();
+        uncommitted.forEach(migration -> report(migration, MigrationRecord.Status.ROLLED_BACK, null));
+        uncommitted.clear();
+    }
+
     private void executeSingleMigration(Connection connection, Migration migration) throws MigrationException {
+        executeStatements(connection, migration);
+        insertSchemaHistory(connection, migration);
+        log.info("Migration completed successfully for file: {}", migration.getDescription());
+    }
 
+    private void executeStatements(Connection connection, Migration migration) throws MigrationException {
         log.info("Starting migration for file: {}", migration.getDescription());
         log.debug("Migration version: {}, checksum: {}", migration.getVersion(), migration.getChecksum());
 
-        List<String> sqlStatements = migration.getSqlStatements();
-        for (String sql : sqlStatements) {
-            log.debug("Executing SQL: {}", sql);
-            try (Statement stmt = connection.createStatement()) {
-                stmt.execute(sql);
-            } catch (SQLException e) {
-                log.error("Found error in migration with version: {}", migration.getVersion());
-                MigrationReportGenerator.generateJsonReport(migration, false);
-                throw new MigrationException("Found error in migration file", e);
+        timed(migration, () -> executeStatementsOf(connection, migration));
+    }
+
+    private void executeStatementsOf(Connection connection, Migration migration) throws MigrationException {
+        try (Stream<String> sqlStatements = migration.getScript().statements();
+             SqlBatch batch = new SqlBatch(connection, batchSize, metrics, profiler, migration.getVersion())) {
+            Iterator<String> iterator = sqlStatements.iterator();
+            for (int index = 1; iterator.hasNext(); index++) {
+                String sql = iterator.next();
+                if (batchEnabled && SqlStatementType.of(sql) == SqlStatementType.DML) {
+                    batch.add(index, sql);
+                } else {
+                    batch.flush();
+                    executeStatement(connection, migration.getVersion(), index, sql);
+                }
             }
+            batch.flush();
+        } catch (StatementExecutionException e) {
+            log.error("Found error in migration with version: {} at statement #{}",
+                    migration.getVersion(), e.getStatementIndex());
+            throw new MigrationException("Found error in migration file at statement #" + e.getStatementIndex(), e);
         }
+    }
 
-        insertSchemaHistory(connection, migration);
-        log.info("Migration completed successfully for file: {}", migration.getDescription());
+    /**
+     * Runs the statements of a migration, recording their total time when metrics, the {@link MigrationEvent},
+     * the streaming report or the profiler are enabled.
+     */
+    private void timed(Migration migration, MigrationStep step) throws MigrationException {
+        MigrationEvent event = new MigrationEvent();
+        if (!metrics.isEnabled() && !event.isEnabled() && reportStream == MigrationReportStream.NOOP
+                && !profiler.isEnabled()) {
+            step.run();
+            return;
+        }
+        event.begin();
+        profiler.startMigration(migration);
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            step.run();
+            success = true;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            durations.put(migration.getVersion(), elapsed);
+            metrics.recordMigration(migration.getVersion(), elapsed, success);
+            profiler.finishMigration(migration, elapsed, success);
+            event.end();
+            if (event.shouldCommit()) {
+                event.target = target.getName();
+                event.version = migration.getVersion();
+                event.description = migration.getDescription();
+                event.transactional = migration.getDirectives().isTransactional();
+                event.success = success;
+                event.commit();
+            }
+        }
     }
 
-    private void rollbackSingleMigration(Connection connection, AppliedMigration appliedMigration) throws MigrationException {
-        log.info("Rolling back migration: {}", appliedMigration.getDescription());
+    @FunctionalInterface
+    private interface MigrationStep {
+        void run() throws MigrationException;
+    }
+
+    private void executeStatement(Connection connection, String version, int index, String sql) {
+        log.debug("Executing SQL #{}: {}", index, sql);
+        try (Statement stmt = connection.createStatement()) {
+            execute(stmt, version, index, sql);
+        } catch (SQLException e) {
+            throw new StatementExecutionException("Statement #" + index + " failed", index, e);
+        }
+    }
 
+    /**
+     * Executes a statement, timing it and counting the affected rows only when metrics, the profiler or the
+     * {@link StatementEvent} are enabled. The event does not escape when it is disabled, so the JIT can drop it.
+     */
+    private void execute(Statement stmt, String version, int index, String sql) throws SQLException {
+        StatementEvent event = new StatementEvent();
+        if (!metrics.isEnabled() && !profiler.isEnabled() && !event.isEnabled()) {
+            stmt.execute(sql);
+            return;
+        }
+        event.begin();
+        long start = System.nanoTime();
+        boolean hasResultSet = stmt.execute(sql);
+        long elapsed = System.nanoTime() - start;
+        long rows = hasResultSet ? 0 : Math.max(0, stmt.getUpdateCount());
+        metrics.recordStatement(elapsed, rows);
+        profiler.recordStatement(version, index, sql, elapsed, rows);
+        event.end();
+        if (event.shouldCommit()) {
+            event.version = version;
+            event.index = index;
+            event.bytes = sql.getBytes(StandardCharsets.UTF_8).length;
+            event.rows = rows;
+            event.commit();
+        }
+    }
+
+    private List<Migration> loadRollbackMigrations(List<AppliedMigration> migrationsToRollback) throws MigrationException {
         try {
-            List<Migration> rollbackFiles = fileReader.findRollbackFilesInResources();
-            Migration rollbackMigration = rollbackFiles.stream()
-                    .filter(m -> m.getVersion().equals(appliedMigration.getVersion()))
-                    .findFirst()
-                    .orElseThrow(() -> new MigrationException(
-                            "No rollback file found for migration version: " + appliedMigration.getVersion()));
+            RollbackCatalog catalog = fileReader.createRollbackCatalog();
+            return catalog.load(migrationsToRollback.stream().map(AppliedMigration::getVersion).toList());
+        } catch (IOException | URISyntaxException e) {
+            log.error("Error reading rollback files.", e);
+            throw new MigrationException("Error finding rollback files.", e);
+        }
+    }
 
-            log.info("Found rollback file for version: {}", appliedMigration.getVersion());
+    private void rollbackSingleMigration(Connection connection, AppliedMigration appliedMigration,
+                                         Migration rollbackMigration) throws MigrationException {
+        log.info("Rolling back migration: {}", appliedMigration.getDescription());
 
-            List<String> rollbackStatements = rollbackMigration.getSqlStatements();
-            if (rollbackStatements.isEmpty()) {
-                log.warn("No rollback SQL statements found for version: {}", appliedMigration.getVersion());
-                throw new MigrationException("Rollback file is empty or contains no SQL statements.");
+        RollbackEvent event = new RollbackEvent();
+        event.begin();
+        long start = System.nanoTime();
+        int executed = 0;
+        try {
+            executed = executeRollbackStatements(connection, appliedMigration, rollbackMigration);
+            removeMigrationFromSchemaHistory(connection, appliedMigration);
+            event.success = true;
+        } finally {
+            durations.put(appliedMigration.getVersion(), System.nanoTime() - start);
+            event.end();
+            if (event.shouldCommit()) {
+                event.version = appliedMigration.getVersion();
+                event.statements = executed;
+                event.commit();
             }
+        }
+        log.info("Rollback for version {} completed successfully.", appliedMigration.getVersion());
+    }
 
-            for (String sql : rollbackStatements) {
-                log.debug("Executing rollback SQL: {}", sql);
+    private int executeRollbackStatements(Connection connection, AppliedMigration appliedMigration,
+                                          Migration rollbackMigration) throws MigrationException {
+        int executed = 0;
+        try (Stream<String> rollbackStatements = rollbackMigration.getScript().statements()) {
+            Iterator<String> iterator = rollbackStatements.iterator();
+            while (iterator.hasNext()) {
+                String sql = iterator.next();
+                executed++;
+                log.debug("Executing rollback SQL #{}: {}", executed, sql);
                 try (Statement stmt = connection.createStatement()) {
-                    stmt.execute(sql);
+                    execute(stmt, appliedMigration.getVersion(), executed, sql);
                 } catch (SQLException e) {
-                    log.error("Error executing rollback SQL for version: {}", appliedMigration.getVersion(), e);
-                    throw new MigrationException("Error executing rollback SQL for version: " + appliedMigration.getVersion(), e);
+                    log.error("Error executing rollback SQL #{} for version: {}", executed, appliedMigration.getVersion(), e);
+                    throw new MigrationException("Error executing rollback SQL #" + executed + " for version: "
+                            + appliedMigration.getVersion(), e);
                 }
             }
-
-            removeMigrationFromSchemaHistory(connection, appliedMigration);
-            log.info("Rollback for version {} completed successfully.", appliedMigration.getVersion());
-
-        } catch (IOException | URISyntaxException e) {
-            log.error("Error reading rollback files.", e);
-            throw new MigrationException("Error finding rollback files for migration: " + appliedMigration.getVersion(), e);
         }
+        return executed;
     }
 
+    /**
+     * Checks that a rollback file has statements, so a schema history row is not removed without undoing anything.
+     */
+    private static void requireStatements(Migration rollbackMigration) throws MigrationException {
+        try (Stream<String> statements = rollbackMigration.getScript().statements()) {
+            if (statements.findAny().isEmpty()) {
+                log.warn("No rollback SQL statements found for version: {}", rollbackMigration.getVersion());
+                throw new MigrationException("Rollback file is empty or contains no SQL statements.");
+            }
+        }
+    }
 
     private void removeMigrationFromSchemaHistory(Connection connection, AppliedMigration migration) throws MigrationException {
         try (PreparedStatement statement = connection.prepareStatement(Constants.DELETE_FROM_SCHEMA_HISTORY)) {
@@ -183,26 +775,52 @@ public class MigrationExecutor {
     }
 
     private void insertSchemaHistory(Connection connection, Migration migration) throws MigrationException {
+        HistoryInsertEvent event = new HistoryInsertEvent();
+        event.begin();
         try (PreparedStatement statement = connection.prepareStatement(Constants.INSERT_SCHEMA_HISTORY)) {
             statement.setString(1, migration.getVersion());
             statement.setString(2, migration.getDescription());
-            statement.setInt(3, migration.getChecksum());
+            if (checksumAlgorithm == ChecksumAlgorithm.MD5) {
+                statement.setInt(3, (int) migration.getChecksum());
+            } else {
+                statement.setNull(3, Types.INTEGER);
+            }
+            long versionKey = migration.getParsedVersion().key();
+            if (versionKey == Version.NO_KEY) {
+                statement.setNull(4, Types.BIGINT);
+            } else {
+                statement.setLong(4, versionKey);
+            }
+            statement.setLong(5, migration.getChecksum());
+            statement.setString(6, checksumAlgorithm.name());
+            statement.setString(7, migration instanceof Baseline ? Constants.MIGRATION_TYPE_BASELINE : Constants.MIGRATION_TYPE_SQL);
             statement.executeUpdate();
             log.info("Schema history updated for version: {}, ", migration.getVersion());
+            event.end();
+            if (event.shouldCommit()) {
+                event.version = migration.getVersion();
+                event.commit();
+            }
         } catch (SQLException e) {
             log.error("Failed to update schema history for version: {}", migration.getVersion(), e);
             throw new MigrationException("Failed to update schema history", e);
         }
     }
 
-    private void lockSchemaHistoryTable(Connection connection) throws SchemaLockException {
-        try (Statement statement = connection.createStatement()) {
-            log.info("Acquiring lock on schema history table...");
-            statement.executeQuery(Constants.SELECT_SCHEMA_HISTORY_FOR_UPDATE);
-            log.info("Lock acquired on schema history table.");
-        } catch (SQLException e) {
-            log.error("Error acquiring lock on schema history table", e);
-            throw new SchemaLockException("Error acquiring lock on schema history table", e);
+    private SchemaLock acquireSchemaLock() throws SchemaLockException {
+        log.info("Acquiring schema lock...");
+        SchemaLockEvent event = new SchemaLockEvent();
+        event.begin();
+        event.target = target.getName();
+        try {
+            SchemaLock lock = SchemaLock.acquire(strategy, target.getConnection(), Duration.ofMillis(lockTimeout),
+                    Duration.ofMillis(lockBackoffInitial), Duration.ofMillis(lockBackoffMax));
+            metrics.recordLockWait(lock.getWaitTime().toNanos(), lock.getAttempts());
+            event.attempts = lock.getAttempts();
+            event.acquired = true;
+            return lock;
+        } finally {
+            event.commit();
         }
     }
 
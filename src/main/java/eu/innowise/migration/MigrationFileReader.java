@@ -1,7 +1,15 @@
 package eu.innowise.migration;
 
+import eu.innowise.checksum.ChecksumAlgorithm;
 import eu.innowise.exceptions.MigrationFileReadException;
+import eu.innowise.jfr.DiscoveryEvent;
+import eu.innowise.metrics.Metrics;
+import eu.innowise.metrics.MigrationMetrics;
+import eu.innowise.model.Baseline;
 import eu.innowise.model.Migration;
+import eu.innowise.parser.IndexedSqlScript;
+import eu.innowise.parser.SqlDialect;
+import eu.innowise.parser.SqlFileIndexer;
 import eu.innowise.utils.Constants;
 import eu.innowise.utils.MigrationUtils;
 import eu.innowise.utils.PropertiesUtils;
@@ -10,18 +18,65 @@ import lombok.extern.slf4j.Slf4j;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
  * Class responsible for reading migration files from the resources folder.
+ * <p>
+ * Files are parsed and hashed on a bounded {@link ForkJoinPool} sized by {@code migration.discovery.parallelism}
+ * (the number of available processors by default, {@code 1} reads files on the calling thread).
+ * Results are returned in file name order regardless of the parallelism.
+ * </p>
+ * <p>
+ * When {@code migration.cache.enabled} is set, file metadata is kept in a {@link MigrationManifestCache}
+ * ({@code migration.cache.path}, next to the migration folder by default) and unchanged files are not read again.
+ * </p>
  */
 @Slf4j
 public class MigrationFileReader {
 
+    private static final String MANIFEST_SUFFIX = ".manifest.json";
+
+    private final SqlDialect dialect;
+    private final SqlFileIndexer indexer;
+    private final int parallelism;
+    private final boolean cacheEnabled;
+    private final MigrationMetrics metrics;
+    private final Path folder;
+
+    public MigrationFileReader(SqlDialect dialect) {
+        this(dialect, null);
+    }
+
+    /**
+     * Creates a reader of the given folder instead of the {@code migration.folder} resource, for example
+     * a folder outside the classpath.
+     *
+     * @param dialect the dialect used to split the files into statements
+     * @param folder  the folder with the migration files, or {@code null} to resolve {@code migration.folder} from the classpath
+     */
+    public MigrationFileReader(SqlDialect dialect, Path folder) {
+        this.dialect = dialect;
+        this.folder = folder;
+        this.metrics = Metrics.current();
+        this.indexer = new SqlFileIndexer(dialect,
+                PropertiesUtils.getIntProperty("migration.mmap.threshold", Constants.DEFAULT_MAPPING_THRESHOLD), metrics);
+        this.parallelism = PropertiesUtils.getIntProperty("migration.discovery.parallelism",
+                Runtime.getRuntime().availableProcessors());
+        this.cacheEnabled = PropertiesUtils.getBooleanProperty("migration.cache.enabled", false);
+    }
+
     /**
      * Finds migration SQL files in the resources folder that start with the migration prefix defined in the constants(V).
      *
@@ -44,7 +99,91 @@ public class MigrationFileReader {
         return findFilesInResources(Constants.ROLLBACK_PREFIX);
     }
 
+    /**
+     * Finds baseline SQL files in the resources folder that start with the baseline prefix defined in the constants(B).
+     *
+     * @return the baselines with the migrations they squashed, see {@link MigrationSquasher}
+     * @throws IOException if there is an I/O error while accessing the files
+     * @throws URISyntaxException if the resource URL cannot be converted to a URI
+     */
+    public List<Baseline> findBaselineFilesInResources() throws IOException, URISyntaxException {
+        return findFilesInResources(Constants.BASELINE_PREFIX).stream()
+                .map(BaselineFile::read)
+                .toList();
+    }
+
+    /**
+     * @return the folder the migration files are read from
+     * @throws URISyntaxException if the resource URL cannot be converted to a URI
+     */
+    public Path getMigrationFolder() throws URISyntaxException {
+        return resolveMigrationFolder();
+    }
+
+    /**
+     * @return the algorithm of the checksums of the migrations read by this reader
+     */
+    public ChecksumAlgorithm getChecksumAlgorithm() {
+        return indexer.getChecksumAlgorithm();
+    }
+
+    /**
+     * Creates a catalog of the rollback SQL files in the resources folder, indexed by version.
+     * Only file names are read here; the files themselves are read when the catalog loads them.
+     *
+     * @return the rollback catalog
+     * @throws IOException if there is an I/O error while accessing the files
+     * @throws URISyntaxException if the resource URL cannot be converted to a URI
+     */
+    public RollbackCatalog createRollbackCatalog() throws IOException, URISyntaxException {
+        Path root = resolveMigrationFolder();
+        List<Path> files = listFiles(root, Constants.ROLLBACK_PREFIX);
+        log.info("Found {} {} files in folder: {}", files.size(), Constants.ROLLBACK_PREFIX, root);
+
+        return new RollbackCatalog(files, paths -> {
+            MigrationManifestCache cache = openCache(root);
+            try {
+                return readMigrations(paths, cache);
+            } finally {
+                cache.save(Constants.ROLLBACK_PREFIX, files);
+            }
+        });
+    }
+
     private List<Migration> findFilesInResources(String prefix) throws IOException, URISyntaxException {
+        DiscoveryEvent event = new DiscoveryEvent();
+        event.begin();
+        long start = metrics.isEnabled() ? System.nanoTime() : 0L;
+        Path root = resolveMigrationFolder();
+        List<Path> files = listFiles(root, prefix);
+
+        MigrationManifestCache cache = openCache(root);
+        List<Migration> migrations;
+        try {
+            migrations = readMigrations(files, cache);
+        } finally {
+            cache.save(prefix, files);
+        }
+
+        if (metrics.isEnabled()) {
+            metrics.recordDiscovery(System.nanoTime() - start, migrations.size());
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.prefix = prefix;
+            event.folder = root.toString();
+            event.files = migrations.size();
+            event.commit();
+        }
+        log.info("Found {} {} files in folder: {}", migrations.size(), prefix, root);
+        return migrations;
+    }
+
+    private Path resolveMigrationFolder() throws URISyntaxException {
+        if (folder != null) {
+            return folder;
+        }
+
         String migrationsPath = PropertiesUtils.getProperty("migration.folder");
         if (migrationsPath == null) {
             migrationsPath = Constants.DEFAULT_MIGRATIONS_PATH;
@@ -55,41 +194,111 @@ public class MigrationFileReader {
             log.error("Migration folder not found: {}", migrationsPath);
             throw new IllegalArgumentException("Migration folder not found: " + migrationsPath);
         }
+        return Path.of(resourceUrl.toURI());
+    }
 
-        try (Stream<Path> paths = Files.walk(Path.of((resourceUrl.toURI())))) {
-            List<Migration> migrations = paths.filter(Files::isRegularFile)
+    private List<Path> listFiles(Path root, String prefix) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            return paths.filter(Files::isRegularFile)
                     .filter(path -> path.toString().endsWith(Constants.SQL_EXTENSION)
                             && path.getFileName().toString().startsWith(prefix))
-                    .map(this::toMigration)
+                    .sorted()
                     .toList();
-
-            log.info("Found {} {} files in folder: {}", migrations.size(), prefix, migrationsPath);
-            return migrations;
         } catch (IOException e) {
-            log.error("Error accessing files in folder: {}", migrationsPath, e);
+            log.error("Error accessing files in folder: {}", root, e);
             throw e;
         }
     }
 
-    private Migration toMigration(Path path) {
+    /**
+     * Reads the given files into migrations, in parallel when configured.
+     * Every file is attempted; if any of them cannot be read, a single exception describing all failures is thrown.
+     *
+     * @param files the migration files
+     * @param cache the cache consulted before reading a file
+     * @return the migrations in the same order as {@code files}
+     * @throws MigrationFileReadException if one or more files cannot be read
+     */
+    List<Migration> readMigrations(List<Path> files, MigrationManifestCache cache) {
+        List<Migration> migrations = new ArrayList<>(files.size());
+        List<Throwable> failures = new ArrayList<>();
+
+        for (Future<Migration> future : submit(files, cache)) {
+            try {
+                migrations.add(future.get());
+            } catch (ExecutionException e) {
+                failures.add(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MigrationFileReadException("Interrupted while reading migration files", e);
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            String details = failures.stream()
+                    .map(Throwable::getMessage)
+                    .collect(Collectors.joining("; "));
+            MigrationFileReadException exception = new MigrationFileReadException(
+                    "Failed to read " + failures.size() + " migration file(s): " + details);
+            failures.forEach(exception::addSuppressed);
+            throw exception;
+        }
+        return migrations;
+    }
+
+    private List<Future<Migration>> submit(List<Path> files, MigrationManifestCache cache) {
+        List<Callable<Migration>> tasks = files.stream()
+                .map(path -> (Callable<Migration>) () -> toMigration(path, cache))
+                .toList();
+
+        if (parallelism <= 1 || tasks.size() <= 1) {
+            List<Future<Migration>> futures = new ArrayList<>(tasks.size());
+            for (Callable<Migration> task : tasks) {
+                FutureTask<Migration> future = new FutureTask<>(task);
+                future.run();
+                futures.add(future);
+            }
+            return futures;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(Math.min(parallelism, tasks.size()));
+        try {
+            log.debug("Reading {} migration files with parallelism {}", tasks.size(), pool.getParallelism());
+            return pool.invokeAll(tasks);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private MigrationManifestCache openCache(Path root) {
+        if (!cacheEnabled) {
+            return MigrationManifestCache.disabled();
+        }
+        String cachePath = PropertiesUtils.getProperty("migration.cache.path");
+        Path manifest = cachePath == null || cachePath.isBlank()
+                ? root.resolveSibling(root.getFileName() + MANIFEST_SUFFIX)
+                : Path.of(cachePath);
+        return MigrationManifestCache.load(manifest, root, dialect, indexer.getChecksumAlgorithm());
+    }
+
+    private Migration toMigration(Path path, MigrationManifestCache cache) {
         String filename = path.getFileName().toString();
-        String version = MigrationUtils.extractVersionFromFilename(filename);
-        String description = MigrationUtils.extractDescriptionFromFilename(filename);
-        int checksum = MigrationUtils.calculateChecksum(path);
 
         try {
-            List<String> sqlStatements = parseSqlFile(path);
-            return new Migration(version, description, checksum, sqlStatements);
-        } catch (IOException e) {
+            Migration cached = cache.get(path, Files.readAttributes(path, BasicFileAttributes.class));
+            if (cached != null) {
+                return cached;
+            }
+
+            String version = MigrationUtils.extractVersionFromFilename(filename);
+            String description = MigrationUtils.extractDescriptionFromFilename(filename);
+            IndexedSqlScript script = indexer.index(path);
+            Migration migration = new Migration(version, description, script.getChecksum(), script, script.getDirectives());
+            cache.put(migration, script);
+            return migration;
+        } catch (IOException | IllegalArgumentException e) {
             log.error("Error reading SQL from migration file: {}", filename, e);
             throw new MigrationFileReadException("Error reading migration file: " + filename, e);
         }
     }
-
-    private List<String> parseSqlFile(Path file) throws IOException {
-        String content = Files.readString(file, StandardCharsets.UTF_8);
-        return Stream.of(content.split(Constants.SEMICOLON))
-                .map(String::trim)
-                .toList();
-    }
-}
\ No newline at end of file
+}
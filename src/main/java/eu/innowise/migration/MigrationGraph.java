@@ -0,0 +1,169 @@
+package eu.innowise.migration;
+
+import eu.innowise.exceptions.MigrationException;
+import eu.innowise.model.Baseline;
+import eu.innowise.model.Migration;
+import eu.innowise.model.Version;
+import eu.innowise.parser.SqlObjectExtractor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Dependency graph of pending migrations, used to run independent migrations concurrently.
+ * <p>
+ * A migration depends on the earlier migrations it declares with {@code -- migration:depends-on=...} and on
+ * every earlier migration that touches one of the same tables or indexes (see {@link SqlObjectExtractor}).
+ * A migration whose objects cannot be determined depends on all earlier migrations and all later ones depend on it.
+ * Objects reached only through views, triggers or foreign key cascades are not seen and create no edge;
+ * such dependencies must be declared.
+ * A pending baseline is treated the same way, and a declared dependency on a migration squashed into it
+ * points to the baseline. Edges always point from a later version to an earlier one, so the graph has no cycles.
+ * </p>
+ */
+@Slf4j
+final class MigrationGraph {
+
+    private final List<Migration> migrations;
+    private final int[][] dependencies;
+    private final int[][] dependents;
+
+    private MigrationGraph(List<Migration> migrations, int[][] dependencies) {
+        this.migrations = migrations;
+        this.dependencies = dependencies;
+        this.dependents = invert(dependencies);
+    }
+
+    /**
+     * Builds the graph, inferring the touched objects from the migration scripts.
+     *
+     * @param pending the pending migrations, sorted by version
+     * @param applied the versions already in the schema history
+     * @return the graph
+     * @throws MigrationException if a declared dependency is neither an earlier pending migration nor applied
+     */
+    static MigrationGraph build(List<Migration> pending, Collection<Version> applied) {
+        return build(pending, applied, MigrationGraph::objectsOf);
+    }
+
+    /**
+     * Builds the graph.
+     *
+     * @param pending the pending migrations, sorted by version
+     * @param applied the versions already in the schema history
+     * @param objects returns the objects a migration touches, or {@code null} if they are unknown
+     * @return the graph
+     * @throws MigrationException if a declared dependency is neither an earlier pending migration nor applied
+     */
+    static MigrationGraph build(List<Migration> pending, Collection<Version> applied,
+                                Function<Migration, Set<String>> objects) {
+        Map<Version, Integer> indexes = new HashMap<>();
+        List<Set<String>> touched = new ArrayList<>(pending.size());
+        int[][] dependencies = new int[pending.size()][];
+        int baseline = -1;
+
+        for (int i = 0; i < pending.size(); i++) {
+            Migration migration = pending.get(i);
+            BitSet edges = new BitSet(i);
+
+            for (Version dependency : migration.getDirectives().getDependsOn()) {
+                Integer index = indexes.get(dependency);
+                if (index != null) {
+                    edges.set(index);
+                } else if (baseline >= 0 && dependency.compareTo(pending.get(baseline).getParsedVersion()) <= 0) {
+                    edges.set(baseline);
+                } else if (!applied.contains(dependency)) {
+                    throw new MigrationException("Migration " + migration.getVersion() + " depends on " + dependency
+                            + ", which is neither applied nor an earlier pending migration");
+                }
+            }
+
+            if (migration instanceof Baseline) {
+                baseline = i;
+            }
+            Set<String> own = migration instanceof Baseline ? null : objects.apply(migration);
+            for (int j = 0; j < i; j++) {
+                Set<String> other = touched.get(j);
+                if (own == null || other == null || !Collections.disjoint(own, other)) {
+                    edges.set(j);
+                }
+            }
+
+            touched.add(own);
+            indexes.put(migration.getParsedVersion(), i);
+            dependencies[i] = edges.stream().toArray();
+            log.debug("Migration {} depends on {} pending migrations.", migration.getVersion(), dependencies[i].length);
+        }
+        return new MigrationGraph(pending, dependencies);
+    }
+
+    private static Set<String> objectsOf(Migration migration) {
+        Set<String> objects = new HashSet<>();
+        try (Stream<String> statements = migration.getScript().statements()) {
+            Iterator<String> iterator = statements.iterator();
+            while (iterator.hasNext()) {
+                Set<String> statementObjects = SqlObjectExtractor.objects(iterator.next());
+                if (statementObjects == null) {
+                    return null;
+                }
+                objects.addAll(statementObjects);
+            }
+        }
+        return objects;
+    }
+
+    private static int[][] invert(int[][] dependencies) {
+        List<List<Integer>> dependents = new ArrayList<>(dependencies.length);
+        for (int i = 0; i < dependencies.length; i++) {
+            dependents.add(new ArrayList<>());
+        }
+        for (int i = 0; i < dependencies.length; i++) {
+            for (int dependency : dependencies[i]) {
+                dependents.get(dependency).add(i);
+            }
+        }
+        return dependents.stream().map(list -> list.stream().mapToInt(Integer::intValue).toArray()).toArray(int[][]::new);
+    }
+
+    /**
+     * @return the number of migrations
+     */
+    int size() {
+        return migrations.size();
+    }
+
+    /**
+     * @param index the index of a migration
+     * @return the migration
+     */
+    Migration migration(int index) {
+        return migrations.get(index);
+    }
+
+    /**
+     * @param index the index of a migration
+     * @return the indexes of the earlier migrations it depends on
+     */
+    int[] dependencies(int index) {
+        return dependencies[index];
+    }
+
+    /**
+     * @param index the index of a migration
+     * @return the indexes of the later migrations that depend on it
+     */
+    int[] dependents(int index) {
+        return dependents[index];
+    }
+}
@@ -1,34 +1,71 @@
 package eu.innowise.migration;
 
-import eu.innowise.db.ConnectionManager;
+import eu.innowise.checksum.ChecksumAlgorithm;
+import eu.innowise.db.MigrationTarget;
 import eu.innowise.exceptions.MigrationException;
 import eu.innowise.model.AppliedMigration;
+import eu.innowise.model.Baseline;
 import eu.innowise.model.Migration;
+import eu.innowise.model.Version;
+import eu.innowise.parser.IndexedSqlScript;
 import eu.innowise.utils.Constants;
+import eu.innowise.utils.MigrationUtils;
+import eu.innowise.utils.PropertiesUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Types;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * Class responsible for handling migration operations such as getting applied migrations and
  * determining pending migrations.
+ * <p>
+ * Checksums are calculated with the algorithm configured by {@code migration.checksum.algorithm}.
+ * A schema history row written with another algorithm, such as the 32-bit MD5 checksum of earlier versions,
+ * is validated by recalculating the checksum of the migration file with the algorithm of the row,
+ * and {@link #upgradeChecksums(List)} rewrites such rows once their files are validated.
+ * </p>
+ * <p>
+ * A database with an empty schema history applies the newest baseline script instead of the migrations it squashed,
+ * see {@link #withBaseline(List)}. Migration files below a {@code BASELINE} row are not pending; they are validated
+ * against the checksums the baseline recorded for them.
+ * </p>
  */
 @Slf4j
 @RequiredArgsConstructor
 public class MigrationManager {
 
     private final MigrationFileReader fileReader;
+    private final MigrationTarget target;
+
+    private final ChecksumAlgorithm checksumAlgorithm = ChecksumAlgorithm.configured();
+    private List<Baseline> baselines;
+
+    /**
+     * Creates a manager for the database configured by the {@code db.*} properties.
+     *
+     * @param fileReader the reader of migration files
+     */
+    public MigrationManager(MigrationFileReader fileReader) {
+        this(fileReader, MigrationTarget.defaultTarget());
+    }
 
     /**
      * Retrieves a list of applied migrations from the database.
@@ -37,26 +74,98 @@ public class MigrationManager {
      * @throws MigrationException if there is an error getting applied migrations from the database
      */
     public List<AppliedMigration> getAppliedMigrations() {
-        List<AppliedMigration> appliedMigrations = new ArrayList<>();
-        try (Connection connection = ConnectionManager.getConnection();
+        try (Connection connection = target.getConnection();
              Statement stmt = connection.createStatement();
              ResultSet rs = stmt.executeQuery(Constants.SELECT_FROM_SCHEMA_HISTORY)) {
+            return readAppliedMigrations(rs);
+        } catch (SQLException e) {
+            log.error("Failed to fetch applied migrations and checksums.", e);
+            throw new MigrationException("Failed to fetch applied migrations and checksums", e);
+        }
+    }
 
-            while (rs.next()) {
-                String version = rs.getString("version");
-                String description = rs.getString("description");
-                int checksum = rs.getInt("checksum");
-                LocalDateTime installedOn = rs.getTimestamp("installed_on").toLocalDateTime();
+    /**
+     * Retrieves the applied migrations above a version, newest first, for a rollback to that version.
+     * The range is selected by the database through the {@code version_key} index; only rows without a version key
+     * are compared in memory.
+     *
+     * @param version the version to keep
+     * @return the applied migrations with a higher version, in descending version order
+     * @throws MigrationException if there is an error reading the schema history
+     */
+    public List<AppliedMigration> getAppliedMigrationsAbove(Version version) {
+        MigrationVersionComparator comparator = new MigrationVersionComparator();
+        if (version.key() == Version.NO_KEY) {
+            return getAppliedMigrations().stream()
+                    .filter(migration -> migration.getParsedVersion().compareTo(version) > 0)
+                    .sorted(comparator.reversed())
+                    .toList();
+        }
 
-                appliedMigrations.add(new AppliedMigration(version, description, checksum, installedOn));
+        try (Connection connection = target.getConnection();
+             PreparedStatement above = connection.prepareStatement(Constants.SELECT_SCHEMA_HISTORY_ABOVE_KEY);
+             Statement withoutKey = connection.createStatement()) {
+            above.setLong(1, version.key());
+            List<AppliedMigration> migrations;
+            try (ResultSet rs = above.executeQuery()) {
+                migrations = readAppliedMigrations(rs);
+            }
+            try (ResultSet rs = withoutKey.executeQuery(Constants.SELECT_SCHEMA_HISTORY_WITHOUT_KEY)) {
+                List<AppliedMigration> unkeyed = readAppliedMigrations(rs).stream()
+                        .filter(migration -> migration.getParsedVersion().compareTo(version) > 0)
+                        .toList();
+                if (!unkeyed.isEmpty()) {
+                    migrations.addAll(unkeyed);
+                    migrations.sort(comparator.reversed());
+                }
             }
+            return migrations;
         } catch (SQLException e) {
-            log.error("Failed to fetch applied migrations and checksums.", e);
-            throw new MigrationException("Failed to fetch applied migrations and checksums", e);
+            log.error("Failed to fetch applied migrations above version {}.", version, e);
+            throw new MigrationException("Failed to fetch applied migrations above version " + version, e);
+        }
+    }
+
+    /**
+     * Reads the rows of {@link Constants#SELECT_FROM_SCHEMA_HISTORY}. A table that was not upgraded yet
+     * (the status command does not upgrade it) has no checksum algorithm column, and all its checksums are legacy ones.
+     */
+    private static List<AppliedMigration> readAppliedMigrations(ResultSet rs) throws SQLException {
+        boolean upgraded = hasColumn(rs.getMetaData(), Constants.CHECKSUM_ALGORITHM_COLUMN);
+        boolean typed = hasColumn(rs.getMetaData(), Constants.MIGRATION_TYPE_COLUMN);
+        List<AppliedMigration> appliedMigrations = new ArrayList<>();
+        while (rs.next()) {
+            String version = rs.getString("version");
+            String description = rs.getString("description");
+            ChecksumAlgorithm algorithm = upgraded
+                    ? ChecksumAlgorithm.fromColumn(rs.getString(Constants.CHECKSUM_ALGORITHM_COLUMN))
+                    : ChecksumAlgorithm.MD5;
+            long checksum = upgraded ? readChecksum(rs, "checksum", Constants.CHECKSUM64_COLUMN) : rs.getInt("checksum");
+            LocalDateTime installedOn = rs.getTimestamp("installed_on").toLocalDateTime();
+            boolean baseline = typed && Constants.MIGRATION_TYPE_BASELINE.equals(rs.getString(Constants.MIGRATION_TYPE_COLUMN));
+
+            appliedMigrations.add(new AppliedMigration(version, description, checksum, algorithm, installedOn, baseline));
         }
         return appliedMigrations;
     }
 
+    private static boolean hasColumn(ResultSetMetaData metaData, String column) throws SQLException {
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            if (column.equalsIgnoreCase(metaData.getColumnLabel(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the 64-bit checksum of a row, or its legacy 32-bit checksum if the row has none.
+     */
+    private static long readChecksum(ResultSet rs, String legacyColumn, String column) throws SQLException {
+        long checksum = rs.getLong(column);
+        return rs.wasNull() ? rs.getInt(legacyColumn) : checksum;
+    }
+
     /**
      * Retrieves the list of pending migrations that have not been applied yet.
      * This method checks for migrations in the resources folder and compares them with
@@ -67,20 +176,16 @@ public class MigrationManager {
      * @throws MigrationException if there is an error discovering migration files or comparing them with applied migrations
      */
     public List<Migration> getPendingMigrations() {
-        List<Migration> allMigrations = loadAllMigrations();
-        List<AppliedMigration> appliedMigrations = getAppliedMigrations();
-
-        // Creating map to find faster with versions
-        var appliedMigrationsMap = appliedMigrations.stream()
-                .collect(Collectors.toMap(AppliedMigration::getVersion, appliedMigration -> appliedMigration));
-
-        return allMigrations.stream()
-                .filter(migration -> isPendingMigration(migration, appliedMigrationsMap))
-                .sorted(new MigrationVersionComparator())
-                .toList();
+        return filterPending(withBaseline(getAllMigrations()));
     }
 
-    private List<Migration> loadAllMigrations() {
+    /**
+     * Reads all migration files, applied or not.
+     *
+     * @return the migrations found in the migration folder
+     * @throws MigrationException if there is an error discovering migration files
+     */
+    public List<Migration> getAllMigrations() {
         try {
             return fileReader.findMigrationFilesInResources();
         } catch (IOException | URISyntaxException e) {
@@ -89,11 +194,333 @@ public class MigrationManager {
         }
     }
 
-    private boolean isPendingMigration(Migration migration, Map<String, AppliedMigration> appliedMigrationsMap) {
-        AppliedMigration appliedMigration = appliedMigrationsMap.get(migration.getVersion());
+    /**
+     * Reads the baseline scripts once.
+     *
+     * @return the baselines found in the migration folder
+     * @throws MigrationException if there is an error discovering baseline files
+     */
+    public List<Baseline> getBaselines() {
+        if (baselines == null) {
+            if (fileReader == null) {
+                baselines = List.of();
+            } else {
+                try {
+                    baselines = fileReader.findBaselineFilesInResources();
+                } catch (IOException | URISyntaxException e) {
+                    log.error("Error discovering baseline files.", e);
+                    throw new MigrationException("Error discovering baseline files.", e);
+                }
+            }
+        }
+        return baselines;
+    }
 
-        if (appliedMigration != null) {
-            if (hasChecksumChanged(migration, appliedMigration)) {
+    /**
+     * @return {@code true} if the schema history has no rows
+     * @throws MigrationException if there is an error reading the schema history
+     */
+    public boolean isHistoryEmpty() {
+        try (Connection connection = target.getConnection();
+             Statement stmt = connection.createStatement()) {
+            stmt.setMaxRows(1);
+            try (ResultSet rs = stmt.executeQuery(Constants.SELECT_ANY_SCHEMA_HISTORY)) {
+                return !rs.next();
+            }
+        } catch (SQLException e) {
+            log.error("Failed to read the schema history.", e);
+            throw new MigrationException("Failed to read the schema history", e);
+        }
+    }
+
+    /**
+     * Replaces the migrations squashed into the newest baseline by the baseline, if the schema history is empty.
+     * Migration files kept in the squashed range are validated against the checksums recorded by the baseline.
+     * <p>
+     * If the schema history is not empty, the migrations are returned as they are, after the history up to the
+     * baseline version is validated: applied rows must match the checksums recorded by the baseline, and every
+     * squashed migration must either be applied, be covered by a {@code BASELINE} row or still have its file.
+     * </p>
+     *
+     * @param migrations the migrations read from the migration files
+     * @return the migrations to filter with {@link #filterPending(List)}
+     * @throws MigrationException if there is an error reading baseline files or the schema history
+     * @throws IllegalStateException if a migration file or an applied migration does not match the baseline
+     */
+    public List<Migration> withBaseline(List<Migration> migrations) {
+        Baseline baseline = getBaselines().stream()
+                .max(Comparator.comparing(Baseline::getParsedVersion))
+                .orElse(null);
+        if (baseline == null) {
+            return migrations;
+        }
+        if (!isHistoryEmpty()) {
+            validateSquashedHistory(baseline, migrations);
+            return migrations;
+        }
+
+        List<Migration> selected = new ArrayList<>();
+        selected.add(baseline);
+        for (Migration migration : migrations) {
+            if (migration.getParsedVersion().compareTo(baseline.getParsedVersion()) > 0) {
+                selected.add(migration);
+            } else {
+                validateSquashed(migration, baseline);
+            }
+        }
+        log.info("Empty schema history, applying baseline {} instead of the migrations up to it.", baseline.getVersion());
+        return selected;
+    }
+
+    private void validateSquashedHistory(Baseline baseline, List<Migration> migrations) {
+        if (baseline.getSquashed().isEmpty()) {
+            return;
+        }
+        Map<String, AppliedMigration> applied = new HashMap<>();
+        try (Connection connection = target.getConnection();
+             PreparedStatement upTo = connection.prepareStatement(Constants.SELECT_SCHEMA_HISTORY_UP_TO_KEY);
+             Statement withoutKey = connection.createStatement()) {
+            upTo.setLong(1, baseline.getParsedVersion().key());
+            try (ResultSet rs = upTo.executeQuery()) {
+                readAppliedMigrations(rs).forEach(migration -> applied.put(migration.getVersion(), migration));
+            }
+            try (ResultSet rs = withoutKey.executeQuery(Constants.SELECT_SCHEMA_HISTORY_WITHOUT_KEY)) {
+                readAppliedMigrations(rs).forEach(migration -> applied.put(migration.getVersion(), migration));
+            }
+        } catch (SQLException e) {
+            log.error("Failed to fetch applied migrations up to baseline {}.", baseline.getVersion(), e);
+            throw new MigrationException("Failed to fetch applied migrations up to baseline " + baseline.getVersion(), e);
+        }
+
+        long baselineKey = applied.values().stream()
+                .filter(AppliedMigration::isBaseline)
+                .mapToLong(migration -> migration.getParsedVersion().key())
+                .max()
+                .orElse(Version.NO_KEY);
+        Map<String, Migration> files = migrations.stream()
+                .collect(Collectors.toMap(Migration::getVersion, Function.identity(), (first, second) -> first));
+        for (Baseline.SquashedMigration squashed : baseline.getSquashed().values()) {
+            AppliedMigration row = applied.get(squashed.version());
+            if (row == null) {
+                long key = Version.parse(squashed.version()).key();
+                if ((key == Version.NO_KEY || key > baselineKey) && !files.containsKey(squashed.version())) {
+                    throw new IllegalStateException("Migration " + squashed.version() + " was squashed into baseline "
+                            + baseline.getVersion() + " but is neither applied nor available as a migration file");
+                }
+            } else if (!row.isBaseline() && row.getChecksumAlgorithm() == squashed.algorithm()
+                    && row.getChecksum() != squashed.checksum()) {
+                log.warn("Applied migration {} does not match baseline {}.", squashed.version(), baseline.getVersion());
+                throw new IllegalStateException("Applied migration " + squashed.version() + " does not match baseline "
+                        + baseline.getVersion());
+            }
+        }
+    }
+
+    /**
+     * Validates a migration file in the range of a baseline against the checksum the baseline recorded for it.
+     * Baselines without a list of squashed migrations, such as those created by the baseline command, are not checked.
+     */
+    private void validateSquashed(Migration migration, Baseline baseline) {
+        if (baseline == null || baseline.getSquashed().isEmpty()) {
+            return;
+        }
+        Baseline.SquashedMigration squashed = baseline.getSquashed().get(migration.getVersion());
+        if (squashed == null) {
+            throw new IllegalStateException("Migration " + migration.getVersion() + " is below baseline "
+                    + baseline.getVersion() + " but was not squashed into it");
+        }
+        long checksum = squashed.algorithm() == checksumAlgorithm ? migration.getChecksum()
+                : checksumOf(migration, squashed.algorithm());
+        if (checksum != squashed.checksum()) {
+            log.warn("Migration with version {} does not match baseline {}.", migration.getVersion(), baseline.getVersion());
+            throw new IllegalStateException("Migration has been modified after it was squashed into baseline "
+                    + baseline.getVersion() + ": " + migration.getVersion());
+        }
+    }
+
+    /**
+     * Rewrites the checksums of schema history rows written with another algorithm than
+     * {@code migration.checksum.algorithm}, usually the legacy MD5 checksums of an earlier version of the library.
+     * The checksum of a row is first validated against its migration file with the algorithm of the row;
+     * rows of modified or missing files are left as they are, so {@link #filterPending(List)} still reports them.
+     * The legacy {@code checksum} column is kept, so earlier versions of the library can still validate the rows.
+     * Disabled by {@code migration.checksum.upgrade=false}, in which case such rows are validated on every run.
+     *
+     * @param migrations the migrations read from the migration files
+     * @return the number of rows rewritten
+     * @throws MigrationException if there is an error reading or updating the schema history
+     */
+    public int upgradeChecksums(List<Migration> migrations) {
+        if (!PropertiesUtils.getBooleanProperty("migration.checksum.upgrade", true)) {
+            return 0;
+        }
+        Map<String, Migration> byVersion = migrations.stream()
+                .collect(Collectors.toMap(Migration::getVersion, Function.identity(), (first, second) -> first));
+        int upgraded = 0;
+        try (Connection connection = target.getConnection();
+             PreparedStatement select = connection.prepareStatement(Constants.SELECT_CHECKSUMS_TO_UPGRADE);
+             PreparedStatement update = connection.prepareStatement(Constants.UPDATE_CHECKSUM)) {
+            select.setString(1, checksumAlgorithm.name());
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    String version = rs.getString(1);
+                    Migration migration = byVersion.get(version);
+                    ChecksumAlgorithm algorithm = ChecksumAlgorithm.fromColumn(rs.getString(4));
+                    if (migration == null || !(migration.getScript() instanceof IndexedSqlScript)
+                            || checksumOf(migration, algorithm) != readChecksum(rs, "checksum", Constants.CHECKSUM64_COLUMN)) {
+                        log.debug("Checksum of migration {} is left as a {} checksum.", version, algorithm);
+                        continue;
+                    }
+                    if (checksumAlgorithm == ChecksumAlgorithm.MD5) {
+                        update.setInt(1, (int) migration.getChecksum());
+                    } else {
+                        update.setNull(1, Types.INTEGER);
+                    }
+                    update.setLong(2, migration.getChecksum());
+                    update.setString(3, checksumAlgorithm.name());
+                    update.setString(4, version);
+                    update.addBatch();
+                    upgraded++;
+                }
+            }
+            if (upgraded > 0) {
+                update.executeBatch();
+                log.info("Upgraded {} schema history checksums to {}.", upgraded, checksumAlgorithm);
+            }
+        } catch (SQLException e) {
+            log.error("Failed to upgrade schema history checksums.", e);
+            throw new MigrationException("Failed to upgrade schema history checksums", e);
+        }
+        return upgraded;
+    }
+
+    /**
+     * Returns the migrations from the given list that have not been applied yet, sorted by version.
+     * Used to re-check a pending list once the schema lock is held, in case another process applied some of them.
+     * <p>
+     * Only the version keys and checksums of the history rows at or above the lowest candidate version are read,
+     * as one indexed range. Candidates above the highest applied version (the watermark) are pending without a lookup;
+     * those below it are looked up to validate their checksum, and a candidate below the watermark that was never
+     * applied is reported as a gap and applied out of order.
+     * A row written with another checksum algorithm is validated against the migration file, see {@link #upgradeChecksums(List)}.
+     * </p>
+     *
+     * @param allMigrations the candidate migrations
+     * @return the migrations that are not in the schema history
+     * @throws MigrationException if there is an error reading the schema history
+     * @throws IllegalStateException if an applied migration has been modified, or its checksum cannot be validated
+     */
+    public List<Migration> filterPending(List<Migration> allMigrations) {
+        List<Migration> candidates = allMigrations.stream()
+                .sorted(new MigrationVersionComparator())
+                .toList();
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+        long lowestKey = candidates.stream()
+                .mapToLong(migration -> migration.getParsedVersion().key())
+                .filter(key -> key != Version.NO_KEY)
+                .min()
+                .orElse(Long.MAX_VALUE);
+        AppliedKeys applied = loadAppliedKeys(lowestKey);
+
+        List<Migration> pending = new ArrayList<>();
+        for (Migration migration : candidates) {
+            if (isPendingMigration(migration, applied)) {
+                pending.add(migration);
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Checksum of a schema history row and the algorithm it was calculated with.
+     */
+    private record AppliedChecksum(long checksum, ChecksumAlgorithm algorithm) {
+    }
+
+    /**
+     * Version keys, checksums and checksum algorithms of applied migrations in ascending key order,
+     * the checksums of rows without a key and the highest key of a {@code BASELINE} row.
+     */
+    private record AppliedKeys(long[] keys, long[] checksums, ChecksumAlgorithm[] algorithms, int size,
+                               Map<String, AppliedChecksum> withoutKey, long baselineKey) {
+
+        long watermark() {
+            return size == 0 ? Version.NO_KEY : keys[size - 1];
+        }
+
+        int indexOf(long key) {
+            return Arrays.binarySearch(keys, 0, size, key);
+        }
+    }
+
+    private AppliedKeys loadAppliedKeys(long lowestKey) {
+        long[] keys = new long[64];
+        long[] checksums = new long[64];
+        ChecksumAlgorithm[] algorithms = new ChecksumAlgorithm[64];
+        int size = 0;
+        long baselineKey = Version.NO_KEY;
+        Map<String, AppliedChecksum> withoutKey = new HashMap<>();
+        try (Connection connection = target.getConnection();
+             PreparedStatement range = connection.prepareStatement(Constants.SELECT_APPLIED_KEYS_FROM);
+             Statement unkeyed = connection.createStatement()) {
+            range.setLong(1, lowestKey);
+            try (ResultSet rs = range.executeQuery()) {
+                while (rs.next()) {
+                    if (size == keys.length) {
+                        keys = Arrays.copyOf(keys, size * 2);
+                        checksums = Arrays.copyOf(checksums, size * 2);
+                        algorithms = Arrays.copyOf(algorithms, size * 2);
+                    }
+                    keys[size] = rs.getLong(1);
+                    checksums[size] = readChecksum(rs, "checksum", Constants.CHECKSUM64_COLUMN);
+                    algorithms[size] = ChecksumAlgorithm.fromColumn(rs.getString(4));
+                    if (Constants.MIGRATION_TYPE_BASELINE.equals(rs.getString(5))) {
+                        baselineKey = keys[size];
+                    }
+                    size++;
+                }
+            }
+            try (ResultSet rs = unkeyed.executeQuery(Constants.SELECT_APPLIED_WITHOUT_KEY)) {
+                while (rs.next()) {
+                    withoutKey.put(rs.getString(1), new AppliedChecksum(readChecksum(rs, "checksum",
+                            Constants.CHECKSUM64_COLUMN), ChecksumAlgorithm.fromColumn(rs.getString(4))));
+                }
+            }
+        } catch (SQLException e) {
+            log.error("Failed to fetch applied migrations and checksums.", e);
+            throw new MigrationException("Failed to fetch applied migrations and checksums", e);
+        }
+        return new AppliedKeys(keys, checksums, algorithms, size, withoutKey, baselineKey);
+    }
+
+    private boolean isPendingMigration(Migration migration, AppliedKeys applied) {
+        long key = migration.getParsedVersion().key();
+        AppliedChecksum appliedChecksum;
+        if (key == Version.NO_KEY) {
+            appliedChecksum = applied.withoutKey().get(migration.getVersion());
+        } else if (key > applied.watermark()) {
+            return true;
+        } else {
+            int index = applied.indexOf(key);
+            // the baseline row has the version of the last migration it squashed
+            if (key <= applied.baselineKey() && (index < 0 || key == applied.baselineKey())) {
+                validateSquashed(migration, baselineAt(applied.baselineKey()));
+                return false;
+            }
+            if (index < 0) {
+                log.warn("Migration {} is below the highest applied version but was never applied, it will be applied out of order.",
+                        migration.getVersion());
+                return true;
+            }
+            appliedChecksum = new AppliedChecksum(applied.checksums()[index], applied.algorithms()[index]);
+        }
+
+        if (appliedChecksum != null) {
+            long checksum = appliedChecksum.algorithm() == checksumAlgorithm ? migration.getChecksum()
+                    : checksumOf(migration, appliedChecksum.algorithm());
+            if (checksum != appliedChecksum.checksum()) {
                 log.warn("Migration with version {} has been modified. Skipping execution.", migration.getVersion());
                 throw new IllegalStateException("Migration has been modified: " + migration.getVersion());
             }
@@ -103,7 +530,25 @@ public class MigrationManager {
         return true;
     }
 
-    private boolean hasChecksumChanged(Migration migration, AppliedMigration appliedMigration) {
-        return migration.getChecksum() != appliedMigration.getChecksum();
+    /**
+     * Returns the baseline file applied as the {@code BASELINE} row with the given key, or {@code null} if there is none,
+     * for example because the database was marked by the baseline command.
+     */
+    private Baseline baselineAt(long baselineKey) {
+        return getBaselines().stream()
+                .filter(baseline -> baseline.getParsedVersion().key() == baselineKey)
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Calculates the checksum of a migration with another algorithm than the configured one, from its file.
+     */
+    private static long checksumOf(Migration migration, ChecksumAlgorithm algorithm) {
+        if (!(migration.getScript() instanceof IndexedSqlScript script)) {
+            throw new IllegalStateException("Migration " + migration.getVersion() + " was applied with a " + algorithm
+                    + " checksum that cannot be validated without its file; set migration.checksum.algorithm=" + algorithm);
+        }
+        return MigrationUtils.calculateChecksum(script.getFile(), algorithm);
     }
-}
\ No newline at end of file
+}
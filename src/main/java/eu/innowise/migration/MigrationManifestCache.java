@@ -0,0 +1,273 @@
+package eu.innowise.migration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.innowise.checksum.ChecksumAlgorithm;
+import eu.innowise.model.Migration;
+import eu.innowise.model.MigrationDirectives;
+import eu.innowise.parser.IndexedSqlScript;
+import eu.innowise.parser.SqlDialect;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * On-disk cache of migration file metadata, so unchanged files are not hashed and parsed again on every run.
+ * <p>
+ * Entries are keyed by the path of the file relative to the migration folder and are valid while the file size
+ * and modification time match. Each entry stores the version, description, checksum, statement offsets and
+ * header directives.
+ * Files modified within {@link #RACY_WINDOW_MILLIS} of being read are not cached, because a later change within
+ * the same timestamp granularity could go unnoticed.
+ * </p>
+ * <p>
+ * The manifest is replaced atomically (written to a temporary file and moved over the old one), so readers never
+ * see a partially written file. Writers serialize on an exclusive lock of a {@code .lock} file next to the manifest,
+ * and under the lock merge the entries another process saved in the meantime, so concurrent runs do not drop
+ * each other's entries.
+ * A manifest that cannot be parsed, or that was written for another dialect, checksum algorithm or format version,
+ * is ignored and rebuilt.
+ * </p>
+ */
+@Slf4j
+class MigrationManifestCache {
+
+    static final int FORMAT_VERSION = 3;
+    static final long RACY_WINDOW_MILLIS = 2000;
+
+    private static final Object PROCESS_LOCK = new Object();
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Path file;
+    private final Path root;
+    private final SqlDialect dialect;
+    private final ChecksumAlgorithm checksumAlgorithm;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+
+    private MigrationManifestCache(Path file, Path root, SqlDialect dialect, ChecksumAlgorithm checksumAlgorithm) {
+        this.file = file;
+        this.root = root;
+        this.dialect = dialect;
+        this.checksumAlgorithm = checksumAlgorithm;
+    }
+
+    /**
+     * Returns a cache that never hits and never writes.
+     *
+     * @return the disabled cache
+     */
+    static MigrationManifestCache disabled() {
+        return new MigrationManifestCache(null, null, null, null);
+    }
+
+    /**
+     * Loads the manifest of checksums calculated with the configured {@code migration.checksum.algorithm}.
+     *
+     * @param file    the manifest file
+     * @param root    the migration folder that entry keys are relative to
+     * @param dialect the dialect the statement offsets were produced with
+     * @return the loaded cache
+     */
+    static MigrationManifestCache load(Path file, Path root, SqlDialect dialect) {
+        return load(file, root, dialect, ChecksumAlgorithm.configured());
+    }
+
+    /**
+     * Loads the manifest from disk. A missing, unreadable or incompatible manifest results in an empty cache.
+     *
+     * @param file              the manifest file
+     * @param root              the migration folder that entry keys are relative to
+     * @param dialect           the dialect the statement offsets were produced with
+     * @param checksumAlgorithm the algorithm the checksums were calculated with
+     * @return the loaded cache
+     */
+    static MigrationManifestCache load(Path file, Path root, SqlDialect dialect, ChecksumAlgorithm checksumAlgorithm) {
+        MigrationManifestCache cache = new MigrationManifestCache(file, root, dialect, checksumAlgorithm);
+        if (Files.notExists(file)) {
+            log.debug("Migration manifest {} does not exist, it will be created.", file);
+            return cache;
+        }
+
+        try {
+            Manifest manifest = MAPPER.readValue(file.toFile(), Manifest.class);
+            if (manifest.formatVersion() != FORMAT_VERSION || !dialect.name().equals(manifest.dialect())
+                    || !checksumAlgorithm.name().equals(manifest.checksumAlgorithm()) || manifest.entries() == null) {
+                log.info("Migration manifest {} is outdated, it will be rebuilt.", file);
+                cache.dirty = true;
+                return cache;
+            }
+            manifest.entries().forEach((key, entry) -> {
+                if (entry != null && entry.isValid()) {
+                    cache.entries.put(key, entry);
+                } else {
+                    cache.dirty = true;
+                }
+            });
+            log.debug("Loaded {} entries from migration manifest {}", cache.entries.size(), file);
+        } catch (IOException e) {
+            log.warn("Migration manifest {} is corrupt, it will be rebuilt.", file, e);
+            cache.dirty = true;
+        }
+        return cache;
+    }
+
+    /**
+     * Returns the cached migration for a file if the file has not changed since it was cached.
+     *
+     * @param path       the migration file
+     * @param attributes the current attributes of the file
+     * @return the cached migration, or {@code null} if there is no valid entry
+     */
+    Migration get(Path path, BasicFileAttributes attributes) {
+        if (file == null) {
+            return null;
+        }
+        Entry entry = entries.get(key(path));
+        if (entry == null || entry.size() != attributes.size()
+                || entry.lastModified() != attributes.lastModifiedTime().toMillis()) {
+            return null;
+        }
+        IndexedSqlScript script = new IndexedSqlScript(path, entry.checksum(), entry.size(), entry.lastModified(),
+                entry.offsets(), entry.offsets().length / 2, MigrationDirectives.of(entry.directives()));
+        return new Migration(entry.version(), entry.description(), entry.checksum(), script, script.getDirectives());
+    }
+
+    /**
+     * Records a freshly indexed migration file.
+     *
+     * @param migration the migration read from the file
+     * @param script    the indexed script of the file
+     */
+    void put(Migration migration, IndexedSqlScript script) {
+        if (file == null) {
+            return;
+        }
+        String key = key(script.getFile());
+        if (System.currentTimeMillis() - script.getLastModified() < RACY_WINDOW_MILLIS) {
+            entries.remove(key);
+            return;
+        }
+        entries.put(key, new Entry(script.getSize(), script.getLastModified(), migration.getVersion(),
+                migration.getDescription(), script.getChecksum(), script.getOffsets(), script.getDirectives().asMap()));
+        dirty = true;
+    }
+
+    /**
+     * Removes entries for files with the given name prefix that are no longer present and writes the manifest
+     * if it has changed. Failures are logged and do not interrupt the migration.
+     *
+     * @param prefix the file name prefix that was scanned
+     * @param files  the files found by the scan
+     */
+    void save(String prefix, Collection<Path> files) {
+        if (file == null) {
+            return;
+        }
+        Set<String> present = files.stream().map(this::key).collect(Collectors.toSet());
+        Predicate<String> deleted = key -> fileName(key).startsWith(prefix) && !present.contains(key);
+        dirty |= entries.keySet().removeIf(deleted);
+        if (!dirty) {
+            return;
+        }
+
+        synchronized (PROCESS_LOCK) {
+            Path lockFile = file.resolveSibling(file.getFileName() + ".lock");
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+                mergeSaved(deleted);
+                Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+                try {
+                    MAPPER.writeValue(temp.toFile(), new Manifest(FORMAT_VERSION, dialect.name(), checksumAlgorithm.name(),
+                            new TreeMap<>(entries)));
+                    move(temp);
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+                dirty = false;
+                log.debug("Saved {} entries to migration manifest {}", entries.size(), file);
+            } catch (IOException e) {
+                log.warn("Failed to save migration manifest {}", file, e);
+            }
+        }
+    }
+
+    /**
+     * Adds the entries of the manifest on disk that this cache does not have, except for deleted files.
+     * Entries of this cache win, as they were read or indexed by this process; {@link #get} checks the size and
+     * modification time of every entry either way.
+     */
+    private void mergeSaved(Predicate<String> deleted) {
+        if (Files.notExists(file)) {
+            return;
+        }
+        try {
+            Manifest saved = MAPPER.readValue(file.toFile(), Manifest.class);
+            if (saved.formatVersion() != FORMAT_VERSION || !dialect.name().equals(saved.dialect())
+                    || !checksumAlgorithm.name().equals(saved.checksumAlgorithm()) || saved.entries() == null) {
+                return;
+            }
+            saved.entries().forEach((key, entry) -> {
+                if (entry != null && entry.isValid() && !deleted.test(key)) {
+                    entries.putIfAbsent(key, entry);
+                }
+            });
+        } catch (IOException e) {
+            log.debug("Migration manifest {} cannot be merged, it is overwritten.", file, e);
+        }
+    }
+
+    private void move(Path temp) throws IOException {
+        try {
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private String key(Path path) {
+        return root.relativize(path).toString().replace('\\', '/');
+    }
+
+    private static String fileName(String key) {
+        return key.substring(key.lastIndexOf('/') + 1);
+    }
+
+    record Manifest(int formatVersion, String dialect, String checksumAlgorithm, Map<String, Entry> entries) {
+    }
+
+    record Entry(long size, long lastModified, String version, String description, long checksum, long[] offsets,
+                 Map<String, String> directives) {
+
+        private boolean isValid() {
+            if (version == null || description == null || offsets == null || offsets.length % 2 != 0) {
+                return false;
+            }
+            try {
+                MigrationDirectives.of(directives);
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+            for (int i = 0; i < offsets.length; i += 2) {
+                if (offsets[i] < 0 || offsets[i] > offsets[i + 1] || offsets[i + 1] > size) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
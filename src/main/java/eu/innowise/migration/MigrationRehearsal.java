@@ -0,0 +1,180 @@
+package eu.innowise.migration;
+
+import eu.innowise.db.MigrationStrategy;
+import eu.innowise.db.MigrationTarget;
+import eu.innowise.exceptions.MigrationException;
+import eu.innowise.model.Migration;
+import eu.innowise.parser.SqlStatementType;
+import eu.innowise.report.MigrationCost;
+import eu.innowise.report.RehearsalReport;
+import eu.innowise.report.StatementCost;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Runs pending migrations and rolls them back to measure their cost, without changing the database.
+ * Meant for a staging copy of the production database, to decide when and how to run the migrations there.
+ * <p>
+ * All migrations run in one transaction that is rolled back at the end, so each migration sees the changes
+ * of the ones before it; a failed migration is rolled back to a savepoint and the rehearsal goes on.
+ * For every statement the execution time and update count are recorded, and DML statements are explained first
+ * to record the row estimate of the plan where the database gives one (see {@link MigrationStrategy#estimateRows}).
+ * The table locks held after each migration are compared with those held before it
+ * (see {@link MigrationStrategy#heldLocks}).
+ * </p>
+ * <p>
+ * Migrations declaring {@code -- migration:transactional=false}, backfill migrations, and on databases without
+ * transactional DDL migrations containing DDL, cannot be rolled back and are skipped.
+ * </p>
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class MigrationRehearsal {
+
+    private final MigrationStrategy strategy;
+    private final MigrationTarget target;
+
+    private boolean locksAvailable = true;
+
+    /**
+     * Rehearses the migrations in the given order.
+     *
+     * @param migrations the pending migrations, in version order
+     * @return the cost of every migration
+     * @throws MigrationException if the connection fails or the rehearsal cannot be rolled back
+     */
+    public RehearsalReport rehearse(List<Migration> migrations) {
+        String rehearsedAt = Instant.now().toString();
+        long start = System.nanoTime();
+        List<MigrationCost> costs = new ArrayList<>();
+        try (Connection connection = target.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                for (Migration migration : migrations) {
+                    MigrationCost cost = rehearse(connection, migration);
+                    log.info("Rehearsed migration {}: {} in {} ms, {} rows.", migration.getVersion(), cost.status(),
+                            cost.durationMillis(), cost.rowsAffected());
+                    costs.add(cost);
+                }
+            } finally {
+                connection.rollback();
+            }
+        } catch (SQLException e) {
+            log.error("Rehearsal failed.", e);
+            throw new MigrationException("Rehearsal failed.", e);
+        }
+        return new RehearsalReport(target.getName(), rehearsedAt, millis(System.nanoTime() - start), costs);
+    }
+
+    private MigrationCost rehearse(Connection connection, Migration migration) throws SQLException {
+        if (migration.getDirectives().isBackfill()) {
+            return skipped(migration, "backfill commits every chunk, it cannot be rolled back");
+        }
+        if (!migration.getDirectives().isTransactional()) {
+            return skipped(migration, "declared transactional=false, it cannot be rolled back");
+        }
+        if (!strategy.supportsTransactionalDdl() && containsDdl(migration)) {
+            return skipped(migration, "contains DDL, which commits implicitly on " + strategy.getSqlDialect());
+        }
+
+        Set<String> locksBefore = heldLocks(connection);
+        Savepoint savepoint = connection.setSavepoint();
+        List<StatementCost> statements = new ArrayList<>();
+        long nanos = 0;
+        long rows = 0;
+        try (Stream<String> sqlStatements = migration.getScript().statements()) {
+            int index = 0;
+            for (Iterator<String> iterator = sqlStatements.iterator(); iterator.hasNext(); ) {
+                String sql = iterator.next();
+                index++;
+                SqlStatementType type = SqlStatementType.of(sql);
+                long estimatedRows = type == SqlStatementType.DML ? estimateRows(connection, sql) : -1;
+
+                long start = System.nanoTime();
+                long updateCount;
+                try (Statement statement = connection.createStatement()) {
+                    updateCount = statement.execute(sql) ? 0 : statement.getUpdateCount();
+                } catch (SQLException e) {
+                    connection.rollback(savepoint);
+                    log.warn("Statement {} of migration {} failed during rehearsal: {}", index, migration.getVersion(),
+                            e.getMessage());
+                    return new MigrationCost(migration.getVersion(), migration.getDescription(), MigrationCost.Status.FAILED,
+                            e.getMessage(), millis(nanos), rows, List.of(), statements);
+                }
+                long elapsed = System.nanoTime() - start;
+                nanos += elapsed;
+                rows += Math.max(updateCount, 0);
+                statements.add(new StatementCost(index, type, sql.strip(), millis(elapsed), updateCount, estimatedRows));
+            }
+        }
+
+        Set<String> locks = heldLocks(connection);
+        locks.removeAll(locksBefore);
+        return new MigrationCost(migration.getVersion(), migration.getDescription(), MigrationCost.Status.REHEARSED, null,
+                millis(nanos), rows, List.copyOf(locks), statements);
+    }
+
+    private static boolean containsDdl(Migration migration) {
+        try (Stream<String> statements = migration.getScript().statements()) {
+            return statements.anyMatch(sql -> SqlStatementType.of(sql) == SqlStatementType.DDL);
+        }
+    }
+
+    private static MigrationCost skipped(Migration migration, String reason) {
+        log.warn("Migration {} is not rehearsed: {}", migration.getVersion(), reason);
+        return new MigrationCost(migration.getVersion(), migration.getDescription(), MigrationCost.Status.SKIPPED, reason,
+                0, 0, List.of(), List.of());
+    }
+
+    /**
+     * Explains a statement in a savepoint, so a statement that cannot be explained does not abort the transaction.
+     */
+    private long estimateRows(Connection connection, String sql) throws SQLException {
+        Savepoint savepoint = connection.setSavepoint();
+        try {
+            long rows = strategy.estimateRows(connection, sql);
+            connection.releaseSavepoint(savepoint);
+            return rows;
+        } catch (SQLException e) {
+            connection.rollback(savepoint);
+            log.debug("Failed to explain statement: {}", sql, e);
+            return -1;
+        }
+    }
+
+    /**
+     * Reads the held locks in a savepoint; if the database does not expose them, they are not read again.
+     */
+    private Set<String> heldLocks(Connection connection) throws SQLException {
+        if (!locksAvailable) {
+            return new LinkedHashSet<>();
+        }
+        Savepoint savepoint = connection.setSavepoint();
+        try {
+            Set<String> locks = new LinkedHashSet<>(strategy.heldLocks(connection));
+            connection.releaseSavepoint(savepoint);
+            return locks;
+        } catch (SQLException e) {
+            connection.rollback(savepoint);
+            log.warn("Held locks cannot be read, they are left out of the rehearsal: {}", e.getMessage());
+            locksAvailable = false;
+            return new LinkedHashSet<>();
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
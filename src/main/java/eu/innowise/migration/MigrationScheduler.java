@@ -0,0 +1,215 @@
+package eu.innowise.migration;
+
+import eu.innowise.exceptions.MigrationException;
+import eu.innowise.model.Migration;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the migrations of a {@link MigrationGraph} concurrently.
+ * <p>
+ * A migration starts once every migration it depends on has been committed. Worker threads only run and commit
+ * the migration itself; the schema history rows are written by the calling thread, strictly in version order,
+ * as soon as all earlier migrations have finished. When a migration fails, the migrations depending on it,
+ * directly or not, are skipped; independent migrations still run.
+ * </p>
+ */
+@Slf4j
+final class MigrationScheduler {
+
+    /**
+     * Runs and commits one migration, without writing its schema history row.
+     */
+    @FunctionalInterface
+    interface MigrationRunner {
+        void run(Migration migration) throws Exception;
+    }
+
+    /**
+     * Writes the schema history row of a committed migration.
+     */
+    @FunctionalInterface
+    interface HistoryWriter {
+        void write(Migration migration) throws Exception;
+    }
+
+    private enum State { WAITING, RUNNING, DONE, RECORDED, FAILED, SKIPPED }
+
+    private record Outcome(int index, Exception error) {
+    }
+
+    private final MigrationGraph graph;
+    private final int threads;
+
+    MigrationScheduler(MigrationGraph graph, int threads) {
+        this.graph = graph;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Runs all migrations of the graph and waits for them to finish.
+     *
+     * @param runner  runs and commits a migration
+     * @param history writes the schema history row of a migration
+     * @return the outcome of every migration
+     * @throws MigrationException if the calling thread is interrupted
+     */
+    Result run(MigrationRunner runner, HistoryWriter history) {
+        int size = graph.size();
+        State[] states = new State[size];
+        int[] remaining = new int[size];
+        for (int i = 0; i < size; i++) {
+            states[i] = State.WAITING;
+            remaining[i] = graph.dependencies(i).length;
+        }
+
+        Progress progress = new Progress();
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "migration-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        ExecutorCompletionService<Outcome> completion = new ExecutorCompletionService<>(pool);
+
+        try {
+            int running = 0;
+            for (int i = 0; i < size; i++) {
+                if (remaining[i] == 0) {
+                    start(i, states, runner, completion);
+                    running++;
+                }
+            }
+
+            int next = 0;
+            while (true) {
+                while (next < size && states[next] != State.WAITING && states[next] != State.RUNNING) {
+                    record(next, states, history, progress);
+                    next++;
+                }
+                if (next == size) {
+                    break;
+                }
+                if (running == 0) {
+                    throw new IllegalStateException("Migration " + graph.migration(next).getVersion() + " can never start");
+                }
+
+                Outcome outcome = completion.take().get();
+                running--;
+                if (outcome.error() == null) {
+                    states[outcome.index()] = State.DONE;
+                    for (int dependent : graph.dependents(outcome.index())) {
+                        if (--remaining[dependent] == 0 && states[dependent] == State.WAITING) {
+                            start(dependent, states, runner, completion);
+                            running++;
+                        }
+                    }
+                } else {
+                    fail(outcome.index(), outcome.error(), states, progress);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MigrationException("Interrupted while running migrations", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Migration task failed unexpectedly", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return new Result(List.copyOf(progress.committed), Collections.unmodifiableMap(progress.failed),
+                List.copyOf(progress.skipped), progress.firstError);
+    }
+
+    private void start(int index, State[] states, MigrationRunner runner, ExecutorCompletionService<Outcome> completion) {
+        states[index] = State.RUNNING;
+        Migration migration = graph.migration(index);
+        completion.submit(() -> {
+            try {
+                runner.run(migration);
+                return new Outcome(index, null);
+            } catch (Exception e) {
+                return new Outcome(index, e);
+            }
+        });
+    }
+
+    private void record(int index, State[] states, HistoryWriter history, Progress progress) {
+        Migration migration = graph.migration(index);
+        if (states[index] == State.SKIPPED) {
+            progress.skipped.add(migration.getVersion());
+        }
+        if (states[index] != State.DONE) {
+            return;
+        }
+        try {
+            history.write(migration);
+            states[index] = State.RECORDED;
+            progress.committed.add(migration);
+        } catch (Exception e) {
+            log.error("Migration {} was applied but its schema history row could not be written.", migration.getVersion(), e);
+            states[index] = State.FAILED;
+            progress.failed.put(migration.getVersion(), String.valueOf(e.getMessage()));
+            if (progress.firstError == null) {
+                progress.firstError = e;
+            }
+        }
+    }
+
+    private void fail(int index, Exception error, State[] states, Progress progress) {
+        Migration migration = graph.migration(index);
+        log.error("Migration {} failed, skipping the migrations that depend on it.", migration.getVersion(), error);
+        states[index] = State.FAILED;
+        progress.failed.put(migration.getVersion(), String.valueOf(error.getMessage()));
+        if (progress.firstError == null) {
+            progress.firstError = error;
+        }
+
+        Deque<Integer> queue = new ArrayDeque<>();
+        queue.push(index);
+        while (!queue.isEmpty()) {
+            for (int dependent : graph.dependents(queue.pop())) {
+                if (states[dependent] == State.WAITING) {
+                    states[dependent] = State.SKIPPED;
+                    queue.push(dependent);
+                }
+            }
+        }
+    }
+
+    private static final class Progress {
+        private final List<Migration> committed = new ArrayList<>();
+        private final Map<String, String> failed = new LinkedHashMap<>();
+        private final List<String> skipped = new ArrayList<>();
+        private Exception firstError;
+    }
+
+    /**
+     * Outcome of a scheduled run.
+     *
+     * @param committed  the migrations committed and recorded in the schema history, in version order
+     * @param failed     the error message of each failed migration by version
+     * @param skipped    the versions skipped because a migration they depend on failed, in version order
+     * @param firstError the first error, {@code null} if the run succeeded
+     */
+    record Result(List<Migration> committed, Map<String, String> failed, List<String> skipped, Exception firstError) {
+
+        /**
+         * @return {@code true} if every migration was committed and recorded
+         */
+        boolean isSuccessful() {
+            return failed.isEmpty() && skipped.isEmpty();
+        }
+    }
+}
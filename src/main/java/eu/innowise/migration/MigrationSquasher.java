@@ -0,0 +1,93 @@
+package eu.innowise.migration;
+
+import eu.innowise.exceptions.MigrationException;
+import eu.innowise.model.Baseline;
+import eu.innowise.model.Migration;
+import eu.innowise.model.Version;
+import eu.innowise.parser.SqlDialect;
+import eu.innowise.utils.Constants;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Squashes the migrations up to a version into a baseline script, see {@link BaselineFile}.
+ * <p>
+ * If the migration folder already has a baseline at or below the version, the new baseline continues it:
+ * it contains the statements of that baseline followed by the migrations above it.
+ * Squashing reads only the migration files; the database is not touched.
+ * </p>
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class MigrationSquasher {
+
+    static final String BASELINE_DESCRIPTION = "Baseline";
+
+    private final MigrationFileReader fileReader;
+    private final SqlDialect dialect;
+
+    /**
+     * Writes {@code B<version>__Baseline.sql} to the migration folder.
+     *
+     * @param version the highest version to squash
+     * @return the baseline file
+     * @throws MigrationException if there is nothing to squash, the baseline exists already or it cannot be written
+     */
+    public Path squash(String version) {
+        Version upTo = Version.parse(version);
+        try {
+            List<Migration> squashed = selectSquashed(fileReader.findMigrationFilesInResources(),
+                    fileReader.findBaselineFilesInResources(), upTo);
+            if (squashed.isEmpty() || squashed.size() == 1 && squashed.get(0) instanceof Baseline) {
+                throw new MigrationException("No migrations up to version " + version + " to squash.");
+            }
+
+            Path file = fileReader.getMigrationFolder().resolve(Constants.BASELINE_PREFIX + version.replace('.', '_')
+                    + "__" + BASELINE_DESCRIPTION + Constants.SQL_EXTENSION);
+            if (Files.exists(file)) {
+                throw new MigrationException("Baseline file already exists: " + file);
+            }
+            int statements = BaselineFile.write(file, squashed, dialect, fileReader.getChecksumAlgorithm());
+            log.info("Squashed {} migrations ({} statements) into {}", squashed.size(), statements, file);
+            return file;
+        } catch (IOException | URISyntaxException e) {
+            log.error("Error discovering migration files.", e);
+            throw new MigrationException("Error discovering migration files.", e);
+        }
+    }
+
+    /**
+     * Selects the newest baseline at or below a version, followed by the migrations above that baseline
+     * up to the version, in version order.
+     *
+     * @param migrations the migrations
+     * @param baselines  the baselines
+     * @param upTo       the highest version to select
+     * @return the selected baseline and migrations
+     */
+    static List<Migration> selectSquashed(List<Migration> migrations, List<Baseline> baselines, Version upTo) {
+        Baseline baseline = baselines.stream()
+                .filter(candidate -> candidate.getParsedVersion().compareTo(upTo) <= 0)
+                .max(Comparator.comparing(Baseline::getParsedVersion))
+                .orElse(null);
+
+        List<Migration> selected = new ArrayList<>();
+        if (baseline != null) {
+            selected.add(baseline);
+        }
+        migrations.stream()
+                .filter(migration -> migration.getParsedVersion().compareTo(upTo) <= 0)
+                .filter(migration -> baseline == null || migration.getParsedVersion().compareTo(baseline.getParsedVersion()) > 0)
+                .sorted(new MigrationVersionComparator())
+                .forEach(selected::add);
+        return selected;
+    }
+}
@@ -1,12 +1,13 @@
 package eu.innowise.migration;
 
 import eu.innowise.model.BaseMigration;
+import eu.innowise.model.Version;
 
 import java.util.Comparator;
 
 /**
  * Comparator for comparing migrations across versions.
- * This comparator compares two {@link BaseMigration} objects based on their version strings.
+ * This comparator compares two {@link BaseMigration} objects based on their parsed {@link Version}.
  */
 public class MigrationVersionComparator implements Comparator<BaseMigration> {
 
@@ -19,9 +20,7 @@ public class MigrationVersionComparator implements Comparator<BaseMigration> {
      */
     @Override
     public int compare(BaseMigration migration1, BaseMigration migration2) {
-        String version1 = migration1.getVersion();
-        String version2 = migration2.getVersion();
-        return compareVersions(version1, version2);
+        return migration1.getParsedVersion().compareTo(migration2.getParsedVersion());
     }
 
     /**
@@ -36,17 +35,6 @@ public class MigrationVersionComparator implements Comparator<BaseMigration> {
      * @return a negative integer, zero, or a positive integer if {@code version1} is less than, equal to, or greater than {@code version2}
      */
     public static int compareVersions(String version1, String version2) {
-        String[] parts1 = version1.split("\\.");
-        String[] parts2 = version2.split("\\.");
-
-        int length = Math.min(parts1.length, parts2.length);
-        for (int i = 0; i < length; i++) {
-            int part1 = Integer.parseInt(parts1[i]);
-            int part2 = Integer.parseInt(parts2[i]);
-            if (part1 != part2) {
-                return part1 - part2;
-            }
-        }
-        return parts1.length - parts2.length;
+        return Version.parse(version1).compareTo(Version.parse(version2));
     }
 }
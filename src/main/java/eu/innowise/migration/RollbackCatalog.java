@@ -0,0 +1,107 @@
+package eu.innowise.migration;
+
+import eu.innowise.exceptions.MigrationException;
+import eu.innowise.exceptions.MigrationFileReadException;
+import eu.innowise.model.Migration;
+import eu.innowise.model.Version;
+import eu.innowise.utils.MigrationUtils;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Rollback files indexed by version.
+ * <p>
+ * The catalog is built once per rollback operation from the file names only. Files are read when they are
+ * {@linkplain #load(List) loaded}, so a rollback reads just the files of the versions it reverts,
+ * and their statements are read only when they are executed.
+ * </p>
+ */
+@Slf4j
+public class RollbackCatalog {
+
+    private final NavigableMap<Version, Path> files = new TreeMap<>();
+    private final Function<List<Path>, List<Migration>> loader;
+
+    /**
+     * @param files  the rollback files
+     * @param loader reads the given files into migrations, preserving their order
+     * @throws MigrationFileReadException if a file name does not contain a valid version
+     */
+    RollbackCatalog(List<Path> files, Function<List<Path>, List<Migration>> loader) {
+        this.loader = loader;
+
+        List<String> invalid = new ArrayList<>();
+        for (Path file : files) {
+            String filename = file.getFileName().toString();
+            Version version;
+            try {
+                version = Version.parse(MigrationUtils.extractVersionFromFilename(filename));
+            } catch (IllegalArgumentException e) {
+                invalid.add(filename);
+                continue;
+            }
+
+            Path previous = this.files.putIfAbsent(version, file);
+            if (previous != null) {
+                log.warn("Found several rollback files for version {}, using {}", version, previous.getFileName());
+            }
+        }
+
+        if (!invalid.isEmpty()) {
+            throw new MigrationFileReadException("Invalid rollback file names: " + String.join(", ", invalid));
+        }
+    }
+
+    /**
+     * Checks whether a rollback file exists for the given version.
+     *
+     * @param version the migration version
+     * @return {@code true} if the catalog contains a rollback file for the version
+     */
+    public boolean contains(String version) {
+        return files.containsKey(Version.parse(version));
+    }
+
+    /**
+     * @return the number of rollback files in the catalog
+     */
+    public int size() {
+        return files.size();
+    }
+
+    /**
+     * Reads the rollback files of the given versions.
+     * All versions are checked before any file is read, so a missing rollback file is reported up front.
+     *
+     * @param versions the versions to load
+     * @return the rollback migrations in the same order as {@code versions}
+     * @throws MigrationException if a rollback file is missing for one or more versions
+     * @throws MigrationFileReadException if a rollback file cannot be read
+     */
+    public List<Migration> load(List<String> versions) {
+        List<Path> paths = new ArrayList<>(versions.size());
+        List<String> missing = new ArrayList<>();
+        for (String version : versions) {
+            Path path = files.get(Version.parse(version));
+            if (path == null) {
+                missing.add(version);
+            } else {
+                paths.add(path);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            log.error("No rollback files found for migration versions: {}", missing);
+            throw new MigrationException("No rollback file found for migration version(s): " + String.join(", ", missing));
+        }
+
+        log.debug("Loading {} of {} rollback files.", paths.size(), files.size());
+        return loader.apply(paths);
+    }
+}
@@ -0,0 +1,92 @@
+package eu.innowise.migration;
+
+import eu.innowise.exceptions.PropertiesLoadingException;
+import eu.innowise.utils.Constants;
+import eu.innowise.utils.PropertiesUtils;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Describes how a fan-out migration is rolled out over its targets: first a canary wave, then waves of a fixed size.
+ * A failed canary stops the rollout; after that, the rollout stops once more than {@code maxFailures} targets failed.
+ * Every wave runs to completion before the next one starts.
+ */
+@Getter
+@ToString
+public final class RolloutPlan {
+
+    private final int canaryTargets;
+    private final int waveSize;
+    private final int maxFailures;
+    private final int instanceParallelism;
+
+    /**
+     * @param canaryTargets       the number of targets in the canary wave, {@code 0} for no canary
+     * @param waveSize            the number of targets per wave after the canary, {@code 0} for a single wave
+     * @param maxFailures         the number of failed targets tolerated before the rollout stops, negative for no limit
+     * @param instanceParallelism the maximum number of targets of one database instance migrated at the same time
+     * @throws PropertiesLoadingException if a count is out of range
+     */
+    public RolloutPlan(int canaryTargets, int waveSize, int maxFailures, int instanceParallelism) {
+        if (canaryTargets < 0 || waveSize < 0 || instanceParallelism < 1) {
+            throw new PropertiesLoadingException("Invalid rollout plan: canary targets and wave size must not be negative"
+                    + " and instance parallelism must be positive");
+        }
+        this.canaryTargets = canaryTargets;
+        this.waveSize = waveSize;
+        this.maxFailures = maxFailures;
+        this.instanceParallelism = instanceParallelism;
+    }
+
+    /**
+     * Reads the plan from the {@code migration.fanout.*} properties.
+     *
+     * @return the configured plan
+     */
+    public static RolloutPlan fromProperties() {
+        return new RolloutPlan(
+                PropertiesUtils.getIntProperty("migration.fanout.canary-targets", Constants.DEFAULT_FANOUT_CANARY_TARGETS),
+                PropertiesUtils.getIntProperty("migration.fanout.wave-size", 0),
+                PropertiesUtils.getIntProperty("migration.fanout.max-failures", 0),
+                PropertiesUtils.getIntProperty("migration.fanout.instance-parallelism",
+                        Constants.DEFAULT_FANOUT_INSTANCE_PARALLELISM));
+    }
+
+    /**
+     * Splits the targets into waves, keeping their order.
+     *
+     * @param targets the targets of the rollout
+     * @param <T>     the target type
+     * @return the waves, the canary wave first if there is one
+     */
+    public <T> List<List<T>> waves(List<T> targets) {
+        List<List<T>> waves = new ArrayList<>();
+        int from = Math.min(canaryTargets, targets.size());
+        if (from > 0) {
+            waves.add(targets.subList(0, from));
+        }
+        int size = waveSize == 0 ? Math.max(1, targets.size() - from) : waveSize;
+        for (; from < targets.size(); from += size) {
+            waves.add(targets.subList(from, Math.min(from + size, targets.size())));
+        }
+        return waves;
+    }
+
+    /**
+     * Tells whether the rollout must stop after a wave.
+     *
+     * @param waveIndex     the index of the finished wave
+     * @param waveFailures  the number of targets that failed in the wave
+     * @param totalFailures the number of targets that failed so far
+     * @return {@code true} if the remaining waves must be skipped
+     */
+    public boolean shouldStop(int waveIndex, int waveFailures, int totalFailures) {
+        if (waveIndex == 0 && canaryTargets > 0 && waveFailures > 0) {
+            return true;
+        }
+        return maxFailures >= 0 && totalFailures > maxFailures;
+    }
+}
@@ -0,0 +1,185 @@
+package eu.innowise.migration;
+
+import eu.innowise.exceptions.StatementExecutionException;
+import eu.innowise.metrics.MigrationMetrics;
+import eu.innowise.report.ExecutionProfiler;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects consecutive DML statements of a migration and sends them to the database with
+ * {@link Statement#addBatch(String)} / {@link Statement#executeBatch()}.
+ * <p>
+ * When a batch fails, the index of the failing statement is taken from the driver's update counts: the statement
+ * marked {@link Statement#EXECUTE_FAILED} by drivers that go on after a failure (H2, MySQL), or the statement after
+ * the last count by drivers that stop at it (PostgreSQL). If the counts tell neither, as when MySQL Connector/J with
+ * {@code rewriteBatchedStatements} sends the batch as one multi-statement query, the batch is rolled back to
+ * a savepoint and replayed statement by statement to find it. The failing statement is reported with its index
+ * and SQL.
+ * </p>
+ */
+@Slf4j
+class SqlBatch implements AutoCloseable {
+
+    private final Connection connection;
+    private final int batchSize;
+    private final List<String> statements;
+    private final MigrationMetrics metrics;
+    private final ExecutionProfiler profiler;
+    private final String version;
+
+    private Statement statement;
+    private int firstIndex;
+
+    SqlBatch(Connection connection, int batchSize) {
+        this(connection, batchSize, MigrationMetrics.NOOP, ExecutionProfiler.DISABLED, null);
+    }
+
+    /**
+     * @param connection the connection of the migration
+     * @param batchSize  the number of statements sent at once
+     * @param metrics    the metrics recording every batch
+     * @param profiler   the profiler recording every batch
+     * @param version    the version of the migration, for the profiler
+     */
+    SqlBatch(Connection connection, int batchSize, MigrationMetrics metrics, ExecutionProfiler profiler, String version) {
+        this.connection = connection;
+        this.batchSize = Math.max(1, batchSize);
+        this.statements = new ArrayList<>(this.batchSize);
+        this.metrics = metrics;
+        this.profiler = profiler;
+        this.version = version;
+    }
+
+    /**
+     * Adds a statement to the batch and executes the batch once it is full.
+     *
+     * @param index the 1-based index of the statement within its script
+     * @param sql   the statement
+     * @throws StatementExecutionException if the batch fails
+     */
+    void add(int index, String sql) {
+        try {
+            if (statement == null) {
+                statement = connection.createStatement();
+            }
+            if (statements.isEmpty()) {
+                firstIndex = index;
+            }
+            statement.addBatch(sql);
+            statements.add(sql);
+        } catch (SQLException e) {
+            throw new StatementExecutionException("Failed to add statement #" + index + " to batch", index, e);
+        }
+
+        if (statements.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Executes the statements collected so far.
+     *
+     * @throws StatementExecutionException if the batch fails
+     */
+    void flush() {
+        if (statements.isEmpty()) {
+            return;
+        }
+
+        log.debug("Executing batch of {} statements starting at #{}", statements.size(), firstIndex);
+        Savepoint savepoint = null;
+        try {
+            savepoint = connection.getMetaData().supportsSavepoints() ? connection.setSavepoint() : null;
+            boolean timed = metrics.isEnabled() || profiler.isEnabled();
+            long start = timed ? System.nanoTime() : 0L;
+            int[] updateCounts = statement.executeBatch();
+            if (timed) {
+                long elapsed = System.nanoTime() - start;
+                metrics.recordBatch(elapsed, statements.size(), rowsAffected(updateCounts));
+                profiler.recordBatch(version, firstIndex, statements, elapsed, updateCounts);
+            }
+            if (savepoint != null) {
+                connection.releaseSavepoint(savepoint);
+            }
+        } catch (BatchUpdateException e) {
+            int failedIndex = findFailedIndex(e.getUpdateCounts(), savepoint);
+            throw new StatementExecutionException("Batch failed at statement #" + failedIndex + ": "
+                    + statements.get(failedIndex - firstIndex), failedIndex, e);
+        } catch (SQLException e) {
+            throw new StatementExecutionException("Batch starting at statement #" + firstIndex + " failed", firstIndex, e);
+        } finally {
+            clear();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (statement != null) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                log.warn("Failed to close batch statement.", e);
+            }
+        }
+    }
+
+    /**
+     * Sums the update counts, skipping {@link Statement#SUCCESS_NO_INFO} of drivers that do not report them.
+     */
+    private static long rowsAffected(int[] updateCounts) {
+        long rows = 0;
+        for (int count : updateCounts) {
+            if (count > 0) {
+                rows += count;
+            }
+        }
+        return rows;
+    }
+
+    private int findFailedIndex(int[] updateCounts, Savepoint savepoint) {
+        for (int i = 0; i < updateCounts.length; i++) {
+            if (updateCounts[i] == Statement.EXECUTE_FAILED) {
+                return firstIndex + i;
+            }
+        }
+        if (updateCounts.length < statements.size()) {
+            return firstIndex + updateCounts.length;
+        }
+        return savepoint != null ? replay(savepoint) : firstIndex;
+    }
+
+    private int replay(Savepoint savepoint) {
+        try {
+            connection.rollback(savepoint);
+            try (Statement single = connection.createStatement()) {
+                for (int i = 0; i < statements.size(); i++) {
+                    try {
+                        single.execute(statements.get(i));
+                    } catch (SQLException e) {
+                        return firstIndex + i;
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            log.warn("Failed to replay batch starting at statement #{}", firstIndex, e);
+        }
+        return firstIndex;
+    }
+
+    private void clear() {
+        statements.clear();
+        try {
+            statement.clearBatch();
+        } catch (SQLException e) {
+            log.warn("Failed to clear batch.", e);
+        }
+    }
+}
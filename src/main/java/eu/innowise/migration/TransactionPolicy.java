@@ -0,0 +1,61 @@
+package eu.innowise.migration;
+
+import eu.innowise.exceptions.PropertiesLoadingException;
+
+import java.util.Locale;
+
+/**
+ * Defines how pending migrations are grouped into transactions.
+ */
+public enum TransactionPolicy {
+
+    /**
+     * All pending migrations run in a single transaction; a failure rolls back every one of them.
+     */
+    ALL,
+
+    /**
+     * Every migration is committed on its own; a failure rolls back only the failed migration.
+     */
+    PER_MIGRATION,
+
+    /**
+     * Migrations are committed in groups of a configured size. Within a group each migration is wrapped
+     * in a savepoint when the database supports transactional DDL, so a failure keeps the earlier migrations of the group.
+     */
+    EVERY_N;
+
+    /**
+     * Parses the policy from a property value, case-insensitively.
+     *
+     * @param value        the property value
+     * @param defaultValue the policy used when the value is missing
+     * @return the policy
+     * @throws PropertiesLoadingException if the value is not a known policy
+     */
+    public static TransactionPolicy fromProperty(String value, TransactionPolicy defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new PropertiesLoadingException("Unknown transaction policy: " + value, e);
+        }
+    }
+
+    /**
+     * Tells whether the open transaction should be committed.
+     *
+     * @param migrationsInTransaction the number of migrations executed in the open transaction
+     * @param commitInterval          the group size used by {@link #EVERY_N}
+     * @return {@code true} if the transaction should be committed now
+     */
+    public boolean shouldCommit(int migrationsInTransaction, int commitInterval) {
+        return switch (this) {
+            case ALL -> false;
+            case PER_MIGRATION -> true;
+            case EVERY_N -> migrationsInTransaction >= Math.max(1, commitInterval);
+        };
+    }
+}
@@ -1,5 +1,6 @@
 package eu.innowise.model;
 
+import eu.innowise.checksum.ChecksumAlgorithm;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 
@@ -7,16 +8,32 @@ import java.time.LocalDateTime;
 
 /**
  * Represents an applied migration in the database.
- * This class extends {@link BaseMigration} and includes the timestamp of when the migration was applied.
+ * This class extends {@link BaseMigration} and includes the timestamp of when the migration was applied
+ * and the algorithm its checksum was calculated with. A baseline row marks the database as at its version
+ * without the migrations up to it having been applied one by one.
  */
 @Getter
 @EqualsAndHashCode(callSuper = true)
 public class AppliedMigration extends BaseMigration {
 
     private final LocalDateTime installedOn;
+    private final ChecksumAlgorithm checksumAlgorithm;
+    private final boolean baseline;
 
-    public AppliedMigration(String version, String description, int checksum, LocalDateTime installedOn) {
+    public AppliedMigration(String version, String description, long checksum, ChecksumAlgorithm checksumAlgorithm,
+                            LocalDateTime installedOn, boolean baseline) {
         super(version, description, checksum);
+        this.checksumAlgorithm = checksumAlgorithm;
         this.installedOn = installedOn;
+        this.baseline = baseline;
+    }
+
+    public AppliedMigration(String version, String description, long checksum, ChecksumAlgorithm checksumAlgorithm,
+                            LocalDateTime installedOn) {
+        this(version, description, checksum, checksumAlgorithm, installedOn, false);
+    }
+
+    public AppliedMigration(String version, String description, int checksum, LocalDateTime installedOn) {
+        this(version, description, checksum, ChecksumAlgorithm.MD5, installedOn);
     }
 }
@@ -1,18 +1,28 @@
 package eu.innowise.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 
 /**
  * Abstract base class representing a migration with a version, description, and checksum.
+ * The version is also kept in parsed form for ordering.
  */
 @Getter
-@RequiredArgsConstructor
 public abstract class BaseMigration {
 
     private final String version;
     private final String description;
-    private final int checksum;
+    private final long checksum;
+
+    @JsonIgnore
+    private final Version parsedVersion;
+
+    protected BaseMigration(String version, String description, long checksum) {
+        this.version = version;
+        this.description = description;
+        this.checksum = checksum;
+        this.parsedVersion = Version.parse(version);
+    }
 
     @Override
     public boolean equals(Object o) {
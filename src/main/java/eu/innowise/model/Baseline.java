@@ -0,0 +1,42 @@
+package eu.innowise.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import eu.innowise.checksum.ChecksumAlgorithm;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A baseline script ({@code B<version>__<description>.sql}) that replaces all migrations up to its version.
+ * <p>
+ * A database with an empty schema history applies the newest baseline instead of the migrations it covers,
+ * and records it as a {@code BASELINE} row. The baseline lists the checksums of the migrations it squashed,
+ * so migration files and schema history rows in the squashed range can still be validated against it.
+ * </p>
+ */
+@Getter
+@EqualsAndHashCode(callSuper = true)
+public class Baseline extends Migration {
+
+    @JsonIgnore
+    private final Map<String, SquashedMigration> squashed;
+
+    public Baseline(Migration migration, Map<String, SquashedMigration> squashed) {
+        super(migration.getVersion(), migration.getDescription(), migration.getChecksum(), migration.getScript(),
+                migration.getDirectives());
+        this.squashed = Collections.unmodifiableMap(new LinkedHashMap<>(squashed));
+    }
+
+    /**
+     * Checksum of a migration squashed into a baseline, calculated with the algorithm in use when it was squashed.
+     *
+     * @param version   the migration version
+     * @param checksum  the checksum of the migration file
+     * @param algorithm the algorithm of the checksum
+     */
+    public record SquashedMigration(String version, long checksum, ChecksumAlgorithm algorithm) {
+    }
+}
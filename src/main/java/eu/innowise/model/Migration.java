@@ -9,18 +9,30 @@ import java.util.List;
 
 /**
  * Represents a migration, that should be applied, with SQL statements to be executed.
- * This class extends from {@link BaseMigration} and adds the SQL statements
+ * This class extends from {@link BaseMigration} and adds the SQL script and the directives from the file header
  */
 @Getter
-@ToString(exclude = "sqlStatements")
+@ToString(exclude = {"script", "directives"})
 @EqualsAndHashCode(callSuper = true)
 public class Migration extends BaseMigration{
 
     @JsonIgnore
-    private final List<String> sqlStatements;
+    private final SqlScript script;
 
-    public Migration(String version, String description, int checksum, List<String> sqlStatements) {
+    @JsonIgnore
+    private final MigrationDirectives directives;
+
+    public Migration(String version, String description, long checksum, SqlScript script, MigrationDirectives directives) {
         super(version, description, checksum);
-        this.sqlStatements = sqlStatements;
+        this.script = script;
+        this.directives = directives;
+    }
+
+    public Migration(String version, String description, long checksum, SqlScript script) {
+        this(version, description, checksum, script, MigrationDirectives.NONE);
+    }
+
+    public Migration(String version, String description, long checksum, List<String> sqlStatements) {
+        this(version, description, checksum, SqlScript.of(sqlStatements));
     }
 }
@@ -0,0 +1,186 @@
+package eu.innowise.model;
+
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Options declared in the header of a migration file, for example:
+ * <pre>
+ * -- migration:transactional=false
+ * CREATE INDEX CONCURRENTLY idx_users_email ON users (email);
+ * </pre>
+ * or, to declare the migrations a migration needs when migrations run in parallel:
+ * <pre>
+ * -- migration:depends-on=1.2,1.5
+ * </pre>
+ * or, to run the statements in chunks of an integer key, committing each chunk (see {@link #getBackfillKey()}):
+ * <pre>
+ * -- migration:backfill=users.id
+ * UPDATE users SET email_lower = LOWER(email) WHERE id BETWEEN :from AND :to;
+ * </pre>
+ * The header is the run of blank lines and {@code --} comments at the top of the file;
+ * directives after the first statement are ignored. Several directives can share a line, separated by spaces.
+ */
+@EqualsAndHashCode
+@ToString
+public final class MigrationDirectives {
+
+    public static final String TRANSACTIONAL = "transactional";
+    public static final String DEPENDS_ON = "depends-on";
+    public static final String BACKFILL = "backfill";
+
+    public static final MigrationDirectives NONE = new MigrationDirectives(Map.of());
+
+    private static final String PREFIX = "migration:";
+    private static final Set<String> KNOWN_KEYS = Set.of(TRANSACTIONAL, DEPENDS_ON, BACKFILL);
+    private static final Pattern BACKFILL_KEY = Pattern.compile("[A-Za-z_][\\w$]*(\\.[A-Za-z_][\\w$]*){1,2}");
+
+    private final Map<String, String> values;
+
+    private MigrationDirectives(Map<String, String> values) {
+        this.values = values;
+    }
+
+    /**
+     * Creates directives from already parsed values, validating them.
+     *
+     * @param values the directive values by key
+     * @return the directives
+     * @throws IllegalArgumentException if a key is unknown or a value is invalid
+     */
+    public static MigrationDirectives of(Map<String, String> values) {
+        if (values == null || values.isEmpty()) {
+            return NONE;
+        }
+        Map<String, String> copy = new LinkedHashMap<>();
+        values.forEach((key, value) -> put(copy, key, value));
+        return new MigrationDirectives(Map.copyOf(copy));
+    }
+
+    /**
+     * Parses the directives from the header of a migration file.
+     *
+     * @param script the beginning of the file; parsing stops at the first line that is neither blank nor a comment
+     * @return the directives, {@link #NONE} if there are none
+     * @throws IllegalArgumentException if a directive is malformed or unknown
+     */
+    public static MigrationDirectives parse(String script) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (String line : script.split("\\R")) {
+            String trimmed = line.strip();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (!trimmed.startsWith("--")) {
+                break;
+            }
+
+            String comment = trimmed.substring(2).strip();
+            if (!comment.regionMatches(true, 0, PREFIX, 0, PREFIX.length())) {
+                continue;
+            }
+            for (String token : comment.substring(PREFIX.length()).trim().split("\\s+")) {
+                int separator = token.indexOf('=');
+                if (separator <= 0 || separator == token.length() - 1) {
+                    throw new IllegalArgumentException("Invalid migration directive: " + token);
+                }
+                put(values, token.substring(0, separator), token.substring(separator + 1));
+            }
+        }
+        return values.isEmpty() ? NONE : new MigrationDirectives(Map.copyOf(values));
+    }
+
+    private static void put(Map<String, String> values, String key, String value) {
+        String normalizedKey = key.trim().toLowerCase(Locale.ROOT);
+        if (!KNOWN_KEYS.contains(normalizedKey)) {
+            throw new IllegalArgumentException("Unknown migration directive: " + key);
+        }
+        if (TRANSACTIONAL.equals(normalizedKey) && !value.equalsIgnoreCase("true") && !value.equalsIgnoreCase("false")) {
+            throw new IllegalArgumentException("Directive '" + TRANSACTIONAL + "' must be true or false: " + value);
+        }
+        if (DEPENDS_ON.equals(normalizedKey)) {
+            parseVersions(value);
+        }
+        if (BACKFILL.equals(normalizedKey) && !BACKFILL_KEY.matcher(value.trim()).matches()) {
+            throw new IllegalArgumentException("Directive '" + BACKFILL + "' must name a table and its key column,"
+                    + " for example users.id: " + value);
+        }
+        values.put(normalizedKey, value.trim());
+    }
+
+    private static List<Version> parseVersions(String value) {
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .map(version -> {
+                    try {
+                        return Version.parse(version);
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("Directive '" + DEPENDS_ON + "' must list versions: " + value, e);
+                    }
+                })
+                .toList();
+    }
+
+    /**
+     * @return the directive values by key
+     */
+    public Map<String, String> asMap() {
+        return values;
+    }
+
+    /**
+     * @return {@code false} if the migration must run outside a transaction, in autocommit mode,
+     * or is a backfill committing every chunk on its own
+     */
+    public boolean isTransactional() {
+        return !"false".equalsIgnoreCase(values.get(TRANSACTIONAL)) && !values.containsKey(BACKFILL);
+    }
+
+    /**
+     * @return {@code true} if the migration is a backfill, see {@link #getBackfillKey()}
+     */
+    public boolean isBackfill() {
+        return values.containsKey(BACKFILL);
+    }
+
+    /**
+     * Returns the key a backfill migration walks. Its statements run once per chunk of the key range,
+     * with {@code :from} and {@code :to} bound to the first and last key of the chunk.
+     *
+     * @return the table, optionally schema-qualified, and its integer key column, or {@code null} if the migration
+     * is not a backfill
+     */
+    public BackfillKey getBackfillKey() {
+        String value = values.get(BACKFILL);
+        if (value == null) {
+            return null;
+        }
+        int separator = value.lastIndexOf('.');
+        return new BackfillKey(value.substring(0, separator), value.substring(separator + 1));
+    }
+
+    /**
+     * The key column of a backfill migration.
+     *
+     * @param table  the table, optionally schema-qualified
+     * @param column the integer key column
+     */
+    public record BackfillKey(String table, String column) {
+    }
+
+    /**
+     * @return the versions of the migrations this migration depends on, empty if none are declared
+     */
+    public List<Version> getDependsOn() {
+        String value = values.get(DEPENDS_ON);
+        return value == null ? List.of() : parseVersions(value);
+    }
+}
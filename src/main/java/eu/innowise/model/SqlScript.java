@@ -0,0 +1,30 @@
+package eu.innowise.model;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Source of the SQL statements of a migration.
+ * Statements are produced lazily, so large scripts do not have to be kept in memory.
+ */
+@FunctionalInterface
+public interface SqlScript {
+
+    /**
+     * Opens the statements of the script in execution order.
+     * The returned stream must be closed to release the underlying resources.
+     *
+     * @return a stream of SQL statements
+     */
+    Stream<String> statements();
+
+    /**
+     * Creates a script backed by an in-memory list of statements.
+     *
+     * @param statements the SQL statements
+     * @return the script
+     */
+    static SqlScript of(List<String> statements) {
+        return statements::stream;
+    }
+}
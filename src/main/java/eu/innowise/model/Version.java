@@ -0,0 +1,145 @@
+package eu.innowise.model;
+
+import java.util.Arrays;
+
+/**
+ * Migration version parsed into numeric components, such as {@code 1}, {@code 1.2} or {@code 2.0.1}.
+ * <p>
+ * Versions are parsed once when a migration is read, so comparisons do not split or parse strings.
+ * Components are compared from left to right; if one version is a prefix of the other, the shorter one is smaller
+ * ({@code 1 < 1.0 < 1.1}). Versions with at most two components below {@link Integer#MAX_VALUE}, which covers every
+ * file name accepted by the library, are also packed into a single {@code long} key that is compared directly.
+ * </p>
+ */
+public final class Version implements Comparable<Version> {
+
+    /**
+     * The {@link #key()} of versions that cannot be packed into a single {@code long}.
+     */
+    public static final long NO_KEY = -1;
+
+    private final String text;
+    private final long[] parts;
+    private final long key;
+
+    private Version(String text, long[] parts) {
+        this.text = text;
+        this.parts = parts;
+        this.key = packKey(parts);
+    }
+
+    /**
+     * Parses a dot-separated numeric version.
+     *
+     * @param version the version string
+     * @return the parsed version
+     * @throws IllegalArgumentException if the string is not a dot-separated list of non-negative numbers
+     */
+    public static Version parse(String version) {
+        if (version == null || version.isEmpty()) {
+            throw new IllegalArgumentException("Invalid version: " + version);
+        }
+
+        int count = 1;
+        for (int i = 0; i < version.length(); i++) {
+            if (version.charAt(i) == '.') {
+                count++;
+            }
+        }
+
+        long[] parts = new long[count];
+        int part = 0;
+        int digits = 0;
+        long value = 0;
+        for (int i = 0; i <= version.length(); i++) {
+            char c = i < version.length() ? version.charAt(i) : '.';
+            if (c == '.') {
+                if (digits == 0) {
+                    throw new IllegalArgumentException("Invalid version: " + version);
+                }
+                parts[part++] = value;
+                digits = 0;
+                value = 0;
+            } else if (c >= '0' && c <= '9') {
+                if (value > (Long.MAX_VALUE - (c - '0')) / 10) {
+                    throw new IllegalArgumentException("Version component is too large: " + version);
+                }
+                value = value * 10 + (c - '0');
+                digits++;
+            } else {
+                throw new IllegalArgumentException("Invalid version: " + version);
+            }
+        }
+        return new Version(version, parts);
+    }
+
+    private static long packKey(long[] parts) {
+        if (parts.length > 2 || parts[0] >= Integer.MAX_VALUE
+                || (parts.length == 2 && parts[1] >= Integer.MAX_VALUE - 1)) {
+            return NO_KEY;
+        }
+        long minor = parts.length == 2 ? parts[1] + 1 : 0;
+        return parts[0] << 32 | minor;
+    }
+
+    /**
+     * Returns the version packed into a non-negative {@code long} that sorts like the version: the first component
+     * in the upper 32 bits and the second one plus one in the lower bits, zero if there is none. Stored as
+     * {@code version_key} in the schema history table.
+     *
+     * @return the key, or {@link #NO_KEY} for versions with more than two or very large components
+     */
+    public long key() {
+        return key;
+    }
+
+    /**
+     * @return the number of components
+     */
+    public int size() {
+        return parts.length;
+    }
+
+    /**
+     * @param index the component index
+     * @return the numeric value of the component
+     */
+    public long part(int index) {
+        return parts[index];
+    }
+
+    @Override
+    public int compareTo(Version other) {
+        if (key != NO_KEY && other.key != NO_KEY) {
+            return Long.compare(key, other.key);
+        }
+
+        int length = Math.min(parts.length, other.parts.length);
+        for (int i = 0; i < length; i++) {
+            if (parts[i] != other.parts[i]) {
+                return Long.compare(parts[i], other.parts[i]);
+            }
+        }
+        return Integer.compare(parts.length, other.parts.length);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return Arrays.equals(parts, ((Version) o).parts);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(parts);
+    }
+
+    /**
+     * @return the version as it was written
+     */
+    @Override
+    public String toString() {
+        return text;
+    }
+}
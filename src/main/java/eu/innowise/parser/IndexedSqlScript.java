@@ -0,0 +1,103 @@
+package eu.innowise.parser;
+
+import eu.innowise.exceptions.MigrationFileReadException;
+import eu.innowise.model.MigrationDirectives;
+import eu.innowise.model.SqlScript;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * SQL script backed by a file and the byte offsets of its statements.
+ * <p>
+ * The offsets are produced by {@link SqlFileIndexer} in the same pass that computes the checksum,
+ * so statement text is only read from disk when the script is executed.
+ * The file size and modification time are recorded at indexing time; if the file changes afterwards,
+ * reading the statements fails instead of executing stale offsets.
+ * </p>
+ */
+@Slf4j
+@Getter
+public class IndexedSqlScript implements SqlScript {
+
+    private final Path file;
+    private final long checksum;
+    private final long size;
+    private final long lastModified;
+    private final long[] offsets;
+    private final int statementCount;
+    private final MigrationDirectives directives;
+
+    /**
+     * @param file           the SQL file
+     * @param checksum       the checksum of the file content
+     * @param size           the file size at indexing time
+     * @param lastModified   the file modification time (epoch millis) at indexing time
+     * @param offsets        pairs of start (inclusive) and end (exclusive) byte offsets, one pair per statement
+     * @param statementCount the number of statements
+     * @param directives     the directives declared in the file header
+     */
+    public IndexedSqlScript(Path file, long checksum, long size, long lastModified, long[] offsets, int statementCount,
+                            MigrationDirectives directives) {
+        this.file = file;
+        this.checksum = checksum;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.offsets = offsets;
+        this.statementCount = statementCount;
+        this.directives = directives;
+    }
+
+    @Override
+    public Stream<String> statements() {
+        FileChannel channel = openUnchanged();
+        return IntStream.range(0, statementCount)
+                .mapToObj(i -> read(channel, offsets[2 * i], offsets[2 * i + 1]))
+                .filter(sql -> !sql.isEmpty())
+                .onClose(() -> close(channel));
+    }
+
+    private FileChannel openUnchanged() {
+        try {
+            if (Files.size(file) != size || Files.getLastModifiedTime(file).toMillis() != lastModified) {
+                throw new MigrationFileReadException("Migration file was modified after it was read: " + file.getFileName());
+            }
+            return FileChannel.open(file, StandardOpenOption.READ);
+        } catch (IOException e) {
+            log.error("Error opening migration file: {}", file.getFileName(), e);
+            throw new MigrationFileReadException("Error reading migration file: " + file.getFileName(), e);
+        }
+    }
+
+    private String read(FileChannel channel, long start, long end) {
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(end - start));
+        try {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + buffer.position()) < 0) {
+                    throw new MigrationFileReadException("Unexpected end of migration file: " + file.getFileName());
+                }
+            }
+        } catch (IOException e) {
+            log.error("Error reading statement from migration file: {}", file.getFileName(), e);
+            throw new MigrationFileReadException("Error reading migration file: " + file.getFileName(), e);
+        }
+        return new String(buffer.array(), 0, buffer.limit(), StandardCharsets.UTF_8).trim();
+    }
+
+    private void close(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close migration file: {}", file.getFileName(), e);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package eu.innowise.parser;
+
+/**
+ * Lexical rules of the SQL dialects supported by the library.
+ * The rules are used by {@link SqlStatementScanner} to find statement boundaries without
+ * being confused by delimiters inside string literals, quoted identifiers, comments or routine bodies.
+ */
+public enum SqlDialect {
+
+    POSTGRESQL,
+    MYSQL,
+    H2;
+
+    /**
+     * Returns the dialect for the given database type.
+     *
+     * @param dbType The type of the database (e.g., "postgresql", "mysql", "h2").
+     * @return The corresponding SQL dialect.
+     * @throws IllegalArgumentException If the provided database type is unsupported.
+     */
+    public static SqlDialect fromDatabaseType(String dbType) {
+        return switch (dbType.toLowerCase()) {
+            case "postgresql" -> POSTGRESQL;
+            case "mysql" -> MYSQL;
+            case "h2" -> H2;
+            default -> throw new IllegalArgumentException("Unsupported database type: " + dbType);
+        };
+    }
+
+    /**
+     * @return {@code true} if bodies can be quoted with {@code $$ ... $$}
+     */
+    public boolean supportsDollarQuotes() {
+        return this != MYSQL;
+    }
+
+    /**
+     * @return {@code true} if dollar quotes can carry a tag, e.g. {@code $body$ ... $body$}
+     */
+    public boolean supportsDollarQuoteTags() {
+        return this == POSTGRESQL;
+    }
+
+    /**
+     * @return {@code true} if block comments can be nested
+     */
+    public boolean supportsNestedComments() {
+        return this == POSTGRESQL;
+    }
+
+    /**
+     * @return {@code true} if {@code E'...'} strings honour backslash escapes
+     */
+    public boolean supportsEscapeStringPrefix() {
+        return this == POSTGRESQL;
+    }
+
+    /**
+     * @return {@code true} if all string literals honour backslash escapes
+     */
+    public boolean supportsBackslashEscapes() {
+        return this == MYSQL;
+    }
+
+    /**
+     * @return {@code true} if {@code #} starts a line comment
+     */
+    public boolean supportsHashComments() {
+        return this == MYSQL;
+    }
+
+    /**
+     * @return {@code true} if {@code //} starts a line comment
+     */
+    public boolean supportsDoubleSlashComments() {
+        return this == H2;
+    }
+
+    /**
+     * @return {@code true} if {@code --} opens a comment only when followed by whitespace
+     */
+    public boolean requiresSpaceAfterDashes() {
+        return this == MYSQL;
+    }
+
+    /**
+     * @return {@code true} if identifiers can be quoted with backticks
+     */
+    public boolean supportsBacktickIdentifiers() {
+        return this == MYSQL;
+    }
+
+    /**
+     * @return {@code true} if {@code /*! ... *}{@code /} comments are executed by the server
+     */
+    public boolean supportsExecutableComments() {
+        return this == MYSQL;
+    }
+
+    /**
+     * @return {@code true} if scripts can change the statement delimiter with {@code DELIMITER}
+     */
+    public boolean supportsDelimiterDirective() {
+        return this == MYSQL;
+    }
+}
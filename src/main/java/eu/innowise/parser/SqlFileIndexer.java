@@ -0,0 +1,210 @@
+package eu.innowise.parser;
+
+import eu.innowise.checksum.ChecksumAlgorithm;
+import eu.innowise.jfr.FileIndexEvent;
+import eu.innowise.metrics.MigrationMetrics;
+import eu.innowise.model.MigrationDirectives;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.Checksum;
+
+/**
+ * Reads a SQL file once and produces its checksum, the byte offsets of its statements and its header directives.
+ * <p>
+ * Every chunk read from the file is fed to the checksum and to the {@link SqlStatementScanner},
+ * so the file is not read a second time to split it into statements.
+ * Files at or above the mapping threshold are read through memory-mapped windows instead of
+ * {@link FileChannel#read(ByteBuffer)} calls, which avoids a system call per chunk on large files.
+ * When metrics or the {@link FileIndexEvent} are enabled, the time spent hashing and scanning is measured per chunk
+ * and recorded per file.
+ * </p>
+ */
+@Slf4j
+public class SqlFileIndexer {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long MAPPING_WINDOW = 64L * 1024 * 1024;
+
+    private final SqlDialect dialect;
+    private final long mappingThreshold;
+    private final MigrationMetrics metrics;
+    private final ChecksumAlgorithm checksumAlgorithm;
+
+    public SqlFileIndexer(SqlDialect dialect, long mappingThreshold) {
+        this(dialect, mappingThreshold, MigrationMetrics.NOOP);
+    }
+
+    public SqlFileIndexer(SqlDialect dialect, long mappingThreshold, MigrationMetrics metrics) {
+        this(dialect, mappingThreshold, metrics, ChecksumAlgorithm.configured());
+    }
+
+    public SqlFileIndexer(SqlDialect dialect, long mappingThreshold, MigrationMetrics metrics,
+                          ChecksumAlgorithm checksumAlgorithm) {
+        this.dialect = dialect;
+        this.mappingThreshold = mappingThreshold;
+        this.metrics = metrics;
+        this.checksumAlgorithm = checksumAlgorithm;
+    }
+
+    /**
+     * @return the algorithm of the checksums calculated by this indexer
+     */
+    public ChecksumAlgorithm getChecksumAlgorithm() {
+        return checksumAlgorithm;
+    }
+
+    /**
+     * Reads the file and indexes its statements.
+     *
+     * @param file the SQL file
+     * @return the indexed script with the checksum of the file
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file contains an invalid {@code DELIMITER} directive or header directive
+     */
+    public IndexedSqlScript index(Path file) throws IOException {
+        FileIndexEvent event = new FileIndexEvent();
+        event.begin();
+        Checksum checksum = checksumAlgorithm.newChecksum();
+        SqlStatementScanner scanner = new SqlStatementScanner(dialect);
+        StatementOffsets offsets = new StatementOffsets(metrics.isEnabled() || event.isEnabled());
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long lastModified = Files.getLastModifiedTime(file).toMillis();
+
+            byte[] chunk = new byte[(int) Math.max(1, Math.min(size, BUFFER_SIZE))];
+            MigrationDirectives directives = null;
+            if (size >= mappingThreshold) {
+                for (long position = 0; position < size; position += MAPPING_WINDOW) {
+                    ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAPPING_WINDOW, size - position));
+                    while (window.hasRemaining()) {
+                        int length = Math.min(chunk.length, window.remaining());
+                        window.get(chunk, 0, length);
+                        if (directives == null) {
+                            directives = readDirectives(chunk, length);
+                        }
+                        consume(chunk, length, checksum, scanner, offsets);
+                    }
+                }
+            } else {
+                ByteBuffer buffer = ByteBuffer.wrap(chunk);
+                int length;
+                while ((length = channel.read(buffer)) >= 0) {
+                    if (directives == null) {
+                        directives = readDirectives(chunk, length);
+                    }
+                    consume(chunk, length, checksum, scanner, offsets);
+                    buffer.clear();
+                }
+            }
+
+            if (scanner.finish() == SqlStatementScanner.STATEMENT) {
+                offsets.add(offsets.position);
+            }
+
+            long hashStart = offsets.timed ? System.nanoTime() : 0L;
+            long value = checksum.getValue();
+            if (offsets.timed) {
+                long hashNanos = offsets.hashNanos + System.nanoTime() - hashStart;
+                metrics.recordHashing(hashNanos, size);
+                metrics.recordParsing(offsets.parseNanos, offsets.count);
+                event.end();
+                if (event.shouldCommit()) {
+                    event.file = file.toString();
+                    event.bytes = size;
+                    event.statements = offsets.count;
+                    event.hashTime = hashNanos;
+                    event.parseTime = offsets.parseNanos;
+                    event.commit();
+                }
+            }
+            log.debug("Indexed file {}: {} bytes, {} statements, checksum {}", file.getFileName(), size, offsets.count, value);
+            return new IndexedSqlScript(file, value, size, lastModified,
+                    Arrays.copyOf(offsets.values, offsets.count * 2), offsets.count,
+                    directives != null ? directives : MigrationDirectives.NONE);
+        }
+    }
+
+    /**
+     * Parses the header directives from the first chunk of the file. Only the leading blank and comment lines are decoded.
+     */
+    private static MigrationDirectives readDirectives(byte[] chunk, int length) {
+        int end = 0;
+        while (end < length) {
+            int lineEnd = end;
+            while (lineEnd < length && chunk[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            int first = end;
+            while (first < lineEnd && (chunk[first] == ' ' || chunk[first] == '\t' || chunk[first] == '\r')) {
+                first++;
+            }
+            boolean header = first == lineEnd || (first + 1 < lineEnd && chunk[first] == '-' && chunk[first + 1] == '-');
+            if (!header) {
+                break;
+            }
+            end = lineEnd + 1;
+        }
+        return end == 0 ? MigrationDirectives.NONE
+                : MigrationDirectives.parse(new String(chunk, 0, Math.min(end, length), StandardCharsets.UTF_8));
+    }
+
+    private static void consume(byte[] chunk, int length, Checksum checksum, SqlStatementScanner scanner,
+                                StatementOffsets offsets) {
+        long hashStart = offsets.timed ? System.nanoTime() : 0L;
+        checksum.update(chunk, 0, length);
+        long scanStart = offsets.timed ? System.nanoTime() : 0L;
+        offsets.hashNanos += scanStart - hashStart;
+
+        int i = 0;
+        while (i < length) {
+            int next = scanner.scan(chunk, i, length);
+            offsets.position += next - i;
+            i = next;
+            if (scanner.lastResult() == SqlStatementScanner.STATEMENT) {
+                offsets.add(offsets.position - scanner.delimiterLength());
+            } else if (scanner.lastResult() == SqlStatementScanner.SKIPPED) {
+                offsets.start = offsets.position;
+            }
+        }
+        if (offsets.timed) {
+            offsets.parseNanos += System.nanoTime() - scanStart;
+        }
+    }
+
+    /**
+     * Growable list of statement offset pairs plus the scanning position and, when timed, the time spent so far.
+     */
+    private static final class StatementOffsets {
+
+        private final boolean timed;
+        private long[] values = new long[32];
+        private int count;
+        private long position;
+        private long start;
+        private long hashNanos;
+        private long parseNanos;
+
+        private StatementOffsets(boolean timed) {
+            this.timed = timed;
+        }
+
+        private void add(long end) {
+            if (count * 2 == values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            values[count * 2] = start;
+            values[count * 2 + 1] = end;
+            count++;
+            start = position;
+        }
+    }
+}
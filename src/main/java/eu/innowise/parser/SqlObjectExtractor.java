@@ -0,0 +1,123 @@
+package eu.innowise.parser;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the tables and indexes a statement touches, so that migrations working on disjoint objects can run concurrently.
+ * <p>
+ * Names are compared without their schema and case, a name that merely looks like a table reference is still
+ * reported, and a statement whose objects cannot be determined (creating views, functions, anonymous blocks, grants
+ * and so on) is reported as touching unknown objects.
+ * </p>
+ * <p>
+ * Only the names written in the statement are seen, and each is treated as a plain table. The analysis does not
+ * resolve a view to its base tables, see the tables a trigger writes to, or follow foreign key cascades to child
+ * tables, so such dependencies must be declared with {@code -- migration:depends-on=...}.
+ * </p>
+ */
+public final class SqlObjectExtractor {
+
+    private static final String PART = "(?:\"(?:[^\"]|\"\")+\"|`[^`]+`|[\\p{L}_][\\p{L}\\p{N}_$]*)";
+    private static final String NAME = PART + "(?:\\s*\\.\\s*" + PART + ")*";
+    private static final Pattern NAME_PATTERN = Pattern.compile(NAME);
+
+    private static final Pattern CREATE_TABLE = Pattern.compile(
+            "^CREATE\\s+TABLE\\s", Pattern.CASE_INSENSITIVE);
+    private static final Pattern CREATE_INDEX = Pattern.compile(
+            "^CREATE\\s+(?:UNIQUE\\s+)?INDEX\\s+(?:CONCURRENTLY\\s+)?(?:IF\\s+NOT\\s+EXISTS\\s+)?(" + NAME + "\\s+)?"
+                    + "ON\\s+(?:ONLY\\s+)?(" + NAME + ")", Pattern.CASE_INSENSITIVE);
+    private static final Pattern DROP_INDEX = Pattern.compile(
+            "^DROP\\s+INDEX\\s+(?:CONCURRENTLY\\s+)?(?:IF\\s+EXISTS\\s+)?(" + NAME + ")(?:\\s+ON\\s+(" + NAME + "))?",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern ALTER_OR_DROP_TABLE = Pattern.compile(
+            "^(?:ALTER|DROP)\\s+TABLE\\s", Pattern.CASE_INSENSITIVE);
+    private static final Pattern REFERENCE = Pattern.compile(
+            "\\b(?:FROM|JOIN|INTO|UPDATE|TABLE|TRUNCATE(?:\\s+TABLE)?|USING|REFERENCES|RENAME\\s+TO)\\s+"
+                    + "(?:(?:ONLY|IF\\s+(?:NOT\\s+)?EXISTS)\\s+)*(" + NAME + "(?:\\s*,\\s*" + NAME + ")*)",
+            Pattern.CASE_INSENSITIVE);
+
+    private static final Set<String> DML_KEYWORDS = Set.of("INSERT", "UPDATE", "DELETE", "MERGE", "REPLACE", "TRUNCATE");
+    private static final Set<String> NOT_NAMES = Set.of(
+            "set", "only", "if", "of", "select", "values", "lateral", "where", "with", "default", "nowait");
+
+    private SqlObjectExtractor() {
+    }
+
+    /**
+     * Returns the names of the tables and indexes a statement touches.
+     *
+     * @param sql the SQL statement
+     * @return the lower-case object names without schema, or {@code null} if the statement may touch unknown objects
+     */
+    public static Set<String> objects(String sql) {
+        String statement = SqlStatementType.stripLeadingComments(sql);
+        Set<String> objects = new HashSet<>();
+
+        Matcher index = CREATE_INDEX.matcher(statement);
+        if (index.find()) {
+            if (index.group(1) != null) {
+                objects.add(normalize(index.group(1)));
+            }
+            objects.add(normalize(index.group(2)));
+            return objects;
+        }
+
+        Matcher dropIndex = DROP_INDEX.matcher(statement);
+        if (dropIndex.find()) {
+            objects.add(normalize(dropIndex.group(1)));
+            if (dropIndex.group(2) != null) {
+                objects.add(normalize(dropIndex.group(2)));
+            }
+            return objects;
+        }
+
+        if (!CREATE_TABLE.matcher(statement).find() && !ALTER_OR_DROP_TABLE.matcher(statement).find()
+                && !DML_KEYWORDS.contains(SqlStatementType.leadingKeyword(statement))) {
+            return null;
+        }
+
+        Matcher reference = REFERENCE.matcher(statement);
+        while (reference.find()) {
+            Matcher name = NAME_PATTERN.matcher(reference.group(1));
+            while (name.find()) {
+                String normalized = normalize(name.group());
+                if (!NOT_NAMES.contains(normalized)) {
+                    objects.add(normalized);
+                }
+            }
+        }
+        return objects.isEmpty() ? null : objects;
+    }
+
+    private static String normalize(String name) {
+        String trimmed = name.strip();
+        int dot = lastUnquotedDot(trimmed);
+        String last = trimmed.substring(dot + 1).strip();
+        if (last.length() > 1 && (last.charAt(0) == '"' || last.charAt(0) == '`')) {
+            last = last.substring(1, last.length() - 1).replace("\"\"", "\"");
+        }
+        return last.toLowerCase(Locale.ROOT);
+    }
+
+    private static int lastUnquotedDot(String name) {
+        int dot = -1;
+        char quote = 0;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '`') {
+                quote = c;
+            } else if (c == '.') {
+                dot = i;
+            }
+        }
+        return dot;
+    }
+}
@@ -0,0 +1,493 @@
+package eu.innowise.parser;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Byte-level state machine that finds statement boundaries in a SQL script.
+ * <p>
+ * The scanner is fed one byte at a time ({@link #accept(byte)}) or a chunk at a time ({@link #scan(byte[], int, int)})
+ * and never buffers the script itself, so callers decide whether to keep statement text or only its offsets. It works on raw UTF-8 bytes: every character
+ * that matters for tokenizing (quotes, comment markers, delimiters) is ASCII, and ASCII bytes never
+ * occur inside multibyte UTF-8 sequences.
+ * </p>
+ * <p>
+ * A scanner instance keeps state between statements (e.g. a MySQL {@code DELIMITER} change),
+ * so one instance must be used per script.
+ * </p>
+ */
+public final class SqlStatementScanner {
+
+    /**
+     * The byte did not end a statement.
+     */
+    public static final int NONE = 0;
+
+    /**
+     * The byte ended a statement that contains code. The last {@link #delimiterLength()} bytes are the delimiter.
+     */
+    public static final int STATEMENT = 1;
+
+    /**
+     * The byte ended a fragment that must not be executed (whitespace, comments or a client directive).
+     */
+    public static final int SKIPPED = 2;
+
+    private static final int NORMAL = 0;
+    private static final int SINGLE_QUOTED = 1;
+    private static final int DOUBLE_QUOTED = 2;
+    private static final int BACKTICK_QUOTED = 3;
+    private static final int LINE_COMMENT = 4;
+    private static final int BLOCK_COMMENT = 5;
+    private static final int DOLLAR_TAG = 6;
+    private static final int DOLLAR_QUOTED = 7;
+    private static final int DIRECTIVE = 8;
+
+    private static final int PENDING_DASH = 1;
+    private static final int PENDING_DOUBLE_DASH = 2;
+    private static final int PENDING_SLASH = 3;
+
+    private static final byte CODE = 0;
+    private static final byte WHITESPACE = 1;
+    private static final byte SPECIAL = 2;
+    private static final byte[] BYTE_CLASSES = new byte[256];
+
+    private static final byte[] DELIMITER_KEYWORD = "DELIMITER".getBytes(StandardCharsets.US_ASCII);
+    private static final int MAX_TAG_LENGTH = 64;
+    private static final int MAX_DELIMITER_LENGTH = 16;
+
+    private final SqlDialect dialect;
+
+    private byte[] delimiter = {';'};
+    private int state = NORMAL;
+    private int previous = -1;
+    private int beforePrevious = -1;
+    private int delimiterMatch;
+    private int keywordMatch;
+    private int pending;
+    private boolean hasCode;
+
+    private boolean backslashEscapes;
+    private boolean escaped;
+    private int commentDepth;
+
+    private final byte[] tag = new byte[MAX_TAG_LENGTH];
+    private int tagLength;
+    private int tagMatch;
+
+    private final byte[] directive = new byte[MAX_DELIMITER_LENGTH * 2];
+    private int directiveLength;
+
+    private int lastResult;
+
+    static {
+        for (byte b : " \t\n\r\f".getBytes(StandardCharsets.US_ASCII)) {
+            BYTE_CLASSES[b] = WHITESPACE;
+        }
+        for (byte b : "'\"`-/#$;".getBytes(StandardCharsets.US_ASCII)) {
+            BYTE_CLASSES[b] = SPECIAL;
+        }
+    }
+
+    public SqlStatementScanner(SqlDialect dialect) {
+        this.dialect = dialect;
+    }
+
+    /**
+     * Consumes the next byte of the script.
+     *
+     * @param b the next byte
+     * @return {@link #NONE}, {@link #STATEMENT} or {@link #SKIPPED}
+     * @throws IllegalArgumentException if the script contains an invalid {@code DELIMITER} directive
+     */
+    public int accept(byte b) {
+        // Fast path for the bulk of a script: ordinary code and whitespace between tokens.
+        if (state == NORMAL && hasCode && pending == 0 && delimiterMatch == 0 && keywordMatch == 0) {
+            byte byteClass = BYTE_CLASSES[b & 0xFF];
+            if (byteClass != SPECIAL && b != delimiter[0]) {
+                beforePrevious = previous;
+                previous = byteClass == CODE ? b : -1;
+                return NONE;
+            }
+        }
+        return switch (state) {
+            case NORMAL -> acceptNormal(b);
+            case SINGLE_QUOTED -> acceptQuoted(b, '\'');
+            case DOUBLE_QUOTED -> acceptQuoted(b, '"');
+            case BACKTICK_QUOTED -> acceptQuoted(b, '`');
+            case LINE_COMMENT -> acceptLineComment(b);
+            case BLOCK_COMMENT -> acceptBlockComment(b);
+            case DOLLAR_TAG -> acceptDollarTag(b);
+            case DOLLAR_QUOTED -> acceptDollarQuoted(b);
+            case DIRECTIVE -> acceptDirective(b);
+            default -> throw new IllegalStateException("Unknown scanner state: " + state);
+        };
+    }
+
+    /**
+     * Consumes bytes of the script until a statement boundary or the end of the range is reached.
+     * Runs of bytes that cannot change the scanner state (ordinary code, quoted text, comment text)
+     * are skipped without per-byte bookkeeping.
+     *
+     * @param bytes the buffer holding the next part of the script
+     * @param from  the index of the first byte to consume
+     * @param to    the index after the last byte to consume
+     * @return the index after the last consumed byte; {@link #lastResult()} tells whether that byte ended a statement
+     * @throws IllegalArgumentException if the script contains an invalid {@code DELIMITER} directive
+     */
+    public int scan(byte[] bytes, int from, int to) {
+        int i = from;
+        while (i < to) {
+            i = skip(bytes, i, to);
+            if (i == to) {
+                break;
+            }
+            int result = accept(bytes[i++]);
+            if (result != NONE) {
+                lastResult = result;
+                return i;
+            }
+        }
+        lastResult = NONE;
+        return to;
+    }
+
+    /**
+     * @return the result for the last byte consumed by {@link #scan(byte[], int, int)}
+     */
+    public int lastResult() {
+        return lastResult;
+    }
+
+    /**
+     * Signals the end of the script. A trailing statement without a delimiter is still a statement.
+     *
+     * @return {@link #STATEMENT} if the remaining bytes contain code, {@link #SKIPPED} otherwise
+     */
+    public int finish() {
+        if (state == DIRECTIVE) {
+            applyDirective();
+            return endStatement(false);
+        }
+        return endStatement(hasCode || pending != 0);
+    }
+
+    /**
+     * @return the length of the delimiter that ended the last {@link #STATEMENT}
+     */
+    public int delimiterLength() {
+        return delimiter.length;
+    }
+
+    private int skip(byte[] bytes, int from, int to) {
+        int i = from;
+        switch (state) {
+            case NORMAL -> {
+                if (!hasCode || pending != 0 || delimiterMatch != 0 || keywordMatch != 0) {
+                    return i;
+                }
+                byte first = delimiter[0];
+                while (i < to && BYTE_CLASSES[bytes[i] & 0xFF] != SPECIAL && bytes[i] != first) {
+                    i++;
+                }
+                if (i - from >= 2) {
+                    beforePrevious = codeOrNone(bytes[i - 2]);
+                    previous = codeOrNone(bytes[i - 1]);
+                } else if (i > from) {
+                    beforePrevious = previous;
+                    previous = codeOrNone(bytes[i - 1]);
+                }
+            }
+            case SINGLE_QUOTED, DOUBLE_QUOTED, BACKTICK_QUOTED -> {
+                if (escaped) {
+                    return i;
+                }
+                byte quote = state == SINGLE_QUOTED ? (byte) '\'' : state == DOUBLE_QUOTED ? (byte) '"' : (byte) '`';
+                while (i < to && bytes[i] != quote && !(backslashEscapes && bytes[i] == '\\')) {
+                    i++;
+                }
+            }
+            case LINE_COMMENT -> {
+                while (i < to && bytes[i] != '\n') {
+                    i++;
+                }
+            }
+            case BLOCK_COMMENT -> {
+                if (previous == -1) {
+                    return i;
+                }
+                while (i < to && bytes[i] != '*' && bytes[i] != '/') {
+                    i++;
+                }
+                if (i > from) {
+                    previous = bytes[i - 1];
+                }
+            }
+            case DOLLAR_QUOTED -> {
+                if (tagMatch != 0) {
+                    return i;
+                }
+                while (i < to && bytes[i] != '$') {
+                    i++;
+                }
+            }
+            default -> {
+                // remaining states are short and handled byte by byte
+            }
+        }
+        return i;
+    }
+
+    private int acceptNormal(byte b) {
+        if (b == delimiter[delimiterMatch]) {
+            if (++delimiterMatch == delimiter.length) {
+                return endStatement(hasCode || pending != 0);
+            }
+        } else {
+            delimiterMatch = b == delimiter[0] ? 1 : 0;
+        }
+
+        if (pending != 0 && resolvePending(b)) {
+            return NONE;
+        }
+
+        if (keywordMatch > 0 && matchDelimiterKeyword(b)) {
+            return NONE;
+        }
+
+        switch (b) {
+            case '\'' -> enterQuote(SINGLE_QUOTED, dialect.supportsBackslashEscapes() || isEscapeStringPrefix());
+            case '"' -> enterQuote(DOUBLE_QUOTED, dialect.supportsBackslashEscapes());
+            case '`' -> {
+                if (dialect.supportsBacktickIdentifiers()) {
+                    enterQuote(BACKTICK_QUOTED, false);
+                } else {
+                    markCode(b);
+                }
+            }
+            case '-' -> pending = PENDING_DASH;
+            case '/' -> pending = PENDING_SLASH;
+            case '#' -> {
+                if (dialect.supportsHashComments()) {
+                    enter(LINE_COMMENT);
+                } else {
+                    markCode(b);
+                }
+            }
+            case '$' -> {
+                if (dialect.supportsDollarQuotes() && !isIdentifierPart(previous)) {
+                    hasCode = true;
+                    tagLength = 0;
+                    enter(DOLLAR_TAG);
+                } else {
+                    markCode(b);
+                }
+            }
+            default -> {
+                if (isWhitespace(b)) {
+                    beforePrevious = previous;
+                    previous = -1;
+                } else {
+                    if (!hasCode && dialect.supportsDelimiterDirective() && (b | 0x20) == 'd') {
+                        keywordMatch = 1;
+                    }
+                    markCode(b);
+                }
+            }
+        }
+        return NONE;
+    }
+
+    private boolean resolvePending(byte b) {
+        int opener = pending;
+        pending = 0;
+        if (opener == PENDING_DASH && b == '-') {
+            if (dialect.requiresSpaceAfterDashes()) {
+                pending = PENDING_DOUBLE_DASH;
+            } else {
+                enter(LINE_COMMENT);
+            }
+            return true;
+        }
+        if (opener == PENDING_DOUBLE_DASH && isWhitespace(b)) {
+            enter(b == '\n' ? NORMAL : LINE_COMMENT);
+            return true;
+        }
+        if (opener == PENDING_SLASH && b == '*') {
+            commentDepth = 1;
+            enter(BLOCK_COMMENT);
+            return true;
+        }
+        if (opener == PENDING_SLASH && b == '/' && dialect.supportsDoubleSlashComments()) {
+            enter(LINE_COMMENT);
+            return true;
+        }
+        hasCode = true;
+        return false;
+    }
+
+    private boolean matchDelimiterKeyword(byte b) {
+        if (keywordMatch == DELIMITER_KEYWORD.length) {
+            keywordMatch = 0;
+            if (b == ' ' || b == '\t') {
+                directiveLength = 0;
+                state = DIRECTIVE;
+                return true;
+            }
+            return false;
+        }
+        if ((b & 0xDF) == DELIMITER_KEYWORD[keywordMatch]) {
+            keywordMatch++;
+        } else {
+            keywordMatch = 0;
+        }
+        return false;
+    }
+
+    private int acceptQuoted(byte b, char quote) {
+        if (escaped) {
+            escaped = false;
+        } else if (b == '\\' && backslashEscapes) {
+            escaped = true;
+        } else if (b == quote) {
+            enter(NORMAL);
+        }
+        return NONE;
+    }
+
+    private int acceptLineComment(byte b) {
+        if (b == '\n') {
+            enter(NORMAL);
+        }
+        return NONE;
+    }
+
+    private int acceptBlockComment(byte b) {
+        if (previous == '*' && b == '/') {
+            previous = -1;
+            if (--commentDepth == 0) {
+                enter(NORMAL);
+            }
+        } else if (previous == '/' && b == '*' && dialect.supportsNestedComments()) {
+            previous = -1;
+            commentDepth++;
+        } else {
+            if (previous == -1 && commentDepth == 1 && b == '!' && dialect.supportsExecutableComments()) {
+                hasCode = true;
+            }
+            previous = b;
+        }
+        return NONE;
+    }
+
+    private int acceptDollarTag(byte b) {
+        if (b == '$') {
+            tagMatch = 0;
+            state = DOLLAR_QUOTED;
+            return NONE;
+        }
+        if (dialect.supportsDollarQuoteTags() && isIdentifierPart(b) && !(tagLength == 0 && isDigit(b))
+                && tagLength < MAX_TAG_LENGTH) {
+            tag[tagLength++] = b;
+            return NONE;
+        }
+        // Not a dollar quote (e.g. a positional parameter like $1): rescan the byte as ordinary code.
+        state = NORMAL;
+        beforePrevious = -1;
+        previous = '$';
+        return acceptNormal(b);
+    }
+
+    private int acceptDollarQuoted(byte b) {
+        int expected = tagMatch == 0 || tagMatch == tagLength + 1 ? '$' : tag[tagMatch - 1];
+        if (b == expected) {
+            if (++tagMatch == tagLength + 2) {
+                enter(NORMAL);
+            }
+        } else {
+            tagMatch = b == '$' ? 1 : 0;
+        }
+        return NONE;
+    }
+
+    private int acceptDirective(byte b) {
+        if (b == '\n') {
+            applyDirective();
+            return endStatement(false);
+        }
+        if (directiveLength == directive.length) {
+            throw new IllegalArgumentException("DELIMITER directive is too long");
+        }
+        directive[directiveLength++] = b;
+        return NONE;
+    }
+
+    private void applyDirective() {
+        int start = 0;
+        int end = directiveLength;
+        while (start < end && isWhitespace(directive[start])) {
+            start++;
+        }
+        while (end > start && isWhitespace(directive[end - 1])) {
+            end--;
+        }
+        if (start == end || end - start > MAX_DELIMITER_LENGTH) {
+            throw new IllegalArgumentException("Invalid DELIMITER directive: '"
+                    + new String(directive, 0, directiveLength, StandardCharsets.UTF_8).trim() + "'");
+        }
+        delimiter = Arrays.copyOfRange(directive, start, end);
+    }
+
+    private int endStatement(boolean statement) {
+        state = NORMAL;
+        previous = -1;
+        beforePrevious = -1;
+        delimiterMatch = 0;
+        keywordMatch = 0;
+        pending = 0;
+        hasCode = false;
+        return statement ? STATEMENT : SKIPPED;
+    }
+
+    private void enterQuote(int quoteState, boolean honourBackslashes) {
+        hasCode = true;
+        backslashEscapes = honourBackslashes;
+        escaped = false;
+        enter(quoteState);
+    }
+
+    private void enter(int newState) {
+        state = newState;
+        previous = -1;
+        beforePrevious = -1;
+        delimiterMatch = 0;
+        keywordMatch = 0;
+    }
+
+    private void markCode(byte b) {
+        hasCode = true;
+        beforePrevious = previous;
+        previous = b;
+    }
+
+    private boolean isEscapeStringPrefix() {
+        return dialect.supportsEscapeStringPrefix() && (previous | 0x20) == 'e' && !isIdentifierPart(beforePrevious);
+    }
+
+    private static int codeOrNone(byte b) {
+        return BYTE_CLASSES[b & 0xFF] == CODE ? b : -1;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f';
+    }
+
+    private static boolean isDigit(int b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isIdentifierPart(int b) {
+        // bytes of multibyte UTF-8 characters are negative and may be part of identifiers; -1 means "no byte"
+        return (b < 0 && b != -1) || b == '_' || isDigit(b) || ((b | 0x20) >= 'a' && (b | 0x20) <= 'z');
+    }
+}
@@ -0,0 +1,92 @@
+package eu.innowise.parser;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Coarse classification of a SQL statement by its leading keyword.
+ */
+public enum SqlStatementType {
+
+    /**
+     * Schema changes such as CREATE, ALTER or DROP.
+     */
+    DDL,
+
+    /**
+     * Data changes such as INSERT, UPDATE or DELETE. These statements can be sent in JDBC batches.
+     */
+    DML,
+
+    /**
+     * Everything else: queries, procedure calls, session settings, anonymous blocks.
+     */
+    OTHER;
+
+    private static final Set<String> DDL_KEYWORDS = Set.of(
+            "CREATE", "ALTER", "DROP", "TRUNCATE", "RENAME", "COMMENT", "GRANT", "REVOKE");
+    private static final Set<String> DML_KEYWORDS = Set.of(
+            "INSERT", "UPDATE", "DELETE", "MERGE", "REPLACE", "UPSERT");
+
+    /**
+     * Classifies a statement by the first keyword after leading whitespace and comments.
+     *
+     * @param sql the SQL statement
+     * @return the statement type
+     */
+    public static SqlStatementType of(String sql) {
+        String keyword = leadingKeyword(sql);
+        if (DDL_KEYWORDS.contains(keyword)) {
+            return DDL;
+        }
+        if (DML_KEYWORDS.contains(keyword)) {
+            return DML;
+        }
+        return OTHER;
+    }
+
+    /**
+     * Returns the first keyword of a statement in upper case, skipping leading whitespace and comments.
+     *
+     * @param sql the SQL statement
+     * @return the leading keyword, or an empty string if the statement does not start with a word
+     */
+    public static String leadingKeyword(String sql) {
+        int i = skipLeadingComments(sql);
+        int start = i;
+        while (i < sql.length() && Character.isLetter(sql.charAt(i))) {
+            i++;
+        }
+        return sql.substring(start, i).toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the statement without leading whitespace and comments.
+     *
+     * @param sql the SQL statement
+     * @return the statement starting at its first keyword
+     */
+    public static String stripLeadingComments(String sql) {
+        return sql.substring(skipLeadingComments(sql));
+    }
+
+    private static int skipLeadingComments(String sql) {
+        int i = 0;
+        int length = sql.length();
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (sql.startsWith("--", i) || c == '#') {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end + 1;
+            } else if (sql.startsWith("/*", i)) {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+}
@@ -0,0 +1,19 @@
+package eu.innowise.report;
+
+import eu.innowise.model.Migration;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of a successful migration run, written to the success report.
+ * Lists the migrations that were committed, with the execution profile of the run when profiling is enabled.
+ */
+@Getter
+@RequiredArgsConstructor
+public class CompletedRunReport {
+
+    private final List<Migration> committed;
+    private final ExecutionProfile profile;
+}
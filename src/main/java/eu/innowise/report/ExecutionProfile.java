@@ -0,0 +1,17 @@
+package eu.innowise.report;
+
+import java.util.List;
+
+/**
+ * Where the time of a migration run went, added to its report by {@link ExecutionProfiler}.
+ *
+ * @param lockWaitMillis    the time spent waiting for the schema lock
+ * @param lockAttempts      the attempts needed to take the schema lock
+ * @param statements        the number of statements executed
+ * @param rowsAffected      the sum of the update counts
+ * @param slowestStatements the slowest statements and batches, slowest first
+ * @param migrations        the timing of every migration that ran, in the order they finished
+ */
+public record ExecutionProfile(double lockWaitMillis, int lockAttempts, long statements, long rowsAffected,
+                               List<StatementTiming> slowestStatements, List<MigrationTiming> migrations) {
+}
@@ -0,0 +1,239 @@
+package eu.innowise.report;
+
+import eu.innowise.model.Migration;
+import eu.innowise.utils.Constants;
+import eu.innowise.utils.PropertiesUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the {@link ExecutionProfile} of a migration run: the schema lock wait, the start, end and duration of every
+ * migration, the time and update count of every statement, and the slowest statements of the run.
+ * <p>
+ * Statement timings are kept in primitive arrays per migration, and only the slowest
+ * {@code report.profile.top-statements} statements keep their SQL. Migrations running in parallel are recorded
+ * concurrently; a migration itself is recorded by the one thread running it.
+ * With {@code report.profile.enabled=false} {@link #create()} returns {@link #DISABLED}, which records nothing.
+ * </p>
+ */
+public final class ExecutionProfiler {
+
+    static final int SQL_PREVIEW_LENGTH = 200;
+
+    /**
+     * A profiler that records nothing and has no profile.
+     */
+    public static final ExecutionProfiler DISABLED = new ExecutionProfiler(false, 0);
+
+    private static final Comparator<StatementTiming> BY_DURATION = Comparator.comparingDouble(StatementTiming::durationMillis);
+
+    private final boolean enabled;
+    private final int topStatements;
+    private final Map<String, MigrationRecorder> running = new ConcurrentHashMap<>();
+    private final Queue<MigrationTiming> finished = new ConcurrentLinkedQueue<>();
+    private final PriorityQueue<StatementTiming> slowest = new PriorityQueue<>(BY_DURATION);
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder rowsAffected = new LongAdder();
+
+    // duration of the fastest statement kept once the slowest list is full; faster statements are not offered
+    private volatile double slowestThreshold = -1;
+    private volatile long lockWaitNanos;
+    private volatile int lockAttempts;
+
+    ExecutionProfiler(boolean enabled, int topStatements) {
+        this.enabled = enabled;
+        this.topStatements = Math.max(0, topStatements);
+    }
+
+    /**
+     * Creates the profiler of a run from the {@code report.profile.*} properties.
+     *
+     * @return a new profiler, or {@link #DISABLED}
+     */
+    public static ExecutionProfiler create() {
+        if (!PropertiesUtils.getBooleanProperty("report.profile.enabled", true)) {
+            return DISABLED;
+        }
+        return new ExecutionProfiler(true, PropertiesUtils.getIntProperty("report.profile.top-statements",
+                Constants.DEFAULT_PROFILE_TOP_STATEMENTS));
+    }
+
+    /**
+     * @return {@code true} if this profiler records timings
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param waitTime the time spent waiting for the schema lock
+     * @param attempts the attempts needed to take it
+     */
+    public void recordLockWait(Duration waitTime, int attempts) {
+        lockWaitNanos = waitTime.toNanos();
+        lockAttempts = attempts;
+    }
+
+    /**
+     * Starts recording the statements of a migration.
+     *
+     * @param migration the migration about to run
+     */
+    public void startMigration(Migration migration) {
+        if (enabled) {
+            running.put(migration.getVersion(), new MigrationRecorder(migration, Instant.now()));
+        }
+    }
+
+    /**
+     * Stops recording the statements of a migration and adds its timing to the profile.
+     *
+     * @param migration     the migration
+     * @param durationNanos the time spent running its statements
+     * @param success       {@code false} if a statement failed
+     */
+    public void finishMigration(Migration migration, long durationNanos, boolean success) {
+        MigrationRecorder recorder = enabled ? running.remove(migration.getVersion()) : null;
+        if (recorder != null) {
+            finished.add(recorder.toTiming(Instant.now(), durationNanos, success));
+        }
+    }
+
+    /**
+     * Records a statement executed on its own.
+     *
+     * @param version the migration version
+     * @param index   the 1-based index of the statement in its migration
+     * @param sql     the statement
+     * @param nanos   the execution time
+     * @param rows    the update count, {@code 0} for a statement returning a result set
+     */
+    public void recordStatement(String version, int index, String sql, long nanos, long rows) {
+        if (!enabled) {
+            return;
+        }
+        statements.increment();
+        rowsAffected.add(Math.max(0, rows));
+        MigrationRecorder recorder = running.get(version);
+        if (recorder != null) {
+            recorder.add(nanos, rows);
+        }
+        offer(version, index, 1, nanos, rows, sql);
+    }
+
+    /**
+     * Records a JDBC batch. Every statement of the batch gets an equal share of its time,
+     * and the batch is ranked among the slowest statements as a whole.
+     *
+     * @param version      the migration version
+     * @param firstIndex   the 1-based index of the first statement of the batch in its migration
+     * @param sql          the statements of the batch
+     * @param nanos        the execution time of the batch
+     * @param updateCounts the update counts returned by the driver
+     */
+    public void recordBatch(String version, int firstIndex, List<String> sql, long nanos, int[] updateCounts) {
+        if (!enabled || sql.isEmpty()) {
+            return;
+        }
+        long rows = 0;
+        for (int count : updateCounts) {
+            rows += Math.max(0, count);
+        }
+        statements.add(sql.size());
+        rowsAffected.add(rows);
+        MigrationRecorder recorder = running.get(version);
+        if (recorder != null) {
+            long share = nanos / sql.size();
+            for (int i = 0; i < sql.size(); i++) {
+                recorder.add(share, i < updateCounts.length ? updateCounts[i] : -1);
+            }
+        }
+        offer(version, firstIndex, sql.size(), nanos, rows, sql.get(0));
+    }
+
+    /**
+     * @return the profile recorded so far, or {@code null} if this profiler is disabled
+     */
+    public ExecutionProfile toProfile() {
+        if (!enabled) {
+            return null;
+        }
+        List<StatementTiming> top;
+        synchronized (slowest) {
+            top = new ArrayList<>(slowest);
+        }
+        top.sort(BY_DURATION.reversed());
+        return new ExecutionProfile(lockWaitNanos / 1_000_000.0, lockAttempts, statements.sum(), rowsAffected.sum(),
+                top, List.copyOf(finished));
+    }
+
+    private void offer(String version, int index, int count, long nanos, long rows, String sql) {
+        double millis = nanos / 1_000_000.0;
+        if (topStatements == 0 || millis <= slowestThreshold) {
+            return;
+        }
+        synchronized (slowest) {
+            if (slowest.size() == topStatements) {
+                if (millis <= slowest.peek().durationMillis()) {
+                    return;
+                }
+                slowest.poll();
+            }
+            String preview = sql.length() > SQL_PREVIEW_LENGTH ? sql.substring(0, SQL_PREVIEW_LENGTH) + "..." : sql;
+            slowest.add(new StatementTiming(version, index, count, millis, rows, preview));
+            if (slowest.size() == topStatements) {
+                slowestThreshold = slowest.peek().durationMillis();
+            }
+        }
+    }
+
+    /**
+     * Statement timings of one running migration, appended by the thread running it.
+     */
+    private static final class MigrationRecorder {
+
+        private final Migration migration;
+        private final Instant startedAt;
+        private long[] nanos = new long[8];
+        private long[] rows = new long[8];
+        private int size;
+
+        MigrationRecorder(Migration migration, Instant startedAt) {
+            this.migration = migration;
+            this.startedAt = startedAt;
+        }
+
+        void add(long statementNanos, long statementRows) {
+            if (size == nanos.length) {
+                nanos = Arrays.copyOf(nanos, size * 2);
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            nanos[size] = statementNanos;
+            rows[size] = statementRows;
+            size++;
+        }
+
+        MigrationTiming toTiming(Instant finishedAt, long durationNanos, boolean success) {
+            double[] statementMillis = new double[size];
+            long totalRows = 0;
+            for (int i = 0; i < size; i++) {
+                statementMillis[i] = nanos[i] / 1_000_000.0;
+                totalRows += Math.max(0, rows[i]);
+            }
+            return new MigrationTiming(migration.getVersion(), migration.getDescription(), startedAt.toString(),
+                    finishedAt.toString(), durationNanos / 1_000_000.0, success, totalRows, statementMillis,
+                    Arrays.copyOf(rows, size));
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package eu.innowise.report;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Aggregated outcome of a fan-out migration, with one {@link TargetResult} per target in rollout order.
+ */
+@Getter
+public class FanOutReport {
+
+    private final List<TargetResult> targets;
+    private final boolean stopped;
+    private final int succeeded;
+    private final int failed;
+    private final int skipped;
+
+    /**
+     * @param targets the results by target, in rollout order
+     * @param stopped whether the rollout stopped before all waves ran
+     */
+    public FanOutReport(List<TargetResult> targets, boolean stopped) {
+        this.targets = List.copyOf(targets);
+        this.stopped = stopped;
+        this.succeeded = count(targets, TargetResult.Status.SUCCEEDED);
+        this.failed = count(targets, TargetResult.Status.FAILED);
+        this.skipped = count(targets, TargetResult.Status.SKIPPED);
+    }
+
+    /**
+     * @return {@code true} if every target was migrated successfully
+     */
+    public boolean isSuccessful() {
+        return failed == 0 && skipped == 0;
+    }
+
+    private static int count(List<TargetResult> targets, TargetResult.Status status) {
+        return (int) targets.stream().filter(result -> result.getStatus() == status).count();
+    }
+}
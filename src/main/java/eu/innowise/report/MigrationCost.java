@@ -0,0 +1,35 @@
+package eu.innowise.report;
+
+import java.util.List;
+
+/**
+ * Cost of one migration measured by a rehearsal.
+ * <p>
+ * {@code locks} lists the table locks the migration took, as reported by the database; locks already taken by an
+ * earlier migration of the same rehearsal are not repeated, and the list is empty if the database does not expose its locks.
+ * </p>
+ *
+ * @param version        the migration version
+ * @param description    the migration description
+ * @param status         whether the migration was rehearsed
+ * @param reason         why the migration was skipped, or the error it failed with; {@code null} if it was rehearsed
+ * @param durationMillis the time spent running its statements
+ * @param rowsAffected   the sum of the non-negative update counts
+ * @param locks          the table locks taken
+ * @param statements     the cost of every statement that ran
+ */
+public record MigrationCost(String version, String description, Status status, String reason, double durationMillis,
+                            long rowsAffected, List<String> locks, List<StatementCost> statements) {
+
+    /**
+     * Outcome of the rehearsal of a migration.
+     */
+    public enum Status {
+        /** All statements ran and were rolled back. */
+        REHEARSED,
+        /** A statement failed; the statements before it are listed. */
+        FAILED,
+        /** The migration could not be rolled back, so it was not run; see the reason. */
+        SKIPPED
+    }
+}
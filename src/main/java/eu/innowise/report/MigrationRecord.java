@@ -0,0 +1,37 @@
+package eu.innowise.report;
+
+/**
+ * One line of a streaming report: the outcome of a single migration in a run.
+ * Every record carries the run id and target, so the lines of many report files can be indexed and queried
+ * without their file names.
+ *
+ * @param runId          the id of the run, shared by all records of one command
+ * @param command        {@code migrate} or {@code rollback}
+ * @param target         the target name
+ * @param version        the migration version
+ * @param description    the migration description
+ * @param checksum       the migration checksum, {@code null} when unknown
+ * @param status         the outcome
+ * @param durationMillis the time spent running the statements of the migration, {@code 0} when it did not run
+ * @param timestamp      when the outcome became final, in ISO-8601
+ * @param error          the error message of a failed migration, otherwise {@code null}
+ */
+public record MigrationRecord(String runId, String command, String target, String version, String description,
+                              Long checksum, Status status, double durationMillis, String timestamp, String error) {
+
+    /**
+     * Outcome of a migration in a run.
+     */
+    public enum Status {
+        /** The migration and its schema history row were committed. */
+        APPLIED,
+        /** The migration failed. */
+        FAILED,
+        /** The migration succeeded but was rolled back together with a failed migration of its transaction. */
+        ABORTED,
+        /** The migration was not run because a migration it depends on failed. */
+        SKIPPED,
+        /** The migration was rolled back by the {@code rollback} command. */
+        ROLLED_BACK
+    }
+}
@@ -2,6 +2,7 @@ package eu.innowise.report;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
+import eu.innowise.jfr.ReportEvent;
 import eu.innowise.utils.PropertiesUtils;
 import lombok.extern.slf4j.Slf4j;
 
@@ -20,6 +21,8 @@ import static eu.innowise.utils.Constants.DEFAULT_REPORT_PATH;
 @Slf4j
 public class MigrationReportGenerator {
 
+    private static final ObjectWriter WRITER = new ObjectMapper().writerWithDefaultPrettyPrinter();
+
     /**
      * Generates a JSON report with the migration data.
      *
@@ -27,38 +30,68 @@ public class MigrationReportGenerator {
      * @param success The status of the migration (success or failure).
      */
     public static void generateJsonReport(Object data, boolean success) {
-        ObjectWriter writer = new ObjectMapper().writerWithDefaultPrettyPrinter();
-        Path outputPath = getReportDirectory(success);
+        generateJsonReport(data, success, null);
+    }
+
+    /**
+     * Generates a JSON report with the migration data, adding a name to the filename so that reports
+     * written at the same time for different targets do not overwrite each other.
+     *
+     * @param data The migration data to be included in the report.
+     * @param success The status of the migration (success or failure).
+     * @param name The name added to the filename, or {@code null} for none.
+     */
+    public static void generateJsonReport(Object data, boolean success, String name) {
+        ReportEvent event = new ReportEvent();
+        event.begin();
+        Path outputPath = getReportDirectory(success, name);
         try {
             if (Files.notExists(outputPath.getParent())) {
                 Files.createDirectories(outputPath.getParent());
                 log.info("Created directories for the report at: {}", outputPath.getParent());
             }
 
-            writer.writeValue(outputPath.toFile(), data);
+            WRITER.writeValue(outputPath.toFile(), data);
             log.info("JSON report generated successfully at: {}", outputPath);
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.path = outputPath.toString();
+                event.success = success;
+                event.bytes = Files.size(outputPath);
+                event.commit();
+            }
         } catch (IOException e) {
             log.error("Failed to generate JSON report.", e);
         }
     }
 
-    private static Path getReportDirectory(boolean success) {
-        String outputPath = PropertiesUtils.getProperty("report.output.path");
-        if (outputPath != null && !outputPath.isBlank()) {
-            return buildReportPath(outputPath, success);
-        }
+    private static Path getReportDirectory(boolean success, String name) {
+        return buildReportPath(reportDirectory().toString(), success, name);
+    }
 
-        return buildReportPath(DEFAULT_REPORT_PATH, success);
+    /**
+     * @return the folder reports are written to, {@code report.output.path} or {@code reports} by default
+     */
+    static Path reportDirectory() {
+        String outputPath = PropertiesUtils.getProperty("report.output.path");
+        return Path.of(outputPath != null && !outputPath.isBlank() ? outputPath : DEFAULT_REPORT_PATH);
     }
 
-    private static Path buildReportPath(String basePath, boolean success) {
+    private static Path buildReportPath(String basePath, boolean success, String name) {
         String status = success ? "success" : "failure";
         String timestamp = getCurrentTimestamp();
-        String filename = String.format("migration_report_%s_%s.json", status, timestamp);
+        String filename = name == null
+                ? String.format("migration_report_%s_%s.json", status, timestamp)
+                : String.format("migration_report_%s_%s_%s.json", sanitize(name), status, timestamp);
         return Path.of(basePath, filename);
     }
 
-    private static String getCurrentTimestamp() {
+    static String sanitize(String name) {
+        return name.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    static String getCurrentTimestamp() {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss");
         return LocalDateTime.now().format(formatter);
     }
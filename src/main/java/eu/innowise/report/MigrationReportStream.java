@@ -0,0 +1,55 @@
+package eu.innowise.report;
+
+import eu.innowise.model.Migration;
+import eu.innowise.utils.Constants;
+import eu.innowise.utils.PropertiesUtils;
+
+/**
+ * A report that receives one {@link MigrationRecord} per migration while a command runs, so the outcome
+ * of every migration committed so far survives a killed process.
+ * <p>
+ * With {@code report.stream.enabled=true} (the default) {@link #open(String, String)} returns an
+ * {@link NdjsonReportStream}, otherwise {@link #NOOP}.
+ * </p>
+ */
+public interface MigrationReportStream extends AutoCloseable {
+
+    /**
+     * A report stream that ignores every record.
+     */
+    MigrationReportStream NOOP = new MigrationReportStream() {
+    };
+
+    /**
+     * Opens the streaming report of a command.
+     *
+     * @param command the command, {@code migrate} or {@code rollback}
+     * @param target  the target name
+     * @return the report stream, to be closed when the command ends
+     */
+    static MigrationReportStream open(String command, String target) {
+        if (!PropertiesUtils.getBooleanProperty("report.stream.enabled", true)) {
+            return NOOP;
+        }
+        return NdjsonReportStream.open(MigrationReportGenerator.reportDirectory(), command, target,
+                PropertiesUtils.getIntProperty("report.stream.queue-capacity", Constants.DEFAULT_REPORT_QUEUE_CAPACITY));
+    }
+
+    /**
+     * Records the outcome of a migration. Blocks while the write queue is full.
+     *
+     * @param migration     the migration
+     * @param status        the outcome
+     * @param durationNanos the time spent running the statements of the migration
+     * @param error         the error message, or {@code null}
+     */
+    default void record(Migration migration, MigrationRecord.Status status, long durationNanos, String error) {
+    }
+
+    /**
+     * Writes the queued records and closes the report. Write failures are logged and do not fail the caller.
+     */
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,25 @@
+package eu.innowise.report;
+
+import eu.innowise.migration.TransactionPolicy;
+import eu.innowise.model.Migration;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of a failed migration run, written to the failure report.
+ * Lists the migrations that were committed before the failure, the ones rolled back with the failed transaction,
+ * and the migration that failed, with the execution profile of the run when profiling is enabled.
+ */
+@Getter
+@RequiredArgsConstructor
+public class MigrationRunReport {
+
+    private final TransactionPolicy transactionPolicy;
+    private final List<Migration> committed;
+    private final List<Migration> rolledBack;
+    private final Migration failed;
+    private final String error;
+    private final ExecutionProfile profile;
+}
@@ -0,0 +1,24 @@
+package eu.innowise.report;
+
+/**
+ * Timing of one migration of a run.
+ * <p>
+ * {@code statementMillis} and {@code statementRows} hold one entry per executed statement, in script order;
+ * statements sent in one JDBC batch share the batch time equally. A negative row count means the driver
+ * did not report one, and statements returning a result set count zero rows.
+ * </p>
+ *
+ * @param version         the migration version
+ * @param description     the migration description
+ * @param startedAt       when the first statement started, in ISO-8601
+ * @param finishedAt      when the last statement ended, in ISO-8601
+ * @param durationMillis  the time spent running the statements
+ * @param success         {@code false} if a statement failed
+ * @param rowsAffected    the sum of the non-negative row counts
+ * @param statementMillis the execution time of every statement
+ * @param statementRows   the update count of every statement
+ */
+public record MigrationTiming(String version, String description, String startedAt, String finishedAt,
+                              double durationMillis, boolean success, long rowsAffected, double[] statementMillis,
+                              long[] statementRows) {
+}
@@ -0,0 +1,269 @@
+package eu.innowise.report;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import eu.innowise.model.Migration;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming report written as newline-delimited JSON, one {@link MigrationRecord} per line.
+ * <p>
+ * Records are put on a bounded queue and written by a background thread through one {@link JsonGenerator}, which is
+ * flushed whenever the queue runs empty, so the migration thread never waits for the disk unless the queue is full.
+ * {@link #close()} writes what is left; a shutdown hook does the same when the JVM exits without the report being closed.
+ * Opening and closing the report each append a {@link ReportIndexEntry} to {@value #INDEX_FILE} in the report folder.
+ * </p>
+ */
+@Slf4j
+public final class NdjsonReportStream implements MigrationReportStream {
+
+    static final String INDEX_FILE = "index.ndjson";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final ObjectWriter RECORD_WRITER = MAPPER.writerFor(MigrationRecord.class)
+            .with(new MinimalPrettyPrinter(""))
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    private static final ObjectWriter INDEX_WRITER = MAPPER.writerFor(ReportIndexEntry.class);
+    private static final MigrationRecord END = new MigrationRecord(null, null, null, null, null, null, null, 0, null, null);
+    private static final Object INDEX_LOCK = new Object();
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    private final Path directory;
+    private final Path file;
+    private final String runId;
+    private final String command;
+    private final String target;
+    private final String startedAt;
+    private final BlockingQueue<MigrationRecord> queue;
+    private final JsonGenerator generator;
+    private final Thread writer;
+    private final Thread shutdownHook;
+    private final Object lock = new Object();
+
+    // guarded by lock
+    private boolean closed;
+
+    // written by the writer thread only, read after it ended
+    private boolean failed;
+    private int written;
+    private int failures;
+    private double durationMillis;
+
+    private NdjsonReportStream(Path directory, Path file, String runId, String command, String target,
+                               int queueCapacity, JsonGenerator generator) {
+        this.directory = directory;
+        this.file = file;
+        this.runId = runId;
+        this.command = command;
+        this.target = target;
+        this.startedAt = Instant.now().toString();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.generator = generator;
+        this.writer = new Thread(this::writeRecords, "migration-report-" + target);
+        this.writer.setDaemon(true);
+        this.shutdownHook = new Thread(this::close, "migration-report-shutdown-" + target);
+    }
+
+    /**
+     * Creates the report file {@code migration_<command>_<target>_<timestamp>_<run>.ndjson} and starts its writer.
+     *
+     * @param directory     the report folder
+     * @param command       the command
+     * @param target        the target name
+     * @param queueCapacity the number of records that may wait to be written
+     * @return the report, or {@link MigrationReportStream#NOOP} if the file cannot be created
+     */
+    public static MigrationReportStream open(Path directory, String command, String target, int queueCapacity) {
+        String runId = UUID.randomUUID().toString();
+        Path file = directory.resolve(String.format("migration_%s_%s_%s_%s.ndjson", command,
+                MigrationReportGenerator.sanitize(target), MigrationReportGenerator.getCurrentTimestamp(),
+                runId.substring(0, 8)));
+        NdjsonReportStream stream;
+        try {
+            Files.createDirectories(directory);
+            JsonGenerator generator = RECORD_WRITER.createGenerator(
+                    Files.newOutputStream(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE));
+            stream = new NdjsonReportStream(directory, file, runId, command, target, Math.max(1, queueCapacity), generator);
+        } catch (IOException e) {
+            log.error("Failed to create streaming report {}, no records will be written.", file, e);
+            return NOOP;
+        }
+
+        stream.appendIndex(null);
+        stream.writer.start();
+        Runtime.getRuntime().addShutdownHook(stream.shutdownHook);
+        log.info("Streaming report of run {} is written to: {}", runId, file);
+        return stream;
+    }
+
+    /**
+     * @return the report file
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * @return the id of the run, written to every record
+     */
+    public String getRunId() {
+        return runId;
+    }
+
+    @Override
+    public void record(Migration migration, MigrationRecord.Status status, long durationNanos, String error) {
+        MigrationRecord record = new MigrationRecord(runId, command, target, migration.getVersion(),
+                migration.getDescription(), migration.getChecksum(), status, durationNanos / 1_000_000.0,
+                Instant.now().toString(), error);
+        synchronized (lock) {
+            if (closed) {
+                log.warn("Streaming report {} is closed, the {} record of version {} is dropped.", file, status,
+                        migration.getVersion());
+                return;
+            }
+            try {
+                if (!enqueue(record)) {
+                    log.warn("Writer of streaming report {} has stopped, the {} record of version {} is dropped.", file,
+                            status, migration.getVersion());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Interrupted while queueing the {} record of version {}, it is dropped.", status,
+                        migration.getVersion());
+            }
+        }
+    }
+
+    /**
+     * Closes the report. Records already accepted are written before it returns; the end marker is queued after them,
+     * since {@link #record} queues under the same lock and sees the report closed from then on.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        boolean interrupted = false;
+        while (true) {
+            try {
+                enqueue(END);
+                writer.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (Thread.currentThread() != shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // the JVM is shutting down, the hook is already running or about to run and returns at once
+            }
+        }
+        appendIndex(Instant.now().toString());
+        log.info("Streaming report closed with {} records: {}", written, file);
+    }
+
+    /**
+     * Queues a record, waiting while the queue is full as long as the writer is running.
+     *
+     * @return {@code false} if the writer has stopped and the record was not queued
+     */
+    private boolean enqueue(MigrationRecord record) throws InterruptedException {
+        while (!queue.offer(record, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (!writer.isAlive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeRecords() {
+        try {
+            MigrationRecord record = queue.take();
+            while (record != END) {
+                write(record);
+                record = queue.poll();
+                if (record == null) {
+                    flush();
+                    record = queue.take();
+                }
+            }
+            flush();
+        } catch (InterruptedException e) {
+            log.warn("Writer of streaming report {} was interrupted, the report may be incomplete.", file);
+        } finally {
+            try {
+                generator.close();
+            } catch (IOException e) {
+                log.error("Failed to close streaming report {}", file, e);
+            }
+        }
+    }
+
+    private void write(MigrationRecord record) {
+        written++;
+        durationMillis += record.durationMillis();
+        if (record.status() == MigrationRecord.Status.FAILED) {
+            failures++;
+        }
+        if (failed) {
+            return;
+        }
+        try {
+            RECORD_WRITER.writeValue(generator, record);
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void flush() {
+        if (failed) {
+            return;
+        }
+        try {
+            generator.flush();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void fail(IOException e) {
+        failed = true;
+        log.error("Failed to write streaming report {}, further records are dropped.", file, e);
+    }
+
+    private void appendIndex(String finishedAt) {
+        ReportIndexEntry entry = new ReportIndexEntry(runId, command, target, file.getFileName().toString(), startedAt,
+                finishedAt, written, failures, durationMillis);
+        synchronized (INDEX_LOCK) {
+            try {
+                Files.writeString(directory.resolve(INDEX_FILE), INDEX_WRITER.writeValueAsString(entry) + "\n",
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                log.error("Failed to update report index in {}", directory, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package eu.innowise.report;
+
+import eu.innowise.model.Migration;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a failed parallel migration run, written to the failure report.
+ * Lists the migrations that were committed, the error of each failed migration by version,
+ * the versions skipped because they depend on a failed migration, and the execution profile of the run
+ * when profiling is enabled.
+ */
+@Getter
+@RequiredArgsConstructor
+public class ParallelRunReport {
+
+    private final List<Migration> committed;
+    private final Map<String, String> failed;
+    private final List<String> skipped;
+    private final ExecutionProfile profile;
+}
@@ -0,0 +1,22 @@
+package eu.innowise.report;
+
+import java.util.List;
+
+/**
+ * Cost of the pending migrations measured by a rehearsal, written as the {@code plan} report.
+ * Every migration was run and rolled back, so the database is unchanged; see {@link MigrationCost} for what is measured.
+ *
+ * @param target         the name of the rehearsed target
+ * @param rehearsedAt    when the rehearsal started, in ISO-8601
+ * @param durationMillis the time spent running the migrations
+ * @param migrations     the cost of every pending migration, in version order
+ */
+public record RehearsalReport(String target, String rehearsedAt, double durationMillis, List<MigrationCost> migrations) {
+
+    /**
+     * @return {@code true} if every migration was rehearsed without an error
+     */
+    public boolean successful() {
+        return migrations.stream().allMatch(migration -> migration.status() == MigrationCost.Status.REHEARSED);
+    }
+}
@@ -0,0 +1,105 @@
+package eu.innowise.report;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Reads the streaming reports of past runs through the report index, for example to compare the duration of
+ * a migration across deploys.
+ * <p>
+ * A line that cannot be parsed, such as the last line of a report whose process was killed while writing it, is skipped.
+ * </p>
+ */
+@Slf4j
+public final class ReportIndex {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final ObjectReader ENTRY_READER = MAPPER.readerFor(ReportIndexEntry.class);
+    private static final ObjectReader RECORD_READER = MAPPER.readerFor(MigrationRecord.class);
+
+    private ReportIndex() {
+    }
+
+    /**
+     * Reads the runs listed in the index of a report folder, in the order they were started.
+     * A run that was closed is returned with its final entry.
+     *
+     * @param directory the report folder
+     * @return the runs, empty if there is no index
+     * @throws IOException if the index cannot be read
+     */
+    public static List<ReportIndexEntry> runs(Path directory) throws IOException {
+        Map<String, ReportIndexEntry> runs = new LinkedHashMap<>();
+        for (ReportIndexEntry entry : readLines(directory.resolve(NdjsonReportStream.INDEX_FILE), ENTRY_READER,
+                ReportIndexEntry.class)) {
+            runs.merge(entry.runId(), entry, (started, finished) -> finished.isFinished() ? finished : started);
+        }
+        return new ArrayList<>(runs.values());
+    }
+
+    /**
+     * Reads the records of a run.
+     *
+     * @param directory the report folder
+     * @param run       the run
+     * @return the records in the order they were written, empty if the report file no longer exists
+     * @throws IOException if the report cannot be read
+     */
+    public static List<MigrationRecord> records(Path directory, ReportIndexEntry run) throws IOException {
+        return readLines(directory.resolve(run.file()), RECORD_READER, MigrationRecord.class);
+    }
+
+    /**
+     * Collects the {@link MigrationRecord.Status#APPLIED} records of a target across all indexed {@code migrate} runs.
+     *
+     * @param directory the report folder
+     * @param target    the target name
+     * @return the records by version, each list in run order
+     * @throws IOException if the index or a report cannot be read
+     */
+    public static Map<String, List<MigrationRecord>> appliedHistory(Path directory, String target) throws IOException {
+        Map<String, List<MigrationRecord>> history = new LinkedHashMap<>();
+        for (ReportIndexEntry run : runs(directory)) {
+            if (!"migrate".equals(run.command()) || !target.equals(run.target())) {
+                continue;
+            }
+            for (MigrationRecord record : records(directory, run)) {
+                if (record.status() == MigrationRecord.Status.APPLIED) {
+                    history.computeIfAbsent(record.version(), version -> new ArrayList<>()).add(record);
+                }
+            }
+        }
+        return history;
+    }
+
+    private static <T> List<T> readLines(Path file, ObjectReader reader, Class<T> type) throws IOException {
+        if (Files.notExists(file)) {
+            return List.of();
+        }
+        List<T> values = new ArrayList<>();
+        try (Stream<String> lines = Files.lines(file)) {
+            for (String line : (Iterable<String>) lines::iterator) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    values.add(type.cast(reader.readValue(line)));
+                } catch (JsonProcessingException e) {
+                    log.warn("Skipping unreadable line in {}: {}", file, e.getOriginalMessage());
+                }
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,30 @@
+package eu.innowise.report;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * One line of the report index, {@code index.ndjson} in the report folder.
+ * A line is appended when a streaming report is opened and another one, with {@code finishedAt} set, when it is closed;
+ * a run whose only line has no {@code finishedAt} was killed before its report was closed.
+ *
+ * @param runId          the id of the run
+ * @param command        {@code migrate} or {@code rollback}
+ * @param target         the target name
+ * @param file           the report file name, relative to the report folder
+ * @param startedAt      when the report was opened, in ISO-8601
+ * @param finishedAt     when the report was closed, in ISO-8601, or {@code null}
+ * @param migrations     the number of records written
+ * @param failed         the number of {@link MigrationRecord.Status#FAILED} records
+ * @param durationMillis the summed duration of the records
+ */
+public record ReportIndexEntry(String runId, String command, String target, String file, String startedAt,
+                               String finishedAt, int migrations, int failed, double durationMillis) {
+
+    /**
+     * @return {@code true} if the report of the run was closed
+     */
+    @JsonIgnore
+    public boolean isFinished() {
+        return finishedAt != null;
+    }
+}
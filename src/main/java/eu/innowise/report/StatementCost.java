@@ -0,0 +1,24 @@
+package eu.innowise.report;
+
+import eu.innowise.parser.SqlStatementType;
+
+/**
+ * Cost of one statement measured by a rehearsal.
+ *
+ * @param index          the position of the statement in its script, starting at 1
+ * @param type           the statement type
+ * @param sql            the statement, shortened to {@value ExecutionProfiler#SQL_PREVIEW_LENGTH} characters
+ * @param durationMillis the execution time
+ * @param updateCount    the update count, or {@code -1} if the driver did not report one
+ * @param estimatedRows  the rows estimated by the query plan before the statement ran, or {@code -1} if there is no
+ *                       estimate; only DML statements are explained
+ */
+public record StatementCost(int index, SqlStatementType type, String sql, double durationMillis, long updateCount,
+                            long estimatedRows) {
+
+    public StatementCost {
+        if (sql.length() > ExecutionProfiler.SQL_PREVIEW_LENGTH) {
+            sql = sql.substring(0, ExecutionProfiler.SQL_PREVIEW_LENGTH) + "...";
+        }
+    }
+}
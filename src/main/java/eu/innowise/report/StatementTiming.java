@@ -0,0 +1,15 @@
+package eu.innowise.report;
+
+/**
+ * A statement, or a JDBC batch of statements, among the slowest of a run.
+ *
+ * @param version        the migration version
+ * @param index          the 1-based index of the statement in its migration, the first statement for a batch
+ * @param statements     the number of statements, above one for a batch
+ * @param durationMillis the execution time
+ * @param rowsAffected   the update count, summed over a batch
+ * @param sql            the statement, shortened to {@value ExecutionProfiler#SQL_PREVIEW_LENGTH} characters
+ */
+public record StatementTiming(String version, int index, int statements, double durationMillis, long rowsAffected,
+                              String sql) {
+}
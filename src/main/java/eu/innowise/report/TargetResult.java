@@ -0,0 +1,44 @@
+package eu.innowise.report;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Outcome of a fan-out migration for one target.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class TargetResult {
+
+    /**
+     * State of a target after the rollout.
+     */
+    public enum Status {
+        /** All pending migrations were applied, or there were none. */
+        SUCCEEDED,
+        /** The migration of the target failed; see the error and the target report. */
+        FAILED,
+        /** The target was not migrated because the rollout stopped before its wave. */
+        SKIPPED
+    }
+
+    private final String target;
+    private final String instance;
+    private final Status status;
+    private final List<String> appliedVersions;
+    private final String error;
+    private final long durationMillis;
+
+    /**
+     * @param target   the target name
+     * @param instance the database instance of the target
+     * @return a result for a target that was not migrated
+     */
+    public static TargetResult skipped(String target, String instance) {
+        return new TargetResult(target, instance, Status.SKIPPED, List.of(), null, 0);
+    }
+}
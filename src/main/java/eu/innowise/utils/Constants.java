@@ -8,17 +8,46 @@ public final class Constants {
     private Constants() {
     }
 
-    public static final String SEMICOLON = ";";
     public static final String SQL_EXTENSION = ".sql";
     public static final String MIGRATION_PREFIX = "V";
     public static final String ROLLBACK_PREFIX = "U";
+    public static final String BASELINE_PREFIX = "B";
 
     public static final String DEFAULT_REPORT_PATH = "reports";
     public static final String DEFAULT_MIGRATIONS_PATH = "migrations";
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final int DEFAULT_COMMIT_INTERVAL = 10;
+    public static final int DEFAULT_NON_TRANSACTIONAL_RETRY_DELAY_MS = 1000;
+    public static final int DEFAULT_LOCK_TIMEOUT_MS = 60_000;
+    public static final int DEFAULT_LOCK_BACKOFF_INITIAL_MS = 50;
+    public static final int DEFAULT_LOCK_BACKOFF_MAX_MS = 2000;
+    public static final int DEFAULT_MAPPING_THRESHOLD = 1024 * 1024;
+    public static final int DEFAULT_FANOUT_CANARY_TARGETS = 1;
+    public static final int DEFAULT_FANOUT_INSTANCE_PARALLELISM = 4;
+    public static final int DEFAULT_POOL_MAXIMUM_SIZE = 10;
+    public static final int DEFAULT_POOL_MINIMUM_IDLE = 2;
+    public static final int DEFAULT_POOL_IDLE_TIMEOUT_MS = 30_000;
+    public static final int DEFAULT_POOL_CONNECTION_TIMEOUT_MS = 30_000;
+    public static final int DEFAULT_POOL_MAX_LIFETIME_MS = 1_800_000;
+    public static final int DEFAULT_REPORT_QUEUE_CAPACITY = 1024;
+    public static final int DEFAULT_PROFILE_TOP_STATEMENTS = 10;
+    public static final int DEFAULT_BACKFILL_CHUNK_SIZE = 1000;
+    public static final int DEFAULT_BACKFILL_MAX_CHUNK_SIZE = 100_000;
+    public static final int DEFAULT_BACKFILL_TARGET_CHUNK_MS = 500;
 
-    public static final String MIGRATION_FILE_PATTERN = "^[VU](\\d+(?:[._]\\d+)?)__(.*)\\.sql$";
+    public static final String MIGRATION_FILE_PATTERN = "^[VUB](\\d+(?:[._]\\d+)?)__(.*)\\.sql$";
 
     public static final String SCHEMA_HISTORY_TABLE = "schema_history";
+    public static final String SCHEMA_LOCK_TABLE = "schema_history_lock";
+    public static final String BACKFILL_PROGRESS_TABLE = "schema_backfill_progress";
+    public static final String MIGRATION_TYPE_SQL = "SQL";
+    public static final String MIGRATION_TYPE_BASELINE = "BASELINE";
+
+    /**
+     * First key of the PostgreSQL advisory lock taken while migrations run (the ASCII bytes of "sche").
+     * The second key is the hash of the current schema, so migrations of different schemas do not block each other.
+     */
+    public static final int SCHEMA_LOCK_KEY = 0x73636865;
 
     // queries
 
@@ -29,7 +58,12 @@ public final class Constants {
                 version VARCHAR(15) NOT NULL,
                 description VARCHAR(200) NOT NULL,
                 checksum INT,
-                installed_on TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                installed_on TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                version_key BIGINT,
+                checksum64 BIGINT,
+                checksum_algorithm VARCHAR(16),
+                migration_type VARCHAR(16),
+                CONSTRAINT schema_history_version_key_uk UNIQUE (version_key)
             );
             """;
 
@@ -40,7 +74,12 @@ public final class Constants {
                 version VARCHAR(15) NOT NULL,
                 description VARCHAR(200) NOT NULL,
                 checksum INT,
-                installed_on TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                installed_on TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                version_key BIGINT,
+                checksum64 BIGINT,
+                checksum_algorithm VARCHAR(16),
+                migration_type VARCHAR(16),
+                CONSTRAINT schema_history_version_key_uk UNIQUE (version_key)
             );
             """;
 
@@ -51,14 +90,89 @@ public final class Constants {
                 version VARCHAR(15) NOT NULL,
                 description VARCHAR(200) NOT NULL,
                 checksum INT,
-                installed_on TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                installed_on TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                version_key BIGINT,
+                checksum64 BIGINT,
+                checksum_algorithm VARCHAR(16),
+                migration_type VARCHAR(16),
+                CONSTRAINT schema_history_version_key_uk UNIQUE (version_key)
             );
             """;
 
 
-    public static final String SELECT_FROM_SCHEMA_HISTORY = "SELECT version, description, checksum, installed_on FROM " + SCHEMA_HISTORY_TABLE;
+    public static final String SELECT_FROM_SCHEMA_HISTORY = "SELECT * FROM " + SCHEMA_HISTORY_TABLE;
+    public static final String SELECT_SCHEMA_HISTORY_ABOVE_KEY = SELECT_FROM_SCHEMA_HISTORY
+            + " WHERE version_key > ? ORDER BY version_key DESC";
+    public static final String SELECT_SCHEMA_HISTORY_WITHOUT_KEY = SELECT_FROM_SCHEMA_HISTORY + " WHERE version_key IS NULL";
+    public static final String SELECT_SCHEMA_HISTORY_UP_TO_KEY = SELECT_FROM_SCHEMA_HISTORY + " WHERE version_key <= ?";
+    public static final String SELECT_ANY_SCHEMA_HISTORY = "SELECT 1 FROM " + SCHEMA_HISTORY_TABLE;
+    public static final String SELECT_APPLIED_KEYS_FROM = "SELECT version_key, checksum, checksum64, checksum_algorithm, migration_type"
+            + " FROM " + SCHEMA_HISTORY_TABLE + " WHERE version_key >= ? ORDER BY version_key";
+    public static final String SELECT_APPLIED_WITHOUT_KEY = "SELECT version, checksum, checksum64, checksum_algorithm FROM " + SCHEMA_HISTORY_TABLE
+            + " WHERE version_key IS NULL";
     public static final String INSERT_SCHEMA_HISTORY = "INSERT INTO " + Constants.SCHEMA_HISTORY_TABLE +
-            " (version, description, checksum) VALUES (?, ?, ?)";
+            " (version, description, checksum, version_key, checksum64, checksum_algorithm, migration_type) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    public static final String SELECT_CHECKSUMS_TO_UPGRADE = "SELECT version, checksum, checksum64, checksum_algorithm FROM "
+            + SCHEMA_HISTORY_TABLE + " WHERE (checksum_algorithm IS NULL OR checksum_algorithm <> ?)"
+            + " AND (migration_type IS NULL OR migration_type <> '" + MIGRATION_TYPE_BASELINE + "')";
+    public static final String UPDATE_CHECKSUM = "UPDATE " + SCHEMA_HISTORY_TABLE
+            + " SET checksum = COALESCE(?, checksum), checksum64 = ?, checksum_algorithm = ? WHERE version = ?";
     public static final String DELETE_FROM_SCHEMA_HISTORY = "DELETE FROM " + Constants.SCHEMA_HISTORY_TABLE + " WHERE version=?";
-    public static final String SELECT_SCHEMA_HISTORY_FOR_UPDATE = "SELECT * FROM " + Constants.SCHEMA_HISTORY_TABLE + " FOR UPDATE";
+
+    // schema history upgrade
+    public static final String VERSION_KEY_COLUMN = "version_key";
+    public static final String ADD_VERSION_KEY_COLUMN = "ALTER TABLE " + SCHEMA_HISTORY_TABLE + " ADD COLUMN version_key BIGINT";
+    public static final String SELECT_VERSIONS_WITHOUT_KEY = "SELECT installed_rank, version FROM " + SCHEMA_HISTORY_TABLE
+            + " WHERE version_key IS NULL";
+    public static final String UPDATE_VERSION_KEY = "UPDATE " + SCHEMA_HISTORY_TABLE + " SET version_key = ? WHERE installed_rank = ?";
+    public static final String ADD_VERSION_KEY_CONSTRAINT = "ALTER TABLE " + SCHEMA_HISTORY_TABLE
+            + " ADD CONSTRAINT schema_history_version_key_uk UNIQUE (version_key)";
+    public static final String CHECKSUM64_COLUMN = "checksum64";
+    public static final String CHECKSUM_ALGORITHM_COLUMN = "checksum_algorithm";
+    public static final String MIGRATION_TYPE_COLUMN = "migration_type";
+    public static final String ADD_CHECKSUM64_COLUMN = "ALTER TABLE " + SCHEMA_HISTORY_TABLE + " ADD COLUMN checksum64 BIGINT";
+    public static final String ADD_CHECKSUM_ALGORITHM_COLUMN = "ALTER TABLE " + SCHEMA_HISTORY_TABLE
+            + " ADD COLUMN checksum_algorithm VARCHAR(16)";
+    public static final String ADD_MIGRATION_TYPE_COLUMN = "ALTER TABLE " + SCHEMA_HISTORY_TABLE + " ADD COLUMN migration_type VARCHAR(16)";
+
+    public static final String SELECT_INDEX_VALIDITY_PG = "SELECT i.indisvalid FROM pg_index i WHERE i.indexrelid = to_regclass(?)";
+    public static final String DROP_INDEX_CONCURRENTLY_PG = "DROP INDEX CONCURRENTLY IF EXISTS ";
+
+    // backfill checkpoints, the same on every database
+    public static final String CREATE_BACKFILL_PROGRESS_TABLE = "CREATE TABLE IF NOT EXISTS " + BACKFILL_PROGRESS_TABLE + " ("
+            + " version VARCHAR(15) PRIMARY KEY, checksum BIGINT NOT NULL, next_key BIGINT NOT NULL, max_key BIGINT NOT NULL,"
+            + " chunk_size BIGINT NOT NULL, rows_updated BIGINT NOT NULL, updated_on TIMESTAMP DEFAULT CURRENT_TIMESTAMP)";
+    public static final String SELECT_BACKFILL_PROGRESS = "SELECT checksum, next_key, max_key, chunk_size, rows_updated FROM "
+            + BACKFILL_PROGRESS_TABLE + " WHERE version = ?";
+    public static final String INSERT_BACKFILL_PROGRESS = "INSERT INTO " + BACKFILL_PROGRESS_TABLE
+            + " (version, checksum, next_key, max_key, chunk_size, rows_updated) VALUES (?, ?, ?, ?, ?, 0)";
+    public static final String UPDATE_BACKFILL_PROGRESS = "UPDATE " + BACKFILL_PROGRESS_TABLE
+            + " SET next_key = ?, chunk_size = ?, rows_updated = ?, updated_on = CURRENT_TIMESTAMP WHERE version = ?";
+    public static final String DELETE_BACKFILL_PROGRESS = "DELETE FROM " + BACKFILL_PROGRESS_TABLE + " WHERE version = ?";
+
+    // locks
+    public static final String TRY_ADVISORY_LOCK_PG = "SELECT pg_try_advisory_lock(?, hashtext(current_schema()))";
+    public static final String ADVISORY_UNLOCK_PG = "SELECT pg_advisory_unlock(?, hashtext(current_schema()))";
+    public static final String GET_LOCK_MYSQL = "SELECT GET_LOCK(CONCAT(COALESCE(DATABASE(), ''), '.', ?), 0)";
+    public static final String RELEASE_LOCK_MYSQL = "SELECT RELEASE_LOCK(CONCAT(COALESCE(DATABASE(), ''), '.', ?))";
+    public static final String CREATE_SCHEMA_LOCK_TABLE_H2 = "CREATE TABLE IF NOT EXISTS " + SCHEMA_LOCK_TABLE + " (id INT PRIMARY KEY)";
+    public static final String INSERT_SCHEMA_LOCK_ROW_H2 = "INSERT INTO " + SCHEMA_LOCK_TABLE + " SELECT 1 WHERE NOT EXISTS"
+            + " (SELECT 1 FROM " + SCHEMA_LOCK_TABLE + " WHERE id = 1)";
+    public static final String SET_LOCK_TIMEOUT_H2 = "SET LOCK_TIMEOUT 10";
+    public static final String SELECT_LOCK_TIMEOUT_H2 = "SELECT SETTING_VALUE FROM INFORMATION_SCHEMA.SETTINGS"
+            + " WHERE SETTING_NAME = 'LOCK_TIMEOUT'";
+    /**
+     * The lock timeout of a new H2 session, restored if the previous timeout of a lock connection is unknown.
+     */
+    public static final int DEFAULT_LOCK_TIMEOUT_H2 = 1000;
+
+    public static final String EXPLAIN_JSON_PG = "EXPLAIN (FORMAT JSON) ";
+    public static final String EXPLAIN_MYSQL = "EXPLAIN ";
+    public static final String SELECT_HELD_LOCKS_PG = "SELECT l.relation::regclass::text || ' ' || l.mode FROM pg_locks l"
+            + " WHERE l.pid = pg_backend_pid() AND l.granted AND l.locktype = 'relation' AND l.relation <> 'pg_locks'::regclass";
+    public static final String SELECT_HELD_LOCKS_MYSQL = "SELECT DISTINCT CONCAT(OBJECT_SCHEMA, '.', OBJECT_NAME, ' ', LOCK_TYPE, ' ',"
+            + " LOCK_MODE) FROM performance_schema.data_locks WHERE THREAD_ID = PS_CURRENT_THREAD_ID()";
+    public static final String SELECT_HELD_LOCKS_H2 = "SELECT TABLE_SCHEMA || '.' || TABLE_NAME || ' ' || LOCK_TYPE"
+            + " FROM INFORMATION_SCHEMA.LOCKS WHERE SESSION_ID = SESSION_ID()";
+    public static final String SELECT_SCHEMA_LOCK_ROW_H2 = "SELECT id FROM " + SCHEMA_LOCK_TABLE + " WHERE id = 1 FOR UPDATE";
 }
@@ -1,8 +1,9 @@
 package eu.innowise.utils;
 
+import eu.innowise.checksum.ChecksumAlgorithm;
 import eu.innowise.exceptions.ChecksumCalculationException;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.codec.binary.Hex;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -10,6 +11,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.Checksum;
 
 /**
  * Utility class for migration-related operations, such as calculating checksums and extracting version and description from filenames.
@@ -19,29 +21,60 @@ public final class MigrationUtils {
 
     private static final int GROUP_VERSION_NUMBER = 1;
     private static final int GROUP_DESCRIPTION_NUMBER = 2;
+    private static final int CHECKSUM_BUFFER_SIZE = 64 * 1024;
+    private static final Pattern MIGRATION_FILE = Pattern.compile(Constants.MIGRATION_FILE_PATTERN);
 
     private MigrationUtils() {
     }
 
     /**
-     * Calculates the checksum (MD5 hash) of a file and returns it as an integer.
-     * This method reads the file and computes the MD5 hash, which is then converted to a hash code.
+     * Calculates the checksum of a file with the algorithm configured by {@code migration.checksum.algorithm}.
      *
      * @param file The file for which to calculate the checksum.
-     * @return The checksum of the file as an integer.
+     * @return The checksum of the file.
      * @throws ChecksumCalculationException If an error occurs while calculating the checksum.
      */
-    public static int calculateChecksum(Path file) {
+    public static long calculateChecksum(Path file) {
+        return calculateChecksum(file, ChecksumAlgorithm.configured());
+    }
+
+    /**
+     * Calculates the checksum of a file with the given algorithm.
+     * Used to validate schema history rows written with another algorithm than the configured one.
+     *
+     * @param file      The file for which to calculate the checksum.
+     * @param algorithm The checksum algorithm.
+     * @return The checksum of the file.
+     * @throws ChecksumCalculationException If an error occurs while calculating the checksum.
+     */
+    public static long calculateChecksum(Path file, ChecksumAlgorithm algorithm) {
+        Checksum checksum = algorithm.newChecksum();
         try (InputStream inputStream = Files.newInputStream(file)) {
-            String md5Hex = DigestUtils.md5Hex(inputStream);
-            log.debug("Calculated checksum for file {}: {}", file.getFileName(), md5Hex);
-            return md5Hex.hashCode();
+            byte[] buffer = new byte[CHECKSUM_BUFFER_SIZE];
+            int length;
+            while ((length = inputStream.read(buffer)) >= 0) {
+                checksum.update(buffer, 0, length);
+            }
+            long value = checksum.getValue();
+            log.debug("Calculated {} checksum for file {}: {}", algorithm, file.getFileName(), value);
+            return value;
         } catch (IOException e) {
             log.error("Failed to calculate checksum for file: {}", file, e);
             throw new ChecksumCalculationException("Failed to calculate checksum for file: " + file, e);
         }
     }
 
+    /**
+     * Converts an MD5 digest to the legacy integer checksum, see {@link ChecksumAlgorithm#MD5}.
+     * The digest is hex-encoded and the hash code of the resulting string is used.
+     *
+     * @param md5 The MD5 digest.
+     * @return The checksum as an integer.
+     */
+    public static int toChecksum(byte[] md5) {
+        return Hex.encodeHexString(md5).hashCode();
+    }
+
     /**
      * Extracts the version from a migration filename based on a predefined naming pattern.
      * The version is extracted from the filename using a regular expression.
@@ -67,8 +100,7 @@ public final class MigrationUtils {
     }
 
     private static String extractFromFilename(String filename, int groupNumber) {
-        Pattern pattern = Pattern.compile(Constants.MIGRATION_FILE_PATTERN);
-        Matcher matcher = pattern.matcher(filename);
+        Matcher matcher = MIGRATION_FILE.matcher(filename);
         if (matcher.matches()) {
             return matcher.group(groupNumber).replace("_", ".");
         }
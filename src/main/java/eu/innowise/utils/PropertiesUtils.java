@@ -5,7 +5,9 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Map;
 import java.util.Properties;
+import java.util.TreeMap;
 
 /**
  * Utility class for loading and accessing properties from the 'application.properties' file.
@@ -45,4 +47,55 @@ public final class PropertiesUtils {
         }
         return value;
     }
+
+    /**
+     * Retrieves the value of the specified property key as an integer.
+     *
+     * @param key          The property key to look up.
+     * @param defaultValue The value returned when the key is not found.
+     * @return The value of the property, or {@code defaultValue} if the key is not found.
+     * @throws PropertiesLoadingException If the value is not a valid integer.
+     */
+    public static int getIntProperty(String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new PropertiesLoadingException("Property '" + key + "' must be an integer: " + value, e);
+        }
+    }
+
+    /**
+     * Retrieves the value of the specified property key as a boolean.
+     *
+     * @param key          The property key to look up.
+     * @param defaultValue The value returned when the key is not found.
+     * @return The value of the property, or {@code defaultValue} if the key is not found.
+     */
+    public static boolean getBooleanProperty(String key, boolean defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        return Boolean.parseBoolean(value.trim());
+    }
+
+    /**
+     * Retrieves all properties whose keys start with the specified prefix.
+     *
+     * @param prefix The key prefix, for example {@code "db.property."}.
+     * @return The matching properties keyed by the rest of the key after the prefix, sorted by key.
+     */
+    public static Map<String, String> getPropertiesWithPrefix(String prefix) {
+        Map<String, String> result = new TreeMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(prefix) && key.length() > prefix.length()) {
+                result.put(key.substring(prefix.length()), properties.getProperty(key).trim());
+            }
+        }
+        return result;
+    }
 }
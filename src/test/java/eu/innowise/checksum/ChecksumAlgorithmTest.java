@@ -0,0 +1,87 @@
+package eu.innowise.checksum;
+
+import eu.innowise.exceptions.PropertiesLoadingException;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.Checksum;
+
+class ChecksumAlgorithmTest {
+
+    @Test
+    void xxh64_shouldMatchReferenceValues() {
+        // when & then
+        Assertions.assertEquals(0xEF46DB3751D8E999L, checksum(ChecksumAlgorithm.XXH64, ""));
+        Assertions.assertEquals(0xD24EC4F1A98C6E5BL, checksum(ChecksumAlgorithm.XXH64, "a"));
+        Assertions.assertEquals(0x44BC2CF5AD770999L, checksum(ChecksumAlgorithm.XXH64, "abc"));
+        Assertions.assertEquals(0xFBCEA83C8A378BF1L,
+                checksum(ChecksumAlgorithm.XXH64, "Nobody inspects the spammish repetition"));
+    }
+
+    @Test
+    void xxh64_shouldNotDependOnHowTheInputIsSplit() {
+        // given
+        byte[] content = new byte[1000];
+        new Random(42).nextBytes(content);
+        Checksum whole = ChecksumAlgorithm.XXH64.newChecksum();
+        whole.update(content, 0, content.length);
+
+        // when
+        Checksum parts = ChecksumAlgorithm.XXH64.newChecksum();
+        int offset = 0;
+        for (int length = 1; offset < content.length; length = length * 3 % 61 + 1) {
+            int n = Math.min(length, content.length - offset);
+            parts.update(content, offset, n);
+            offset += n;
+            parts.getValue();
+        }
+
+        // then
+        Assertions.assertEquals(whole.getValue(), parts.getValue());
+    }
+
+    @Test
+    void crc32c_shouldMatchReferenceValue() {
+        // when & then
+        Assertions.assertEquals(0xE3069283L, checksum(ChecksumAlgorithm.CRC32C, "123456789"));
+    }
+
+    @Test
+    void md5_shouldMatchTheLegacyChecksum() {
+        // given
+        String content = "CREATE TABLE users (id INT PRIMARY KEY);";
+        int legacy = Hex.encodeHexString(DigestUtils.md5(content.getBytes(StandardCharsets.UTF_8))).hashCode();
+
+        // when
+        long checksum = checksum(ChecksumAlgorithm.MD5, content);
+
+        // then
+        Assertions.assertEquals(legacy, checksum);
+    }
+
+    @Test
+    void fromColumn_shouldReadMissingAlgorithmAsMd5() {
+        // when & then
+        Assertions.assertEquals(ChecksumAlgorithm.MD5, ChecksumAlgorithm.fromColumn(null));
+        Assertions.assertEquals(ChecksumAlgorithm.XXH64, ChecksumAlgorithm.fromColumn("XXH64"));
+    }
+
+    @Test
+    void fromProperty_shouldThrowPropertiesLoadingException_whenAlgorithmIsUnknown() {
+        // when & then
+        Assertions.assertEquals(ChecksumAlgorithm.CRC32C, ChecksumAlgorithm.fromProperty(" crc32c ", ChecksumAlgorithm.XXH64));
+        Assertions.assertThrows(PropertiesLoadingException.class,
+                () -> ChecksumAlgorithm.fromProperty("sha1", ChecksumAlgorithm.XXH64));
+    }
+
+    private static long checksum(ChecksumAlgorithm algorithm, String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        Checksum checksum = algorithm.newChecksum();
+        checksum.update(bytes, 0, bytes.length);
+        return checksum.getValue();
+    }
+}
@@ -0,0 +1,208 @@
+package eu.innowise.db;
+
+import eu.innowise.checksum.ChecksumAlgorithm;
+import eu.innowise.db.impl.H2MigrationStrategy;
+import eu.innowise.migration.MigrationManager;
+import eu.innowise.model.AppliedMigration;
+import eu.innowise.model.Migration;
+import eu.innowise.model.Version;
+import eu.innowise.parser.IndexedSqlScript;
+import eu.innowise.parser.SqlDialect;
+import eu.innowise.parser.SqlFileIndexer;
+import eu.innowise.utils.MigrationUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+class SchemaHistoryTableTest {
+
+    private static final String LEGACY_SCHEMA_TABLE = """
+            CREATE TABLE schema_history (
+                installed_rank INT IDENTITY PRIMARY KEY,
+                version VARCHAR(15) NOT NULL,
+                description VARCHAR(200) NOT NULL,
+                checksum INT,
+                installed_on TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+            )
+            """;
+
+    private final MigrationTarget target = MigrationTarget.ofUrl("history",
+            "jdbc:h2:mem:schema_history_test;DB_CLOSE_DELAY=-1", "sa", "");
+    private final H2MigrationStrategy strategy = new H2MigrationStrategy();
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws SQLException, IOException {
+        directory = Files.createTempDirectory("schema-history");
+        try (Connection connection = target.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(LEGACY_SCHEMA_TABLE);
+            statement.execute("INSERT INTO schema_history (version, description, checksum) VALUES "
+                    + "('1', 'First', 1), ('1.1', 'Second', 11), ('2', 'Third', 2), ('4', 'Fifth', 4)");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException, IOException {
+        execute("DROP ALL OBJECTS");
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    void ensureMetadataTableExists_shouldAddAndFillVersionKeysOfLegacyTable() throws SQLException {
+        // when
+        ensureMetadataTable();
+        ensureMetadataTable();
+
+        // then
+        try (Connection connection = target.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT version, version_key FROM schema_history ORDER BY installed_rank")) {
+            while (rs.next()) {
+                Assertions.assertEquals(Version.parse(rs.getString(1)).key(), rs.getLong(2));
+            }
+        }
+        Assertions.assertThrows(SQLException.class, () -> {
+            try (Connection connection = target.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.execute("INSERT INTO schema_history (version, description, checksum, version_key) VALUES "
+                        + "('2', 'Duplicate', 0, " + Version.parse("2").key() + ")");
+            }
+        });
+    }
+
+    @Test
+    void filterPending_shouldReturnGapsAndMigrationsAboveTheWatermark() throws SQLException {
+        // given
+        ensureMetadataTable();
+        execute("UPDATE schema_history SET checksum64 = checksum, checksum_algorithm = '"
+                + ChecksumAlgorithm.configured().name() + "'");
+        MigrationManager manager = new MigrationManager(null, target);
+        List<Migration> migrations = List.of(migration("4", 4), migration("3", 3), migration("1", 1),
+                migration("5", 5), migration("1.1", 11), migration("2", 2));
+
+        // when
+        List<Migration> pending = manager.filterPending(migrations);
+
+        // then
+        Assertions.assertEquals(List.of("3", "5"), pending.stream().map(Migration::getVersion).toList());
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> manager.filterPending(List.of(migration("1.1", 12))));
+    }
+
+    @Test
+    void getAppliedMigrationsAbove_shouldSelectTheRangeNewestFirst() {
+        // given
+        ensureMetadataTable();
+        MigrationManager manager = new MigrationManager(null, target);
+
+        // when
+        List<AppliedMigration> above = manager.getAppliedMigrationsAbove(Version.parse("1"));
+
+        // then
+        Assertions.assertEquals(List.of("4", "2", "1.1"), above.stream().map(AppliedMigration::getVersion).toList());
+        Assertions.assertTrue(manager.getAppliedMigrationsAbove(Version.parse("4")).isEmpty());
+    }
+
+    @Test
+    void upgradeChecksums_shouldValidateLegacyChecksumsAgainstTheFileAndRewriteThem() throws IOException, SQLException {
+        // given
+        Migration migration = migrationFile("3", "CREATE TABLE legacy (id INT);");
+        Path file = ((IndexedSqlScript) migration.getScript()).getFile();
+        int legacyChecksum = (int) MigrationUtils.calculateChecksum(file, ChecksumAlgorithm.MD5);
+        execute("INSERT INTO schema_history (version, description, checksum) VALUES ('3', 'Legacy', " + legacyChecksum + ")");
+        ensureMetadataTable();
+        MigrationManager manager = new MigrationManager(null, target);
+
+        // when
+        List<Migration> pending = manager.filterPending(List.of(migration));
+        int upgraded = manager.upgradeChecksums(List.of(migration));
+
+        // then
+        Assertions.assertTrue(pending.isEmpty());
+        Assertions.assertEquals(1, upgraded);
+        try (Connection connection = target.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(
+                     "SELECT checksum, checksum64, checksum_algorithm FROM schema_history WHERE version = '3'")) {
+            Assertions.assertTrue(rs.next());
+            Assertions.assertEquals(legacyChecksum, rs.getInt(1));
+            Assertions.assertEquals(migration.getChecksum(), rs.getLong(2));
+            Assertions.assertEquals(ChecksumAlgorithm.configured().name(), rs.getString(3));
+        }
+        Assertions.assertTrue(manager.filterPending(List.of(migration)).isEmpty());
+        Assertions.assertEquals(0, manager.upgradeChecksums(List.of(migration)));
+    }
+
+    @Test
+    void filterPending_shouldThrowIllegalStateException_whenLegacyChecksumDoesNotMatchTheFile() throws IOException {
+        // given
+        ensureMetadataTable();
+        MigrationManager manager = new MigrationManager(null, target);
+        Migration modified = migrationFile("2", "CREATE TABLE third (id INT);");
+
+        // when & then
+        Assertions.assertThrows(IllegalStateException.class, () -> manager.filterPending(List.of(modified)));
+        Assertions.assertEquals(0, manager.upgradeChecksums(List.of(modified)));
+    }
+
+    @Test
+    void filterPending_shouldTreatMigrationsUpToTheBaselineAsApplied() throws SQLException {
+        // given
+        ensureMetadataTable();
+        execute("UPDATE schema_history SET checksum64 = checksum, checksum_algorithm = '"
+                + ChecksumAlgorithm.configured().name() + "'");
+        execute("INSERT INTO schema_history (version, description, checksum64, checksum_algorithm, version_key, migration_type)"
+                + " VALUES ('5', '<< Baseline >>', 0, '" + ChecksumAlgorithm.configured().name() + "', 5, 'BASELINE')");
+        MigrationManager manager = new MigrationManager(null, target);
+
+        // when
+        List<Migration> pending = manager.filterPending(List.of(migration("3", 3), migration("5", 5), migration("6", 6)));
+
+        // then
+        Assertions.assertEquals(List.of("6"), pending.stream().map(Migration::getVersion).toList());
+        Assertions.assertTrue(manager.getAppliedMigrations().stream()
+                .anyMatch(migration -> migration.getVersion().equals("5") && migration.isBaseline()));
+    }
+
+    private Migration migrationFile(String version, String content) throws IOException {
+        Path file = Files.writeString(directory.resolve("V" + version + "__Test.sql"), content);
+        IndexedSqlScript script = new SqlFileIndexer(SqlDialect.H2, Long.MAX_VALUE).index(file);
+        return new Migration(version, "Test", script.getChecksum(), script);
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Connection connection = target.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private void ensureMetadataTable() {
+        try (Connection connection = target.getConnection()) {
+            strategy.ensureMetadataTableExists(connection);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Migration migration(String version, int checksum) {
+        return new Migration(version, "Migration " + version, checksum, List.of("SELECT 1"));
+    }
+}
@@ -0,0 +1,108 @@
+package eu.innowise.db;
+
+import eu.innowise.exceptions.SchemaLockException;
+import eu.innowise.parser.SqlDialect;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+
+class SchemaLockTest {
+
+    private boolean connectionClosed;
+
+    private final Connection connection = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                if (method.getName().equals("close")) {
+                    connectionClosed = true;
+                }
+                return null;
+            });
+
+    private static class FakeStrategy implements MigrationStrategy {
+
+        private final int failedAttempts;
+        private int attempts;
+        private boolean locked;
+
+        FakeStrategy(int failedAttempts) {
+            this.failedAttempts = failedAttempts;
+        }
+
+        @Override
+        public void ensureMetadataTableExists(Connection connection) {
+        }
+
+        @Override
+        public SqlDialect getSqlDialect() {
+            return SqlDialect.H2;
+        }
+
+        @Override
+        public Map<String, String> getBatchDriverProperties() {
+            return Map.of();
+        }
+
+        @Override
+        public boolean supportsTransactionalDdl() {
+            return false;
+        }
+
+        @Override
+        public boolean tryLock(Connection connection) {
+            locked = ++attempts > failedAttempts;
+            return locked;
+        }
+
+        @Override
+        public void unlock(Connection connection) throws SQLException {
+            if (!locked) {
+                throw new SQLException("Lock is not held");
+            }
+            locked = false;
+        }
+    }
+
+    @Test
+    void acquire_shouldRetryUntilLockIsFree() {
+        // given
+        FakeStrategy strategy = new FakeStrategy(3);
+
+        // when
+        SchemaLock lock = SchemaLock.acquire(strategy, connection, Duration.ofSeconds(5), Duration.ofMillis(1), Duration.ofMillis(4));
+
+        // then
+        Assertions.assertEquals(4, lock.getAttempts());
+        Assertions.assertTrue(strategy.locked);
+        Assertions.assertFalse(lock.getWaitTime().isNegative());
+    }
+
+    @Test
+    void acquire_shouldThrowAndCloseConnection_whenTimeoutExpires() {
+        // given
+        FakeStrategy strategy = new FakeStrategy(Integer.MAX_VALUE);
+
+        // when & then
+        Assertions.assertThrows(SchemaLockException.class,
+                () -> SchemaLock.acquire(strategy, connection, Duration.ofMillis(30), Duration.ofMillis(5), Duration.ofMillis(10)));
+        Assertions.assertTrue(connectionClosed);
+    }
+
+    @Test
+    void close_shouldReleaseLockAndCloseConnection() {
+        // given
+        FakeStrategy strategy = new FakeStrategy(0);
+        SchemaLock lock = SchemaLock.acquire(strategy, connection, Duration.ofSeconds(1), Duration.ofMillis(1), Duration.ofMillis(1));
+
+        // when
+        lock.close();
+
+        // then
+        Assertions.assertFalse(strategy.locked);
+        Assertions.assertTrue(connectionClosed);
+    }
+}
@@ -0,0 +1,96 @@
+package eu.innowise.db.impl;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import eu.innowise.utils.Constants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+class H2MigrationStrategyTest {
+
+    private static final String URL = "jdbc:h2:mem:h2_strategy_test;DB_CLOSE_DELAY=-1";
+
+    private final H2MigrationStrategy strategy = new H2MigrationStrategy();
+    private HikariDataSource pool;
+
+    @BeforeEach
+    void setUp() {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(URL);
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setMaximumPoolSize(1);
+        pool = new HikariDataSource(config);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        try (Connection connection = pool.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        pool.close();
+    }
+
+    @Test
+    void unlock_shouldRestoreLockTimeoutOfPooledConnection() throws SQLException {
+        // given
+        try (Connection connection = pool.getConnection()) {
+            execute(connection, "SET LOCK_TIMEOUT 2500");
+        }
+
+        // when
+        try (Connection connection = pool.getConnection()) {
+            Assertions.assertTrue(strategy.tryLock(connection));
+            strategy.unlock(connection);
+        }
+
+        // then
+        try (Connection connection = pool.getConnection()) {
+            Assertions.assertEquals(2500, lockTimeout(connection));
+        }
+    }
+
+    @Test
+    void tryLock_shouldFailAttemptAndRestoreLockTimeout_whenLockIsHeldElsewhere() throws SQLException {
+        // given
+        try (Connection holder = DriverManager.getConnection(URL, "sa", "")) {
+            Assertions.assertTrue(strategy.tryLock(holder));
+
+            // when
+            try (Connection connection = pool.getConnection()) {
+                Assertions.assertFalse(strategy.tryLock(connection));
+            }
+            strategy.unlock(holder);
+        }
+
+        // then
+        try (Connection connection = pool.getConnection()) {
+            Assertions.assertEquals(Constants.DEFAULT_LOCK_TIMEOUT_H2, lockTimeout(connection));
+            Assertions.assertTrue(strategy.tryLock(connection));
+            strategy.unlock(connection);
+        }
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static int lockTimeout(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(Constants.SELECT_LOCK_TIMEOUT_H2)) {
+            Assertions.assertTrue(rs.next());
+            return rs.getInt(1);
+        }
+    }
+}
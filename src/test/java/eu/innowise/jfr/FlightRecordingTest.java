@@ -0,0 +1,41 @@
+package eu.innowise.jfr;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+class FlightRecordingTest {
+
+    @Test
+    void close_shouldDumpMigrationEvents() throws IOException {
+        // given
+        Path file = Files.createTempFile("migration", ".jfr");
+        FlightRecording recording = FlightRecording.start(file);
+
+        // when
+        StatementEvent event = new StatementEvent();
+        event.begin();
+        event.version = "1.2";
+        event.index = 3;
+        event.bytes = 42;
+        event.rows = 7;
+        event.commit();
+        recording.close();
+
+        // then
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(recorded -> recorded.getEventType().getName().equals("eu.innowise.migration.Statement"))
+                .toList();
+        Assertions.assertEquals(1, events.size());
+        Assertions.assertEquals("1.2", events.get(0).getString("version"));
+        Assertions.assertEquals(3, events.get(0).getInt("index"));
+        Assertions.assertEquals(7L, events.get(0).getLong("rows"));
+        Files.deleteIfExists(file);
+    }
+}
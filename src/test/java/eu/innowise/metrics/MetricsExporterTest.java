@@ -0,0 +1,60 @@
+package eu.innowise.metrics;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+class MetricsExporterTest {
+
+    @Test
+    void snapshot_shouldAggregateRecordedValues() {
+        // given
+        MetricsRegistry registry = new MetricsRegistry();
+
+        // when
+        registry.recordStatement(1_000_000L, 3);
+        registry.recordStatement(3_000_000L, 0);
+        registry.recordBatch(2_000_000L, 10, 10);
+        registry.recordMigration("1.1", 5_000_000L, true);
+        registry.recordMigration("1.2", 1_000_000L, false);
+        MetricsSnapshot snapshot = registry.snapshot();
+
+        // then
+        TimerSnapshot statement = snapshot.timers().get("statement");
+        Assertions.assertEquals(2, statement.count());
+        Assertions.assertEquals(0.004, statement.totalSeconds(), 1e-9);
+        Assertions.assertEquals(0.003, statement.maxSeconds(), 1e-9);
+        Assertions.assertEquals(13L, (long) snapshot.counters().get("rows_affected"));
+        Assertions.assertEquals(1L, (long) snapshot.counters().get("migration_failures"));
+        Assertions.assertEquals(Map.of("1.1", 0.005, "1.2", 0.001), snapshot.migrations());
+        Assertions.assertTrue(snapshot.pool().isEmpty());
+    }
+
+    @Test
+    void toPrometheusText_shouldWriteSummariesCountersAndLabels() {
+        // given
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.recordLockWait(250_000_000L, 2);
+        registry.recordMigration("2", 1_000_000_000L, true);
+        registry.registerPoolGauges(() -> Map.of("active_connections", 3));
+
+        // when
+        String text = MetricsExporter.toPrometheusText(registry.snapshot());
+
+        // then
+        Assertions.assertTrue(text.contains("# TYPE migration_lock_wait_seconds summary\n"));
+        Assertions.assertTrue(text.contains("migration_lock_wait_seconds_count 1\n"));
+        Assertions.assertTrue(text.contains("migration_lock_wait_seconds_sum 0.250000000\n"));
+        Assertions.assertTrue(text.contains("migration_lock_attempts_total 2\n"));
+        Assertions.assertTrue(text.contains("migration_version_duration_seconds{version=\"2\"} 1.000000000\n"));
+        Assertions.assertTrue(text.contains("migration_pool_active_connections 3\n"));
+    }
+
+    @Test
+    void noop_shouldBeDisabled() {
+        // when & then
+        Assertions.assertFalse(MigrationMetrics.NOOP.isEnabled());
+        Assertions.assertTrue(new MetricsRegistry().isEnabled());
+    }
+}
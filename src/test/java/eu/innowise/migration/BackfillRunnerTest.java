@@ -0,0 +1,128 @@
+package eu.innowise.migration;
+
+import eu.innowise.db.MigrationTarget;
+import eu.innowise.exceptions.MigrationException;
+import eu.innowise.model.Migration;
+import eu.innowise.model.MigrationDirectives;
+import eu.innowise.model.SqlScript;
+import eu.innowise.utils.Constants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+class BackfillRunnerTest {
+
+    private final MigrationTarget target = MigrationTarget.ofUrl("backfill",
+            "jdbc:h2:mem:backfill_test;DB_CLOSE_DELAY=-1", "sa", "");
+    private final BackfillRunner runner = new BackfillRunner(target, new BackfillRunner.Settings(3, 100, 0, 0));
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        execute("CREATE TABLE users (id INT PRIMARY KEY, divisor INT, name VARCHAR(50))");
+        execute("INSERT INTO users SELECT x, 1, 'user' FROM SYSTEM_RANGE(1, 10)");
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        execute("DROP ALL OBJECTS");
+    }
+
+    private static Migration backfill(String... statements) {
+        return new Migration("2", "Backfill names", 2, SqlScript.of(List.of(statements)),
+                MigrationDirectives.of(Map.of(MigrationDirectives.BACKFILL, "users.id")));
+    }
+
+    @Test
+    void run_shouldUpdateAllRowsInChunks() throws SQLException {
+        // given
+        Migration migration = backfill("UPDATE users SET name = 'renamed' WHERE id BETWEEN :from AND :to");
+
+        // when
+        BackfillRunner.Result result = runner.run(migration);
+
+        // then
+        Assertions.assertEquals(new BackfillRunner.Result(4, 10), result);
+        Assertions.assertEquals(10, count("SELECT COUNT(*) FROM users WHERE name = 'renamed'"));
+        Assertions.assertEquals(0, count("SELECT COUNT(*) FROM " + Constants.BACKFILL_PROGRESS_TABLE));
+    }
+
+    @Test
+    void run_shouldResumeAfterLastCommittedChunk_whenChunkFailed() throws SQLException {
+        // given
+        execute("UPDATE users SET divisor = 0 WHERE id = 8");
+        Migration migration = backfill("UPDATE users SET name = 'renamed' WHERE id BETWEEN :from AND :to",
+                "UPDATE users SET divisor = 10 / divisor WHERE id BETWEEN :from AND :to");
+
+        // when
+        Assertions.assertThrows(MigrationException.class, () -> runner.run(migration));
+        int committed = count("SELECT COUNT(*) FROM users WHERE name = 'renamed'");
+        int nextKey = count("SELECT next_key FROM " + Constants.BACKFILL_PROGRESS_TABLE + " WHERE version = '2'");
+        execute("UPDATE users SET divisor = 1 WHERE id = 8");
+        BackfillRunner.Result result = runner.run(migration);
+
+        // then
+        Assertions.assertEquals(6, committed);
+        Assertions.assertEquals(7, nextKey);
+        Assertions.assertEquals(new BackfillRunner.Result(2, 20), result);
+        Assertions.assertEquals(10, count("SELECT COUNT(*) FROM users WHERE name = 'renamed'"));
+        Assertions.assertEquals(0, count("SELECT COUNT(*) FROM " + Constants.BACKFILL_PROGRESS_TABLE));
+    }
+
+    @Test
+    void run_shouldThrowMigrationException_whenStatementIsNotLimitedToChunk() {
+        // given
+        Migration migration = backfill("UPDATE users SET name = 'renamed' WHERE id >= :from");
+
+        // when & then
+        Assertions.assertThrows(MigrationException.class, () -> runner.run(migration));
+    }
+
+    @Test
+    void parse_shouldReplacePlaceholdersWithParameters() {
+        // when
+        BackfillRunner.ChunkStatement statement = BackfillRunner.ChunkStatement.parse(
+                "UPDATE users SET name = id::text WHERE id <= :to AND id >= :from");
+
+        // then
+        Assertions.assertEquals("UPDATE users SET name = id::text WHERE id <= ? AND id >= ?", statement.sql());
+        Assertions.assertEquals(List.of(BackfillRunner.TO, BackfillRunner.FROM), statement.parameters());
+    }
+
+    @Test
+    void nextChunkSize_shouldFollowTargetChunkTime_withinLimits() {
+        // given
+        BackfillRunner.Settings settings = new BackfillRunner.Settings(100, 1000, 500, 0);
+
+        // when & then
+        Assertions.assertEquals(200, BackfillRunner.nextChunkSize(100, 250_000_000L, settings));
+        Assertions.assertEquals(50, BackfillRunner.nextChunkSize(100, 5_000_000_000L, settings));
+        Assertions.assertEquals(1000, BackfillRunner.nextChunkSize(800, 1_000_000L, settings));
+        Assertions.assertEquals(1, BackfillRunner.nextChunkSize(1, 5_000_000_000L, settings));
+        Assertions.assertEquals(100, BackfillRunner.nextChunkSize(100, 5_000_000_000L,
+                new BackfillRunner.Settings(100, 1000, 0, 0)));
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Connection connection = target.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private int count(String sql) throws SQLException {
+        try (Connection connection = target.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package eu.innowise.migration;
+
+import eu.innowise.checksum.ChecksumAlgorithm;
+import eu.innowise.exceptions.MigrationFileReadException;
+import eu.innowise.model.Baseline;
+import eu.innowise.model.Migration;
+import eu.innowise.model.Version;
+import eu.innowise.parser.IndexedSqlScript;
+import eu.innowise.parser.SqlDialect;
+import eu.innowise.parser.SqlFileIndexer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+class BaselineFileTest {
+
+    private final SqlFileIndexer indexer = new SqlFileIndexer(SqlDialect.H2, Long.MAX_VALUE);
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("baseline");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private Migration migration(String version, String content) throws IOException {
+        IndexedSqlScript script = indexer.index(Files.writeString(directory.resolve("V" + version + "__Test.sql"), content));
+        return new Migration(version, "Test", script.getChecksum(), script, script.getDirectives());
+    }
+
+    private Baseline baseline(String version, Path file) throws IOException {
+        IndexedSqlScript script = indexer.index(file);
+        return BaselineFile.read(new Migration(version, "Baseline", script.getChecksum(), script, script.getDirectives()));
+    }
+
+    /**
+     * Returns the statements of a script without their comment lines.
+     */
+    private static List<String> statements(Migration migration) {
+        try (Stream<String> statements = migration.getScript().statements()) {
+            return statements
+                    .map(sql -> sql.lines().filter(line -> !line.strip().startsWith("--")).collect(Collectors.joining("\n")))
+                    .map(String::strip)
+                    .toList();
+        }
+    }
+
+    @Test
+    void write_shouldSquashStatementsInVersionOrder_andRecordChecksums() throws IOException {
+        // given
+        Migration first = migration("1", "CREATE TABLE a (id INT); -- first table\nINSERT INTO a VALUES (1);");
+        Migration second = migration("2", "ALTER TABLE a ADD COLUMN name VARCHAR(10);");
+        Path file = directory.resolve("B2__Baseline.sql");
+
+        // when
+        int written = BaselineFile.write(file, List.of(first, second), SqlDialect.H2, ChecksumAlgorithm.XXH64);
+        Baseline baseline = baseline("2", file);
+
+        // then
+        Assertions.assertEquals(3, written);
+        Assertions.assertEquals(List.of("CREATE TABLE a (id INT)", "INSERT INTO a VALUES (1)",
+                "ALTER TABLE a ADD COLUMN name VARCHAR(10)"), statements(baseline));
+        Assertions.assertTrue(baseline.getDirectives().isTransactional());
+        Assertions.assertEquals(new Baseline.SquashedMigration("1", first.getChecksum(), ChecksumAlgorithm.XXH64),
+                baseline.getSquashed().get("1"));
+        Assertions.assertEquals(new Baseline.SquashedMigration("2", second.getChecksum(), ChecksumAlgorithm.XXH64),
+                baseline.getSquashed().get("2"));
+        Assertions.assertFalse(Files.exists(directory.resolve("B2__Baseline.sql.tmp")));
+    }
+
+    @Test
+    void write_shouldDeclareNonTransactional_whenAnySquashedMigrationIs() throws IOException {
+        // given
+        Migration first = migration("1", "CREATE TABLE a (id INT);");
+        Migration second = migration("2", "-- migration:transactional=false\nCREATE INDEX a_id ON a (id);");
+        Path file = directory.resolve("B2__Baseline.sql");
+
+        // when
+        BaselineFile.write(file, List.of(first, second), SqlDialect.H2, ChecksumAlgorithm.XXH64);
+
+        // then
+        Assertions.assertFalse(baseline("2", file).getDirectives().isTransactional());
+    }
+
+    @Test
+    void write_shouldWrapStatementsContainingSemicolons_whenDialectSupportsDelimiter() throws IOException {
+        // given
+        String procedure = "CREATE PROCEDURE p() BEGIN SELECT 1; SELECT 2; END";
+        Migration migration = new Migration("1", "Test", 42, List.of("CREATE TABLE a (id INT)", procedure));
+        Path file = directory.resolve("B1__Baseline.sql");
+
+        // when
+        BaselineFile.write(file, List.of(migration), SqlDialect.MYSQL, ChecksumAlgorithm.XXH64);
+
+        // then
+        IndexedSqlScript script = new SqlFileIndexer(SqlDialect.MYSQL, Long.MAX_VALUE).index(file);
+        Assertions.assertEquals(List.of("CREATE TABLE a (id INT)", procedure), statements(new Migration("1", "Test", 0, script)));
+    }
+
+    @Test
+    void selectSquashed_shouldContinueFromEarlierBaseline() throws IOException {
+        // given
+        List<Migration> migrations = List.of(migration("1", "CREATE TABLE a (id INT);"),
+                migration("2", "CREATE TABLE b (id INT);"), migration("3", "CREATE TABLE c (id INT);"),
+                migration("4", "CREATE TABLE d (id INT);"));
+        Path earlier = directory.resolve("B2__Baseline.sql");
+        BaselineFile.write(earlier, migrations.subList(0, 2), SqlDialect.H2, ChecksumAlgorithm.XXH64);
+        Baseline baseline = baseline("2", earlier);
+
+        // when
+        List<Migration> squashed = MigrationSquasher.selectSquashed(migrations, List.of(baseline), Version.parse("3"));
+        Path file = directory.resolve("B3__Baseline.sql");
+        BaselineFile.write(file, squashed, SqlDialect.H2, ChecksumAlgorithm.XXH64);
+
+        // then
+        Assertions.assertEquals(List.of("2", "3"), squashed.stream().map(Migration::getVersion).toList());
+        Baseline continued = baseline("3", file);
+        Assertions.assertEquals(3, continued.getSquashed().size());
+        Assertions.assertEquals(migrations.get(2).getChecksum(), continued.getSquashed().get("3").checksum());
+        Assertions.assertEquals(List.of("CREATE TABLE a (id INT)", "CREATE TABLE b (id INT)", "CREATE TABLE c (id INT)"),
+                statements(continued));
+    }
+
+    @Test
+    void read_shouldThrowMigrationFileReadException_whenSquashedLineIsMalformed() throws IOException {
+        // given
+        Path file = Files.writeString(directory.resolve("B1__Baseline.sql"),
+                "-- squashed: 1 XXH64\nCREATE TABLE a (id INT);");
+
+        // when & then
+        Assertions.assertThrows(MigrationFileReadException.class, () -> baseline("1", file));
+    }
+}
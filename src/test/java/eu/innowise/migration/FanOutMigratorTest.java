@@ -0,0 +1,210 @@
+package eu.innowise.migration;
+
+import eu.innowise.checksum.ChecksumAlgorithm;
+import eu.innowise.db.MigrationTarget;
+import eu.innowise.db.impl.H2MigrationStrategy;
+import eu.innowise.parser.SqlDialect;
+import eu.innowise.report.FanOutReport;
+import eu.innowise.report.TargetResult;
+import eu.innowise.utils.MigrationUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+class FanOutMigratorTest {
+
+    private final H2MigrationStrategy strategy = new H2MigrationStrategy();
+    private final RecordingDataSource instanceA = new RecordingDataSource("jdbc:h2:mem:fanout_a;DB_CLOSE_DELAY=-1");
+    private final RecordingDataSource instanceB = new RecordingDataSource("jdbc:h2:mem:fanout_b;DB_CLOSE_DELAY=-1");
+    private final MigrationTarget a1 = MigrationTarget.ofSchema("a", instanceA.dataSource, "T1");
+    private final MigrationTarget a2 = MigrationTarget.ofSchema("a", instanceA.dataSource, "T2");
+    private final MigrationTarget a3 = MigrationTarget.ofSchema("a", instanceA.dataSource, "T3");
+    private final MigrationTarget b1 = MigrationTarget.ofSchema("b", instanceB.dataSource, "T1");
+    private Path migrations;
+
+    @BeforeEach
+    void setUp() throws IOException, SQLException {
+        migrations = Files.createTempDirectory("fanout");
+        Files.writeString(migrations.resolve("V1__Create_users.sql"), "CREATE TABLE users (id INT PRIMARY KEY);");
+        for (MigrationTarget target : List.of(a1, a2, a3, b1)) {
+            try (Connection connection = target.getDataSource().getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.execute("CREATE SCHEMA " + target.getSchema());
+            }
+        }
+        instanceA.threads.clear();
+        instanceB.threads.clear();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException, SQLException {
+        for (RecordingDataSource instance : List.of(instanceA, instanceB)) {
+            try (Connection connection = instance.dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.execute("DROP ALL OBJECTS");
+            }
+        }
+        try (Stream<Path> paths = Files.walk(migrations)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    void migrate_shouldSkipLaterWaves_whenCanaryFails() throws SQLException {
+        // given
+        execute(a1, "CREATE TABLE users (id INT PRIMARY KEY)");
+
+        // when
+        FanOutReport report = migrator(new RolloutPlan(1, 2, -1, 2)).migrate(List.of(a1, a2, a3, b1));
+
+        // then
+        Assertions.assertTrue(report.isStopped());
+        Assertions.assertFalse(report.isSuccessful());
+        Assertions.assertEquals(List.of(TargetResult.Status.FAILED, TargetResult.Status.SKIPPED,
+                TargetResult.Status.SKIPPED, TargetResult.Status.SKIPPED), statuses(report));
+        Assertions.assertEquals(List.of("a/T1", "a/T2", "a/T3", "b/T1"),
+                report.getTargets().stream().map(TargetResult::getTarget).toList());
+        Assertions.assertEquals(List.of(), appliedVersions(a1));
+        Assertions.assertFalse(hasSchemaHistory(a2));
+        Assertions.assertFalse(hasSchemaHistory(a3));
+        Assertions.assertFalse(hasSchemaHistory(b1));
+    }
+
+    @Test
+    void migrate_shouldMigrateEachTargetFromItsOwnHistory_andIsolateFailedTarget() throws IOException, SQLException {
+        // given
+        migrator(new RolloutPlan(0, 0, -1, 1)).migrate(List.of(a1));
+        Path v1 = migrations.resolve("V1__Create_users.sql");
+        int legacyChecksum = (int) MigrationUtils.calculateChecksum(v1, ChecksumAlgorithm.MD5);
+        execute(a1, "UPDATE schema_history SET checksum = " + legacyChecksum
+                + ", checksum64 = NULL, checksum_algorithm = NULL WHERE version = '1'");
+        Files.writeString(migrations.resolve("V2__Create_orders.sql"), "CREATE TABLE orders (id INT PRIMARY KEY);");
+        execute(a3, "CREATE TABLE users (id INT PRIMARY KEY)");
+
+        // when
+        FanOutReport report = migrator(new RolloutPlan(0, 0, -1, 2)).migrate(List.of(a1, a2, a3, b1));
+
+        // then
+        Assertions.assertFalse(report.isStopped());
+        Assertions.assertEquals(3, report.getSucceeded());
+        Assertions.assertEquals(1, report.getFailed());
+        Assertions.assertEquals(List.of(TargetResult.Status.SUCCEEDED, TargetResult.Status.SUCCEEDED,
+                TargetResult.Status.FAILED, TargetResult.Status.SUCCEEDED), statuses(report));
+        Assertions.assertEquals(List.of("2"), report.getTargets().get(0).getAppliedVersions());
+        Assertions.assertEquals(List.of("1", "2"), report.getTargets().get(1).getAppliedVersions());
+        Assertions.assertNotNull(report.getTargets().get(2).getError());
+        Assertions.assertEquals(List.of("1", "2"), report.getTargets().get(3).getAppliedVersions());
+
+        Assertions.assertEquals(List.of("1", "2"), appliedVersions(a1));
+        Assertions.assertEquals(List.of("1", "2"), appliedVersions(a2));
+        Assertions.assertEquals(List.of(), appliedVersions(a3));
+        Assertions.assertEquals(List.of("1", "2"), appliedVersions(b1));
+        Assertions.assertEquals(ChecksumAlgorithm.configured().name(), checksumAlgorithm(a1, "1"));
+    }
+
+    @Test
+    void migrate_shouldLimitConcurrentTargetsPerInstance() {
+        // when
+        FanOutReport report = migrator(new RolloutPlan(0, 0, -1, 2)).migrate(List.of(a1, a2, a3, b1));
+
+        // then
+        Assertions.assertTrue(report.isSuccessful());
+        Assertions.assertEquals(Set.of("migration-a-1", "migration-a-2"), instanceA.threads);
+        Assertions.assertEquals(Set.of("migration-b-1"), instanceB.threads);
+    }
+
+    private FanOutMigrator migrator(RolloutPlan plan) {
+        return new FanOutMigrator(new MigrationFileReader(SqlDialect.H2, migrations), strategy, plan);
+    }
+
+    private static List<TargetResult.Status> statuses(FanOutReport report) {
+        return report.getTargets().stream().map(TargetResult::getStatus).toList();
+    }
+
+    private static void execute(MigrationTarget target, String sql) throws SQLException {
+        try (Connection connection = target.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static boolean hasSchemaHistory(MigrationTarget target) throws SQLException {
+        try (Connection connection = target.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES"
+                     + " WHERE TABLE_SCHEMA = ? AND TABLE_NAME = 'SCHEMA_HISTORY'")) {
+            statement.setString(1, target.getSchema());
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getInt(1) > 0;
+            }
+        }
+    }
+
+    private static List<String> appliedVersions(MigrationTarget target) throws SQLException {
+        List<String> versions = new ArrayList<>();
+        try (Connection connection = target.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT version FROM schema_history ORDER BY installed_rank")) {
+            while (rs.next()) {
+                versions.add(rs.getString(1));
+            }
+        }
+        return versions;
+    }
+
+    private static String checksumAlgorithm(MigrationTarget target, String version) throws SQLException {
+        try (Connection connection = target.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT checksum_algorithm FROM schema_history WHERE version = ?")) {
+            statement.setString(1, version);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getString(1);
+            }
+        }
+    }
+
+    /**
+     * An unpooled H2 data source that records the fan-out threads it hands connections to.
+     */
+    private static final class RecordingDataSource {
+
+        private final Set<String> threads = ConcurrentHashMap.newKeySet();
+        private final DataSource dataSource;
+
+        private RecordingDataSource(String url) {
+            dataSource = (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{DataSource.class},
+                    (proxy, method, args) -> {
+                        if (!method.getName().equals("getConnection") || args != null) {
+                            throw new UnsupportedOperationException(method.getName());
+                        }
+                        String thread = Thread.currentThread().getName();
+                        if (thread.startsWith("migration-")) {
+                            threads.add(thread);
+                        }
+                        return DriverManager.getConnection(url, "sa", "");
+                    });
+        }
+    }
+}
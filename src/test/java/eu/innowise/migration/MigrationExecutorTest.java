@@ -0,0 +1,239 @@
+package eu.innowise.migration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.innowise.db.MigrationTarget;
+import eu.innowise.db.impl.H2MigrationStrategy;
+import eu.innowise.exceptions.MigrationException;
+import eu.innowise.parser.SqlDialect;
+import eu.innowise.utils.Constants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+class MigrationExecutorTest {
+
+    private final MigrationTarget target = MigrationTarget.ofUrl("executor",
+            "jdbc:h2:mem:executor_test;DB_CLOSE_DELAY=-1", "sa", "");
+    private final H2MigrationStrategy strategy = new H2MigrationStrategy();
+    private Path migrations;
+    private MigrationFileReader fileReader;
+    private MigrationManager manager;
+    private MigrationExecutor executor;
+
+    @BeforeEach
+    void setUp() throws IOException, SQLException {
+        migrations = Files.createTempDirectory("executor");
+        fileReader = new MigrationFileReader(SqlDialect.H2, migrations);
+        manager = new MigrationManager(fileReader, target);
+        executor = new MigrationExecutor(manager, fileReader, strategy, target);
+        try (Connection connection = target.getConnection()) {
+            strategy.ensureMetadataTableExists(connection);
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws IOException, SQLException {
+        try (Connection connection = target.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        try (Stream<Path> paths = Files.walk(migrations)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    void rollbackMigrationToVersion_shouldThrowMigrationException_whenRollbackFileIsEmpty() throws IOException, SQLException {
+        // given
+        Files.writeString(migrations.resolve("V1__Create_users.sql"), "CREATE TABLE users (id INT PRIMARY KEY);");
+        Files.writeString(migrations.resolve("V2__Create_orders.sql"), "CREATE TABLE orders (id INT PRIMARY KEY);");
+        Files.writeString(migrations.resolve("U1__Create_users.sql"), "");
+        Files.writeString(migrations.resolve("U2__Create_orders.sql"), "DROP TABLE orders;");
+        executor.executeMigrations(manager.filterPending(manager.getAllMigrations()));
+
+        // when & then
+        Assertions.assertThrows(MigrationException.class, () -> executor.rollbackMigrationToVersion("0"));
+        Assertions.assertEquals(2, count("SELECT COUNT(*) FROM schema_history"));
+        Assertions.assertEquals(0, count("SELECT COUNT(*) FROM orders"));
+        Assertions.assertEquals(0, count("SELECT COUNT(*) FROM users"));
+    }
+
+    @Test
+    void executeMigrations_shouldKeepCommittedMigrations_whenLaterMigrationFailsUnderPerMigrationPolicy()
+            throws IOException, SQLException {
+        // given
+        Files.writeString(migrations.resolve("V1__Create_users.sql"), "CREATE TABLE users (id INT PRIMARY KEY);");
+        Files.writeString(migrations.resolve("V2__Create_orders.sql"), "CREATE TABLE orders (id INT PRIMARY KEY);");
+        Files.writeString(migrations.resolve("V3__Fill_missing.sql"), "INSERT INTO missing VALUES (1);");
+        MigrationExecutor perMigration = executor(strategy,
+                new MigrationExecutor.TransactionSettings(TransactionPolicy.PER_MIGRATION, 1, 0, 0));
+
+        // when
+        Assertions.assertThrows(MigrationException.class,
+                () -> perMigration.executeMigrations(manager.filterPending(manager.getAllMigrations())));
+
+        // then
+        Assertions.assertEquals(List.of("1", "2"), appliedVersions());
+        JsonNode report = latestFailureReport();
+        Assertions.assertEquals("PER_MIGRATION", report.get("transactionPolicy").asText());
+        Assertions.assertEquals(List.of("1", "2"), versions(report.get("committed")));
+        Assertions.assertEquals(List.of(), versions(report.get("rolledBack")));
+        Assertions.assertEquals("3", report.get("failed").get("version").asText());
+    }
+
+    @Test
+    void executeMigrations_shouldCommitEarlierMigrationsOfGroup_whenMigrationFailsInSavepoint()
+            throws IOException, SQLException {
+        // given
+        execute("CREATE TABLE users (id INT PRIMARY KEY)");
+        Files.writeString(migrations.resolve("V1__First_user.sql"), "INSERT INTO users VALUES (1);");
+        Files.writeString(migrations.resolve("V2__Second_user.sql"), "INSERT INTO users VALUES (2);");
+        Files.writeString(migrations.resolve("V3__Duplicate_user.sql"),
+                "INSERT INTO users VALUES (3);\nINSERT INTO users VALUES (1);");
+        H2MigrationStrategy transactionalDdl = new H2MigrationStrategy() {
+            @Override
+            public boolean supportsTransactionalDdl() {
+                return true;
+            }
+        };
+        MigrationExecutor everyN = executor(transactionalDdl,
+                new MigrationExecutor.TransactionSettings(TransactionPolicy.EVERY_N, 10, 0, 0));
+
+        // when
+        Assertions.assertThrows(MigrationException.class,
+                () -> everyN.executeMigrations(manager.filterPending(manager.getAllMigrations())));
+
+        // then
+        Assertions.assertEquals(List.of("1", "2"), appliedVersions());
+        Assertions.assertEquals(2, count("SELECT COUNT(*) FROM users"));
+        Assertions.assertEquals(0, count("SELECT COUNT(*) FROM users WHERE id = 3"));
+        JsonNode report = latestFailureReport();
+        Assertions.assertEquals(List.of("1", "2"), versions(report.get("committed")));
+        Assertions.assertEquals("3", report.get("failed").get("version").asText());
+    }
+
+    @Test
+    void executeMigrations_shouldCommitEarlierMigrations_andSkipHistoryRow_whenNonTransactionalStatementFails()
+            throws IOException, SQLException {
+        // given
+        Files.writeString(migrations.resolve("V1__Create_users.sql"), "CREATE TABLE users (id INT PRIMARY KEY);");
+        Files.writeString(migrations.resolve("V2__Fill_users.sql"), """
+                -- migration:transactional=false
+                INSERT INTO users VALUES (1);
+                INSERT INTO missing VALUES (1);
+                """);
+
+        // when
+        Assertions.assertThrows(MigrationException.class,
+                () -> executor.executeMigrations(manager.filterPending(manager.getAllMigrations())));
+
+        // then
+        Assertions.assertEquals(List.of("1"), appliedVersions());
+        // the statement before the failure ran in autocommit mode and stays applied
+        Assertions.assertEquals(1, count("SELECT COUNT(*) FROM users WHERE id = 1"));
+    }
+
+    @Test
+    void executeMigrations_shouldRetryNonTransactionalStatement_afterPreparingIt() throws IOException, SQLException {
+        // given
+        execute("CREATE TABLE users (id INT PRIMARY KEY)");
+        // a row left behind by an interrupted earlier attempt, removed when the statement is prepared again
+        execute("INSERT INTO users VALUES (2)");
+        Files.writeString(migrations.resolve("V1__Fill_users.sql"), """
+                -- migration:transactional=false
+                INSERT INTO users VALUES (1);
+                INSERT INTO users VALUES (2);
+                """);
+        List<String> prepared = new ArrayList<>();
+        H2MigrationStrategy cleaningUp = new H2MigrationStrategy() {
+            @Override
+            public void prepareNonTransactionalStatement(Connection connection, String sql) throws SQLException {
+                if (prepared.contains(sql)) {
+                    try (Statement statement = connection.createStatement()) {
+                        statement.execute("DELETE FROM users WHERE id = 2");
+                    }
+                }
+                prepared.add(sql);
+            }
+        };
+        MigrationExecutor retrying = executor(cleaningUp,
+                new MigrationExecutor.TransactionSettings(TransactionPolicy.ALL, 1, 1, 0));
+
+        // when
+        retrying.executeMigrations(manager.filterPending(manager.getAllMigrations()));
+
+        // then
+        Assertions.assertEquals(List.of("1"), appliedVersions());
+        Assertions.assertEquals(3, prepared.size());
+        Assertions.assertEquals(prepared.get(1), prepared.get(2));
+        Assertions.assertEquals(2, count("SELECT COUNT(*) FROM users"));
+    }
+
+    private MigrationExecutor executor(H2MigrationStrategy executorStrategy,
+                                       MigrationExecutor.TransactionSettings settings) {
+        return new MigrationExecutor(manager, fileReader, executorStrategy, target, settings);
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Connection connection = target.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private List<String> appliedVersions() throws SQLException {
+        List<String> versions = new ArrayList<>();
+        try (Connection connection = target.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT version FROM schema_history ORDER BY installed_rank")) {
+            while (rs.next()) {
+                versions.add(rs.getString(1));
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * Reads the newest failure report of the target, written to the default report folder.
+     */
+    private static JsonNode latestFailureReport() throws IOException {
+        try (Stream<Path> reports = Files.list(Path.of(Constants.DEFAULT_REPORT_PATH))) {
+            Path report = reports
+                    .filter(path -> path.getFileName().toString().startsWith("migration_report_executor_failure_"))
+                    .max(Comparator.comparing(path -> path.toFile().lastModified()))
+                    .orElseThrow();
+            return new ObjectMapper().readTree(report.toFile());
+        }
+    }
+
+    private static List<String> versions(JsonNode migrations) {
+        List<String> versions = new ArrayList<>();
+        migrations.forEach(migration -> versions.add(migration.get("version").asText()));
+        return versions;
+    }
+
+    private int count(String sql) throws SQLException {
+        try (Connection connection = target.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package eu.innowise.migration;
+
+import eu.innowise.exceptions.MigrationFileReadException;
+import eu.innowise.model.Migration;
+import eu.innowise.parser.SqlDialect;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+class MigrationFileReaderTest {
+
+    private final MigrationFileReader reader = new MigrationFileReader(SqlDialect.H2);
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("migrations");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private Path createFile(String name, String content) throws IOException {
+        return Files.writeString(directory.resolve(name), content);
+    }
+
+    @Test
+    void readMigrations_shouldKeepFileOrder() throws IOException {
+        // given
+        List<Path> files = new ArrayList<>();
+        for (int i = 1; i <= 50; i++) {
+            files.add(createFile("V" + i + "__Create_table_" + i + ".sql", "CREATE TABLE t" + i + " (id INT);"));
+        }
+
+        // when
+        List<Migration> migrations = reader.readMigrations(files, MigrationManifestCache.disabled());
+
+        // then
+        Assertions.assertEquals(50, migrations.size());
+        for (int i = 0; i < 50; i++) {
+            Assertions.assertEquals(String.valueOf(i + 1), migrations.get(i).getVersion());
+        }
+    }
+
+    @Test
+    void readMigrations_shouldReportEveryInvalidFile() throws IOException {
+        // given
+        List<Path> files = List.of(
+                createFile("V1__Valid.sql", "CREATE TABLE a (id INT);"),
+                createFile("V2_missing_separator.sql", "CREATE TABLE b (id INT);"),
+                createFile("V3__Valid.sql", "CREATE TABLE c (id INT);"),
+                createFile("Vx__Bad_version.sql", "CREATE TABLE d (id INT);"));
+
+        // when
+        MigrationFileReadException exception = Assertions.assertThrows(MigrationFileReadException.class,
+                () -> reader.readMigrations(files, MigrationManifestCache.disabled()));
+
+        // then
+        Assertions.assertEquals(2, exception.getSuppressed().length);
+        Assertions.assertTrue(exception.getMessage().contains("V2_missing_separator.sql"));
+        Assertions.assertTrue(exception.getMessage().contains("Vx__Bad_version.sql"));
+    }
+
+    @Test
+    void readMigrations_shouldReadHeaderDirectives() throws IOException {
+        // given
+        Path file = createFile("V1__Create_index.sql", """
+                -- migration:transactional=false
+                CREATE INDEX CONCURRENTLY idx_a ON a (id);
+                """);
+
+        // when
+        Migration migration = reader.readMigrations(List.of(file), MigrationManifestCache.disabled()).get(0);
+
+        // then
+        Assertions.assertFalse(migration.getDirectives().isTransactional());
+    }
+}
@@ -0,0 +1,197 @@
+package eu.innowise.migration;
+
+import eu.innowise.checksum.ChecksumAlgorithm;
+import eu.innowise.model.Migration;
+import eu.innowise.parser.IndexedSqlScript;
+import eu.innowise.parser.SqlDialect;
+import eu.innowise.parser.SqlFileIndexer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+class MigrationManifestCacheTest {
+
+    private final SqlFileIndexer indexer = new SqlFileIndexer(SqlDialect.H2, Long.MAX_VALUE);
+    private Path directory;
+    private Path root;
+    private Path manifest;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("manifest");
+        root = Files.createDirectory(directory.resolve("migrations"));
+        manifest = directory.resolve("migrations.manifest.json");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private Path createFile(String name, String content) throws IOException {
+        Path file = Files.writeString(root.resolve(name), content);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+        return file;
+    }
+
+    private void cache(MigrationManifestCache cache, Path file, String version) throws IOException {
+        IndexedSqlScript script = indexer.index(file);
+        cache.put(new Migration(version, "Test", script.getChecksum(), script), script);
+    }
+
+    private static BasicFileAttributes attributes(Path file) throws IOException {
+        return Files.readAttributes(file, BasicFileAttributes.class);
+    }
+
+    @Test
+    void get_shouldReturnCachedMigration_whenFileIsUnchanged() throws IOException {
+        // given
+        Path file = createFile("V1__Test.sql", "CREATE TABLE a (id INT);\nINSERT INTO a VALUES (1);");
+        MigrationManifestCache cache = MigrationManifestCache.load(manifest, root, SqlDialect.H2);
+        cache(cache, file, "1");
+        cache.save("V", List.of(file));
+
+        // when
+        Migration migration = MigrationManifestCache.load(manifest, root, SqlDialect.H2).get(file, attributes(file));
+
+        // then
+        Assertions.assertNotNull(migration);
+        Assertions.assertEquals("1", migration.getVersion());
+        Assertions.assertEquals(indexer.index(file).getChecksum(), migration.getChecksum());
+        try (Stream<String> statements = migration.getScript().statements()) {
+            Assertions.assertEquals(List.of("CREATE TABLE a (id INT)", "INSERT INTO a VALUES (1)"), statements.toList());
+        }
+    }
+
+    @Test
+    void get_shouldReturnNull_whenFileHasChanged() throws IOException {
+        // given
+        Path file = createFile("V1__Test.sql", "CREATE TABLE a (id INT);");
+        MigrationManifestCache cache = MigrationManifestCache.load(manifest, root, SqlDialect.H2);
+        cache(cache, file, "1");
+        cache.save("V", List.of(file));
+        createFile("V1__Test.sql", "CREATE TABLE b (id INT, name VARCHAR(10));");
+
+        // when
+        Migration migration = MigrationManifestCache.load(manifest, root, SqlDialect.H2).get(file, attributes(file));
+
+        // then
+        Assertions.assertNull(migration);
+    }
+
+    @Test
+    void get_shouldNotCacheRecentlyModifiedFile() throws IOException {
+        // given
+        Path file = Files.writeString(root.resolve("V1__Test.sql"), "CREATE TABLE a (id INT);");
+        MigrationManifestCache cache = MigrationManifestCache.load(manifest, root, SqlDialect.H2);
+        cache(cache, file, "1");
+
+        // when
+        Migration migration = cache.get(file, attributes(file));
+
+        // then
+        Assertions.assertNull(migration);
+    }
+
+    @Test
+    void load_shouldStartEmpty_whenManifestIsCorrupt() throws IOException {
+        // given
+        Path file = createFile("V1__Test.sql", "CREATE TABLE a (id INT);");
+        Files.writeString(manifest, "{\"formatVersion\": 1, \"entries\": {");
+
+        // when
+        MigrationManifestCache cache = MigrationManifestCache.load(manifest, root, SqlDialect.H2);
+        cache(cache, file, "1");
+        cache.save("V", List.of(file));
+
+        // then
+        Assertions.assertNotNull(MigrationManifestCache.load(manifest, root, SqlDialect.H2).get(file, attributes(file)));
+    }
+
+    @Test
+    void load_shouldIgnoreManifest_whenDialectDiffers() throws IOException {
+        // given
+        Path file = createFile("V1__Test.sql", "CREATE TABLE a (id INT);");
+        MigrationManifestCache cache = MigrationManifestCache.load(manifest, root, SqlDialect.H2);
+        cache(cache, file, "1");
+        cache.save("V", List.of(file));
+
+        // when
+        Migration migration = MigrationManifestCache.load(manifest, root, SqlDialect.MYSQL).get(file, attributes(file));
+
+        // then
+        Assertions.assertNull(migration);
+    }
+
+    @Test
+    void load_shouldIgnoreManifest_whenChecksumAlgorithmDiffers() throws IOException {
+        // given
+        Path file = createFile("V1__Test.sql", "CREATE TABLE a (id INT);");
+        MigrationManifestCache cache = MigrationManifestCache.load(manifest, root, SqlDialect.H2, ChecksumAlgorithm.MD5);
+        cache(cache, file, "1");
+        cache.save("V", List.of(file));
+
+        // when
+        Migration migration = MigrationManifestCache.load(manifest, root, SqlDialect.H2, ChecksumAlgorithm.CRC32C)
+                .get(file, attributes(file));
+
+        // then
+        Assertions.assertNull(migration);
+        Assertions.assertNotNull(MigrationManifestCache.load(manifest, root, SqlDialect.H2, ChecksumAlgorithm.MD5)
+                .get(file, attributes(file)));
+    }
+
+    @Test
+    void save_shouldRemoveEntriesForDeletedFiles() throws IOException {
+        // given
+        Path first = createFile("V1__First.sql", "CREATE TABLE a (id INT);");
+        Path second = createFile("V2__Second.sql", "CREATE TABLE b (id INT);");
+        MigrationManifestCache cache = MigrationManifestCache.load(manifest, root, SqlDialect.H2);
+        cache(cache, first, "1");
+        cache(cache, second, "2");
+        cache.save("V", List.of(first, second));
+
+        // when
+        MigrationManifestCache reloaded = MigrationManifestCache.load(manifest, root, SqlDialect.H2);
+        reloaded.save("V", List.of(first));
+
+        // then
+        MigrationManifestCache result = MigrationManifestCache.load(manifest, root, SqlDialect.H2);
+        Assertions.assertNotNull(result.get(first, attributes(first)));
+        Assertions.assertNull(result.get(second, attributes(second)));
+    }
+
+    @Test
+    void save_shouldMergeEntriesSavedByAnotherCache() throws IOException {
+        // given
+        Path first = createFile("V1__First.sql", "CREATE TABLE a (id INT);");
+        Path second = createFile("V2__Second.sql", "CREATE TABLE b (id INT);");
+        MigrationManifestCache one = MigrationManifestCache.load(manifest, root, SqlDialect.H2);
+        MigrationManifestCache other = MigrationManifestCache.load(manifest, root, SqlDialect.H2);
+        cache(one, first, "1");
+        cache(other, second, "2");
+
+        // when
+        one.save("V", List.of(first, second));
+        other.save("V", List.of(first, second));
+
+        // then
+        MigrationManifestCache result = MigrationManifestCache.load(manifest, root, SqlDialect.H2);
+        Assertions.assertNotNull(result.get(first, attributes(first)));
+        Assertions.assertNotNull(result.get(second, attributes(second)));
+    }
+}
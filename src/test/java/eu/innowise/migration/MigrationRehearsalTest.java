@@ -0,0 +1,97 @@
+package eu.innowise.migration;
+
+import eu.innowise.db.MigrationTarget;
+import eu.innowise.db.impl.H2MigrationStrategy;
+import eu.innowise.model.Migration;
+import eu.innowise.model.MigrationDirectives;
+import eu.innowise.model.SqlScript;
+import eu.innowise.report.MigrationCost;
+import eu.innowise.report.RehearsalReport;
+import eu.innowise.report.StatementCost;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+class MigrationRehearsalTest {
+
+    private final MigrationTarget target = MigrationTarget.ofUrl("rehearsal",
+            "jdbc:h2:mem:rehearsal_test;DB_CLOSE_DELAY=-1", "sa", "");
+    private final MigrationRehearsal rehearsal = new MigrationRehearsal(new H2MigrationStrategy(), target);
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        execute("CREATE TABLE users (id INT PRIMARY KEY, name VARCHAR(50))");
+        execute("INSERT INTO users VALUES (1, 'first'), (2, 'second'), (3, 'third')");
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void rehearse_shouldMeasureMigrationsAndRollThemBack() throws SQLException {
+        // given
+        Migration update = new Migration("2", "Rename users", 2,
+                List.of("UPDATE users SET name = 'renamed' WHERE id > 1", "DELETE FROM users WHERE id = 1"));
+        Migration insert = new Migration("3", "Insert user", 3, List.of("INSERT INTO users VALUES (4, 'fourth')"));
+
+        // when
+        RehearsalReport report = rehearsal.rehearse(List.of(update, insert));
+
+        // then
+        Assertions.assertTrue(report.successful());
+        MigrationCost cost = report.migrations().get(0);
+        Assertions.assertEquals(MigrationCost.Status.REHEARSED, cost.status());
+        Assertions.assertEquals(3, cost.rowsAffected());
+        Assertions.assertEquals(List.of(2L, 1L), cost.statements().stream().map(StatementCost::updateCount).toList());
+        Assertions.assertEquals(1, report.migrations().get(1).rowsAffected());
+        Assertions.assertEquals(3, count("SELECT COUNT(*) FROM users WHERE name <> 'renamed'"));
+    }
+
+    @Test
+    void rehearse_shouldSkipMigrationsThatCannotBeRolledBack_andContinueAfterFailures() throws SQLException {
+        // given
+        Migration nonTransactional = new Migration("2", "Non-transactional", 2,
+                SqlScript.of(List.of("UPDATE users SET name = 'x'")),
+                MigrationDirectives.of(Map.of(MigrationDirectives.TRANSACTIONAL, "false")));
+        Migration ddl = new Migration("3", "Create table", 3, List.of("CREATE TABLE orders (id INT)"));
+        Migration failing = new Migration("4", "Missing table", 4, List.of("INSERT INTO missing VALUES (1)"));
+        Migration delete = new Migration("5", "Delete users", 5, List.of("DELETE FROM users"));
+
+        // when
+        RehearsalReport report = rehearsal.rehearse(List.of(nonTransactional, ddl, failing, delete));
+
+        // then
+        Assertions.assertFalse(report.successful());
+        Assertions.assertEquals(List.of(MigrationCost.Status.SKIPPED, MigrationCost.Status.SKIPPED,
+                        MigrationCost.Status.FAILED, MigrationCost.Status.REHEARSED),
+                report.migrations().stream().map(MigrationCost::status).toList());
+        Assertions.assertEquals(3, report.migrations().get(3).rowsAffected());
+        Assertions.assertEquals(3, count("SELECT COUNT(*) FROM users WHERE name <> 'x'"));
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Connection connection = target.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private int count(String sql) throws SQLException {
+        try (Connection connection = target.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package eu.innowise.migration;
+
+import eu.innowise.exceptions.MigrationException;
+import eu.innowise.model.Migration;
+import eu.innowise.model.MigrationDirectives;
+import eu.innowise.model.SqlScript;
+import eu.innowise.model.Version;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+class MigrationSchedulerTest {
+
+    private static Migration migration(String version, String... statements) {
+        return new Migration(version, "V" + version, 0, List.of(statements));
+    }
+
+    private static Migration dependentMigration(String version, String dependsOn, String... statements) {
+        return new Migration(version, "V" + version, 0, SqlScript.of(List.of(statements)),
+                MigrationDirectives.of(Map.of(MigrationDirectives.DEPENDS_ON, dependsOn)));
+    }
+
+    @Test
+    void build_shouldLinkMigrationsTouchingSameObjects() {
+        // given
+        List<Migration> pending = List.of(
+                migration("1", "CREATE INDEX idx_a ON a (x)"),
+                migration("2", "CREATE INDEX idx_b ON b (x)"),
+                migration("3", "ALTER TABLE a ADD COLUMN y INT"),
+                migration("4", "CREATE VIEW v AS SELECT * FROM a"),
+                migration("5", "UPDATE c SET x = 1"));
+
+        // when
+        MigrationGraph graph = MigrationGraph.build(pending, Set.of());
+
+        // then
+        Assertions.assertArrayEquals(new int[0], graph.dependencies(1));
+        Assertions.assertArrayEquals(new int[]{0}, graph.dependencies(2));
+        Assertions.assertArrayEquals(new int[]{0, 1, 2}, graph.dependencies(3));
+        Assertions.assertArrayEquals(new int[]{3}, graph.dependencies(4));
+    }
+
+    @Test
+    void build_shouldAddDeclaredDependencies_andRejectUnknownOnes() {
+        // given
+        List<Migration> pending = List.of(
+                migration("2", "CREATE TABLE a (id INT)"),
+                dependentMigration("3", "1.5,2", "CREATE TABLE b (id INT)"));
+
+        // when
+        MigrationGraph graph = MigrationGraph.build(pending, Set.of(Version.parse("1.5")));
+
+        // then
+        Assertions.assertArrayEquals(new int[]{0}, graph.dependencies(1));
+        Assertions.assertThrows(MigrationException.class, () -> MigrationGraph.build(pending, Set.of()));
+    }
+
+    @Test
+    void run_shouldRunIndependentMigrationsConcurrently_andRecordInVersionOrder() {
+        // given
+        MigrationGraph graph = MigrationGraph.build(List.of(
+                migration("1", "CREATE INDEX idx_a ON a (x)"),
+                migration("2", "CREATE INDEX idx_b ON b (x)")), Set.of());
+        CountDownLatch bothRunning = new CountDownLatch(2);
+        List<String> history = Collections.synchronizedList(new ArrayList<>());
+
+        // when
+        MigrationScheduler.Result result = new MigrationScheduler(graph, 2).run(migration -> {
+            bothRunning.countDown();
+            if (!bothRunning.await(10, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Migrations did not run concurrently");
+            }
+            if (migration.getVersion().equals("1")) {
+                Thread.sleep(50);
+            }
+        }, migration -> history.add(migration.getVersion()));
+
+        // then
+        Assertions.assertTrue(result.isSuccessful());
+        Assertions.assertEquals(List.of("1", "2"), history);
+    }
+
+    @Test
+    void run_shouldSkipDependentsOfFailedMigration_andRunTheOthers() {
+        // given
+        MigrationGraph graph = MigrationGraph.build(List.of(
+                migration("1", "CREATE TABLE a (id INT)"),
+                migration("2", "CREATE TABLE b (id INT)"),
+                migration("3", "ALTER TABLE a ADD COLUMN x INT"),
+                migration("4", "ALTER TABLE b ADD COLUMN x INT")), Set.of());
+        List<String> history = new ArrayList<>();
+
+        // when
+        MigrationScheduler.Result result = new MigrationScheduler(graph, 2).run(migration -> {
+            if (migration.getVersion().equals("1")) {
+                throw new IllegalStateException("boom");
+            }
+        }, migration -> history.add(migration.getVersion()));
+
+        // then
+        Assertions.assertFalse(result.isSuccessful());
+        Assertions.assertEquals(List.of("2", "4"), history);
+        Assertions.assertEquals(Set.of("1"), result.failed().keySet());
+        Assertions.assertEquals(List.of("3"), result.skipped());
+        Assertions.assertEquals("boom", result.firstError().getMessage());
+    }
+}
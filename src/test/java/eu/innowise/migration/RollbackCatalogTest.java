@@ -0,0 +1,75 @@
+package eu.innowise.migration;
+
+import eu.innowise.exceptions.MigrationException;
+import eu.innowise.exceptions.MigrationFileReadException;
+import eu.innowise.model.Migration;
+import eu.innowise.utils.MigrationUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+class RollbackCatalogTest {
+
+    private final List<Path> loaded = new ArrayList<>();
+
+    private RollbackCatalog catalog(String... filenames) {
+        List<Path> files = new ArrayList<>();
+        for (String filename : filenames) {
+            files.add(Path.of("migrations", filename));
+        }
+        return new RollbackCatalog(files, paths -> {
+            loaded.addAll(paths);
+            return paths.stream()
+                    .map(path -> new Migration(MigrationUtils.extractVersionFromFilename(path.getFileName().toString()),
+                            path.getFileName().toString(), 0, List.<String>of()))
+                    .toList();
+        });
+    }
+
+    @Test
+    void load_shouldReadOnlyRequestedFiles_inRequestedOrder() {
+        // given
+        RollbackCatalog catalog = catalog("U1__One.sql", "U2__Two.sql", "U3__Three.sql", "U10__Ten.sql");
+
+        // when
+        List<Migration> migrations = catalog.load(List.of("10", "2"));
+
+        // then
+        Assertions.assertEquals(List.of("U10__Ten.sql", "U2__Two.sql"),
+                migrations.stream().map(Migration::getDescription).toList());
+        Assertions.assertEquals(2, loaded.size());
+    }
+
+    @Test
+    void load_shouldMatchDottedVersions() {
+        // given
+        RollbackCatalog catalog = catalog("U1_1__Minor.sql");
+
+        // when & then
+        Assertions.assertTrue(catalog.contains("1.1"));
+        Assertions.assertEquals(1, catalog.load(List.of("1.1")).size());
+    }
+
+    @Test
+    void load_shouldReportAllMissingVersions_beforeReadingFiles() {
+        // given
+        RollbackCatalog catalog = catalog("U1__One.sql");
+
+        // when
+        MigrationException exception = Assertions.assertThrows(MigrationException.class,
+                () -> catalog.load(List.of("3", "1", "2")));
+
+        // then
+        Assertions.assertTrue(exception.getMessage().contains("3, 2"));
+        Assertions.assertTrue(loaded.isEmpty());
+    }
+
+    @Test
+    void constructor_shouldRejectInvalidFileNames() {
+        // when & then
+        Assertions.assertThrows(MigrationFileReadException.class, () -> catalog("U1__One.sql", "Ux__Broken.sql"));
+    }
+}
@@ -0,0 +1,54 @@
+package eu.innowise.migration;
+
+import eu.innowise.exceptions.PropertiesLoadingException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class RolloutPlanTest {
+
+    private static final List<String> TARGETS = List.of("t1", "t2", "t3", "t4", "t5", "t6");
+
+    @Test
+    void waves_shouldPutCanaryFirst_andSplitTheRestIntoWaves() {
+        // given
+        RolloutPlan plan = new RolloutPlan(1, 2, 0, 4);
+
+        // when
+        List<List<String>> waves = plan.waves(TARGETS);
+
+        // then
+        Assertions.assertEquals(List.of(List.of("t1"), List.of("t2", "t3"), List.of("t4", "t5"), List.of("t6")), waves);
+    }
+
+    @Test
+    void waves_shouldUseSingleWave_whenWaveSizeIsZero() {
+        // given
+        RolloutPlan plan = new RolloutPlan(2, 0, 0, 4);
+
+        // when & then
+        Assertions.assertEquals(List.of(List.of("t1", "t2"), List.of("t3", "t4", "t5", "t6")), plan.waves(TARGETS));
+        Assertions.assertEquals(List.of(List.of("t1")), plan.waves(List.of("t1")));
+        Assertions.assertEquals(List.of(), plan.waves(List.of()));
+    }
+
+    @Test
+    void shouldStop_shouldStopOnFailedCanary_andWhenFailuresExceedLimit() {
+        // given
+        RolloutPlan plan = new RolloutPlan(1, 2, 1, 4);
+        RolloutPlan unlimited = new RolloutPlan(0, 2, -1, 4);
+
+        // when & then
+        Assertions.assertTrue(plan.shouldStop(0, 1, 1));
+        Assertions.assertFalse(plan.shouldStop(1, 1, 1));
+        Assertions.assertTrue(plan.shouldStop(2, 1, 2));
+        Assertions.assertFalse(unlimited.shouldStop(0, 2, 2));
+    }
+
+    @Test
+    void constructor_shouldThrow_whenParallelismIsNotPositive() {
+        // when & then
+        Assertions.assertThrows(PropertiesLoadingException.class, () -> new RolloutPlan(1, 0, 0, 0));
+    }
+}
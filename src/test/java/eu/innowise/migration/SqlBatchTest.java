@@ -0,0 +1,162 @@
+package eu.innowise.migration;
+
+import eu.innowise.exceptions.StatementExecutionException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.function.UnaryOperator;
+
+class SqlBatchTest {
+
+    private static final String FAILING_SQL = "INSERT INTO users VALUES (1, 'duplicate')";
+
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:sql_batch_test;DB_CLOSE_DELAY=-1", "sa", "");
+        execute("CREATE TABLE users (id INT PRIMARY KEY, name VARCHAR(50))");
+        connection.setAutoCommit(false);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.rollback();
+        connection.setAutoCommit(true);
+        execute("DROP ALL OBJECTS");
+        connection.close();
+    }
+
+    @Test
+    void add_shouldExecuteBatch_whenBatchSizeIsReached() throws SQLException {
+        // given
+        try (SqlBatch batch = new SqlBatch(connection, 2)) {
+            // when
+            batch.add(1, "INSERT INTO users VALUES (1, 'first')");
+            batch.add(2, "INSERT INTO users VALUES (2, 'second')");
+            int afterFullBatch = count();
+            batch.add(3, "INSERT INTO users VALUES (3, 'third')");
+            int beforeFlush = count();
+            batch.flush();
+
+            // then
+            Assertions.assertEquals(2, afterFullBatch);
+            Assertions.assertEquals(2, beforeFlush);
+            Assertions.assertEquals(3, count());
+        }
+    }
+
+    @Test
+    void flush_shouldReportFailedStatement_fromExecuteFailedUpdateCount() {
+        // when
+        StatementExecutionException exception = assertBatchFails(connection);
+
+        // then
+        Assertions.assertEquals(12, exception.getStatementIndex());
+        Assertions.assertTrue(exception.getMessage().endsWith(FAILING_SQL), exception.getMessage());
+    }
+
+    @Test
+    void flush_shouldReportStatementAfterLastUpdateCount_whenDriverStopsAtFailure() {
+        // given
+        Connection stopping = withBatchFailure(counts -> Arrays.stream(counts)
+                .takeWhile(count -> count != Statement.EXECUTE_FAILED)
+                .toArray());
+
+        // when
+        StatementExecutionException exception = assertBatchFails(stopping);
+
+        // then
+        Assertions.assertEquals(12, exception.getStatementIndex());
+        Assertions.assertTrue(exception.getMessage().endsWith(FAILING_SQL), exception.getMessage());
+    }
+
+    @Test
+    void flush_shouldReplayBatch_whenUpdateCountsDoNotShowFailure() throws SQLException {
+        // given
+        Connection rewriting = withBatchFailure(counts -> {
+            int[] noInfo = new int[counts.length];
+            Arrays.fill(noInfo, Statement.SUCCESS_NO_INFO);
+            return noInfo;
+        });
+
+        // when
+        StatementExecutionException exception = assertBatchFails(rewriting);
+
+        // then
+        Assertions.assertEquals(12, exception.getStatementIndex());
+        Assertions.assertTrue(exception.getMessage().endsWith(FAILING_SQL), exception.getMessage());
+        // the replay stops at the failing statement, the statements before it are applied once
+        Assertions.assertEquals(1, count());
+    }
+
+    /**
+     * Runs a batch of three statements starting at statement #11, the second of which violates the primary key.
+     */
+    private StatementExecutionException assertBatchFails(Connection batchConnection) {
+        return Assertions.assertThrows(StatementExecutionException.class, () -> {
+            try (SqlBatch batch = new SqlBatch(batchConnection, 10)) {
+                batch.add(11, "INSERT INTO users VALUES (1, 'first')");
+                batch.add(12, FAILING_SQL);
+                batch.add(13, "INSERT INTO users VALUES (3, 'third')");
+                batch.flush();
+            }
+        });
+    }
+
+    /**
+     * Wraps the H2 connection so that a failed batch reports the update counts a different driver would.
+     */
+    private Connection withBatchFailure(UnaryOperator<int[]> updateCounts) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (!(result instanceof Statement statement)) {
+                        return result;
+                    }
+                    return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Statement.class},
+                            (statementProxy, statementMethod, statementArgs) -> {
+                                try {
+                                    return invoke(statement, statementMethod, statementArgs);
+                                } catch (BatchUpdateException e) {
+                                    throw new BatchUpdateException(e.getMessage(), e.getSQLState(), e.getErrorCode(),
+                                            updateCounts.apply(e.getUpdateCounts()), e);
+                                }
+                            });
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private int count() throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM users")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package eu.innowise.migration;
+
+import eu.innowise.exceptions.PropertiesLoadingException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class TransactionPolicyTest {
+
+    @Test
+    void fromProperty_shouldParseCaseInsensitively() {
+        // when & then
+        Assertions.assertEquals(TransactionPolicy.PER_MIGRATION, TransactionPolicy.fromProperty(" per_migration ", TransactionPolicy.ALL));
+        Assertions.assertEquals(TransactionPolicy.EVERY_N, TransactionPolicy.fromProperty("EVERY_N", TransactionPolicy.ALL));
+    }
+
+    @Test
+    void fromProperty_shouldReturnDefault_whenValueIsMissing() {
+        // when & then
+        Assertions.assertEquals(TransactionPolicy.ALL, TransactionPolicy.fromProperty(null, TransactionPolicy.ALL));
+        Assertions.assertEquals(TransactionPolicy.ALL, TransactionPolicy.fromProperty("  ", TransactionPolicy.ALL));
+    }
+
+    @Test
+    void fromProperty_shouldThrow_whenValueIsUnknown() {
+        // when & then
+        Assertions.assertThrows(PropertiesLoadingException.class, () -> TransactionPolicy.fromProperty("sometimes", TransactionPolicy.ALL));
+    }
+
+    @Test
+    void shouldCommit_shouldFollowPolicy() {
+        // when & then
+        Assertions.assertFalse(TransactionPolicy.ALL.shouldCommit(100, 10));
+        Assertions.assertTrue(TransactionPolicy.PER_MIGRATION.shouldCommit(1, 10));
+        Assertions.assertFalse(TransactionPolicy.EVERY_N.shouldCommit(9, 10));
+        Assertions.assertTrue(TransactionPolicy.EVERY_N.shouldCommit(10, 10));
+        Assertions.assertTrue(TransactionPolicy.EVERY_N.shouldCommit(1, 0));
+    }
+}
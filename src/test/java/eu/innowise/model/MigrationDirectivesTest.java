@@ -0,0 +1,89 @@
+package eu.innowise.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+class MigrationDirectivesTest {
+
+    @Test
+    void parse_shouldReadDirectivesFromHeader() {
+        // given
+        String script = """
+
+                -- Adds an index without blocking writes
+                -- migration:transactional=false
+                CREATE INDEX CONCURRENTLY idx_users_email ON users (email);
+                """;
+
+        // when
+        MigrationDirectives directives = MigrationDirectives.parse(script);
+
+        // then
+        Assertions.assertFalse(directives.isTransactional());
+        Assertions.assertEquals(Map.of("transactional", "false"), directives.asMap());
+    }
+
+    @Test
+    void parse_shouldIgnoreDirectivesAfterFirstStatement() {
+        // given
+        String script = """
+                CREATE TABLE a (id INT);
+                -- migration:transactional=false
+                """;
+
+        // when
+        MigrationDirectives directives = MigrationDirectives.parse(script);
+
+        // then
+        Assertions.assertTrue(directives.isTransactional());
+        Assertions.assertSame(MigrationDirectives.NONE, directives);
+    }
+
+    @Test
+    void parse_shouldRejectUnknownDirective() {
+        // when & then
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> MigrationDirectives.parse("-- migration:transactinal=false\nSELECT 1;"));
+    }
+
+    @Test
+    void parse_shouldRejectInvalidValue() {
+        // when & then
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> MigrationDirectives.parse("-- migration:transactional=maybe\nSELECT 1;"));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> MigrationDirectives.parse("-- migration:transactional\nSELECT 1;"));
+    }
+
+    @Test
+    void parse_shouldReadDependencies() {
+        // when
+        MigrationDirectives directives = MigrationDirectives.parse("-- migration:depends-on=1.2,3\nCREATE TABLE a (id INT);");
+
+        // then
+        Assertions.assertEquals(List.of(Version.parse("1.2"), Version.parse("3")), directives.getDependsOn());
+        Assertions.assertEquals(List.of(), MigrationDirectives.NONE.getDependsOn());
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> MigrationDirectives.parse("-- migration:depends-on=1.2,next\nSELECT 1;"));
+    }
+
+    @Test
+    void parse_shouldReadBackfillKey_andMakeMigrationNonTransactional() {
+        // when
+        MigrationDirectives directives = MigrationDirectives.parse(
+                "-- migration:backfill=app.users.id\nUPDATE app.users SET name = 'x' WHERE id BETWEEN :from AND :to;");
+
+        // then
+        Assertions.assertTrue(directives.isBackfill());
+        Assertions.assertFalse(directives.isTransactional());
+        Assertions.assertEquals(new MigrationDirectives.BackfillKey("app.users", "id"), directives.getBackfillKey());
+        Assertions.assertNull(MigrationDirectives.NONE.getBackfillKey());
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> MigrationDirectives.parse("-- migration:backfill=users\nSELECT 1;"));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> MigrationDirectives.parse("-- migration:backfill=users.id;DROP\nSELECT 1;"));
+    }
+}
@@ -0,0 +1,84 @@
+package eu.innowise.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+class VersionTest {
+
+    @Nested
+    class Parse {
+
+        @Test
+        void parse_shouldReadComponents() {
+            // when
+            Version version = Version.parse("12.3.45");
+
+            // then
+            Assertions.assertEquals(3, version.size());
+            Assertions.assertEquals(12, version.part(0));
+            Assertions.assertEquals(3, version.part(1));
+            Assertions.assertEquals(45, version.part(2));
+            Assertions.assertEquals("12.3.45", version.toString());
+        }
+
+        @Test
+        void parse_shouldRejectInvalidVersions() {
+            // when & then
+            for (String invalid : List.of("", ".", "1.", ".1", "1..2", "1.a", "-1", "99999999999999999999")) {
+                Assertions.assertThrows(IllegalArgumentException.class, () -> Version.parse(invalid), invalid);
+            }
+        }
+    }
+
+    @Nested
+    class Compare {
+
+        @Test
+        void compareTo_shouldOrderNumerically() {
+            // given
+            List<Version> versions = new ArrayList<>();
+            for (String version : List.of("10", "2.1", "1.10", "1", "2", "1.0", "1.2", "2.0.1")) {
+                versions.add(Version.parse(version));
+            }
+
+            // when
+            Collections.sort(versions);
+
+            // then
+            Assertions.assertEquals("[1, 1.0, 1.2, 1.10, 2, 2.0.1, 2.1, 10]", versions.toString());
+        }
+
+        @Test
+        void compareTo_shouldTreatLeadingZerosAsEqual() {
+            // when & then
+            Assertions.assertEquals(0, Version.parse("01.02").compareTo(Version.parse("1.2")));
+            Assertions.assertEquals(Version.parse("01.02"), Version.parse("1.2"));
+        }
+
+        @Test
+        void compareTo_shouldHandleComponentsOutsidePackedRange() {
+            // given
+            Version large = Version.parse("20240101120000");
+            Version small = Version.parse("2147483646.5");
+
+            // when & then
+            Assertions.assertTrue(large.compareTo(small) > 0);
+            Assertions.assertTrue(small.compareTo(large) < 0);
+            Assertions.assertTrue(Version.parse("3000000000").compareTo(Version.parse("3000000000.1")) < 0);
+            Assertions.assertTrue(Version.parse("1.4294967296").compareTo(Version.parse("1.2")) > 0);
+        }
+
+        @Test
+        void compareTo_shouldMatchComponentComparison_forMixedLengths() {
+            // when & then
+            Assertions.assertTrue(Version.parse("1.2").compareTo(Version.parse("1.2.0")) < 0);
+            Assertions.assertTrue(Version.parse("1.3").compareTo(Version.parse("1.2.9")) > 0);
+            Assertions.assertTrue(Version.parse("1").compareTo(Version.parse("1.0.0")) < 0);
+        }
+    }
+}
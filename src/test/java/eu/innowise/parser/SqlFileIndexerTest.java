@@ -0,0 +1,249 @@
+package eu.innowise.parser;
+
+import eu.innowise.checksum.ChecksumAlgorithm;
+import eu.innowise.metrics.MigrationMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+class SqlFileIndexerTest {
+
+    /**
+     * The size of the chunks the indexer reads, see {@code SqlFileIndexer.BUFFER_SIZE}.
+     */
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final String CROSSING_STATEMENT = "INSERT INTO users VALUES (0, 'crosses; the -- boundary')";
+
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("indexer");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    void index_shouldGiveSameResult_whenFileIsMapped() throws IOException {
+        // given
+        StringBuilder content = new StringBuilder("-- migration:transactional=false\n");
+        int padding = 0;
+        // the string literal of the crossing statement starts just before the end of the first chunk
+        int crossingStart = CHUNK_SIZE - 30;
+        String line = "INSERT INTO users VALUES (1, 'padding');\n";
+        while (content.length() + line.length() <= crossingStart - 3) {
+            content.append(line);
+            padding++;
+        }
+        content.append("--").append("x".repeat(crossingStart - content.length() - 3)).append('\n');
+        content.append(CROSSING_STATEMENT).append(";\nUPDATE users SET name = 'after';\n");
+        Path file = Files.writeString(directory.resolve("V1__Test.sql"), content);
+
+        SqlFileIndexer heap = new SqlFileIndexer(SqlDialect.POSTGRESQL, Long.MAX_VALUE, MigrationMetrics.NOOP,
+                ChecksumAlgorithm.XXH64);
+        SqlFileIndexer mapped = new SqlFileIndexer(SqlDialect.POSTGRESQL, 0, MigrationMetrics.NOOP, ChecksumAlgorithm.XXH64);
+
+        // when
+        IndexedSqlScript heapScript = heap.index(file);
+        IndexedSqlScript mappedScript = mapped.index(file);
+
+        // then
+        Assertions.assertTrue(content.indexOf("'crosses") < CHUNK_SIZE && content.indexOf("boundary'") > CHUNK_SIZE);
+        Assertions.assertEquals(padding + 2, heapScript.getStatementCount());
+        Assertions.assertEquals(heapScript.getChecksum(), mappedScript.getChecksum());
+        Assertions.assertEquals(heapScript.getStatementCount(), mappedScript.getStatementCount());
+        Assertions.assertArrayEquals(heapScript.getOffsets(), mappedScript.getOffsets());
+        Assertions.assertEquals(heapScript.getDirectives().asMap(), mappedScript.getDirectives().asMap());
+        Assertions.assertFalse(mappedScript.getDirectives().isTransactional());
+
+        List<String> statements = statements(mappedScript);
+        Assertions.assertEquals(statements(heapScript), statements);
+        Assertions.assertTrue(statements.get(padding).endsWith(CROSSING_STATEMENT), statements.get(padding));
+        Assertions.assertEquals("UPDATE users SET name = 'after'", statements.get(padding + 1).strip());
+    }
+
+    @Nested
+    class CommonRules {
+
+        @Test
+        void parse_shouldSplitStatementsOnSemicolon() throws IOException {
+            // given
+            String sql = "CREATE TABLE a (id INT);\nINSERT INTO a VALUES (1);\n";
+
+            // when
+            List<String> statements = parse(sql, SqlDialect.H2);
+
+            // then
+            Assertions.assertEquals(List.of("CREATE TABLE a (id INT)", "INSERT INTO a VALUES (1)"), statements);
+        }
+
+        @Test
+        void parse_shouldKeepTrailingStatement_whenDelimiterIsMissing() throws IOException {
+            // given
+            String sql = "DELETE FROM a;\nDELETE FROM b";
+
+            // when
+            List<String> statements = parse(sql, SqlDialect.POSTGRESQL);
+
+            // then
+            Assertions.assertEquals(List.of("DELETE FROM a", "DELETE FROM b"), statements);
+        }
+
+        @Test
+        void parse_shouldIgnoreSemicolonsInLiteralsAndComments() throws IOException {
+            // given
+            String sql = """
+                    INSERT INTO t VALUES ('a;b', 'it''s;');
+                    -- comment; with semicolon
+                    /* block; comment */
+                    UPDATE "weird;name" SET x = 1;
+                    """;
+
+            // when
+            List<String> statements = parse(sql, SqlDialect.POSTGRESQL);
+
+            // then
+            Assertions.assertEquals(2, statements.size());
+            Assertions.assertEquals("INSERT INTO t VALUES ('a;b', 'it''s;')", statements.get(0));
+            Assertions.assertTrue(statements.get(1).endsWith("UPDATE \"weird;name\" SET x = 1"));
+        }
+
+        @Test
+        void parse_shouldSkipFragmentsWithoutCode() throws IOException {
+            // given
+            String sql = "--INSERT INTO a VALUES (1);\n--\n;;\n/* nothing */;";
+
+            // when
+            List<String> statements = parse(sql, SqlDialect.H2);
+
+            // then
+            Assertions.assertTrue(statements.isEmpty());
+        }
+    }
+
+    @Nested
+    class PostgresRules {
+
+        @Test
+        void parse_shouldKeepDollarQuotedBodyInOneStatement() throws IOException {
+            // given
+            String sql = """
+                    CREATE FUNCTION f() RETURNS INT AS $body$
+                    BEGIN
+                        PERFORM 1; RETURN $$;$$;
+                    END;
+                    $body$ LANGUAGE plpgsql;
+                    SELECT f();
+                    """;
+
+            // when
+            List<String> statements = parse(sql, SqlDialect.POSTGRESQL);
+
+            // then
+            Assertions.assertEquals(2, statements.size());
+            Assertions.assertTrue(statements.get(0).endsWith("$body$ LANGUAGE plpgsql"));
+            Assertions.assertEquals("SELECT f()", statements.get(1));
+        }
+
+        @Test
+        void parse_shouldNotTreatPositionalParameterAsDollarQuote() throws IOException {
+            // given
+            String sql = "PREPARE p AS SELECT $1;SELECT 2;";
+
+            // when
+            List<String> statements = parse(sql, SqlDialect.POSTGRESQL);
+
+            // then
+            Assertions.assertEquals(List.of("PREPARE p AS SELECT $1", "SELECT 2"), statements);
+        }
+
+        @Test
+        void parse_shouldHonourEscapeStringsAndNestedComments() throws IOException {
+            // given
+            String sql = "SELECT E'\\';';/* outer /* inner; */ still comment; */SELECT 2;";
+
+            // when
+            List<String> statements = parse(sql, SqlDialect.POSTGRESQL);
+
+            // then
+            Assertions.assertEquals(2, statements.size());
+            Assertions.assertEquals("SELECT E'\\';'", statements.get(0));
+            Assertions.assertTrue(statements.get(1).endsWith("SELECT 2"));
+        }
+    }
+
+    @Nested
+    class MySqlRules {
+
+        @Test
+        void parse_shouldSwitchDelimiter_whenDelimiterDirectiveIsUsed() throws IOException {
+            // given
+            String sql = """
+                    DELIMITER //
+                    CREATE PROCEDURE p() BEGIN SELECT 1; SELECT 2; END//
+                    DELIMITER ;
+                    CALL p();
+                    """;
+
+            // when
+            List<String> statements = parse(sql, SqlDialect.MYSQL);
+
+            // then
+            Assertions.assertEquals(
+                    List.of("CREATE PROCEDURE p() BEGIN SELECT 1; SELECT 2; END", "CALL p()"), statements);
+        }
+
+        @Test
+        void parse_shouldHonourBackslashEscapesHashCommentsAndBackticks() throws IOException {
+            // given
+            String sql = "INSERT INTO `a;b` VALUES ('x\\';y', \"q;\");\n# hash; comment\nSELECT 1--1;";
+
+            // when
+            List<String> statements = parse(sql, SqlDialect.MYSQL);
+
+            // then
+            Assertions.assertEquals(2, statements.size());
+            Assertions.assertEquals("INSERT INTO `a;b` VALUES ('x\\';y', \"q;\")", statements.get(0));
+            Assertions.assertTrue(statements.get(1).endsWith("SELECT 1--1"));
+        }
+
+        @Test
+        void parse_shouldKeepExecutableComments() throws IOException {
+            // given
+            String sql = "/*!40101 SET NAMES utf8 */;";
+
+            // when
+            List<String> statements = parse(sql, SqlDialect.MYSQL);
+
+            // then
+            Assertions.assertEquals(List.of("/*!40101 SET NAMES utf8 */"), statements);
+        }
+    }
+    private List<String> parse(String sql, SqlDialect dialect) throws IOException {
+        Path file = Files.writeString(Files.createTempFile(directory, "V", ".sql"), sql);
+        return statements(new SqlFileIndexer(dialect, Long.MAX_VALUE, MigrationMetrics.NOOP, ChecksumAlgorithm.XXH64)
+                .index(file));
+    }
+
+    private static List<String> statements(IndexedSqlScript script) {
+        try (Stream<String> statements = script.statements()) {
+            return statements.toList();
+        }
+    }
+}
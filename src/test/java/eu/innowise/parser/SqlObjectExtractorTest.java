@@ -0,0 +1,44 @@
+package eu.innowise.parser;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+class SqlObjectExtractorTest {
+
+    @Test
+    void objects_shouldFindTablesOfDdl() {
+        // when & then
+        Assertions.assertEquals(Set.of("users", "accounts"),
+                SqlObjectExtractor.objects("CREATE TABLE IF NOT EXISTS public.users (id INT, account_id INT REFERENCES accounts (id))"));
+        Assertions.assertEquals(Set.of("orders"), SqlObjectExtractor.objects("ALTER TABLE ONLY \"Orders\" ADD COLUMN note TEXT"));
+        Assertions.assertEquals(Set.of("a", "b"), SqlObjectExtractor.objects("DROP TABLE IF EXISTS a, b CASCADE"));
+        Assertions.assertEquals(Set.of("logs"), SqlObjectExtractor.objects("TRUNCATE TABLE logs"));
+    }
+
+    @Test
+    void objects_shouldFindIndexAndTable() {
+        // when & then
+        Assertions.assertEquals(Set.of("idx_users_email", "users"),
+                SqlObjectExtractor.objects("-- online\nCREATE UNIQUE INDEX CONCURRENTLY idx_users_email ON users (email)"));
+        Assertions.assertEquals(Set.of("users"), SqlObjectExtractor.objects("CREATE INDEX ON users (email)"));
+        Assertions.assertEquals(Set.of("idx_users_email"), SqlObjectExtractor.objects("DROP INDEX IF EXISTS idx_users_email"));
+    }
+
+    @Test
+    void objects_shouldFindTablesOfDml() {
+        // when & then
+        Assertions.assertEquals(Set.of("archive", "orders"),
+                SqlObjectExtractor.objects("INSERT INTO archive (id) SELECT id FROM orders WHERE created < now()"));
+        Assertions.assertEquals(Set.of("users"), SqlObjectExtractor.objects("UPDATE users SET active = true"));
+    }
+
+    @Test
+    void objects_shouldReturnNull_whenObjectsAreUnknown() {
+        // when & then
+        Assertions.assertNull(SqlObjectExtractor.objects("CREATE VIEW active_users AS SELECT * FROM users"));
+        Assertions.assertNull(SqlObjectExtractor.objects("DO $$ BEGIN PERFORM 1; END $$"));
+        Assertions.assertNull(SqlObjectExtractor.objects("GRANT SELECT ON users TO reporting"));
+    }
+}
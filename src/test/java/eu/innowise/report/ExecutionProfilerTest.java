@@ -0,0 +1,82 @@
+package eu.innowise.report;
+
+import eu.innowise.model.Migration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+class ExecutionProfilerTest {
+
+    @Test
+    void toProfile_shouldKeepTheSlowestStatementsSlowestFirst() {
+        // given
+        ExecutionProfiler profiler = new ExecutionProfiler(true, 2);
+        Migration migration = migration("1");
+
+        // when
+        profiler.startMigration(migration);
+        profiler.recordStatement("1", 1, "CREATE TABLE a (id INT)", 5_000_000L, 0);
+        profiler.recordStatement("1", 2, "UPDATE a SET id = 1", 1_000_000L, 7);
+        profiler.recordStatement("1", 3, "CREATE INDEX a_id ON a (id)", 9_000_000L, 0);
+        profiler.recordStatement("1", 4, "DELETE FROM a", 3_000_000L, 2);
+        profiler.finishMigration(migration, 20_000_000L, true);
+        ExecutionProfile profile = profiler.toProfile();
+
+        // then
+        List<StatementTiming> slowest = profile.slowestStatements();
+        Assertions.assertEquals(2, slowest.size());
+        Assertions.assertEquals(3, slowest.get(0).index());
+        Assertions.assertEquals("CREATE INDEX a_id ON a (id)", slowest.get(0).sql());
+        Assertions.assertEquals(1, slowest.get(1).index());
+        Assertions.assertEquals(4, profile.statements());
+        Assertions.assertEquals(9, profile.rowsAffected());
+
+        MigrationTiming timing = profile.migrations().get(0);
+        Assertions.assertEquals(20.0, timing.durationMillis(), 1e-9);
+        Assertions.assertEquals(9, timing.rowsAffected());
+        Assertions.assertArrayEquals(new double[]{5.0, 1.0, 9.0, 3.0}, timing.statementMillis(), 1e-9);
+        Assertions.assertArrayEquals(new long[]{0, 7, 0, 2}, timing.statementRows());
+    }
+
+    @Test
+    void recordBatch_shouldShareTheBatchTimeAndRankTheBatchAsAWhole() {
+        // given
+        ExecutionProfiler profiler = new ExecutionProfiler(true, 5);
+        Migration migration = migration("2");
+        String longInsert = "INSERT INTO t VALUES ('" + "x".repeat(300) + "')";
+
+        // when
+        profiler.startMigration(migration);
+        profiler.recordBatch("2", 3, List.of(longInsert, longInsert, longInsert), 6_000_000L, new int[]{1, 1, -2});
+        profiler.finishMigration(migration, 6_000_000L, false);
+        ExecutionProfile profile = profiler.toProfile();
+
+        // then
+        StatementTiming batch = profile.slowestStatements().get(0);
+        Assertions.assertEquals(3, batch.statements());
+        Assertions.assertEquals(2, batch.rowsAffected());
+        Assertions.assertEquals(ExecutionProfiler.SQL_PREVIEW_LENGTH + 3, batch.sql().length());
+
+        MigrationTiming timing = profile.migrations().get(0);
+        Assertions.assertFalse(timing.success());
+        Assertions.assertArrayEquals(new double[]{2.0, 2.0, 2.0}, timing.statementMillis(), 1e-9);
+        Assertions.assertArrayEquals(new long[]{1, 1, -2}, timing.statementRows());
+    }
+
+    @Test
+    void disabled_shouldRecordNothing() {
+        // when
+        ExecutionProfiler.DISABLED.recordLockWait(Duration.ofSeconds(1), 3);
+        ExecutionProfiler.DISABLED.recordStatement("1", 1, "SELECT 1", 1L, 0);
+
+        // then
+        Assertions.assertFalse(ExecutionProfiler.DISABLED.isEnabled());
+        Assertions.assertNull(ExecutionProfiler.DISABLED.toProfile());
+    }
+
+    private static Migration migration(String version) {
+        return new Migration(version, "Migration " + version, 0, List.of("SELECT 1"));
+    }
+}
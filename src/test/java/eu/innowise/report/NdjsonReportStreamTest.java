@@ -0,0 +1,144 @@
+package eu.innowise.report;
+
+import eu.innowise.model.Migration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+class NdjsonReportStreamTest {
+
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("reports");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    void close_shouldWriteOneLinePerRecordAndIndexTheRun() throws IOException {
+        // given
+        NdjsonReportStream stream = (NdjsonReportStream) NdjsonReportStream.open(directory, "migrate", "tenant/a", 2);
+
+        // when
+        for (int version = 1; version <= 5; version++) {
+            stream.record(migration(String.valueOf(version)), MigrationRecord.Status.APPLIED, version * 1_000_000L, null);
+        }
+        stream.record(migration("6"), MigrationRecord.Status.FAILED, 500_000L, "syntax error");
+        stream.close();
+
+        // then
+        List<String> lines = Files.readAllLines(stream.getFile());
+        Assertions.assertEquals(6, lines.size());
+        Assertions.assertTrue(lines.get(0).startsWith("{\"runId\":\"" + stream.getRunId() + "\""));
+
+        List<ReportIndexEntry> runs = ReportIndex.runs(directory);
+        Assertions.assertEquals(1, runs.size());
+        ReportIndexEntry run = runs.get(0);
+        Assertions.assertTrue(run.isFinished());
+        Assertions.assertEquals("tenant/a", run.target());
+        Assertions.assertEquals(6, run.migrations());
+        Assertions.assertEquals(1, run.failed());
+        Assertions.assertEquals(15.5, run.durationMillis(), 1e-9);
+
+        List<MigrationRecord> records = ReportIndex.records(directory, run);
+        Assertions.assertEquals("syntax error", records.get(5).error());
+        Assertions.assertEquals(2.0, records.get(1).durationMillis(), 1e-9);
+    }
+
+    @Test
+    void appliedHistory_shouldCollectDurationsAcrossRunsAndSkipTornLines() throws IOException {
+        // given
+        NdjsonReportStream first = (NdjsonReportStream) NdjsonReportStream.open(directory, "migrate", "default", 16);
+        first.record(migration("1"), MigrationRecord.Status.APPLIED, 3_000_000L, null);
+        first.close();
+
+        NdjsonReportStream killed = (NdjsonReportStream) NdjsonReportStream.open(directory, "migrate", "default", 16);
+        killed.record(migration("2"), MigrationRecord.Status.APPLIED, 4_000_000L, null);
+        killed.close();
+        Files.writeString(killed.getFile(), "{\"runId\":\"trunc", StandardOpenOption.APPEND);
+
+        NdjsonReportStream other = (NdjsonReportStream) NdjsonReportStream.open(directory, "migrate", "other", 16);
+        other.record(migration("1"), MigrationRecord.Status.APPLIED, 9_000_000L, null);
+        other.close();
+
+        // when
+        Map<String, List<MigrationRecord>> history = ReportIndex.appliedHistory(directory, "default");
+
+        // then
+        Assertions.assertEquals(List.of("1", "2"), List.copyOf(history.keySet()));
+        Assertions.assertEquals(3.0, history.get("1").get(0).durationMillis(), 1e-9);
+        Assertions.assertEquals(4.0, history.get("2").get(0).durationMillis(), 1e-9);
+    }
+
+    @Test
+    void runs_shouldKeepRunsThatWereNeverClosed() throws IOException {
+        // given
+        NdjsonReportStream stream = (NdjsonReportStream) NdjsonReportStream.open(directory, "rollback", "default", 16);
+
+        // when
+        List<ReportIndexEntry> runs = ReportIndex.runs(directory);
+        stream.close();
+
+        // then
+        Assertions.assertEquals(1, runs.size());
+        Assertions.assertFalse(runs.get(0).isFinished());
+        Assertions.assertTrue(ReportIndex.runs(directory).get(0).isFinished());
+    }
+
+    @Test
+    void close_shouldWriteEveryAcceptedRecord_whenRecordsRaceWithClose() throws IOException, InterruptedException {
+        // given
+        NdjsonReportStream stream = (NdjsonReportStream) NdjsonReportStream.open(directory, "migrate", "default", 1);
+        CountDownLatch started = new CountDownLatch(4);
+        List<Thread> producers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread producer = new Thread(() -> {
+                started.countDown();
+                for (int version = 1; version <= 500; version++) {
+                    stream.record(migration(String.valueOf(version)), MigrationRecord.Status.APPLIED, 1_000_000L, null);
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+
+        // when
+        started.await();
+        stream.close();
+        for (Thread producer : producers) {
+            producer.join(10_000);
+        }
+
+        // then
+        Assertions.assertTrue(producers.stream().noneMatch(Thread::isAlive));
+        ReportIndexEntry run = ReportIndex.runs(directory).get(0);
+        Assertions.assertTrue(run.isFinished());
+        Assertions.assertEquals(run.migrations(), Files.readAllLines(stream.getFile()).size());
+        Assertions.assertEquals(run.migrations(), ReportIndex.records(directory, run).size());
+    }
+
+    private static Migration migration(String version) {
+        return new Migration(version, "Migration " + version, version.hashCode(), List.of("SELECT 1"));
+    }
+}
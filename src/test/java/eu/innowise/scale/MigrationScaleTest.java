@@ -0,0 +1,176 @@
+package eu.innowise.scale;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.innowise.db.MigrationStrategy;
+import eu.innowise.db.MigrationTarget;
+import eu.innowise.db.impl.H2MigrationStrategy;
+import eu.innowise.migration.MigrationExecutor;
+import eu.innowise.migration.MigrationFileReader;
+import eu.innowise.migration.MigrationManager;
+import eu.innowise.parser.SqlDialect;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Runs {@code migrate}, {@code status} and {@code rollback} over thousands of generated migrations against
+ * in-memory H2 and measures every phase, see {@link PhaseMeasurement}.
+ * <p>
+ * Run with {@code gradle scaleTest}. The size is set with {@code -Dscale.migrations}, {@code -Dscale.statements}
+ * and {@code -Dscale.statement-size}. The measurements are written to {@code build/scale/results.json}.
+ * If {@code src/test/resources/scale-baseline.json} (or {@code -Dscale.baseline}) exists and was recorded with the
+ * same size, the test fails when a value exceeds the baseline by more than {@code -Dscale.tolerance} (0.25 by default).
+ * {@code -Dscale.update-baseline=true} writes the measurements as the new baseline instead.
+ * </p>
+ */
+@Tag("scale")
+class MigrationScaleTest {
+
+    private static final int MIGRATIONS = Integer.getInteger("scale.migrations", 10_000);
+    private static final int STATEMENTS = Integer.getInteger("scale.statements", 5);
+    private static final int STATEMENT_SIZE = Integer.getInteger("scale.statement-size", 200);
+    private static final double TOLERANCE = Double.parseDouble(System.getProperty("scale.tolerance", "0.25"));
+    private static final boolean UPDATE_BASELINE = Boolean.getBoolean("scale.update-baseline");
+    private static final Path BASELINE = Path.of(System.getProperty("scale.baseline", "src/test/resources/scale-baseline.json"));
+    private static final Path RESULTS = Path.of(System.getProperty("scale.results", "build/scale/results.json"));
+
+    private static final List<String> COMPARED = List.of("wallMillis", "peakHeapBytes", "allocatedBytes");
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Logger libraryLogger = (Logger) LoggerFactory.getLogger("eu.innowise");
+    private Level libraryLogLevel;
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("scale-migrations");
+        libraryLogLevel = libraryLogger.getLevel();
+        libraryLogger.setLevel(Level.WARN);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        libraryLogger.setLevel(libraryLogLevel);
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    void migrateStatusRollback_shouldStayWithinBaseline() throws Exception {
+        // given
+        ScaleMigrationGenerator.generate(directory, MIGRATIONS, STATEMENTS, STATEMENT_SIZE);
+        MigrationTarget target = MigrationTarget.ofUrl("scale", "jdbc:h2:mem:scale;DB_CLOSE_DELAY=-1", "sa", "");
+        MigrationStrategy strategy = new H2MigrationStrategy();
+        MigrationFileReader fileReader = new MigrationFileReader(SqlDialect.H2, directory);
+        MigrationManager manager = new MigrationManager(fileReader, target);
+        MigrationExecutor executor = new MigrationExecutor(manager, fileReader, strategy, target);
+        int[] applied = new int[1];
+        int[] pending = new int[1];
+
+        // when
+        Map<String, PhaseMeasurement> phases = new LinkedHashMap<>();
+        phases.put("migrate", PhaseMeasurement.measure(() -> {
+            try (Connection connection = target.getConnection()) {
+                strategy.ensureMetadataTableExists(connection);
+            }
+            executor.executeMigrations(manager.getPendingMigrations());
+        }));
+        phases.put("status", PhaseMeasurement.measure(() -> {
+            applied[0] = manager.getAppliedMigrations().size();
+            pending[0] = manager.getPendingMigrations().size();
+        }));
+        phases.put("rollback", PhaseMeasurement.measure(() -> executor.rollbackMigrationToVersion("0")));
+
+        Map<String, Object> results = toResults(phases);
+        write(UPDATE_BASELINE ? BASELINE : RESULTS, results);
+
+        // then
+        Assertions.assertEquals(MIGRATIONS, applied[0]);
+        Assertions.assertEquals(0, pending[0]);
+        Assertions.assertTrue(manager.getAppliedMigrations().isEmpty());
+        Assertions.assertEquals(List.of(), regressions(results));
+    }
+
+    private Map<String, Object> toResults(Map<String, PhaseMeasurement> phases) {
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        parameters.put("migrations", MIGRATIONS);
+        parameters.put("statements", STATEMENTS);
+        parameters.put("statementSize", STATEMENT_SIZE);
+
+        Map<String, Map<String, Long>> values = new LinkedHashMap<>();
+        phases.forEach((name, measurement) -> {
+            Map<String, Long> phase = new LinkedHashMap<>();
+            phase.put("wallMillis", measurement.wallMillis());
+            phase.put("peakHeapBytes", measurement.peakHeapBytes());
+            phase.put("allocatedBytes", measurement.allocatedBytes());
+            phase.put("allocationRate", measurement.allocationRate());
+            values.put(name, phase);
+            System.out.printf("%-8s %8d ms, peak heap %6d MB, allocated %7d MB (%d MB/s)%n", name,
+                    measurement.wallMillis(), measurement.peakHeapBytes() >> 20, measurement.allocatedBytes() >> 20,
+                    measurement.allocationRate() >> 20);
+        });
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        results.put("parameters", parameters);
+        results.put("phases", values);
+        return results;
+    }
+
+    /**
+     * Compares the results with the baseline, if there is one for the same parameters.
+     *
+     * @return a description of every value above the baseline plus the tolerance
+     */
+    private List<String> regressions(Map<String, Object> results) throws IOException {
+        if (UPDATE_BASELINE || Files.notExists(BASELINE)) {
+            return List.of();
+        }
+        Map<String, Object> baseline = mapper.readValue(BASELINE.toFile(), new TypeReference<>() {
+        });
+        if (!mapper.valueToTree(baseline.get("parameters")).equals(mapper.valueToTree(results.get("parameters")))) {
+            System.out.println("Baseline " + BASELINE + " was recorded with other parameters, skipping the comparison.");
+            return List.of();
+        }
+
+        Map<String, Map<String, Number>> expected = mapper.convertValue(baseline.get("phases"), new TypeReference<>() {
+        });
+        Map<String, Map<String, Number>> actual = mapper.convertValue(results.get("phases"), new TypeReference<>() {
+        });
+        List<String> regressions = new ArrayList<>();
+        expected.forEach((phase, values) -> COMPARED.forEach(key -> {
+            long limit = (long) (values.get(key).longValue() * (1 + TOLERANCE));
+            long value = actual.get(phase).get(key).longValue();
+            if (value > limit) {
+                regressions.add(phase + "." + key + ": " + value + " > " + limit);
+            }
+        }));
+        return regressions;
+    }
+
+    private void write(Path file, Map<String, Object> results) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        mapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), results);
+        System.out.println("Scale test results written to " + file.toAbsolutePath());
+    }
+}
@@ -0,0 +1,82 @@
+package eu.innowise.scale;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Wall time, peak heap and allocated bytes of one phase of the scale test.
+ * <p>
+ * The peak heap is the sum of the peak usage of the heap memory pools during the phase, after a GC before it.
+ * Allocations are summed over the threads alive at the end of the phase; threads that ended during the phase,
+ * such as the file discovery pool, are not counted.
+ * </p>
+ *
+ * @param wallMillis     the elapsed time
+ * @param peakHeapBytes  the peak heap usage
+ * @param allocatedBytes the bytes allocated
+ */
+record PhaseMeasurement(long wallMillis, long peakHeapBytes, long allocatedBytes) {
+
+    /**
+     * A phase of the scale test.
+     */
+    @FunctionalInterface
+    interface Phase {
+        void run() throws Exception;
+    }
+
+    /**
+     * Runs the phase and measures it.
+     *
+     * @param phase the phase
+     * @return the measurement
+     * @throws Exception if the phase fails
+     */
+    static PhaseMeasurement measure(Phase phase) throws Exception {
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+        System.gc();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        Map<Long, Long> allocatedBefore = allocatedByThread();
+        long start = System.nanoTime();
+        phase.run();
+        long wallMillis = (System.nanoTime() - start) / 1_000_000;
+        long allocated = 0;
+        for (Map.Entry<Long, Long> thread : allocatedByThread().entrySet()) {
+            allocated += thread.getValue() - allocatedBefore.getOrDefault(thread.getKey(), 0L);
+        }
+
+        long peakHeap = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        return new PhaseMeasurement(wallMillis, peakHeap, Math.max(0, allocated));
+    }
+
+    /**
+     * @return the allocation rate in bytes per second
+     */
+    long allocationRate() {
+        return wallMillis == 0 ? allocatedBytes : allocatedBytes * 1000 / wallMillis;
+    }
+
+    /**
+     * @return the bytes allocated so far by each live thread, by thread id
+     */
+    private static Map<Long, Long> allocatedByThread() {
+        Map<Long, Long> allocated = new HashMap<>();
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads) {
+            long[] ids = threads.getAllThreadIds();
+            long[] bytes = threads.getThreadAllocatedBytes(ids);
+            for (int i = 0; i < ids.length; i++) {
+                if (bytes[i] >= 0) {
+                    allocated.put(ids[i], bytes[i]);
+                }
+            }
+        }
+        return allocated;
+    }
+}
@@ -0,0 +1,39 @@
+package eu.innowise.scale;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes synthetic migration and rollback files: every {@code V<n>} migration creates its own table and inserts
+ * rows into it, and the matching {@code U<n>} file drops the table.
+ */
+final class ScaleMigrationGenerator {
+
+    private ScaleMigrationGenerator() {
+    }
+
+    /**
+     * @param folder        the folder to write to
+     * @param migrations    the number of migrations
+     * @param statements    the number of statements per migration, including the {@code CREATE TABLE}
+     * @param statementSize the approximate length of every {@code INSERT} statement in characters
+     * @throws IOException if a file cannot be written
+     */
+    static void generate(Path folder, int migrations, int statements, int statementSize) throws IOException {
+        String payload = "x".repeat(Math.max(1, statementSize - 60));
+        for (int version = 1; version <= migrations; version++) {
+            String table = "scale_" + version;
+            try (Writer writer = Files.newBufferedWriter(folder.resolve("V" + version + "__Create_" + table + ".sql"),
+                    StandardCharsets.UTF_8)) {
+                writer.write("CREATE TABLE " + table + " (id INT PRIMARY KEY, payload VARCHAR(" + payload.length() + "));\n");
+                for (int row = 1; row < statements; row++) {
+                    writer.write("INSERT INTO " + table + " (id, payload) VALUES (" + row + ", '" + payload + "');\n");
+                }
+            }
+            Files.writeString(folder.resolve("U" + version + "__Drop_" + table + ".sql"), "DROP TABLE " + table + ";\n");
+        }
+    }
+}
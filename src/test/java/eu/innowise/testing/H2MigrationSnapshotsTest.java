@@ -0,0 +1,96 @@
+package eu.innowise.testing;
+
+import eu.innowise.db.MigrationTarget;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+class H2MigrationSnapshotsTest {
+
+    private Path directory;
+    private Path migrations;
+    private H2MigrationSnapshots snapshots;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("snapshots");
+        migrations = Files.createDirectory(directory.resolve("migrations"));
+        snapshots = new H2MigrationSnapshots(migrations, directory.resolve("snapshots"));
+        Files.writeString(migrations.resolve("V1__Create_users.sql"), "CREATE TABLE users (id INT PRIMARY KEY, name VARCHAR(50));");
+        Files.writeString(migrations.resolve("V2__Insert_admin.sql"), "INSERT INTO users VALUES (1, 'admin');");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    void restore_shouldCreateIndependentMigratedDatabases() throws SQLException {
+        // given
+        Path snapshot = snapshots.snapshot();
+
+        // when
+        MigrationTarget first = H2MigrationSnapshots.restore(snapshot, "snapshot_test_first");
+        MigrationTarget second = H2MigrationSnapshots.restore(snapshot, "snapshot_test_second");
+        try {
+            execute(first, "INSERT INTO users VALUES (2, 'user')");
+
+            // then
+            Assertions.assertEquals(2, count(first, "SELECT COUNT(*) FROM users"));
+            Assertions.assertEquals(1, count(second, "SELECT COUNT(*) FROM users"));
+            Assertions.assertEquals(2, count(second, "SELECT COUNT(*) FROM schema_history"));
+        } finally {
+            H2MigrationSnapshots.drop(first);
+            H2MigrationSnapshots.drop(second);
+        }
+    }
+
+    @Test
+    void snapshot_shouldBeReused_untilAMigrationFileChanges() throws IOException {
+        // given
+        Path snapshot = snapshots.snapshot();
+
+        // when
+        Path reused = snapshots.snapshot();
+        Files.writeString(migrations.resolve("V2__Insert_admin.sql"), "INSERT INTO users VALUES (1, 'root');");
+        Path changed = snapshots.snapshot();
+
+        // then
+        Assertions.assertEquals(snapshot, reused);
+        Assertions.assertNotEquals(snapshot, changed);
+        Assertions.assertTrue(Files.exists(changed));
+        Assertions.assertFalse(Files.exists(snapshot));
+    }
+
+    private static void execute(MigrationTarget target, String sql) throws SQLException {
+        try (Connection connection = target.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static int count(MigrationTarget target, String sql) throws SQLException {
+        try (Connection connection = target.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
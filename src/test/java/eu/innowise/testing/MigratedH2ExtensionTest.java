@@ -0,0 +1,65 @@
+package eu.innowise.testing;
+
+import eu.innowise.db.MigrationTarget;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+class MigratedH2ExtensionTest {
+
+    private static final Path DIRECTORY = createMigrations();
+
+    @RegisterExtension
+    static final MigratedH2Extension DATABASE = new MigratedH2Extension(DIRECTORY.resolve("migrations"),
+            DIRECTORY.resolve("snapshots"));
+
+    private static Path createMigrations() {
+        try {
+            Path directory = Files.createTempDirectory("migrated-h2");
+            Path migrations = Files.createDirectory(directory.resolve("migrations"));
+            Files.writeString(migrations.resolve("V1__Create_users.sql"), "CREATE TABLE users (id INT PRIMARY KEY);");
+            return directory;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(DIRECTORY)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    void getTarget_shouldReturnMigratedDatabase() throws SQLException {
+        // when & then
+        Assertions.assertEquals(1, insertUser(DATABASE.getTarget()));
+    }
+
+    @Test
+    void resolveParameter_shouldReturnADatabaseNotChangedByOtherTests(MigrationTarget target) throws SQLException {
+        // when & then
+        Assertions.assertEquals(1, insertUser(target));
+    }
+
+    private static int insertUser(MigrationTarget target) throws SQLException {
+        try (Connection connection = target.getConnection();
+             Statement statement = connection.createStatement()) {
+            return statement.executeUpdate("INSERT INTO users VALUES (1)");
+        }
+    }
+}
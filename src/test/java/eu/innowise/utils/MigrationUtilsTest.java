@@ -20,8 +20,8 @@ class MigrationUtilsTest {
             Files.writeString(file, "test content");
 
             // when
-            int checksum1 = MigrationUtils.calculateChecksum(file);
-            int checksum2 = MigrationUtils.calculateChecksum(file);
+            long checksum1 = MigrationUtils.calculateChecksum(file);
+            long checksum2 = MigrationUtils.calculateChecksum(file);
 
             // then
             Assertions.assertEquals(checksum1, checksum2);
@@ -32,11 +32,11 @@ class MigrationUtilsTest {
             // given
             Path file = Path.of("testFile.txt");
             Files.writeString(file, "test content");
-            int expected = MigrationUtils.calculateChecksum(file);
+            long expected = MigrationUtils.calculateChecksum(file);
 
             // when
             Files.writeString(file, "new text");
-            int actual = MigrationUtils.calculateChecksum(file);
+            long actual = MigrationUtils.calculateChecksum(file);
 
             // then
             Assertions.assertNotEquals(expected, actual);
@@ -3,6 +3,8 @@ package eu.innowise.utils;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.Map;
+
 class PropertiesUtilsTest {
 
     @Test
@@ -19,4 +21,15 @@ class PropertiesUtilsTest {
         // then
         Assertions.assertNull(result);
     }
-}
\ No newline at end of file
+
+    @Test
+    void getPropertiesWithPrefix_shouldStripPrefix() {
+        // when
+        Map<String, String> result = PropertiesUtils.getPropertiesWithPrefix("db.");
+
+        // then
+        Assertions.assertEquals("admin", result.get("username"));
+        Assertions.assertEquals("jdbc:postgresql://localhost:5438/migrationTestDB", result.get("url"));
+        Assertions.assertTrue(PropertiesUtils.getPropertiesWithPrefix("db.property.").isEmpty());
+    }
+}
@@ -0,0 +1,209 @@
+package eu.innowise.testing;
+
+import eu.innowise.checksum.ChecksumAlgorithm;
+import eu.innowise.db.MigrationTarget;
+import eu.innowise.db.impl.H2MigrationStrategy;
+import eu.innowise.exceptions.MigrationException;
+import eu.innowise.migration.MigrationExecutor;
+import eu.innowise.migration.MigrationFileReader;
+import eu.innowise.migration.MigrationManager;
+import eu.innowise.model.Migration;
+import eu.innowise.parser.SqlDialect;
+import eu.innowise.utils.Constants;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.Checksum;
+
+/**
+ * Snapshots of an H2 database with all migrations applied, for test suites that need a migrated database per test.
+ * <p>
+ * The migrations are applied once to a scratch in-memory database, which is written to
+ * {@code h2-<checksum>.sql} in the snapshot directory with H2 {@code SCRIPT}. The checksum covers the version,
+ * description and checksum of every migration and baseline file and the schema history table definition,
+ * so changing, adding or removing a migration file selects a new snapshot; older snapshots are deleted when it is written.
+ * A snapshot is restored into a new in-memory database with {@code RUNSCRIPT}, without replaying the migrations.
+ * Snapshots are shared by test classes and, through the directory, by later test runs.
+ * </p>
+ */
+@Slf4j
+public final class H2MigrationSnapshots {
+
+    /**
+     * The snapshot directory used unless another one is given, relative to the working directory of the tests.
+     */
+    public static final Path DEFAULT_DIRECTORY = Path.of("build", "migration-snapshots");
+
+    private static final String SNAPSHOT_PREFIX = "h2-";
+    private static final String H2_USER = "sa";
+    private static final Map<Path, Path> SNAPSHOTS = new ConcurrentHashMap<>();
+
+    private final Path migrationFolder;
+    private final Path directory;
+
+    /**
+     * @param migrationFolder the folder with the migration files, or {@code null} to resolve {@code migration.folder}
+     *                        from the classpath
+     * @param directory       the directory the snapshots are written to
+     */
+    public H2MigrationSnapshots(Path migrationFolder, Path directory) {
+        this.migrationFolder = migrationFolder;
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the snapshot of the current migration files, migrating a scratch database first if there is none.
+     * The migration files are read on every call, so a change is picked up by the next test class.
+     *
+     * @return the snapshot script
+     * @throws MigrationException if the migration files cannot be read, a migration fails or the snapshot cannot be written
+     */
+    public Path snapshot() {
+        Path file = directory.resolve(SNAPSHOT_PREFIX + key() + Constants.SQL_EXTENSION);
+        // concurrent test classes wait for the snapshot being written instead of writing it again
+        return SNAPSHOTS.compute(file.toAbsolutePath(), (path, written) -> Files.exists(path) ? path : create(path));
+    }
+
+    /**
+     * Restores a snapshot into a new in-memory database, which is kept until {@link #drop(MigrationTarget)}.
+     *
+     * @param snapshot the snapshot returned by {@link #snapshot()}
+     * @param name     the database name, unique among the open databases
+     * @return the target of the restored database
+     * @throws MigrationException if the snapshot cannot be restored
+     */
+    public static MigrationTarget restore(Path snapshot, String name) {
+        MigrationTarget target = MigrationTarget.ofUrl(name, "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", H2_USER, "");
+        long start = System.nanoTime();
+        try (Connection connection = target.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("RUNSCRIPT FROM '" + quote(snapshot) + "'");
+        } catch (SQLException e) {
+            throw new MigrationException("Failed to restore snapshot " + snapshot + " into database " + name, e);
+        }
+        log.debug("Restored snapshot {} into database {} in {} ms.", snapshot.getFileName(), name,
+                (System.nanoTime() - start) / 1_000_000);
+        return target;
+    }
+
+    /**
+     * Closes an in-memory database created by {@link #restore(Path, String)}, discarding its contents.
+     *
+     * @param target the target of the database
+     */
+    public static void drop(MigrationTarget target) {
+        try (Connection connection = target.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("SHUTDOWN");
+        } catch (SQLException e) {
+            log.warn("Failed to close database {}.", target, e);
+        }
+    }
+
+    /**
+     * Calculates the checksum of the migration set in hexadecimal.
+     */
+    String key() {
+        MigrationFileReader fileReader = new MigrationFileReader(SqlDialect.H2, migrationFolder);
+        List<Migration> migrations = new ArrayList<>();
+        try {
+            migrations.addAll(fileReader.findMigrationFilesInResources());
+            migrations.addAll(fileReader.findBaselineFilesInResources());
+        } catch (IOException | URISyntaxException e) {
+            throw new MigrationException("Error discovering migration files.", e);
+        }
+
+        Checksum checksum = ChecksumAlgorithm.XXH64.newChecksum();
+        update(checksum, Constants.CREATE_SCHEMA_TABLE_H2);
+        update(checksum, fileReader.getChecksumAlgorithm().name());
+        for (Migration migration : migrations) {
+            update(checksum, migration.getClass().getSimpleName() + " " + migration.getVersion() + " "
+                    + migration.getDescription() + " " + migration.getChecksum() + "\n");
+        }
+        return String.format("%016x", checksum.getValue());
+    }
+
+    private static void update(Checksum checksum, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        checksum.update(bytes, 0, bytes.length);
+    }
+
+    private Path create(Path file) {
+        String name = file.getFileName().toString();
+        String scratch = "snapshot-" + name.substring(0, name.length() - Constants.SQL_EXTENSION.length());
+        MigrationTarget target = MigrationTarget.ofUrl(scratch, "jdbc:h2:mem:" + scratch + ";DB_CLOSE_DELAY=-1",
+                H2_USER, "");
+        H2MigrationStrategy strategy = new H2MigrationStrategy();
+        MigrationFileReader fileReader = new MigrationFileReader(SqlDialect.H2, migrationFolder);
+        MigrationManager manager = new MigrationManager(fileReader, target);
+        Path temp = file.resolveSibling(name + ".tmp");
+
+        long start = System.nanoTime();
+        try {
+            try (Connection connection = target.getConnection()) {
+                strategy.ensureMetadataTableExists(connection);
+            }
+            List<Migration> pending = manager.filterPending(manager.withBaseline(manager.getAllMigrations()));
+            if (!pending.isEmpty()) {
+                new MigrationExecutor(manager, fileReader, strategy, target).executeMigrations(pending);
+            }
+
+            Files.createDirectories(directory);
+            try (Connection connection = target.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.execute("SCRIPT TO '" + quote(temp) + "'");
+            }
+            move(temp, file);
+            deleteStaleSnapshots(file);
+            log.info("Wrote snapshot {} of {} migrations in {} ms.", file, pending.size(), (System.nanoTime() - start) / 1_000_000);
+            return file;
+        } catch (SQLException | IOException e) {
+            throw new MigrationException("Failed to write snapshot " + file, e);
+        } finally {
+            drop(target);
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                log.warn("Failed to delete temporary snapshot {}.", temp, e);
+            }
+        }
+    }
+
+    private static void move(Path temp, Path file) throws IOException {
+        try {
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void deleteStaleSnapshots(Path current) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(Constants.SQL_EXTENSION) && !file.getFileName().equals(current.getFileName())) {
+                    Files.deleteIfExists(file);
+                    log.debug("Deleted stale snapshot {}.", file);
+                }
+            }
+        }
+    }
+
+    private static String quote(Path file) {
+        return file.toAbsolutePath().toString().replace("'", "''");
+    }
+}
@@ -0,0 +1,111 @@
+package eu.innowise.testing;
+
+import eu.innowise.db.MigrationTarget;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolver;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * JUnit 5 extension that gives every test a fresh in-memory H2 database with all migrations applied.
+ * <p>
+ * The migrations are applied once per migration set and kept as a snapshot, see {@link H2MigrationSnapshots};
+ * each test gets a new database restored from the snapshot, which is closed after the test.
+ * Register it on a static field, so the snapshot is looked up once per test class:
+ * <pre>
+ * &#64;RegisterExtension
+ * static final MigratedH2Extension DATABASE = new MigratedH2Extension();
+ *
+ * &#64;Test
+ * void test() throws SQLException {
+ *     try (Connection connection = DATABASE.getTarget().getConnection()) {
+ *         ...
+ *     }
+ * }
+ * </pre>
+ * Test methods may also declare a {@link MigrationTarget} parameter. The database of the running test is held
+ * by the extension, so the tests of a class must not run concurrently.
+ * </p>
+ */
+public class MigratedH2Extension implements BeforeAllCallback, BeforeEachCallback, AfterEachCallback, ParameterResolver {
+
+    private static final AtomicLong DATABASES = new AtomicLong();
+
+    private final H2MigrationSnapshots snapshots;
+    private Path snapshot;
+    private MigrationTarget target;
+
+    /**
+     * Creates an extension for the migrations in the {@code migration.folder} resource,
+     * with snapshots in {@link H2MigrationSnapshots#DEFAULT_DIRECTORY}.
+     */
+    public MigratedH2Extension() {
+        this(null);
+    }
+
+    /**
+     * @param migrationFolder the folder with the migration files, or {@code null} to resolve {@code migration.folder}
+     *                        from the classpath
+     */
+    public MigratedH2Extension(Path migrationFolder) {
+        this(migrationFolder, H2MigrationSnapshots.DEFAULT_DIRECTORY);
+    }
+
+    /**
+     * @param migrationFolder   the folder with the migration files, or {@code null} to resolve {@code migration.folder}
+     *                          from the classpath
+     * @param snapshotDirectory the directory the snapshots are written to
+     */
+    public MigratedH2Extension(Path migrationFolder, Path snapshotDirectory) {
+        this.snapshots = new H2MigrationSnapshots(migrationFolder, snapshotDirectory);
+    }
+
+    /**
+     * @return the database of the running test
+     * @throws IllegalStateException if no test is running
+     */
+    public MigrationTarget getTarget() {
+        if (target == null) {
+            throw new IllegalStateException("The migrated database is only available while a test runs.");
+        }
+        return target;
+    }
+
+    @Override
+    public void beforeAll(ExtensionContext context) {
+        snapshot = snapshots.snapshot();
+    }
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        if (snapshot == null) {
+            // registered on an instance field, beforeAll is not called
+            snapshot = snapshots.snapshot();
+        }
+        target = H2MigrationSnapshots.restore(snapshot,
+                "migrated-" + context.getRequiredTestClass().getSimpleName() + "-" + DATABASES.incrementAndGet());
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        if (target != null) {
+            H2MigrationSnapshots.drop(target);
+            target = null;
+        }
+    }
+
+    @Override
+    public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return parameterContext.getParameter().getType() == MigrationTarget.class;
+    }
+
+    @Override
+    public Object resolveParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return getTarget();
+    }
+}